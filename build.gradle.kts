@@ -41,8 +41,16 @@ sourceSets {
             "runelite/runelite-client/src/main/resources"
         )
     }
+    /* JMH benchmarks, run with ./gradlew jmh [-Pjmh.includes=<regex>] */
+    create("jmh") {
+        compileClasspath += sourceSets["main"].output + sourceSets["test"].output
+        runtimeClasspath += sourceSets["main"].output + sourceSets["test"].output
+    }
 }
 
+configurations["jmhImplementation"].extendsFrom(configurations["testImplementation"])
+configurations["jmhRuntimeOnly"].extendsFrom(configurations["testRuntimeOnly"])
+
 dependencies {
 
     /* Core */
@@ -85,10 +93,25 @@ dependencies {
     /* Testing */
     testImplementation("org.junit.jupiter:junit-jupiter-api:5.9.0")
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.9.0")
+
+    /* Benchmarks */
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.36")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.36")
 }
 
 tasks.test {
     useJUnitPlatform()
+    /* Cache the tile blend tests read map squares from, ./gradlew test -Pcache.dir=<dir> */
+    (findProperty("cache.dir") as String?)?.let { systemProperty("cache.dir", it) }
+}
+
+tasks.register<JavaExec>("jmh") {
+    description = "Runs the JMH benchmarks."
+    group = "verification"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    (findProperty("jmh.includes") as String?)?.let { args(it) }
+    (findProperty("cache.dir") as String?)?.let { systemProperty("cache.dir", it) }
 }
 
 tasks.register<Jar>("createStandardJar") {
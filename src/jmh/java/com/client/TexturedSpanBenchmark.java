@@ -0,0 +1,68 @@
+package com.client;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.client.Rasterizer.Target;
+
+/**
+ * Replays the same {@link TexturedSpans} through the span functions and through the scanline functions they
+ * replaced. Each invocation draws every row once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TexturedSpanBenchmark {
+
+    @Param({ "true", "false" })
+    public boolean restrictEdges;
+
+    private TexturedSpans spans;
+    private Target target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TexturedSpans.fillPalette();
+        spans = new TexturedSpans(317, 2000);
+        target = TexturedSpans.target(restrictEdges, 0);
+    }
+
+    @Benchmark
+    public int legacyTexturedLine() {
+        spans.drawLegacyTextured(target);
+        return target.pixelCount;
+    }
+
+    @Benchmark
+    public int texturedSpan() {
+        spans.drawTextured(target);
+        return target.pixelCount;
+    }
+
+    @Benchmark
+    public int legacyMaterializedScanline() {
+        spans.drawLegacyMaterialized(target);
+        return target.pixelCount;
+    }
+
+    @Benchmark
+    public int materializedSpan() {
+        spans.drawMaterialized(target);
+        return target.pixelCount;
+    }
+}
@@ -0,0 +1,60 @@
+package com.client;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Blends every plane of the scenes built from {@link MapSquares} with {@link LegacyTileBlend} and with
+ * {@link ObjectManager#sumUnderlays}. Run with {@code -Dcache.dir} to blend the cache's squares, otherwise the
+ * custom maps are blended, and when there are neither the benchmarks blend nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TileBlendBenchmark {
+
+	private ObjectManager[] scenes;
+	private LegacyTileBlend legacy;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		MapSquares squares = MapSquares.load();
+		if (squares.isEmpty())
+			System.err.println("No map squares in " + squares.source + ", nothing will be blended.");
+		scenes = new ObjectManager[squares.scenes()];
+		for (int scene = 0; scene < scenes.length; scene++)
+			scenes[scene] = squares.scene(scene);
+		legacy = new LegacyTileBlend(104, 104);
+	}
+
+	@Benchmark
+	public void legacyBlend(Blackhole blackhole) {
+		for (ObjectManager scene : scenes) {
+			for (int plane = 0; plane < 4; plane++)
+				blackhole.consume(legacy.blendUnderlays(scene.underlays[plane]));
+		}
+	}
+
+	@Benchmark
+	public void packedSums(Blackhole blackhole) {
+		for (ObjectManager scene : scenes) {
+			for (int plane = 0; plane < 4; plane++)
+				blackhole.consume(scene.sumUnderlays(plane));
+		}
+	}
+}
@@ -24,7 +24,7 @@ final class Animable_Sub3 extends Renderable {
 		if (model == null)
 			return null;
 		int j = aSpotAnim_1568.aAnimation_407.anIntArray353[anInt1569];
-		Model model_1 = new Model(true, Class36.method532(j), false, model);
+		Model model_1 = ModelPool.copy(Class36.method532(j), model);
 		if (!aBoolean1567) {
 			model_1.method469();
 			model_1.method470(j);
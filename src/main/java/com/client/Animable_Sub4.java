@@ -34,7 +34,7 @@ final class Animable_Sub4 extends Renderable {
 		int j = -1;
 		if (aSpotAnim_1592.aAnimation_407 != null)
 			j = aSpotAnim_1592.aAnimation_407.anIntArray353[anInt1593];
-		Model model_1 = new Model(true, Class36.method532(j), false, model);
+		Model model_1 = ModelPool.copy(Class36.method532(j), model);
 		if (j != -1) {
 			model_1.method469();
 			model_1.method470(j);
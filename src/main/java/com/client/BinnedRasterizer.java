@@ -0,0 +1,320 @@
+package com.client;
+
+import java.util.Arrays;
+
+/**
+ * Draws the scene triangles on several threads, enabled with {@link Configuration#binnedRasterizer}.
+ *
+ * While recording, the {@link Rasterizer} triangle functions append their arguments to a command buffer
+ * instead of drawing. On {@link #flush()} every command is binned into the horizontal bands of the
+ * viewport it covers and each band is filled on a worker thread, replaying its commands in the order they
+ * were recorded. Bands are full rows because the rasterizer only clips x per scanline. A band steps each
+ * triangle from its top edge exactly as the direct path does and only draws the lines it owns, so the
+ * colour and depth written match the direct path bit for bit.
+ */
+final class BinnedRasterizer {
+
+	private static final byte FLAT = 0;
+	private static final byte LD_GOURAUD = 1;
+	private static final byte HD_GOURAUD = 2;
+	private static final byte TEXTURED = 3;
+	private static final byte MATERIALIZED = 4;
+
+	/** Ints per command: the minimum and maximum y, the edge and alpha state, then the arguments. */
+	private static final int INTS = 24;
+	private static final int FLOATS = 3;
+	private static final int MIN_Y = 0;
+	private static final int MAX_Y = 1;
+	private static final int FLAGS = 2;
+	private static final int ALPHA = 3;
+	private static final int ARGS = 4;
+	private static final int RESTRICT_EDGES = 1;
+	private static final int OPAQUE = 1 << 1;
+
+	private static final int BAND_HEIGHT = 32;
+	/** Frames with fewer commands than this are replayed on the calling thread. */
+	private static final int MIN_PARALLEL_COMMANDS = 512;
+
+	private static boolean recording;
+	private static int count;
+	private static byte[] kinds = new byte[4096];
+	private static int[] ints = new int[4096 * INTS];
+	private static float[] floats = new float[4096 * FLOATS];
+	private static Object[] refs = new Object[4096];
+
+	private static int[] bandStarts = new int[0];
+	private static int[] bandCommands = new int[0];
+	private static Rasterizer.Target[] bands = new Rasterizer.Target[0];
+
+	private BinnedRasterizer() {
+	}
+
+	/**
+	 * Starts recording the triangles drawn until {@link #end()}, if the binned rasterizer is enabled.
+	 */
+	static void begin() {
+		if (!Configuration.binnedRasterizer)
+			return;
+		recording = true;
+		count = 0;
+	}
+
+	/**
+	 * Draws everything recorded since {@link #begin()} and stops recording.
+	 */
+	static void end() {
+		if (!recording)
+			return;
+		try {
+			flush();
+		} finally {
+			recording = false;
+		}
+	}
+
+	static boolean isRecording() {
+		return recording;
+	}
+
+	static void recordFlat(int y1, int y2, int y3, int x1, int x2, int x3, int rgb, float z1, float z2, float z3) {
+		int i = append(FLAT, y1, y2, y3, 0);
+		ints[i++] = x1;
+		ints[i++] = x2;
+		ints[i++] = x3;
+		ints[i] = rgb;
+		setDepth(z1, z2, z3);
+	}
+
+	static void recordGouraud(boolean hd, int y1, int y2, int y3, int x1, int x2, int x3, int hsl1, int hsl2, int hsl3,
+			float z1, float z2, float z3) {
+		int i = append(hd ? HD_GOURAUD : LD_GOURAUD, y1, y2, y3, 0);
+		ints[i++] = x1;
+		ints[i++] = x2;
+		ints[i++] = x3;
+		ints[i++] = hsl1;
+		ints[i++] = hsl2;
+		ints[i] = hsl3;
+		setDepth(z1, z2, z3);
+	}
+
+	static void recordTextured(int[] texturePixels, boolean opaque, int y1, int y2, int y3, int x1, int x2, int x3,
+			int hsl1, int hsl2, int hsl3, int tx1, int tx2, int tx3, int ty1, int ty2, int ty3, int tz1, int tz2, int tz3) {
+		int i = append(TEXTURED, y1, y2, y3, opaque ? OPAQUE : 0);
+		ints[i++] = x1;
+		ints[i++] = x2;
+		ints[i++] = x3;
+		ints[i++] = hsl1;
+		ints[i++] = hsl2;
+		ints[i++] = hsl3;
+		ints[i++] = tx1;
+		ints[i++] = tx2;
+		ints[i++] = tx3;
+		ints[i++] = ty1;
+		ints[i++] = ty2;
+		ints[i++] = ty3;
+		ints[i++] = tz1;
+		ints[i++] = tz2;
+		ints[i] = tz3;
+		refs[count - 1] = texturePixels;
+	}
+
+	static void recordMaterialized(int[] texels, int y1, int y2, int y3, int x1, int x2, int x3, int hsl1, int hsl2,
+			int hsl3, int tx1, int tx2, int tx3, int ty1, int ty2, int ty3, int tz1, int tz2, int tz3, int tex, float z1,
+			float z2, float z3) {
+		int i = append(MATERIALIZED, y1, y2, y3, 0);
+		ints[i++] = x1;
+		ints[i++] = x2;
+		ints[i++] = x3;
+		ints[i++] = hsl1;
+		ints[i++] = hsl2;
+		ints[i++] = hsl3;
+		ints[i++] = tx1;
+		ints[i++] = tx2;
+		ints[i++] = tx3;
+		ints[i++] = ty1;
+		ints[i++] = ty2;
+		ints[i++] = ty3;
+		ints[i++] = tz1;
+		ints[i++] = tz2;
+		ints[i++] = tz3;
+		ints[i] = tex;
+		refs[count - 1] = texels;
+		setDepth(z1, z2, z3);
+	}
+
+	/**
+	 * Appends a command holding the y coordinates and the per face rasterizer state.
+	 * @return the index of the first kind specific int
+	 */
+	private static int append(byte kind, int y1, int y2, int y3, int flags) {
+		if (count == kinds.length) {
+			int capacity = count << 1;
+			kinds = Arrays.copyOf(kinds, capacity);
+			ints = Arrays.copyOf(ints, capacity * INTS);
+			floats = Arrays.copyOf(floats, capacity * FLOATS);
+			refs = Arrays.copyOf(refs, capacity);
+		}
+		kinds[count] = kind;
+		int i = count++ * INTS;
+		ints[i + MIN_Y] = Math.min(y1, Math.min(y2, y3));
+		ints[i + MAX_Y] = Math.max(y1, Math.max(y2, y3));
+		ints[i + FLAGS] = flags | (Rasterizer.aBoolean1462 ? RESTRICT_EDGES : 0);
+		ints[i + ALPHA] = Rasterizer.anInt1465;
+		i += ARGS;
+		ints[i++] = y1;
+		ints[i++] = y2;
+		ints[i++] = y3;
+		return i;
+	}
+
+	private static void setDepth(float z1, float z2, float z3) {
+		int i = (count - 1) * FLOATS;
+		floats[i] = z1;
+		floats[i + 1] = z2;
+		floats[i + 2] = z3;
+	}
+
+	/**
+	 * Draws and discards the commands recorded so far. Recording carries on if it was active.
+	 */
+	static void flush() {
+		if (count == 0)
+			return;
+		if (Rasterizer.anIntArray1472 == null || Rasterizer.anIntArray1472.length != DrawingArea.height)
+			Rasterizer.method365(DrawingArea.width, DrawingArea.height);
+		int bottomY = DrawingArea.bottomY;
+		int bandCount = (bottomY + BAND_HEIGHT - 1) / BAND_HEIGHT;
+		if (bandCount > 0) {
+			bin(bandCount, bottomY);
+			prepareBands(bandCount, bottomY);
+			if (count < MIN_PARALLEL_COMMANDS) {
+				drawBands(0, bandCount);
+			} else {
+				RenderWorkers.forRows(bandCount, 1, BinnedRasterizer::drawBands);
+			}
+		}
+		Arrays.fill(refs, 0, count, null);
+		count = 0;
+	}
+
+	/**
+	 * Lists the commands overlapping each band, keeping them in recording order.
+	 */
+	private static void bin(int bandCount, int bottomY) {
+		if (bandStarts.length < bandCount + 1)
+			bandStarts = new int[bandCount + 1];
+		Arrays.fill(bandStarts, 0, bandCount + 1, 0);
+		int total = 0;
+		for (int command = 0; command < count; command++) {
+			int i = command * INTS;
+			int minY = ints[i + MIN_Y];
+			int maxY = ints[i + MAX_Y];
+			if (maxY < 0 || minY >= bottomY)
+				continue;
+			int last = Math.min(maxY, bottomY - 1) / BAND_HEIGHT;
+			for (int band = Math.max(minY, 0) / BAND_HEIGHT; band <= last; band++) {
+				bandStarts[band + 1]++;
+				total++;
+			}
+		}
+		for (int band = 0; band < bandCount; band++)
+			bandStarts[band + 1] += bandStarts[band];
+		if (bandCommands.length < total)
+			bandCommands = new int[total + (total >> 1)];
+		int[] next = Arrays.copyOf(bandStarts, bandCount);
+		for (int command = 0; command < count; command++) {
+			int i = command * INTS;
+			int minY = ints[i + MIN_Y];
+			int maxY = ints[i + MAX_Y];
+			if (maxY < 0 || minY >= bottomY)
+				continue;
+			int last = Math.min(maxY, bottomY - 1) / BAND_HEIGHT;
+			for (int band = Math.max(minY, 0) / BAND_HEIGHT; band <= last; band++)
+				bandCommands[next[band]++] = command;
+		}
+	}
+
+	/**
+	 * @return the pixels the bands have written since the last call
+	 */
+	static int takePixelCount() {
+		int pixels = 0;
+		for (Rasterizer.Target t : bands) {
+			pixels += t.pixelCount;
+			t.pixelCount = 0;
+		}
+		return pixels;
+	}
+
+	private static void prepareBands(int bandCount, int bottomY) {
+		if (bands.length < bandCount) {
+			Rasterizer.Target[] grown = Arrays.copyOf(bands, bandCount);
+			for (int band = bands.length; band < bandCount; band++)
+				grown[band] = new Rasterizer.Target();
+			bands = grown;
+		}
+		for (int band = 0; band < bandCount; band++) {
+			Rasterizer.Target t = bands[band];
+			int top = band * BAND_HEIGHT;
+			t.pixels = DrawingArea.pixels;
+			t.depth = Rasterizer.depthBuffer;
+			t.width = DrawingArea.width;
+			t.height = DrawingArea.height;
+			t.bottomY = Math.min(top + BAND_HEIGHT, bottomY);
+			t.clipRight = DrawingArea.centerX;
+			t.lineOffsets = Rasterizer.anIntArray1472;
+			t.topOffset = Rasterizer.anIntArray1472[top];
+			t.centerX = Rasterizer.textureInt1;
+			t.centerY = Rasterizer.textureInt2;
+		}
+	}
+
+	private static void drawBands(int from, int to) {
+		for (int band = from; band < to; band++)
+			drawBand(band);
+	}
+
+	private static void drawBand(int band) {
+		Rasterizer.Target t = bands[band];
+		for (int j = bandStarts[band], end = bandStarts[band + 1]; j < end; j++) {
+			int command = bandCommands[j];
+			int i = command * INTS;
+			int flags = ints[i + FLAGS];
+			t.restrictEdges = (flags & RESTRICT_EDGES) != 0;
+			t.alpha = ints[i + ALPHA];
+			i += ARGS;
+			int y1 = ints[i];
+			int y2 = ints[i + 1];
+			int y3 = ints[i + 2];
+			int x1 = ints[i + 3];
+			int x2 = ints[i + 4];
+			int x3 = ints[i + 5];
+			int f = command * FLOATS;
+			switch (kinds[command]) {
+				case FLAT:
+					Rasterizer.drawFlatTriangle(t, y1, y2, y3, x1, x2, x3, ints[i + 6], floats[f], floats[f + 1],
+							floats[f + 2]);
+					break;
+				case LD_GOURAUD:
+					Rasterizer.drawLDGouraudTriangle(t, y1, y2, y3, x1, x2, x3, ints[i + 6], ints[i + 7], ints[i + 8],
+							floats[f], floats[f + 1], floats[f + 2]);
+					break;
+				case HD_GOURAUD:
+					Rasterizer.drawHDGouraudTriangle(t, y1, y2, y3, x1, x2, x3, ints[i + 6], ints[i + 7], ints[i + 8],
+							floats[f], floats[f + 1], floats[f + 2]);
+					break;
+				case TEXTURED:
+					Rasterizer.drawTexturedTriangle(t, (int[]) refs[command], (flags & OPAQUE) != 0, y1, y2, y3, x1, x2,
+							x3, ints[i + 6], ints[i + 7], ints[i + 8], ints[i + 9], ints[i + 10], ints[i + 11],
+							ints[i + 12], ints[i + 13], ints[i + 14], ints[i + 15], ints[i + 16], ints[i + 17]);
+					break;
+				case MATERIALIZED:
+					Rasterizer.drawMaterializedTriangle(t, (int[]) refs[command], y1, y2, y3, x1, x2, x3, ints[i + 6],
+							ints[i + 7], ints[i + 8], ints[i + 9], ints[i + 10], ints[i + 11], ints[i + 12],
+							ints[i + 13], ints[i + 14], ints[i + 15], ints[i + 16], ints[i + 17], ints[i + 18],
+							floats[f], floats[f + 1], floats[f + 2]);
+					break;
+			}
+		}
+	}
+}
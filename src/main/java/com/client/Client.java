@@ -22,10 +22,7 @@ import com.client.graphics.interfaces.eventcalendar.EventCalendar;
 import com.client.graphics.interfaces.impl.*;
 import com.client.graphics.interfaces.settings.Setting;
 import com.client.graphics.interfaces.settings.SettingsInterface;
-import com.client.graphics.loaders.SpriteLoader1;
-import com.client.graphics.loaders.SpriteLoader2;
-import com.client.graphics.loaders.SpriteLoader3;
-import com.client.graphics.loaders.SpriteLoader4;
+import com.client.graphics.loaders.SpriteArchive;
 import com.client.hover.HoverMenuManager;
 import com.client.itembonus.ItemBonusDefinitionLoader;
 import com.client.model.Items;
@@ -40,6 +37,7 @@ import com.client.ui.panel.PanelManager;
 import com.client.ui.panel.UiPanel;
 import com.client.ui.shell.VyknaShell;
 import com.client.utilities.*;
+import com.client.utilities.settings.AntiAliasingFactor;
 import com.client.utilities.settings.InterfaceStyle;
 import com.client.utilities.settings.Settings;
 import com.client.utilities.settings.SettingsManager;
@@ -74,6 +72,7 @@ import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
@@ -934,11 +933,14 @@ public class Client extends RSApplet {
 	private static final int VIEWPORT_RESIZE_HANDLE = 12;
 
 	private void updateGameScreen() {
-		if (getUserSettings().isAntiAliasing()) {
-			antialiasingPixels = new int[Client.worldViewportWidth * worldViewportHeight << 2];
-			antialiasingDepth  = new float[Client.worldViewportWidth * worldViewportHeight << 2];
-		}
-		Rasterizer.method365(Client.worldViewportWidth << 1, worldViewportHeight << 1);
+		AntiAliasingFactor antiAliasing = getUserSettings().getAntiAliasingFactor();
+		int aaWidth = antiAliasing.scale(Client.worldViewportWidth);
+		int aaHeight = antiAliasing.scale(worldViewportHeight);
+		if (antiAliasing.isEnabled()) {
+			antialiasingPixels = new int[aaWidth * aaHeight];
+			antialiasingDepth  = new float[aaWidth * aaHeight];
+		}
+		Rasterizer.method365(aaWidth, aaHeight);
 		antialiasingOffsets = Rasterizer.anIntArray1472;
 		Rasterizer.method365(worldViewportHeight, worldViewportHeight);
 		Rasterizer.method365(worldViewportWidth, worldViewportHeight);
@@ -2224,25 +2226,26 @@ public class Client extends RSApplet {
 	}
 
 	public final void method22() {
+		long loadStart = System.nanoTime();
 		try {
 			anInt985 = -1;
+			minimap.invalidate();
 			aClass19_1056.removeAll();
 			aClass19_1013.removeAll();
-			Rasterizer.method366();
-			unlinkMRUNodes();
-			worldController.initToNull();
-			System.gc();
+			if (regionDecoder == null || !regionDecoder.isFor(terrainData))
+				regionDecoder = startRegionDecoder();
+			// The chunks a region change of whole chunks leaves to build, or null for all of them
+			boolean[][] chunks = sceneWindow.prepare(worldController, aClass11Array1230);
 			load_objects();
-			for (int i = 0; i < 4; i++)
-				aClass11Array1230[i].setDefault();
 
-			for (int l = 0; l < 4; l++) {
-				for (int k1 = 0; k1 < 104; k1++) {
-					for (int j2 = 0; j2 < 104; j2++)
-						byteGroundArray[l][k1][j2] = 0;
-				}
+			ObjectManager objectManager;
+			try {
+				objectManager = regionDecoder.finish(aClass11Array1230, byteGroundArray, intGroundArray);
+			} finally {
+				// A failed decode is started again by the next rebuild rather than rejoined
+				regionDecoder = null;
 			}
-			ObjectManager objectManager = new ObjectManager(byteGroundArray, intGroundArray);
+			objectManager.useSceneWindow(sceneWindow, chunks);
 
 			int k2 = terrainData.length;
 
@@ -2255,25 +2258,6 @@ public class Client extends RSApplet {
 			stream.createFrame(0);
 
 			if (!isDynamicRegion) {
-				for (int i3 = 0; i3 < k2; i3++) {
-					int i4 = (mapCoordinates[i3] >> 8) * 64 - baseX;
-					int k5 = (mapCoordinates[i3] & 0xff) * 64 - baseY;
-
-					byte abyte0[] = terrainData[i3];
-
-					if (abyte0 != null)
-						objectManager.method180(abyte0, k5, i4, (currentRegionX - 6) * 8, (currentRegionY - 6) * 8,
-								aClass11Array1230);
-				}
-
-				for (int j4 = 0; j4 < k2; j4++) {
-					int l5 = (mapCoordinates[j4] >> 8) * 64 - baseX;
-					int k7 = (mapCoordinates[j4] & 0xff) * 64 - baseY;
-					byte abyte2[] = terrainData[j4];
-					if (abyte2 == null && currentRegionY < 800)
-						objectManager.initiateVertexHeights(k7, 64, 64, l5);
-				}
-
 				anInt1097++;
 				if (anInt1097 > 160) {
 					anInt1097 = 0;
@@ -2294,40 +2278,6 @@ public class Client extends RSApplet {
 
 			}
 			if (isDynamicRegion) {
-				for (int j3 = 0; j3 < 4; j3++) {
-					for (int k4 = 0; k4 < 13; k4++) {
-						for (int j6 = 0; j6 < 13; j6++) {
-							int l7 = constructionRegionData[j3][k4][j6];
-							if (l7 != -1) {
-								int i9 = l7 >> 24 & 3;
-								int l9 = l7 >> 1 & 3;
-								int j10 = l7 >> 14 & 0x3ff;
-								int l10 = l7 >> 3 & 0x7ff;
-								int j11 = (j10 / 8 << 8) + l10 / 8;
-								for (int l11 = 0; l11 < mapCoordinates.length; l11++) {
-									if (mapCoordinates[l11] != j11 || terrainData[l11] == null)
-										continue;
-									objectManager.method179(i9, l9, aClass11Array1230, k4 * 8, (j10 & 7) * 8,
-											terrainData[l11], (l10 & 7) * 8, j3, j6 * 8);
-									break;
-								}
-
-							}
-						}
-
-					}
-
-				}
-
-				for (int l4 = 0; l4 < 13; l4++) {
-					for (int k6 = 0; k6 < 13; k6++) {
-						int i8 = constructionRegionData[0][l4][k6];
-						if (i8 == -1)
-							objectManager.initiateVertexHeights(k6 * 8, 8, 8, l4 * 8);
-					}
-
-				}
-
 				stream.createFrame(0);
 
 				for (int l6 = 0; l6 < 4; l6++) {
@@ -2384,7 +2334,9 @@ public class Client extends RSApplet {
 				stream.createFrame(150);
 
 			}
-			method63();
+			method63(chunks);
+			if (!isDynamicRegion)
+				sceneWindow.finished();
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -2400,7 +2352,6 @@ public class Client extends RSApplet {
 		}
 		stream.createFrame(210);
 		stream.writeDWord(0x3f008edd);
-		System.gc();
 		Rasterizer.method367();
 		onDemandFetcher.method566();
 
@@ -2426,7 +2377,15 @@ public class Client extends RSApplet {
 				}
 
 		}
+		RenderStats.regionLoaded(loadStart);
+	}
 
+	/**
+	 * Starts decoding the terrain of the current region on the region worker.
+	 */
+	private RegionDecoder startRegionDecoder() {
+		return RegionDecoder.start(terrainData, mapCoordinates, baseX, baseY, currentRegionX, currentRegionY,
+				isDynamicRegion ? constructionRegionData : null, intGroundArray, !sceneWindow.hasKeptChunks());
 	}
 
 	public void unlinkMRUNodes() {
@@ -2440,59 +2399,16 @@ public class Client extends RSApplet {
 	}
 
 	public void method24(int i) {
-		int ai[] = minimapImage.myPixels;
-		int j = ai.length;
-
-		for (int k = 0; k < j; k++)
-			ai[k] = 0;
-
-		for (int l = 1; l < 103; l++) {
-			int i1 = 24628 + (103 - l) * 512 * 4;
-			for (int k1 = 1; k1 < 103; k1++) {
-				if ((byteGroundArray[i][k1][l] & 0x18) == 0)
-					worldController.method309(ai, i1, i, k1, l);
-				if (i < 3 && (byteGroundArray[i + 1][k1][l] & 8) != 0)
-					worldController.method309(ai, i1, i + 1, k1, l);
-				i1 += 4;
-			}
-
-		}
-
-		int j1 = ((238 + (int) (Math.random() * 20D)) - 10 << 16) + ((238 + (int) (Math.random() * 20D)) - 10 << 8)
-				+ ((238 + (int) (Math.random() * 20D)) - 10);
-		int l1 = (238 + (int) (Math.random() * 20D)) - 10 << 16;
-		minimapImage.method343();
-		for (int i2 = 1; i2 < 103; i2++) {
-			for (int j2 = 1; j2 < 103; j2++) {
-				if ((byteGroundArray[i][j2][i2] & 0x18) == 0)
-					method50(i2, j1, j2, l1, i);
-				if (i < 3 && (byteGroundArray[i + 1][j2][i2] & 8) != 0)
-					method50(i2, j1, j2, l1, i + 1);
-			}
-
-		}
-
-		mainGameGraphicsBuffer.setCanvas();
-		mapIconAmount = 0;
-		for (int k2 = 0; k2 < 104; k2++) {
-			for (int l2 = 0; l2 < 104; l2++) {
-				long i3 = worldController.method303(plane, k2, l2);
-				if (i3 != 0) {
-					int objId = ObjectKey.getObjectId(i3);
-					int j3 = ObjectDefinition.forID(objId).mapFunctionId;
-					if (j3 >= 0 && j3 < mapFunctions.length) {
-						int k3 = k2;
-						int l3 = l2;
-						mapIconSprite[mapIconAmount] = mapFunctions[j3];
-						anIntArray1072[mapIconAmount] = k3;
-						anIntArray1073[mapIconAmount] = l3;
-						mapIconAmount++;
-					}
-				}
-			}
-
-		}
+		if (minimap.draw(i))
+			mainGameGraphicsBuffer.setCanvas();
+	}
 
+	/**
+	 * Redraws the minimap of the current plane around the objects that changed since the last update.
+	 */
+	private void updateMinimap() {
+		if (minimap.update(plane))
+			mainGameGraphicsBuffer.setCanvas();
 	}
 
 	public void spawnGroundItem(int i, int j) {
@@ -4562,6 +4478,7 @@ public class Client extends RSApplet {
 		worldController.initToNull();
 		for (int i = 0; i < 4; i++)
 			aClass11Array1230[i].setDefault();
+		sceneWindow.invalidate();
 		System.gc();
 		stopMidi();
 		currentSong = -1;
@@ -4800,134 +4717,6 @@ public class Client extends RSApplet {
 		}
 	}
 
-	public void method50(int i, int k, int l, int i1, int j1) {
-		long k1 = worldController.method300(j1, l, i);
-		if (k1 != 0) {
-			int l1 = worldController.method304(j1, l, i, k1);
-			int k2 = l1 >> 6 & 3;
-			int i3 = l1 & 0x1f;
-			int k3 = k;
-			if (k1 > 0)
-				k3 = i1;
-			int ai[] = minimapImage.myPixels;
-			int k4 = 24624 + l * 4 + (103 - i) * 512 * 4;
-			int i5 = ObjectKey.getObjectId(k1);
-			ObjectDefinition class46_2 = ObjectDefinition.forID(i5);
-			if (class46_2.mapSceneId != -1) {
-				Background background_2 = mapScenes[class46_2.mapSceneId];
-				if (background_2 != null) {
-					int i6 = (class46_2.xLength * 4 - background_2.width) / 2;
-					int j6 = (class46_2.yLength * 4 - background_2.anInt1453) / 2;
-					background_2.drawBackground(48 + l * 4 + i6, 48 + (104 - i - class46_2.yLength) * 4 + j6);
-				}
-			} else {
-				if (i3 == 0 || i3 == 2)
-					if (k2 == 0) {
-						ai[k4] = k3;
-						ai[k4 + 512] = k3;
-						ai[k4 + 1024] = k3;
-						ai[k4 + 1536] = k3;
-					} else if (k2 == 1) {
-						ai[k4] = k3;
-						ai[k4 + 1] = k3;
-						ai[k4 + 2] = k3;
-						ai[k4 + 3] = k3;
-					} else if (k2 == 2) {
-						ai[k4 + 3] = k3;
-						ai[k4 + 3 + 512] = k3;
-						ai[k4 + 3 + 1024] = k3;
-						ai[k4 + 3 + 1536] = k3;
-					} else if (k2 == 3) {
-						ai[k4 + 1536] = k3;
-						ai[k4 + 1536 + 1] = k3;
-						ai[k4 + 1536 + 2] = k3;
-						ai[k4 + 1536 + 3] = k3;
-					}
-				if (i3 == 3)
-					if (k2 == 0)
-						ai[k4] = k3;
-					else if (k2 == 1)
-						ai[k4 + 3] = k3;
-					else if (k2 == 2)
-						ai[k4 + 3 + 1536] = k3;
-					else if (k2 == 3)
-						ai[k4 + 1536] = k3;
-				if (i3 == 2)
-					if (k2 == 3) {
-						ai[k4] = k3;
-						ai[k4 + 512] = k3;
-						ai[k4 + 1024] = k3;
-						ai[k4 + 1536] = k3;
-					} else if (k2 == 0) {
-						ai[k4] = k3;
-						ai[k4 + 1] = k3;
-						ai[k4 + 2] = k3;
-						ai[k4 + 3] = k3;
-					} else if (k2 == 1) {
-						ai[k4 + 3] = k3;
-						ai[k4 + 3 + 512] = k3;
-						ai[k4 + 3 + 1024] = k3;
-						ai[k4 + 3 + 1536] = k3;
-					} else if (k2 == 2) {
-						ai[k4 + 1536] = k3;
-						ai[k4 + 1536 + 1] = k3;
-						ai[k4 + 1536 + 2] = k3;
-						ai[k4 + 1536 + 3] = k3;
-					}
-			}
-		}
-		k1 = worldController.method302(j1, l, i);
-		if (k1 != 0) {
-			int i2 = worldController.method304(j1, l, i, k1);
-			int l2 = i2 >> 6 & 3;
-			int j3 = i2 & 0x1f;
-			int l3 = ObjectKey.getObjectId(k1);
-			ObjectDefinition class46_1 = ObjectDefinition.forID(l3);
-			if (class46_1.mapSceneId != -1) {
-				if (class46_1.mapSceneId < mapScenes.length) {
-					Background background_1 = mapScenes[class46_1.mapSceneId];
-					if (background_1 != null) {
-						int j5 = (class46_1.xLength * 4 - background_1.width) / 2;
-						int k5 = (class46_1.yLength * 4 - background_1.anInt1453) / 2;
-						background_1.drawBackground(48 + l * 4 + j5, 48 + (104 - i - class46_1.yLength) * 4 + k5);
-					}
-				} else if (Configuration.developerMode) {
-					System.err.println("Missing map scene: " + class46_1.mapSceneId);
-				}
-			} else if (j3 == 9) {
-				int l4 = 0xeeeeee;
-				if (k1 > 0)
-					l4 = 0xee0000;
-				int ai1[] = minimapImage.myPixels;
-				int l5 = 24624 + l * 4 + (103 - i) * 512 * 4;
-				if (l2 == 0 || l2 == 2) {
-					ai1[l5 + 1536] = l4;
-					ai1[l5 + 1024 + 1] = l4;
-					ai1[l5 + 512 + 2] = l4;
-					ai1[l5 + 3] = l4;
-				} else {
-					ai1[l5] = l4;
-					ai1[l5 + 512 + 1] = l4;
-					ai1[l5 + 1024 + 2] = l4;
-					ai1[l5 + 1536 + 3] = l4;
-				}
-			}
-		}
-		k1 = worldController.method303(j1, l, i);
-		if (k1 != 0) {
-			int j2 = ObjectKey.getObjectId(k1);
-			ObjectDefinition class46 = ObjectDefinition.forID(j2);
-			if (class46.mapSceneId != -1) {
-				Background background = mapScenes[class46.mapSceneId];
-				if (background != null) {
-					int i4 = (class46.xLength * 4 - background.width) / 2;
-					int j4 = (class46.yLength * 4 - background.anInt1453) / 2;
-					background.drawBackground(48 + l * 4 + i4, 48 + (104 - i - class46.yLength) * 4 + j4);
-				}
-			}
-		}
-	}
-
 	private Sprite aSprite_1201;
 	private Sprite aSprite_1202;
 
@@ -5197,6 +4986,10 @@ public class Client extends RSApplet {
 		for (int i = 0; i < terrainData.length; i++) {
 			if (terrainData[i] == null && terrainIndices[i] != -1)
 				return -1;
+		}
+		if (regionDecoder == null || !regionDecoder.isFor(terrainData))
+			regionDecoder = startRegionDecoder();
+		for (int i = 0; i < terrainData.length; i++) {
 			if (mapData[i] == null && objectIndices[i] != -1)
 				return -2;
 		}
@@ -5223,6 +5016,8 @@ public class Client extends RSApplet {
 			return -3;// couldn't parse all landscapes
 		if (loadingMap) {
 			return -4;
+		} else if (!regionDecoder.isDone()) {
+			return -5;// terrain still decoding
 		} else {
 			loadingStage = 2;
 			ObjectManager.anInt131 = plane;
@@ -5865,15 +5660,26 @@ public class Client extends RSApplet {
 	}
 
 	public void method63() {
+		method63(null);
+	}
+
+	/**
+	 * Places the permanent spawned objects on the chunks built again, over the objects the map put there, and
+	 * drops the temporary ones there. The spawns on the chunks kept are still in the scene.
+	 * @param chunks the chunks built, or null for the whole scene
+	 */
+	private void method63(boolean[][] chunks) {
 		SpawnedObject spawnedObject = (SpawnedObject) spawns.reverseGetFirst();
-		for (; spawnedObject != null; spawnedObject = (SpawnedObject) spawns.reverseGetNext())
+		for (; spawnedObject != null; spawnedObject = (SpawnedObject) spawns.reverseGetNext()) {
+			if (chunks != null && !chunks[spawnedObject.x >> 3][spawnedObject.y >> 3])
+				continue;
 			if (spawnedObject.getLongetivity == -1) {
 				spawnedObject.delay = 0;
 				method89(spawnedObject);
 			} else {
 				spawnedObject.unlink();
 			}
-
+		}
 	}
 
 	private void resetImageProducers() {
@@ -6682,10 +6488,9 @@ public class Client extends RSApplet {
 				x = j - 4;
 				y = buttonPressed - 4;
 			}
-			if (getUserSettings().isAntiAliasing() == true) {
-				x <<= 1;
-				y <<= 1;
-			}
+			AntiAliasingFactor antiAliasing = getUserSettings().getAntiAliasingFactor();
+			x = antiAliasing.scale(x);
+			y = antiAliasing.scale(y);
 			this.worldController.method312(y, x);
 		}
 		if (l == 1062) {
@@ -7816,7 +7621,7 @@ public class Client extends RSApplet {
 		setDropDown(SettingsInterface.INTERFACE_STYLE, getUserSettings().getInterfaceStyle() == InterfaceStyle.RS3 ? 1 : 0);
 		setDropDown(SettingsInterface.OLD_GAMEFRAME, getUserSettings().isOldGameframe());
 		setDropDown(SettingsInterface.GAME_TIMERS, getUserSettings().isGameTimers());
-		setDropDown(SettingsInterface.ANTI_ALIASING, getUserSettings().isAntiAliasing());
+		setDropDown(SettingsInterface.ANTI_ALIASING, getUserSettings().getAntiAliasingFactor().ordinal());
 		setDropDown(SettingsInterface.GROUND_ITEM_NAMES, getUserSettings().isGroundItemOverlay());
 		setDropDown(SettingsInterface.FOG, getUserSettings().isFog());
 		setDropDown(SettingsInterface.SMOOTH_SHADING, getUserSettings().isSmoothShading());
@@ -8280,8 +8085,7 @@ public class Client extends RSApplet {
 		byteGroundArray = null;
 		worldController = null;
 		aClass11Array1230 = null;
-		anIntArrayArray901 = null;
-		anIntArrayArray825 = null;
+		pathFinder = null;
 		bigX = null;
 		bigY = null;
 		aByteArray912 = null;
@@ -8337,10 +8141,8 @@ public class Client extends RSApplet {
 		menuActionCmd1 = null;
 		menuActionName = null;
 		variousSettings = null;
-		anIntArray1072 = null;
-		anIntArray1073 = null;
-		mapIconSprite = null;
 		minimapImage = null;
+		minimap = null;
 		friendsList = null;
 		friendsListAsLongs = null;
 		friendsNodeIDs = null;
@@ -11318,156 +11120,11 @@ public class Client extends RSApplet {
 
 	// Original signature int clickType, int j, int k, int i1, int localY, int k1, int l1, int i2, int localX, boolean flag, int k2
 	private boolean doWalkTo(int clickType, int localX, int localY, int j, int k, int i1, int k1, int l1, int i2, boolean flag, int k2) {
-		byte byte0 = 104;
-		byte byte1 = 104;
-		for (int l2 = 0; l2 < byte0; l2++) {
-			for (int i3 = 0; i3 < byte1; i3++) {
-				anIntArrayArray901[l2][i3] = 0;
-				anIntArrayArray825[l2][i3] = 0x5f5e0ff;
-			}
-		}
-		int j3 = localX;
-		int k3 = localY;
-		anIntArrayArray901[localX][localY] = 99;
-		anIntArrayArray825[localX][localY] = 0;
-		int l3 = 0;
-		int i4 = 0;
-		bigX[l3] = localX;
-		bigY[l3++] = localY;
-		boolean flag1 = false;
-		int j4 = bigX.length;
-		int ai[][] = aClass11Array1230[plane].anIntArrayArray294;
-		while (i4 != l3) {
-			j3 = bigX[i4];
-			k3 = bigY[i4];
-			i4 = (i4 + 1) % j4;
-			if (j3 == k2 && k3 == i2) {
-				flag1 = true;
-				break;
-			}
-			if (i1 != 0) {
-				if ((i1 < 5 || i1 == 10) && aClass11Array1230[plane].method219(k2, j3, k3, j, i1 - 1, i2)) {
-					flag1 = true;
-					break;
-				}
-				if (i1 < 10 && aClass11Array1230[plane].method220(k2, i2, k3, i1 - 1, j, j3)) {
-					flag1 = true;
-					break;
-				}
-			}
-			if (k1 != 0 && k != 0 && aClass11Array1230[plane].method221(i2, k2, j3, k, l1, k1, k3)) {
-				flag1 = true;
-				break;
-			}
-			int l4 = anIntArrayArray825[j3][k3] + 1;
-			if (j3 > 0 && anIntArrayArray901[j3 - 1][k3] == 0 && (ai[j3 - 1][k3] & 0x1280108) == 0) {
-				bigX[l3] = j3 - 1;
-				bigY[l3] = k3;
-				l3 = (l3 + 1) % j4;
-				anIntArrayArray901[j3 - 1][k3] = 2;
-				anIntArrayArray825[j3 - 1][k3] = l4;
-			}
-			if (j3 < byte0 - 1 && anIntArrayArray901[j3 + 1][k3] == 0 && (ai[j3 + 1][k3] & 0x1280180) == 0) {
-				bigX[l3] = j3 + 1;
-				bigY[l3] = k3;
-				l3 = (l3 + 1) % j4;
-				anIntArrayArray901[j3 + 1][k3] = 8;
-				anIntArrayArray825[j3 + 1][k3] = l4;
-			}
-			if (k3 > 0 && anIntArrayArray901[j3][k3 - 1] == 0 && (ai[j3][k3 - 1] & 0x1280102) == 0) {
-				bigX[l3] = j3;
-				bigY[l3] = k3 - 1;
-				l3 = (l3 + 1) % j4;
-				anIntArrayArray901[j3][k3 - 1] = 1;
-				anIntArrayArray825[j3][k3 - 1] = l4;
-			}
-			if (k3 < byte1 - 1 && anIntArrayArray901[j3][k3 + 1] == 0 && (ai[j3][k3 + 1] & 0x1280120) == 0) {
-				bigX[l3] = j3;
-				bigY[l3] = k3 + 1;
-				l3 = (l3 + 1) % j4;
-				anIntArrayArray901[j3][k3 + 1] = 4;
-				anIntArrayArray825[j3][k3 + 1] = l4;
-			}
-			if (j3 > 0 && k3 > 0 && anIntArrayArray901[j3 - 1][k3 - 1] == 0 && (ai[j3 - 1][k3 - 1] & 0x128010e) == 0
-					&& (ai[j3 - 1][k3] & 0x1280108) == 0 && (ai[j3][k3 - 1] & 0x1280102) == 0) {
-				bigX[l3] = j3 - 1;
-				bigY[l3] = k3 - 1;
-				l3 = (l3 + 1) % j4;
-				anIntArrayArray901[j3 - 1][k3 - 1] = 3;
-				anIntArrayArray825[j3 - 1][k3 - 1] = l4;
-			}
-			if (j3 < byte0 - 1 && k3 > 0 && anIntArrayArray901[j3 + 1][k3 - 1] == 0
-					&& (ai[j3 + 1][k3 - 1] & 0x1280183) == 0 && (ai[j3 + 1][k3] & 0x1280180) == 0
-					&& (ai[j3][k3 - 1] & 0x1280102) == 0) {
-				bigX[l3] = j3 + 1;
-				bigY[l3] = k3 - 1;
-				l3 = (l3 + 1) % j4;
-				anIntArrayArray901[j3 + 1][k3 - 1] = 9;
-				anIntArrayArray825[j3 + 1][k3 - 1] = l4;
-			}
-			if (j3 > 0 && k3 < byte1 - 1 && anIntArrayArray901[j3 - 1][k3 + 1] == 0
-					&& (ai[j3 - 1][k3 + 1] & 0x1280138) == 0 && (ai[j3 - 1][k3] & 0x1280108) == 0
-					&& (ai[j3][k3 + 1] & 0x1280120) == 0) {
-				bigX[l3] = j3 - 1;
-				bigY[l3] = k3 + 1;
-				l3 = (l3 + 1) % j4;
-				anIntArrayArray901[j3 - 1][k3 + 1] = 6;
-				anIntArrayArray825[j3 - 1][k3 + 1] = l4;
-			}
-			if (j3 < byte0 - 1 && k3 < byte1 - 1 && anIntArrayArray901[j3 + 1][k3 + 1] == 0
-					&& (ai[j3 + 1][k3 + 1] & 0x12801e0) == 0 && (ai[j3 + 1][k3] & 0x1280180) == 0
-					&& (ai[j3][k3 + 1] & 0x1280120) == 0) {
-				bigX[l3] = j3 + 1;
-				bigY[l3] = k3 + 1;
-				l3 = (l3 + 1) % j4;
-				anIntArrayArray901[j3 + 1][k3 + 1] = 12;
-				anIntArrayArray825[j3 + 1][k3 + 1] = l4;
-			}
-		}
-		anInt1264 = 0;
-		if (!flag1) {
-			if (flag) {
-				int i5 = 100;
-				for (int k5 = 1; k5 < 2; k5++) {
-					for (int i6 = k2 - k5; i6 <= k2 + k5; i6++) {
-						for (int l6 = i2 - k5; l6 <= i2 + k5; l6++)
-							if (i6 >= 0 && l6 >= 0 && i6 < 104 && l6 < 104 && anIntArrayArray825[i6][l6] < i5) {
-								i5 = anIntArrayArray825[i6][l6];
-								j3 = i6;
-								k3 = l6;
-								anInt1264 = 1;
-								flag1 = true;
-							}
-
-					}
-
-					if (flag1)
-						break;
-				}
-
-			}
-			if (!flag1)
-				return false;
-		}
-		i4 = 0;
-		bigX[i4] = j3;
-		bigY[i4++] = k3;
-		int l5;
-		for (int j5 = l5 = anIntArrayArray901[j3][k3]; j3 != localX || k3 != localY; j5 = anIntArrayArray901[j3][k3]) {
-			if (j5 != l5) {
-				l5 = j5;
-				bigX[i4] = j3;
-				bigY[i4++] = k3;
-			}
-			if ((j5 & 2) != 0)
-				j3++;
-			else if ((j5 & 8) != 0)
-				j3--;
-			if ((j5 & 1) != 0)
-				k3++;
-			else if ((j5 & 4) != 0)
-				k3--;
-		}
+		int i4 = pathFinder.findRoute(aClass11Array1230[plane], localX, localY, k2, i2, i1, j, k, k1, l1, flag, bigX,
+				bigY);
+		anInt1264 = pathFinder.closestTile() ? 1 : 0;
+		if (i4 == -1)
+			return false;
 		// if(cancelWalk) { return i4 > 0; }
 
 		if (i4 > 0) {
@@ -11990,6 +11647,7 @@ public class Client extends RSApplet {
 
 	@Override
 	void startUp() {
+		long startUpTime = System.nanoTime();
 		HoverMenuManager.init();
 
 
@@ -12015,26 +11673,15 @@ public class Client extends RSApplet {
 
 		new CacheDownloader(this).downloadCache();
 
-		SpriteLoader1.loadSprites();
-		cacheSprite1 = SpriteLoader1.sprites;
-		SpriteLoader1.sprites = null;
-
-		SpriteLoader2.loadSprites();
-		cacheSprite2 = SpriteLoader2.sprites;
-		SpriteLoader2.sprites = null;
-
-		SpriteLoader3.loadSprites();
-		cacheSprite3 = SpriteLoader3.sprites;
-		SpriteLoader3.sprites = null;
-
-		SpriteLoader4.loadSprites();
-		cacheSprite4 = SpriteLoader4.sprites;
-		SpriteLoader4.sprites = null;
-
-		try {
-			ItemBonusDefinitionLoader.loadItemBonusDefinitions();//for the hover menus
-
-			ItemDef.load();
+		StreamLoader[] archives = new StreamLoader[9];
+		StartupGraph startup = new StartupGraph();
+		StartupGraph.Stage sprites1 = startup.add("sprite archive 1", () -> cacheSprite1 = SpriteArchive.load(1));
+		StartupGraph.Stage sprites2 = startup.add("sprite archive 2", () -> cacheSprite2 = SpriteArchive.load(2));
+		StartupGraph.Stage sprites3 = startup.add("sprite archive 3", () -> cacheSprite3 = SpriteArchive.load(3));
+		StartupGraph.Stage sprites4 = startup.add("sprite archive 4", () -> cacheSprite4 = SpriteArchive.load(4));
+		startup.add("item bonuses", ItemBonusDefinitionLoader::loadItemBonusDefinitions);//for the hover menus
+		StartupGraph.Stage itemDefs = startup.add("item definitions", ItemDef::load);
+		StartupGraph.Stage titleScreen = startup.addOnMainThread("title screen", () -> {
 			titleStreamLoader = streamLoaderForName(1, "title screen");
 			smallText = new TextDrawingArea(false, "p11_full" + fontFilter(), titleStreamLoader);
 			XPFONT = new TextDrawingArea(true, "q8_full" + fontFilter(), titleStreamLoader);
@@ -12056,13 +11703,15 @@ public class Client extends RSApplet {
 
 			loadTitleScreen();
 			createScreenImages();
-			StreamLoader streamLoader = streamLoaderForName(2, "config");
-			StreamLoader streamLoader_1 = streamLoaderForName(3, "interface");
-			StreamLoader streamLoader_2 = streamLoaderForName(4, "2d graphics");
-			StreamLoader streamLoader_3 = streamLoaderForName(6, "textures");
-			StreamLoader streamLoader_4 = streamLoaderForName(7, "chat system");
-			@SuppressWarnings("unused")
-			StreamLoader streamLoader_5 = streamLoaderForName(8, "sound effects");
+		});
+		StartupGraph.Stage configArchive = startup.add("config archive", () -> archives[2] = streamLoaderForName(2, "config"));
+		StartupGraph.Stage interfaceArchive = startup.add("interface archive", () -> archives[3] = streamLoaderForName(3, "interface"));
+		StartupGraph.Stage graphicsArchive = startup.add("2d graphics archive", () -> archives[4] = streamLoaderForName(4, "2d graphics"));
+		StartupGraph.Stage updateListArchive = startup.add("update list archive", () -> archives[5] = streamLoaderForName(5, "update list"));
+		StartupGraph.Stage texturesArchive = startup.add("textures archive", () -> archives[6] = streamLoaderForName(6, "textures"));
+		startup.add("chat system archive", () -> archives[7] = streamLoaderForName(7, "chat system"));
+		startup.add("sound effects archive", () -> archives[8] = streamLoaderForName(8, "sound effects"));
+		startup.add("scene", () -> {
 			byteGroundArray = new byte[4][104][104];
 			intGroundArray = new int[4][105][105];
 			worldController = new WorldController(intGroundArray);
@@ -12070,10 +11719,11 @@ public class Client extends RSApplet {
 				aClass11Array1230[j] = new CollisionMap();
 
 			minimapImage = new Sprite(512, 512);
-			StreamLoader streamLoader_6 = streamLoaderForName(5, "update list");
-			drawLoadingText(60, "Connecting to update server");
+			minimap = new Minimap(worldController, byteGroundArray, minimapImage, mapScenes, mapFunctions, new Random());
+		});
+		StartupGraph.Stage onDemandStage = startup.add("update server", () -> {
 			onDemandFetcher = new OnDemandFetcher();
-			onDemandFetcher.start(streamLoader_6, this);
+			onDemandFetcher.start(archives[5], this);
 
 			if (Configuration.packIndexData) {
 				repackCacheAll();
@@ -12086,183 +11736,191 @@ public class Client extends RSApplet {
 			Class36.method528();
 
 			Model.method459(onDemandFetcher.getModelCount(), onDemandFetcher);
+		}, updateListArchive);
+		StartupGraph.Stage mediaStage = startup.add("media", () -> {
+				mapIcon7 = new Sprite(archives[4], "mapfunction", 1);
+				mapIcon8 = new Sprite(archives[4], "mapfunction", 51);
+				mapIcon6 = new Sprite(archives[4], "mapfunction", 74);
+				mapIcon5 = new Sprite(archives[4], "mapfunction", 5);
+				mapIcon9 = new Sprite(archives[4], "mapfunction", 56);
+				multiOverlay = new Sprite(archives[4], "overlay_multiway", 0);
+
+				eventIcon = new Sprite(archives[4], "mapfunction", 72);
+				bankDivider = new Sprite("bank_divider");
+
+				// Login
+				loginAsset0 = new Sprite("Login/remember0");
+				loginAsset1 = new Sprite("Login/remember1");
+				loginAsset2 = new Sprite("Login/remember2");
+				loginAsset3 = new Sprite("Login/remember3");
+				loginAsset4 = new Sprite("Login/logo");
+
+				usernameIcon = new Sprite("Login/userIcon");
+				loginScreenBackground = new Sprite("/loginscreen/background2");
+				logo2021 = new Sprite("/loginscreen/logo");
+				loginScreenBackgroundCaptcha = new Sprite("/loginscreen/captcha_background");
+				captchaExit = new Sprite("/loginscreen/captcha-exit");
+				captchaExitHover = new Sprite("/loginscreen/captcha-exit-hover");
+
+				File[] file = new File(Signlink.getCacheDirectory() + "/sprites/sprites/").listFiles();
+				int size = file.length;
+				cacheSprite = new Sprite[size];
+				for (int i = 0; i < size; i++) {
+					cacheSprite[i] = new Sprite("Sprites/" + i);
+				}
+
+				xpSprite = new Sprite("medal");
+				for (int i = 0; i < inputSprites.length; i++)
+					inputSprites[i] = new Sprite("Interfaces/Inputfield/SPRITE " + (i + 1));
 
-			drawLoadingText(80, "Unpacking media");
-			mapIcon7 = new Sprite(streamLoader_2, "mapfunction", 1);
-			mapIcon8 = new Sprite(streamLoader_2, "mapfunction", 51);
-			mapIcon6 = new Sprite(streamLoader_2, "mapfunction", 74);
-			mapIcon5 = new Sprite(streamLoader_2, "mapfunction", 5);
-			mapIcon9 = new Sprite(streamLoader_2, "mapfunction", 56);
-			multiOverlay = new Sprite(streamLoader_2, "overlay_multiway", 0);
-
-			eventIcon = new Sprite(streamLoader_2, "mapfunction", 72);
-			bankDivider = new Sprite("bank_divider");
-
-			// Login
-			loginAsset0 = new Sprite("Login/remember0");
-			loginAsset1 = new Sprite("Login/remember1");
-			loginAsset2 = new Sprite("Login/remember2");
-			loginAsset3 = new Sprite("Login/remember3");
-			loginAsset4 = new Sprite("Login/logo");
-
-			usernameIcon = new Sprite("Login/userIcon");
-			loginScreenBackground = new Sprite("/loginscreen/background2");
-			logo2021 = new Sprite("/loginscreen/logo");
-			loginScreenBackgroundCaptcha = new Sprite("/loginscreen/captcha_background");
-			captchaExit = new Sprite("/loginscreen/captcha-exit");
-			captchaExitHover = new Sprite("/loginscreen/captcha-exit-hover");
-
-			File[] file = new File(Signlink.getCacheDirectory() + "/sprites/sprites/").listFiles();
-			int size = file.length;
-			cacheSprite = new Sprite[size];
-			for (int i = 0; i < size; i++) {
-				cacheSprite[i] = new Sprite("Sprites/" + i);
-			}
-
-			xpSprite = new Sprite("medal");
-			for (int i = 0; i < inputSprites.length; i++)
-				inputSprites[i] = new Sprite("Interfaces/Inputfield/SPRITE " + (i + 1));
-
-			/*
-			 * for (int index = 0; index < minimapSprites.length; index++) {
-			 * minimapSprites[index] = new Sprite(streamLoader_2, "gameframe", index); Image
-			 * image = minimapSprites[index].getImage(); if (image == null) {
-			 * System.out.println("Image is null for: " + index); } }
-			 */
-
-			for (int i = 0; i < tabAreaResizable.length; i++)
-				tabAreaResizable[i] = new Sprite("Gameframe/resizable/tabArea " + i);
-
-			loadTabArea();
+				/*
+				 * for (int index = 0; index < minimapSprites.length; index++) {
+				 * minimapSprites[index] = new Sprite(archives[4], "gameframe", index); Image
+				 * image = minimapSprites[index].getImage(); if (image == null) {
+				 * System.out.println("Image is null for: " + index); } }
+				 */
 
-			infinity = new Sprite("infinity");
-			chatArea = new Sprite("Gameframe/chatarea");
-			channelButtons = new Sprite("Gameframe/channelbuttons");
-			venomOrb = new Sprite("orbs/venom");
+				for (int i = 0; i < tabAreaResizable.length; i++)
+					tabAreaResizable[i] = new Sprite("Gameframe/resizable/tabArea " + i);
 
-			for (int index = 0; index < smallXpSprites.length; index++) {
-				smallXpSprites[index] = new Sprite("expdrop/" + index);
+				loadTabArea();
 
-			}
+				infinity = new Sprite("infinity");
+				chatArea = new Sprite("Gameframe/chatarea");
+				channelButtons = new Sprite("Gameframe/channelbuttons");
+				venomOrb = new Sprite("orbs/venom");
 
-			for (int c1 = 0; c1 <= 3; c1++)
-				chatButtons[c1] = new Sprite(streamLoader_2, "chatbuttons", c1);
-			chatButtons[3] = new Sprite("1025_0");
-			Sprite[] clanIcons = new Sprite[9];
-			for (int index = 0; index < clanIcons.length; index++) {
-				clanIcons[index] = new Sprite("Clan Chat/Icons/" + index);
-			}
-
-			String iconPackDir = Signlink.getCacheDirectory() + "sprites" + Signlink.separator + "icon_pack";
-			Sprite[] iconPack = new Sprite[FileUtility.getFileCount(iconPackDir)];
-			for (int index = 0; index < iconPack.length; index++) {
-				iconPack[index] = new Sprite("icon_pack/" + index);
-			}
+				for (int index = 0; index < smallXpSprites.length; index++) {
+					smallXpSprites[index] = new Sprite("expdrop/" + index);
 
-			RSFont.unpackImages(modIcons, clanIcons, iconPack);
-
-			mapEdge = new Sprite(streamLoader_2, "mapedge", 0);
-			mapEdge.method345();
+				}
 
-			try {
-				for (int k3 = 0; k3 < 100; k3++)
-					mapScenes[k3] = new Background(streamLoader_2, "mapscene", k3);
-			} catch (Exception _ex) {
-			}
-			try {
-				for (int l3 = 0; l3 < 114; l3++)
-					mapFunctions[l3] = new Sprite(streamLoader_2, "mapfunction", l3);
-			} catch (Exception _ex) {
-			}
+				for (int c1 = 0; c1 <= 3; c1++)
+					chatButtons[c1] = new Sprite(archives[4], "chatbuttons", c1);
+				chatButtons[3] = new Sprite("1025_0");
+				Sprite[] clanIcons = new Sprite[9];
+				for (int index = 0; index < clanIcons.length; index++) {
+					clanIcons[index] = new Sprite("Clan Chat/Icons/" + index);
+				}
 
-			try {
-				for (int i4 = 0; i4 < 20; i4++) {
-					hitMarks[i4] = new Sprite(streamLoader_2, "hitmarks", i4);
+				String iconPackDir = Signlink.getCacheDirectory() + "sprites" + Signlink.separator + "icon_pack";
+				Sprite[] iconPack = new Sprite[FileUtility.getFileCount(iconPackDir)];
+				for (int index = 0; index < iconPack.length; index++) {
+					iconPack[index] = new Sprite("icon_pack/" + index);
 				}
-			} catch (Exception _ex) {
-			}
 
-			hitMarks[19] = new Sprite("heal_hitsplat");
+				RSFont.unpackImages(modIcons, clanIcons, iconPack);
 
-			try {
-				for (int h1 = 0; h1 < 6; h1++)
-					headIconsHint[h1] = new Sprite(streamLoader_2, "headicons_hint", h1);
-			} catch (Exception _ex) {
-			}
-			try {
-				for (int j4 = 0; j4 < 8; j4++)
-					headIcons[j4] = new Sprite(streamLoader_2, "headicons_prayer", j4);
-				for (int j45 = 0; j45 < 3; j45++)
-					skullIcons[j45] = new Sprite(streamLoader_2, "headicons_pk", j45);
-			} catch (Exception _ex) {
-			}
-			for (int i = 0; i < minimapIcons.length; i++) {
-				minimapIcons[i] = new Sprite("Mapicons/ICON " + i);
-			}
-			//loginBackground2 = 	new AnimatedSprite(new URL("https://cdn.discordapp.com/attachments/454138282780131329/454147023046836235/Ascend-CB.gif"));
-			mapFlag = new Sprite(streamLoader_2, "mapmarker", 0);
-			mapMarker = new Sprite(streamLoader_2, "mapmarker", 1);
-			for (int k4 = 0; k4 < 8; k4++)
-				crosses[k4] = new Sprite(streamLoader_2, "cross", k4);
+				mapEdge = new Sprite(archives[4], "mapedge", 0);
+				mapEdge.method345();
 
-			mapDotItem = new Sprite(streamLoader_2, "mapdots", 0);
-			mapDotNPC = new Sprite(streamLoader_2, "mapdots", 1);
-			mapDotPlayer = new Sprite(streamLoader_2, "mapdots", 2);
-			mapDotFriend = new Sprite(streamLoader_2, "mapdots", 3);
-			mapDotTeam = new Sprite(streamLoader_2, "mapdots", 4);
-			mapDotClan = new Sprite(streamLoader_2, "mapdots", 5);
-			new Sprite(streamLoader_2, "mapdots", 4);
-			scrollBar1 = new Sprite(streamLoader_2, "scrollbar", 0);
-			scrollBar2 = new Sprite(streamLoader_2, "scrollbar", 1);
-			for (int i = 0; i < modIcons.length; i++) {
-				modIcons[i] = new Sprite("Player/MODICONS " + i + "");
-			}
+				try {
+					for (int k3 = 0; k3 < 100; k3++)
+						mapScenes[k3] = new Background(archives[4], "mapscene", k3);
+				} catch (Exception _ex) {
+				}
+				try {
+					for (int l3 = 0; l3 < 114; l3++)
+						mapFunctions[l3] = new Sprite(archives[4], "mapfunction", l3);
+				} catch (Exception _ex) {
+				}
 
-			for (int index = 0; index < GameTimerHandler.TIMER_IMAGES.length; index++) {
-				GameTimerHandler.TIMER_IMAGES[index] = new Sprite("GameTimer/TIMER " + index);
-			}
+				try {
+					for (int i4 = 0; i4 < 20; i4++) {
+						hitMarks[i4] = new Sprite(archives[4], "hitmarks", i4);
+					}
+				} catch (Exception _ex) {
+				}
 
-			int i5 = (int) (Math.random() * 21D) - 10;
-			int j5 = (int) (Math.random() * 21D) - 10;
-			int k5 = (int) (Math.random() * 21D) - 10;
-			int l5 = (int) (Math.random() * 41D) - 20;
-			for (int i6 = 0; i6 < 114; i6++) {
-				if (mapFunctions[i6] != null)
-					mapFunctions[i6].method344(i5 + l5, j5 + l5, k5 + l5);
-			}
-			for (int i6 = 0; i6 < 100; i6++) {
-				if (mapScenes[i6] != null)
-					mapScenes[i6].method360(i5 + l5, j5 + l5, k5 + l5);
-			}
+				hitMarks[19] = new Sprite("heal_hitsplat");
 
-			drawLoadingText(83, "Unpacking textures");
-			Rasterizer.method368(streamLoader_3);
+				try {
+					for (int h1 = 0; h1 < 6; h1++)
+						headIconsHint[h1] = new Sprite(archives[4], "headicons_hint", h1);
+				} catch (Exception _ex) {
+				}
+				try {
+					for (int j4 = 0; j4 < 8; j4++)
+						headIcons[j4] = new Sprite(archives[4], "headicons_prayer", j4);
+					for (int j45 = 0; j45 < 3; j45++)
+						skullIcons[j45] = new Sprite(archives[4], "headicons_pk", j45);
+				} catch (Exception _ex) {
+				}
+				for (int i = 0; i < minimapIcons.length; i++) {
+					minimapIcons[i] = new Sprite("Mapicons/ICON " + i);
+				}
+				//loginBackground2 = 	new AnimatedSprite(new URL("https://cdn.discordapp.com/attachments/454138282780131329/454147023046836235/Ascend-CB.gif"));
+				mapFlag = new Sprite(archives[4], "mapmarker", 0);
+				mapMarker = new Sprite(archives[4], "mapmarker", 1);
+				for (int k4 = 0; k4 < 8; k4++)
+					crosses[k4] = new Sprite(archives[4], "cross", k4);
+
+				mapDotItem = new Sprite(archives[4], "mapdots", 0);
+				mapDotNPC = new Sprite(archives[4], "mapdots", 1);
+				mapDotPlayer = new Sprite(archives[4], "mapdots", 2);
+				mapDotFriend = new Sprite(archives[4], "mapdots", 3);
+				mapDotTeam = new Sprite(archives[4], "mapdots", 4);
+				mapDotClan = new Sprite(archives[4], "mapdots", 5);
+				new Sprite(archives[4], "mapdots", 4);
+				scrollBar1 = new Sprite(archives[4], "scrollbar", 0);
+				scrollBar2 = new Sprite(archives[4], "scrollbar", 1);
+				for (int i = 0; i < modIcons.length; i++) {
+					modIcons[i] = new Sprite("Player/MODICONS " + i + "");
+				}
+
+				for (int index = 0; index < GameTimerHandler.TIMER_IMAGES.length; index++) {
+					GameTimerHandler.TIMER_IMAGES[index] = new Sprite("GameTimer/TIMER " + index);
+				}
+
+				int i5 = (int) (Math.random() * 21D) - 10;
+				int j5 = (int) (Math.random() * 21D) - 10;
+				int k5 = (int) (Math.random() * 21D) - 10;
+				int l5 = (int) (Math.random() * 41D) - 20;
+				for (int i6 = 0; i6 < 114; i6++) {
+					if (mapFunctions[i6] != null)
+						mapFunctions[i6].method344(i5 + l5, j5 + l5, k5 + l5);
+				}
+				for (int i6 = 0; i6 < 100; i6++) {
+					if (mapScenes[i6] != null)
+						mapScenes[i6].method360(i5 + l5, j5 + l5, k5 + l5);
+				}
+		}, graphicsArchive);
+		StartupGraph.Stage texturesStage = startup.add("textures", () -> {
+			Rasterizer.method368(archives[6]);
 			//Rasterizer.setBrightness(0.80000000000000004D);
 			Rasterizer.method367();
-			drawLoadingText(83, "Unpacking config");
-			AnimationDefinition.unpackConfig(streamLoader);
-			ObjectDefinition.unpackConfig(streamLoader);
-			FloorUnderlayDefinition.unpackConfig(streamLoader);
-			ItemDefinition.unpackConfig(streamLoader);
-			NpcDefinition.unpackConfig(streamLoader);
-			IDK.unpackConfig(streamLoader);
-			GraphicsDefinition.unpackConfig(streamLoader);
-			Varp.unpackConfig(streamLoader);
-			VarBit.unpackConfig(streamLoader);
-			loadPlayerData();
-
-			if (Configuration.dumpDataLists) {
+		}, texturesArchive);
+		StartupGraph.Stage animationsStage = startup.add("animations", () -> AnimationDefinition.unpackConfig(archives[2]), configArchive);
+		StartupGraph.Stage objectsStage = startup.add("objects", () -> ObjectDefinition.unpackConfig(archives[2]), configArchive);
+		StartupGraph.Stage floorsStage = startup.add("floors", () -> FloorUnderlayDefinition.unpackConfig(archives[2]), configArchive);
+		StartupGraph.Stage itemsStage = startup.add("items", () -> ItemDefinition.unpackConfig(archives[2]), configArchive);
+		StartupGraph.Stage npcsStage = startup.add("npcs", () -> NpcDefinition.unpackConfig(archives[2]), configArchive);
+		StartupGraph.Stage identityKits = startup.add("identity kits", () -> IDK.unpackConfig(archives[2]), configArchive);
+		StartupGraph.Stage spotAnims = startup.add("graphics", () -> GraphicsDefinition.unpackConfig(archives[2]), configArchive, animationsStage);
+		StartupGraph.Stage varps = startup.add("varps", () -> Varp.unpackConfig(archives[2]), configArchive);
+		StartupGraph.Stage varbits = startup.add("varbits", () -> VarBit.unpackConfig(archives[2]), configArchive);
+		startup.add("key bindings", this::loadPlayerData);
+		if (Configuration.dumpDataLists) {
+			startup.add("dump data lists", () -> {
 				ItemDefinition.dumpList();
 				NpcDefinition.dumpList();
 				ItemDefinition.dumpList();
 				ObjectDefinition.dumpList();
 				onDemandFetcher.dumpModels();
-			}
-
-			drawLoadingText(95, "Unpacking interfaces");
+			}, itemsStage, npcsStage, objectsStage, onDemandStage);
+		}
+		startup.addOnMainThread("interfaces", () -> {
 			TextDrawingArea allFonts[] = { smallText, aTextDrawingArea_1271, chatTextDrawingArea,
 					aTextDrawingArea_1273 };
-			RSInterface.unpack(streamLoader_1, allFonts, streamLoader_2, new RSFont[] {newSmallFont, newRegularFont, newBoldFont, newFancyFont});
+			RSInterface.unpack(archives[3], allFonts, archives[4], new RSFont[] {newSmallFont, newRegularFont, newBoldFont, newFancyFont});
+		}, titleScreen, interfaceArchive, graphicsArchive, mediaStage, sprites1, sprites2, sprites3, sprites4, itemDefs,
+				animationsStage, objectsStage, floorsStage, itemsStage, npcsStage, identityKits, spotAnims, varps, varbits, texturesStage);
+
+		int parallelism = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+		ForkJoinPool startupPool = new ForkJoinPool(parallelism);
+		try {
+			startup.run(startupPool, parallelism, (stage, completed, total) ->
+					drawLoadingText(10 + 90 * completed / total, "Loaded " + stage.getName()));
 			drawLoadingText(100, "Preparing game engine");
 
 			if(getUserSettings().isOldGameframe() == false) {
@@ -12361,17 +12019,22 @@ public class Client extends RSApplet {
 //						"It is recommended you upgrade to Java version 13.");
 //			}
 
-			logger.debug("Loaded {} sprites.", Sprite.loadedSprites
-					+ Arrays.stream(cacheSprite1).filter(Objects::nonNull).count()
-					+ Arrays.stream(cacheSprite2).filter(Objects::nonNull).count()
-					+ Arrays.stream(cacheSprite3).filter(Objects::nonNull).count()
-					+ Arrays.stream(cacheSprite4).filter(Objects::nonNull).count()
-					+ Arrays.stream(cacheSprite).filter(Objects::nonNull).count()
-			);
+			logger.debug("Loaded {} sprites, {} archived sprites decoded during start up.", Sprite.loadedSprites
+					+ Arrays.stream(cacheSprite).filter(Objects::nonNull).count(),
+					cacheSprite1.getDecodedCount() + cacheSprite2.getDecodedCount()
+					+ cacheSprite3.getDecodedCount() + cacheSprite4.getDecodedCount());
+			logger.info("Reached title screen in {} ms.", (System.nanoTime() - startUpTime) / 1_000_000L);
 			return;
 		} catch (Exception exception) {
 			exception.printStackTrace();
 			Signlink.reporterror("loaderror " + aString1049 + " " + anInt1079);
+		} finally {
+			startupPool.shutdown();
+			try {
+				startup.writeReport(new File(Signlink.getCacheDirectory() + "startup_timings.csv"));
+			} catch (IOException e) {
+				logger.warn("Couldn't write the start up timings.", e);
+			}
 		}
 		loadingError = true;
 	}
@@ -14300,7 +13963,7 @@ public class Client extends RSApplet {
 
 							if (d.isOpen()) {
 								// Up arrow
-								cacheSprite3[29].drawSprite(_x + d.getWidth() - 18, _y + 2);
+								cacheSprite3.get(29).drawSprite(_x + d.getWidth() - 18, _y + 2);
 
 								DrawingArea.drawPixels(d.getHeight(), _y + 19, _x, class9_1.dropdownColours[0], d.getWidth());
 								DrawingArea.drawPixels(d.getHeight() - 2, _y + 20, _x + 1, class9_1.dropdownColours[1],
@@ -14343,7 +14006,7 @@ public class Client extends RSApplet {
 										d.getHeight() - 5);
 
 							} else {
-								cacheSprite3[downArrow].drawSprite(_x + d.getWidth() - 18, _y + 2);
+								cacheSprite3.get(downArrow).drawSprite(_x + d.getWidth() - 18, _y + 2);
 							}
 						} else if (class9_1.type == RSInterface.TYPE_KEYBINDS_DROPDOWN) {
 
@@ -14358,7 +14021,7 @@ public class Client extends RSApplet {
 							DrawingArea.drawPixels(18, _y + 1, _x + 1, 0x544834, d.getWidth() - 2);
 							DrawingArea.drawPixels(16, _y + 2, _x + 2, 0x2e281d, d.getWidth() - 4);
 							newRegularFont.drawBasicString(d.getSelected(), _x + 7, _y + 15, 0xff8a1f, 0);
-							cacheSprite3[82].drawSprite(_x + d.getWidth() - 18, _y + 2); // Arrow TODO
+							cacheSprite3.get(82).drawSprite(_x + d.getWidth() - 18, _y + 2); // Arrow TODO
 
 							if (d.isOpen()) {
 
@@ -14525,13 +14188,13 @@ public class Client extends RSApplet {
 				DrawingArea.setDrawingArea(clipBottom, clipLeft, clipRight, clipTop);
 			}
 			if (rsInterface.id == 42000) {
-				cacheSprite2[76].flashSprite(24, 280, 200 + (int) (50 * Math.sin(loopCycle / 15.0)));
+				cacheSprite2.get(76).flashSprite(24, 280, 200 + (int) (50 * Math.sin(loopCycle / 15.0)));
 			}
 			if (rsInterface.id == 16244) {
 				if (super.getMouseX() > 165 && super.getMouseX() < 610 && super.getMouseY() > 428 && super.getMouseY() < 470) {
 					DrawingArea.drawAlphaBox(165, 428, 444, 42, 0xffffff, 40);
 				}
-				// cacheSprite2[76].drawSprite1(24, 280,
+				// cacheSprite2.get(76).drawSprite1(24, 280,
 				// 200 + (int) (50 * Math.sin(tick / 15.0)));
 				// DrawingArea.drawBox(30, 400, 400, 400, 0xffffff);
 			}
@@ -14990,6 +14653,19 @@ public class Client extends RSApplet {
 	}
 
 	private void displayGroundItems() {
+		String valueText = Preferences.getPreferences().groundItemTextShowMoreThan;
+		int showValue = 0;
+		try {
+			showValue = valueText.length() == 0 ? 0 : Integer.parseInt(valueText);
+		} catch (NumberFormatException e) {
+			Preferences.getPreferences().groundItemTextShowMoreThan = "";
+			if (Configuration.developerMode) {
+				e.printStackTrace();
+			}
+		}
+		String[] hide = null;
+		String[] show = null;
+
 		/**
 		 * Loop thru all tiles in region
 		 */
@@ -14999,39 +14675,32 @@ public class Client extends RSApplet {
 				NodeList class19 = groundItems[plane][x][y];
 				int count = 0;
 				if (class19 != null) {
-					Map<Integer, Long> amounts = new HashMap<>();
-					HashSet<Integer> drawn = new HashSet<>();
-
-					for (Item item = (Item) class19.getFirst(); item != null; item = (Item) class19.getNext()) {
-						amounts.put(item.ID, item.anInt1559 + amounts.getOrDefault(item.ID, 0L));
-					}
-
+					item:
 					for (Item item = (Item) class19.getFirst(); item != null; item = (Item) class19.getNext()) {
-						if (drawn.contains(item.ID)) {
-							continue;
+						// Stacks of the same item are drawn once, at the first one, with their amounts summed.
+						// The list's head isn't an Item, so walking the links stops at either end.
+						for (Node node = item.prev; node instanceof Item; node = node.prev) {
+							if (((Item) node).ID == item.ID) {
+								continue item;
+							}
+						}
+						long amount = item.anInt1559;
+						for (Node node = item.next; node instanceof Item; node = node.next) {
+							if (((Item) node).ID == item.ID) {
+								amount += ((Item) node).anInt1559;
+							}
 						}
 
 						ItemDef itemDef = ItemDef.forId(item.ID);
-						long amount = amounts.get(item.ID);
 						long value = (long) itemDef.getShopValue() * amount;
-						drawn.add(item.ID);
-
-						String valueText = Preferences.getPreferences().groundItemTextShowMoreThan;
-						int showValue = 0;
-						try {
-							showValue = valueText.length() == 0 ? 0 : Integer.parseInt(valueText);
-						} catch (NumberFormatException e) {
-							Preferences.getPreferences().groundItemTextShowMoreThan = "";
-							if (Configuration.developerMode) {
-								e.printStackTrace();
-							}
-						}
 
 						boolean rareDropColor = value > 100_000;
 
 						if (itemDef.isTradable() || !Preferences.getPreferences().groundItemAlwaysShowUntradables) {
-							String[] hide = Preferences.getPreferences().groundItemTextHide.split(",");
-							String[] show = Preferences.getPreferences().groundItemTextShow.split(",");
+							if (hide == null) {
+								hide = Preferences.getPreferences().groundItemTextHide.split(",");
+								show = Preferences.getPreferences().groundItemTextShow.split(",");
+							}
 							String itemNameFormatted = itemDef.getName().toLowerCase();
 
 							boolean showItem = Arrays.stream(show).anyMatch(showTxt -> showTxt.length() > 0 && itemNameFormatted.contains(showTxt.trim()));
@@ -15194,6 +14863,14 @@ public class Client extends RSApplet {
 			aTextDrawingArea_1271.method380("Mem: " + j1 / 1000 + " mb", xPosition, textColor, yPosition);
 			yPosition += 15;
 		}
+		if (RenderStats.overlay) {
+			int yPosition = fpsOn ? 60 : 30;
+			int xPosition = currentScreenMode == ScreenMode.FIXED ? 515 : currentGameWidth - 222;
+			for (String line : RenderStats.overlayLines()) {
+				aTextDrawingArea_1271.method380(line, xPosition, 0xffff00, yPosition);
+				yPosition += 15;
+			}
+		}
 
 		int x = baseX + (myPlayer.x - 6 >> 7);
 		int y = baseY + (myPlayer.y - 6 >> 7);
@@ -15331,7 +15008,6 @@ public class Client extends RSApplet {
 
 	private void method115() {
 		if (loadingStage == 2) {
-			boolean passedRequest = false;
 			for (SpawnedObject spawnedObject = (SpawnedObject) spawns
 					.reverseGetFirst(); spawnedObject != null; spawnedObject = (SpawnedObject) spawns
 					.reverseGetNext()) {
@@ -15343,6 +15019,7 @@ public class Client extends RSApplet {
 						method142(spawnedObject.y, spawnedObject.plane, spawnedObject.previousOrientation,
 								spawnedObject.previousType, spawnedObject.x, spawnedObject.group,
 								spawnedObject.getPreviousId);
+						minimap.tileChanged(spawnedObject.plane, spawnedObject.x, spawnedObject.y, plane);
 						spawnedObject.unlink();
 					}
 				} else {
@@ -15356,19 +15033,17 @@ public class Client extends RSApplet {
 								spawnedObject.type, spawnedObject.x, spawnedObject.group,
 								spawnedObject.objectId);
 						spawnedObject.delay = -1;
+						minimap.tileChanged(spawnedObject.plane, spawnedObject.x, spawnedObject.y, plane);
 						if (spawnedObject.objectId == spawnedObject.getPreviousId && spawnedObject.getPreviousId == -1)
 							spawnedObject.unlink();
 						else if (spawnedObject.objectId == spawnedObject.getPreviousId
 								&& spawnedObject.orientation == spawnedObject.previousOrientation
 								&& spawnedObject.type == spawnedObject.previousType)
 							spawnedObject.unlink();
-						passedRequest = true;
 					}
 				}
 			}
-			if (passedRequest)
-				// anInt985 = plane;
-				method24(plane);
+			updateMinimap();
 
 		}
 	}
@@ -16108,10 +15783,10 @@ public class Client extends RSApplet {
 				markMinimap(mapFunctions[icon[0]], ((icon[1] - baseX) * 4 + 2) - Client.myPlayer.x / 32, ((icon[2] - baseY) * 4 + 2) - Client.myPlayer.y / 32);
 			}
 
-			for (int j5 = 0; j5 < mapIconAmount; j5++) {
-				int k = (anIntArray1072[j5] * 4 + 2) - myPlayer.x / 32;
-				int i3 = (anIntArray1073[j5] * 4 + 2) - myPlayer.y / 32;
-				markMinimap(mapIconSprite[j5], k, i3);
+			for (int j5 = 0; j5 < minimap.iconCount; j5++) {
+				int k = (minimap.iconX[j5] * 4 + 2) - myPlayer.x / 32;
+				int i3 = (minimap.iconY[j5] * 4 + 2) - myPlayer.y / 32;
+				markMinimap(minimap.icons[j5], k, i3);
 			}
 
 
@@ -16273,11 +15948,11 @@ public class Client extends RSApplet {
 			drawRs3Compass();
 		}
 		if (currentScreenMode == ScreenMode.FIXED) {
-			cacheSprite2[6].drawSprite(baseX + 196, baseY + 106);//110
+			cacheSprite2.get(6).drawSprite(baseX + 196, baseY + 106);//110
 			if (worldHover) {
-				cacheSprite2[1].drawSprite(baseX + 200, baseY + 110);//111
+				cacheSprite2.get(1).drawSprite(baseX + 200, baseY + 110);//111
 			} else {
-				cacheSprite2[0].drawSprite(baseX + 200, baseY + 110);
+				cacheSprite2.get(0).drawSprite(baseX + 200, baseY + 110);
 			}
 			//if (wikiHover) {
 			//	wiki2.drawSprite(185, 153);
@@ -16297,11 +15972,11 @@ public class Client extends RSApplet {
 		} else if (!rs3MinimapOverride) {
 
 
-			cacheSprite2[6].drawSprite(baseX + 148, baseY + 141);
+			cacheSprite2.get(6).drawSprite(baseX + 148, baseY + 141);
 			if (worldHover) {
-				cacheSprite2[1].drawSprite(baseX + 152, baseY + 145);
+				cacheSprite2.get(1).drawSprite(baseX + 152, baseY + 145);
 			} else {
-				cacheSprite2[0].drawSprite(baseX + 152, baseY + 145);
+				cacheSprite2.get(0).drawSprite(baseX + 152, baseY + 145);
 			}
 
 			//	if (wikiHover) {
@@ -16340,13 +16015,13 @@ public class Client extends RSApplet {
 		int health = (int) (((double) currentHP / (double) maxHP) * 100D);
 		int poisonType = variousSettings[Configs.POISON_CONFIG];
 		int hover = poisonType == 0 ? 173 : 173;
-		Sprite bg = cacheSprite3[hpHover ? hover : 172];
+		Sprite bg = cacheSprite3.get(hpHover ? hover : 172);
 		Sprite fg = null;
 		if (poisonType == 0) {
-			fg = cacheSprite3[161];
+			fg = cacheSprite3.get(161);
 		}
 		if (poisonType == 1) {
-			fg = cacheSprite3[162];
+			fg = cacheSprite3.get(162);
 		}
 		if (poisonType == 2) {
 			fg = venomOrb;
@@ -16354,12 +16029,12 @@ public class Client extends RSApplet {
 		bg.drawSprite(0 + xOffset - xOff, baseY + 41 - yOff);
 		fg.drawSprite(27 + xOffset - xOff, baseY + 45 - yOff);
 		if (getOrbFill(health) <= 26) {
-			cacheSprite3[160].myHeight = getOrbFill(health);
+			cacheSprite3.get(160).myHeight = getOrbFill(health);
 		} else {
-			cacheSprite3[160].myHeight = 26;
+			cacheSprite3.get(160).myHeight = 26;
 		}
-		cacheSprite3[160].drawSprite(27 + xOffset - xOff, baseY + 45 - yOff);
-		cacheSprite3[168].drawSprite(27 + xOffset - xOff, baseY + 45 - yOff);
+		cacheSprite3.get(160).drawSprite(27 + xOffset - xOff, baseY + 45 - yOff);
+		cacheSprite3.get(168).drawSprite(27 + xOffset - xOff, baseY + 45 - yOff);
 		if (health > 1_000_000_000) {
 			infinity.drawSprite(10 + xOffset - xOff, baseY + 59 - yOff);
 		} else {
@@ -16377,13 +16052,13 @@ public class Client extends RSApplet {
 		int health = (int) (((double) currentHP / (double) maxHP) * 100D);
 		int poisonType = variousSettings[Configs.POISON_CONFIG];
 		int hover = poisonType == 0 ? 173 : 173;
-		Sprite bg = cacheSprite3[hpHover ? hover : 172];
+		Sprite bg = cacheSprite3.get(hpHover ? hover : 172);
 		Sprite fg = null;
 		if (poisonType == 0) {
-			fg = cacheSprite3[161];
+			fg = cacheSprite3.get(161);
 		}
 		if (poisonType == 1) {
-			fg = cacheSprite3[162];
+			fg = cacheSprite3.get(162);
 		}
 		if (poisonType == 2) {
 			fg = venomOrb;
@@ -16391,12 +16066,12 @@ public class Client extends RSApplet {
 		bg.drawSprite(baseX, baseY);
 		fg.drawSprite(baseX + 27, baseY + 4);
 		if (getOrbFill(health) <= 26) {
-			cacheSprite3[160].myHeight = getOrbFill(health);
+			cacheSprite3.get(160).myHeight = getOrbFill(health);
 		} else {
-			cacheSprite3[160].myHeight = 26;
+			cacheSprite3.get(160).myHeight = 26;
 		}
-		cacheSprite3[160].drawSprite(baseX + 27, baseY + 4);
-		cacheSprite3[168].drawSprite(baseX + 27, baseY + 4);
+		cacheSprite3.get(160).drawSprite(baseX + 27, baseY + 4);
+		cacheSprite3.get(168).drawSprite(baseX + 27, baseY + 4);
 		if (health > 1_000_000_000) {
 			infinity.drawSprite(baseX + 10, baseY + 18);
 		} else {
@@ -16411,7 +16086,7 @@ public class Client extends RSApplet {
 	public int specialAttack=100;
 
 	private void drawSpecialOrb(int xOffset) {
-		Sprite image = cacheSprite1[specialHover ? 8 : 7];
+		Sprite image = cacheSprite1.get(specialHover ? 8 : 7);
 		Sprite fill = cacheSprite[specialEnabled == 0 ? 9 : 6];
 		Sprite sword = cacheSprite[12];
 		double percent = specialAttack  / (double) 100;
@@ -16434,7 +16109,7 @@ public class Client extends RSApplet {
 	}
 
 	public void drawSpecialOrbAt(int baseX, int baseY) {
-		Sprite image = cacheSprite1[specialHover ? 8 : 7];
+		Sprite image = cacheSprite1.get(specialHover ? 8 : 7);
 		Sprite fill = cacheSprite[specialEnabled == 0 ? 9 : 6];
 		Sprite sword = cacheSprite[12];
 		double percent = specialAttack / (double) 100;
@@ -16495,19 +16170,19 @@ public class Client extends RSApplet {
 		int xOff = Configuration.osbuddyGameframe ? currentScreenMode == ScreenMode.FIXED ? -1 : -7
 				: currentScreenMode == ScreenMode.FIXED ? -1 : -7;
 		int baseY = getOrbBaseY();
-		Sprite bg = cacheSprite1[prayHover ? 8 : 7];
-		Sprite fg = prayClicked ? new Sprite("Gameframe/newprayclicked") : cacheSprite1[1];
+		Sprite bg = cacheSprite1.get(prayHover ? 8 : 7);
+		Sprite fg = prayClicked ? new Sprite("Gameframe/newprayclicked") : cacheSprite1.get(1);
 		bg.drawSprite(0 + xOffset - xOff, baseY + 75 - yOff);
 		fg.drawSprite(27 + xOffset - xOff, baseY + 79 - yOff);
 		int level = Integer.parseInt(RSInterface.interfaceCache[4012].message.replaceAll("%", ""));
 		int max = maxStats[5];
 		double percent = level / (double) max;
-		cacheSprite1[14].myHeight = (int) (26 * (1 - percent));
-		cacheSprite1[14].drawSprite(27 + xOffset - xOff, baseY + 79 - yOff);
+		cacheSprite1.get(14).myHeight = (int) (26 * (1 - percent));
+		cacheSprite1.get(14).drawSprite(27 + xOffset - xOff, baseY + 79 - yOff);
 		if (percent <= .25) {
-			cacheSprite1[10].drawSprite(30 + xOffset - xOff, baseY + 82 - yOff);
+			cacheSprite1.get(10).drawSprite(30 + xOffset - xOff, baseY + 82 - yOff);
 		} else {
-			cacheSprite1[10].drawSprite(30 + xOffset - xOff, baseY + 82 - yOff);
+			cacheSprite1.get(10).drawSprite(30 + xOffset - xOff, baseY + 82 - yOff);
 		}
 		if (level > 1_000_000_000) {
 			infinity.drawSprite(11 + xOffset - xOff, baseY + 94 - yOff);
@@ -16519,16 +16194,16 @@ public class Client extends RSApplet {
 	}
 
 	public void drawPrayerOrbAt(int baseX, int baseY) {
-		Sprite bg = cacheSprite1[prayHover ? 8 : 7];
-		Sprite fg = prayClicked ? new Sprite("Gameframe/newprayclicked") : cacheSprite1[1];
+		Sprite bg = cacheSprite1.get(prayHover ? 8 : 7);
+		Sprite fg = prayClicked ? new Sprite("Gameframe/newprayclicked") : cacheSprite1.get(1);
 		bg.drawSprite(baseX, baseY);
 		fg.drawSprite(baseX + 27, baseY + 4);
 		int level = Integer.parseInt(RSInterface.interfaceCache[4012].message.replaceAll("%", ""));
 		int max = maxStats[5];
 		double percent = level / (double) max;
-		cacheSprite1[14].myHeight = (int) (26 * (1 - percent));
-		cacheSprite1[14].drawSprite(baseX + 27, baseY + 4);
-		cacheSprite1[10].drawSprite(baseX + 30, baseY + 7);
+		cacheSprite1.get(14).myHeight = (int) (26 * (1 - percent));
+		cacheSprite1.get(14).drawSprite(baseX + 27, baseY + 4);
+		cacheSprite1.get(10).drawSprite(baseX + 30, baseY + 7);
 		if (level > 1_000_000_000) {
 			infinity.drawSprite(baseX + 11, baseY + 19);
 		} else {
@@ -16543,19 +16218,19 @@ public class Client extends RSApplet {
 		int xMinus = Configuration.osbuddyGameframe ? currentScreenMode == ScreenMode.FIXED ? 11 : 5
 				: currentScreenMode == ScreenMode.FIXED ? -1 : -6;
 		int baseY = getOrbBaseY();
-		Sprite bg = cacheSprite1[runHover ? 8 : 7];
+		Sprite bg = cacheSprite1.get(runHover ? 8 : 7);
 		boolean running = anIntArray1045[173] == 1;
-		Sprite fg = cacheSprite1[running ? 4 : 3];
+		Sprite fg = cacheSprite1.get(running ? 4 : 3);
 		bg.drawSprite(10 + xOffset - xMinus, baseY + 109 - yOff);
 		fg.drawSprite(37 + xOffset - xMinus, baseY + 113 - yOff);
 		int level = current;
 		double percent = level / (double) 100;
-		cacheSprite1[14].myHeight = (int) (26 * (1 - percent));
-		cacheSprite1[14].drawSprite(37 + xOffset - xMinus, baseY + 113 - yOff);
+		cacheSprite1.get(14).myHeight = (int) (26 * (1 - percent));
+		cacheSprite1.get(14).drawSprite(37 + xOffset - xMinus, baseY + 113 - yOff);
 		if (percent <= .25) {
-			cacheSprite1[running ? 12 : 11].drawSprite(43 + xOffset - xMinus, baseY + 117 - yOff);
+			cacheSprite1.get(running ? 12 : 11).drawSprite(43 + xOffset - xMinus, baseY + 117 - yOff);
 		} else {
-			cacheSprite1[running ? 12 : 11].drawSprite(43 + xOffset - xMinus, baseY + 117 - yOff);
+			cacheSprite1.get(running ? 12 : 11).drawSprite(43 + xOffset - xMinus, baseY + 117 - yOff);
 		}
 		smallText.method382(getOrbTextColor((int) (percent * 100)), 25 + xOffset - xMinus, level + "", baseY + 135 - yOff,
 				true);
@@ -16563,16 +16238,16 @@ public class Client extends RSApplet {
 
 	public void drawRunOrbAt(int baseX, int baseY) {
 		int current = Integer.parseInt(RSInterface.interfaceCache[22539].message.replaceAll("%", ""));
-		Sprite bg = cacheSprite1[runHover ? 8 : 7];
+		Sprite bg = cacheSprite1.get(runHover ? 8 : 7);
 		boolean running = anIntArray1045[173] == 1;
-		Sprite fg = cacheSprite1[running ? 4 : 3];
+		Sprite fg = cacheSprite1.get(running ? 4 : 3);
 		bg.drawSprite(baseX, baseY);
 		fg.drawSprite(baseX + 27, baseY + 4);
 		int level = current;
 		double percent = level / (double) 100;
-		cacheSprite1[14].myHeight = (int) (26 * (1 - percent));
-		cacheSprite1[14].drawSprite(baseX + 27, baseY + 4);
-		cacheSprite1[running ? 12 : 11].drawSprite(baseX + 33, baseY + 8);
+		cacheSprite1.get(14).myHeight = (int) (26 * (1 - percent));
+		cacheSprite1.get(14).drawSprite(baseX + 27, baseY + 4);
+		cacheSprite1.get(running ? 12 : 11).drawSprite(baseX + 33, baseY + 8);
 		smallText.method382(getOrbTextColor((int) (percent * 100)), baseX + 21, level + "", baseY + 30, true);
 	}
 
@@ -16590,21 +16265,21 @@ public class Client extends RSApplet {
 		} catch (Exception e) {}
 		if (drawExperienceCounter) {
 			if (counterHover) {
-				cacheSprite2[5].drawSprite(
+				cacheSprite2.get(5).drawSprite(
 						drawOrbs && currentScreenMode == ScreenMode.FIXED ? orbX : orbX,
 						baseY + (currentScreenMode == ScreenMode.FIXED ? 21 : 25));
 			} else {
-				cacheSprite2[3].drawSprite(
+				cacheSprite2.get(3).drawSprite(
 						drawOrbs && currentScreenMode == ScreenMode.FIXED ? orbX : orbX,
 						baseY + (currentScreenMode == ScreenMode.FIXED ? 21 : 25));
 			}
 		} else {
 			if (counterHover) {
-				cacheSprite2[4].drawSprite(
+				cacheSprite2.get(4).drawSprite(
 						drawOrbs && currentScreenMode == ScreenMode.FIXED ? orbX : orbX,
 						baseY + (currentScreenMode == ScreenMode.FIXED ? 21 : 25));
 			} else {
-				cacheSprite2[2].drawSprite(
+				cacheSprite2.get(2).drawSprite(
 						drawOrbs && currentScreenMode == ScreenMode.FIXED ? orbX : orbX,
 						baseY + (currentScreenMode == ScreenMode.FIXED ? 21 : 25));
 			}
@@ -16634,11 +16309,11 @@ public class Client extends RSApplet {
 		if (rs3OrbsOverride && !isRs3InterfaceStyle()) {
 			int minimapBaseX = xOffset + 34;
 			int baseY = getOrbBaseY();
-			cacheSprite2[6].drawSprite(minimapBaseX + 148, baseY + 141);
+			cacheSprite2.get(6).drawSprite(minimapBaseX + 148, baseY + 141);
 			if (worldHover) {
-				cacheSprite2[1].drawSprite(minimapBaseX + 152, baseY + 145);
+				cacheSprite2.get(1).drawSprite(minimapBaseX + 152, baseY + 145);
 			} else {
-				cacheSprite2[0].drawSprite(minimapBaseX + 152, baseY + 145);
+				cacheSprite2.get(0).drawSprite(minimapBaseX + 152, baseY + 145);
 			}
 			if (teleOrbHover) {
 				new Sprite("/Interfaces/teleorb/1436").drawSprite(minimapBaseX + 83, baseY + 150);
@@ -16651,25 +16326,25 @@ public class Client extends RSApplet {
 	public void drawXpOrbAt(int baseX, int baseY) {
 		if (drawExperienceCounter) {
 			if (counterHover) {
-				cacheSprite2[5].drawSprite(baseX, baseY);
+				cacheSprite2.get(5).drawSprite(baseX, baseY);
 			} else {
-				cacheSprite2[3].drawSprite(baseX, baseY);
+				cacheSprite2.get(3).drawSprite(baseX, baseY);
 			}
 		} else {
 			if (counterHover) {
-				cacheSprite2[4].drawSprite(baseX, baseY);
+				cacheSprite2.get(4).drawSprite(baseX, baseY);
 			} else {
-				cacheSprite2[2].drawSprite(baseX, baseY);
+				cacheSprite2.get(2).drawSprite(baseX, baseY);
 			}
 		}
 	}
 
 	public void drawWorldMapButtonAt(int baseX, int baseY) {
-		cacheSprite2[6].drawSprite(baseX, baseY);
+		cacheSprite2.get(6).drawSprite(baseX, baseY);
 		if (worldHover) {
-			cacheSprite2[1].drawSprite(baseX + 4, baseY + 4);
+			cacheSprite2.get(1).drawSprite(baseX + 4, baseY + 4);
 		} else {
-			cacheSprite2[0].drawSprite(baseX + 4, baseY + 4);
+			cacheSprite2.get(0).drawSprite(baseX + 4, baseY + 4);
 		}
 	}
 
@@ -19418,6 +19093,9 @@ public class Client extends RSApplet {
 								|| object.y >= 104)
 							object.unlink();
 					}
+					if (incomingPacket != 73 || lowMem
+							|| !sceneWindow.slide(dx, dy, worldController, aClass11Array1230, byteGroundArray, intGroundArray))
+						sceneWindow.invalidate();
 					if (destX != 0) {
 						destX -= dx;
 						destY -= dy;
@@ -20586,6 +20264,8 @@ public class Client extends RSApplet {
 	public static float[] antialiasingDepth;
 
 	public void render3dWorld() {
+		RenderStats.beginFrame();
+		ModelPool.reset();
 		anInt1265++;
 		if (mainGameGraphicsBuffer != null) {
 			mainGameGraphicsBuffer.setCanvas();
@@ -20665,7 +20345,10 @@ public class Client extends RSApplet {
 		Model.anInt1686 = super.getMouseY() - 4;
 
 		// ---- Anti-aliasing swap (safe + complete) ----
-		final boolean aa = getUserSettings().isAntiAliasing();
+		final AntiAliasingFactor aaFactor = getUserSettings().getAntiAliasingFactor();
+		final boolean aa = aaFactor.isEnabled();
+		final int savedMouseX = Model.anInt1685;
+		final int savedMouseY = Model.anInt1686;
 
 		// Save original raster state
 		final int[] savedRasterPixels = Rasterizer.pixels;
@@ -20689,12 +20372,12 @@ public class Client extends RSApplet {
 		final float[] savedDrawingDepth = DrawingArea.depthBuffer;
 
 		if (aa) {
-			ensureAntiAliasingBuffers(savedWidth, savedHeight);
+			ensureAntiAliasingBuffers(savedWidth, savedHeight, aaFactor);
 
-			// Double input-space mouse + focal
-			Model.anInt1685 <<= 1;
-			Model.anInt1686 <<= 1;
-			WorldController.focalLength = savedFocal << 1;
+			// Scale input-space mouse + focal
+			Model.anInt1685 = aaFactor.scale(savedMouseX);
+			Model.anInt1686 = aaFactor.scale(savedMouseY);
+			WorldController.focalLength = aaFactor.scale(savedFocal);
 
 			// Swap pixels + line offsets for AA buffer
 			Rasterizer.pixels = antialiasingPixels;
@@ -20705,18 +20388,18 @@ public class Client extends RSApplet {
 			Rasterizer.depthBuffer = antialiasingDepth;
 			DrawingArea.depthBuffer = antialiasingDepth;
 
-			// Double raster bounds + drawing dimensions
-			Rasterizer.bottomX = savedBottomX << 1;
-			Rasterizer.bottomY = savedBottomY << 1;
+			// Scale raster bounds + drawing dimensions
+			Rasterizer.bottomX = aaFactor.scale(savedBottomX);
+			Rasterizer.bottomY = aaFactor.scale(savedBottomY);
 
-			DrawingArea.width = savedWidth << 1;
-			DrawingArea.height = savedHeight << 1;
-			DrawingArea.centerX = savedCenterX << 1;
-			DrawingArea.centerY = savedCenterY << 1;
-			DrawingArea.anInt1387 = savedAnInt1387 << 1;
+			DrawingArea.width = aaFactor.scale(savedWidth);
+			DrawingArea.height = aaFactor.scale(savedHeight);
+			DrawingArea.centerX = aaFactor.scale(savedCenterX);
+			DrawingArea.centerY = aaFactor.scale(savedCenterY);
+			DrawingArea.anInt1387 = aaFactor.scale(savedAnInt1387);
 
-			Rasterizer.textureInt1 = savedTex1 << 1;
-			Rasterizer.textureInt2 = savedTex2 << 1;
+			Rasterizer.textureInt1 = aaFactor.scale(savedTex1);
+			Rasterizer.textureInt2 = aaFactor.scale(savedTex2);
 		} else {
 			// leave focalLength alone here; restoring savedFocal in finally keeps it stable
 		}
@@ -20738,22 +20421,33 @@ public class Client extends RSApplet {
 
 			DrawingArea.setAllPixelsToZero();
 
-			worldController.draw(xCameraPos, yCameraPos, xCameraCurve, zCameraPos, j, yCameraCurve);
+			long stageStart = System.nanoTime();
+			BinnedRasterizer.begin();
+			try {
+				worldController.draw(xCameraPos, yCameraPos, xCameraCurve, zCameraPos, j, yCameraCurve);
+			} finally {
+				BinnedRasterizer.end();
+			}
+			RenderStats.addTime(RenderStats.SCENE, stageStart);
 
 			if (getUserSettings().isFog()) {
+				stageStart = System.nanoTime();
 				currentFog = 0;
 				int begin = WorldController.farZ * 90;
 				Rasterizer.drawFog(SettingsManager.DEFAULT_FOG_COLOR, begin, begin + 1800);
+				RenderStats.addTime(RenderStats.FOG, stageStart);
 			}
 
 			// Draw particles AFTER the whole scene has populated the depth buffer
+			stageStart = System.nanoTime();
 			com.client.features.particles.ParticlePostPass.flush();
+			RenderStats.addTime(RenderStats.PARTICLES, stageStart);
 
 		} finally {
 			// Restore always (even if draw crashes)
 			if (aa) {
-				Model.anInt1685 >>= 1;
-				Model.anInt1686 >>= 1;
+				Model.anInt1685 = savedMouseX;
+				Model.anInt1686 = savedMouseY;
 			}
 
 			// Restore depth buffers
@@ -20783,35 +20477,10 @@ public class Client extends RSApplet {
 
 		// ---- Downsample AA buffer into normal buffer ----
 		if (aa) {
-			final int outW = DrawingArea.width;
-			final int outH = DrawingArea.height;
-			final int aaW = outW << 1;
-
-			for (int y = 0; y < outH; y++) {
-				final int y2 = y << 1;
-				final int row0 = y2 * aaW;
-				final int row1 = (y2 + 1) * aaW;
-				final int outRow = y * outW;
-
-				for (int x = 0; x < outW; x++) {
-					final int x2 = x << 1;
-
-					int c1 = antialiasingPixels[row0 + x2];
-					int c2 = antialiasingPixels[row0 + x2 + 1];
-					int c3 = antialiasingPixels[row1 + x2];
-					int c4 = antialiasingPixels[row1 + x2 + 1];
-
-					int r = ((c1 >> 16) & 0xFF) + ((c2 >> 16) & 0xFF) + ((c3 >> 16) & 0xFF) + ((c4 >> 16) & 0xFF);
-					int g = ((c1 >> 8) & 0xFF) + ((c2 >> 8) & 0xFF) + ((c3 >> 8) & 0xFF) + ((c4 >> 8) & 0xFF);
-					int b = (c1 & 0xFF) + (c2 & 0xFF) + (c3 & 0xFF) + (c4 & 0xFF);
-
-					r >>= 2;
-					g >>= 2;
-					b >>= 2;
-
-					DrawingArea.pixels[outRow + x] = (r << 16) | (g << 8) | b;
-				}
-			}
+			long resolveStart = System.nanoTime();
+			SupersampleResolve.resolve(aaFactor, antialiasingPixels, DrawingArea.pixels, DrawingArea.width,
+					DrawingArea.height);
+			RenderStats.addTime(RenderStats.RESOLVE, resolveStart);
 		}
 
 		worldController.clearObj5Cache();
@@ -20825,6 +20494,7 @@ public class Client extends RSApplet {
 			displayGroundItems();
 		}
 
+		long uiStart = System.nanoTime();
 		boolean useUiBuffer = uiGraphicsBuffer != null && isRs3InterfaceStyle() && currentScreenMode != ScreenMode.FIXED;
 
 		if (loggedIn) {
@@ -20885,6 +20555,8 @@ public class Client extends RSApplet {
 				mainGameGraphicsBuffer.drawGraphics(0, super.graphics, 0);
 			}
 		}
+		RenderStats.addTime(RenderStats.UI, uiStart);
+		RenderStats.endFrame();
 
 		xCameraPos = l;
 		zCameraPos = i1;
@@ -20896,9 +20568,9 @@ public class Client extends RSApplet {
 
 
 
-	private void ensureAntiAliasingBuffers(int baseW, int baseH) {
-		final int aaW = baseW << 1;
-		final int aaH = baseH << 1;
+	private void ensureAntiAliasingBuffers(int baseW, int baseH, AntiAliasingFactor factor) {
+		final int aaW = factor.scale(baseW);
+		final int aaH = factor.scale(baseH);
 
 		final int neededPixels = aaW * aaH;
 		if (antialiasingPixels == null || antialiasingPixels.length < neededPixels) {
@@ -21036,7 +20708,6 @@ public class Client extends RSApplet {
 		clanChatMode = 0;
 		channelButtonHoverPosition = -1;
 		channelButtonClickPosition = 0;
-		anIntArrayArray825 = new int[104][104];
 		friendsNodeIDs = new int[200];
 		groundItems = new NodeList[4][104][104];
 		aBoolean831 = false;
@@ -21061,7 +20732,7 @@ public class Client extends RSApplet {
 		playerIndices = new int[maxPlayers];
 		anIntArray894 = new int[maxPlayers];
 		aStreamArray895s = new Stream[maxPlayers];
-		anIntArrayArray901 = new int[104][104];
+		pathFinder = new PathFinder();
 		aByteArray912 = new byte[16384];
 		currentStats = new int[Skills.SKILLS_COUNT];
 		ignoreListAsLongs = new long[100];
@@ -21115,8 +20786,6 @@ public class Client extends RSApplet {
 		mapScenes = new Background[100];
 		barFillColor = 0x4d4233;
 		anIntArray1065 = new int[7];
-		anIntArray1072 = new int[1000];
-		anIntArray1073 = new int[1000];
 		loadingMap = false;
 		friendsList = new String[200];
 		inStream = Stream.create();
@@ -21133,7 +20802,6 @@ public class Client extends RSApplet {
 		atPlayerActions = new String[6];
 		atPlayerArray = new boolean[6];
 		constructionRegionData = new int[4][13][13];
-		mapIconSprite = new Sprite[1000];
 		inTutorialIsland = false;
 		aBoolean1149 = false;
 		crosses = new Sprite[8];
@@ -21195,13 +20863,13 @@ public class Client extends RSApplet {
 	public int autocastId = 0;
 	public boolean autocast = false;
 
-	public static Sprite[] cacheSprite, cacheSprite1, cacheSprite2, cacheSprite3, cacheSprite4;
+	public static Sprite[] cacheSprite;
+	public static SpriteArchive cacheSprite1, cacheSprite2, cacheSprite3, cacheSprite4;
 	public static Sprite[] cacheInterface;
 
 	private Background titleButton;
 	private int ignoreCount;
 	private long longStartTime;
-	private int[][] anIntArrayArray825;
 	private int[] friendsNodeIDs;
 	private NodeList[][][] groundItems;
 	private int[] anIntArray828;
@@ -21262,7 +20930,7 @@ public class Client extends RSApplet {
 	private int viewRotationOffset;
 	private int friendsCount;
 	private int anInt900;
-	private int[][] anIntArrayArray901;
+	private PathFinder pathFinder;
 	private byte[] aByteArray912;
 	private int anInt913;
 	private int crossX;
@@ -21419,9 +21087,8 @@ public class Client extends RSApplet {
 	public OnDemandFetcher onDemandFetcher;
 	private int currentRegionX;
 	private int currentRegionY;
-	private int mapIconAmount;
-	private int[] anIntArray1072;
-	private int[] anIntArray1073;
+	/** Map scenes are drawn at most this many tiles from the tile of their object. */
+	private Minimap minimap;
 	private Sprite mapDotItem;
 	private Sprite mapDotNPC;
 	private Sprite mapDotPlayer;
@@ -21478,7 +21145,6 @@ public class Client extends RSApplet {
 	private int anInt1137;
 	private int spellUsableOn;
 	private String spellTooltip;
-	private Sprite[] mapIconSprite;
 	private boolean inTutorialIsland;
 	private static int anInt1142;
 	private int energy;
@@ -21577,6 +21243,8 @@ public class Client extends RSApplet {
 	private boolean welcomeScreenRaised;
 	private boolean messagePromptRaised;
 	private byte[][][] byteGroundArray;
+	private RegionDecoder regionDecoder;
+	private final SceneWindow sceneWindow = new SceneWindow();
 	private int prevSong;
 	private int destX;
 	private int destY;
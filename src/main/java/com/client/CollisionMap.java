@@ -1,5 +1,7 @@
 package com.client;
 
+import java.util.Arrays;
+
 final class CollisionMap {
 
     public CollisionMap() {
@@ -12,6 +14,7 @@ final class CollisionMap {
     }
 
     public void setDefault() {
+        version++;
         for (int i = 0; i < width; i++) {
             for (int j = 0; j < height; j++)
                 if (i == 0 || j == 0 || i == width - 1 || j == height - 1)
@@ -23,6 +26,47 @@ final class CollisionMap {
 
     }
 
+    /**
+     * Moves the flags by dx and dy tiles, the change of the region base. The tiles coming in take the defaults.
+     */
+    public void shift(int dx, int dy) {
+        version++;
+        int[][] old = new int[width][];
+        for (int i = 0; i < width; i++)
+            old[i] = anIntArrayArray294[i].clone();
+        for (int i = 0; i < width; i++) {
+            int from = i + dx;
+            int[] column = anIntArrayArray294[i];
+            if (from < 0 || from >= width) {
+                Arrays.fill(column, 0x1000000);
+                continue;
+            }
+            int[] source = old[from];
+            for (int j = 0; j < height; j++) {
+                int fromY = j + dy;
+                column[j] = fromY < 0 || fromY >= height ? 0x1000000 : source[fromY];
+            }
+        }
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++)
+                if (i == 0 || j == 0 || i == width - 1 || j == height - 1)
+                    anIntArrayArray294[i][j] = 0xffffff;
+        }
+    }
+
+    /**
+     * Sets the tiles of the given 8 by 8 tile chunks back to the defaults.
+     */
+    public void resetChunks(boolean[][] chunks) {
+        version++;
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++)
+                if (chunks[i >> 3][j >> 3])
+                    anIntArrayArray294[i][j] = i == 0 || j == 0 || i == width - 1 || j == height - 1 ? 0xffffff
+                            : 0x1000000;
+        }
+    }
+
     public void method211(int y, int orientation, int x, int group, boolean flag) {
         x -= xOffset;
         y -= yOffset;
@@ -171,10 +215,12 @@ final class CollisionMap {
         k -= xOffset;
         i -= yOffset;
         anIntArrayArray294[k][i] |= 0x200000;
+        version++;
     }
 
-    private void flag(int i, int j, int k) {
+    void flag(int i, int j, int k) {
         anIntArrayArray294[i][j] |= k;
+        version++;
     }
 
     public void method215(int i, int j, boolean flag, int k, int l) {
@@ -323,12 +369,14 @@ final class CollisionMap {
 
     private void method217(int i, int j, int k) {
         anIntArrayArray294[j][k] &= 0xffffff - i;
+        version++;
     }
 
     public void method218(int j, int k) {
         k -= xOffset;
         j -= yOffset;
         anIntArrayArray294[k][j] &= 0xdfffff;
+        version++;
     }
 
     public boolean method219(int i, int j, int k, int i1, int j1, int k1) {
@@ -522,4 +570,6 @@ final class CollisionMap {
     private final int width;
     private final int height;
     public final int[][] anIntArrayArray294;
+    /** Bumped whenever a flag changes, so what is worked out from the flags knows to work it out again. */
+    int version;
 }
@@ -57,6 +57,11 @@ public class Configuration {
 	public static boolean developerMode = false;
 	public static boolean loadExternalCacheArchives = false; // Always true because I can't seem to pack them correctly
 	public static boolean packIndexData = false;
+	public static long modelCacheBudget = 48L * 1024 * 1024; // Bytes of object and npc models kept cached
+	public static long textureCacheBudget = 24L * 1024 * 1024; // Bytes of texture pixels kept resident, quartered in low memory mode
+	public static boolean binnedRasterizer = false; // Fill scene triangles in horizontal bands on worker threads
+	public static boolean occlusionCulling = true; // Skip tiles and models hidden behind terrain and walls
+	public static boolean memoryMappedCache = true; // Read cache files through FileChannel.map, disabled automatically if mapping fails
 	public static boolean dumpMaps;
 	public static boolean dumpAnimationData = false;
 	public static boolean dumpDataLists = false;
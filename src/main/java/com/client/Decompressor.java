@@ -1,6 +1,13 @@
 package com.client;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 // https://www.rune-server.ee/runescape-development/rs2-server/informative-threads/534604-explanation-simplification-runescape-cache.html
 final class Decompressor {
@@ -26,20 +33,127 @@ final class Decompressor {
 	 */
 	public static final int DATA_SIZE = DATA_HEADER_SIZE + DATA_BLOCK_SIZE;
 
+	/**
+	 * Mapped views are shared per file, all five indices read from the same main_file_cache.dat.
+	 */
+	private static final Map<RandomAccessFile, MappedRegion> mappedRegions = new IdentityHashMap<>();
+
+	/**
+	 * Mapped reads hold the read lock and {@link #write(int, byte[], int)} the write lock, so no read copies a
+	 * sector while it is being rewritten. Shared by every index because they write to the same data file.
+	 */
+	private static final ReadWriteLock fileLock = new ReentrantReadWriteLock();
+
 	private static final byte[] buffer = new byte[520];
 	private final RandomAccessFile dataFile;
 	private final RandomAccessFile indexFile;
 	private final int fileType;
+	private final MappedRegion dataRegion;
+	private final MappedRegion indexRegion;
 
 	public Decompressor(RandomAccessFile dataFile, RandomAccessFile indexFile, int fileTye) {
 		fileType = fileTye;
 		this.dataFile = dataFile;
 		this.indexFile = indexFile;
+		this.dataRegion = regionFor(dataFile);
+		this.indexRegion = regionFor(indexFile);
 	}
 
+	private static MappedRegion regionFor(RandomAccessFile file) {
+		synchronized (mappedRegions) {
+			return mappedRegions.computeIfAbsent(file, MappedRegion::new);
+		}
+	}
+
+	/**
+	 * Read a file from the cache, through the memory-mapped views when {@link Configuration#memoryMappedCache}
+	 * is enabled. The mapped path holds no shared scratch state so any number of threads can read at once,
+	 * waiting only for writes in progress, if mapping fails the client falls back to the synchronized {@link RandomAccessFile} path for the session.
+	 * A corrupt index entry or sector chain only loses its own file.
+	 *
+	 * @param fileId The file id.
+	 * @return the file data, or null if the file is missing or corrupt.
+	 */
+	public byte[] read(int fileId) {
+		if (Configuration.memoryMappedCache) {
+			fileLock.readLock().lock();
+			try {
+				return readMapped(fileId);
+			} catch (IOException | OutOfMemoryError e) {
+				System.err.println("Memory-mapped cache read failed, falling back to file reads.");
+				e.printStackTrace();
+				Configuration.memoryMappedCache = false;
+			} catch (RuntimeException e) {
+				// A corrupt entry loses only its own file, the mapping itself is fine
+				e.printStackTrace();
+				return null;
+			} finally {
+				fileLock.readLock().unlock();
+			}
+		}
+		synchronized (buffer) {
+			return readFile(fileId);
+		}
+	}
 
 	/**
-	 * Read a file from the data file.
+	 * Read a file straight out of the mapped index and data files.
+	 *
+	 * The sector chain is walked and every header validated before anything is copied, then the payload
+	 * of each sector is copied with a single bulk get.
+	 */
+	private byte[] readMapped(int fileId) throws IOException {
+		int indexPosition = fileId * INDEX_SIZE;
+		ByteBuffer index = indexRegion.map(indexPosition + INDEX_SIZE);
+		if (index == null)
+			return null;
+		int fileSize = ((index.get(indexPosition) & 0xff) << 16) + ((index.get(indexPosition + 1) & 0xff) << 8) + (index.get(indexPosition + 2) & 0xff);
+		int sectorId = ((index.get(indexPosition + 3) & 0xff) << 16) + ((index.get(indexPosition + 4) & 0xff) << 8) + (index.get(indexPosition + 5) & 0xff);
+		if (sectorId <= 0)
+			return null;
+
+		int chunks = (fileSize + DATA_BLOCK_SIZE - 1) / DATA_BLOCK_SIZE;
+		int[] sectorPositions = new int[chunks];
+		ByteBuffer data = null;
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			if (sectorId == 0)
+				return null;
+			// 24-bit sector ids run past the int range once multiplied out
+			long sectorEnd = (long) sectorId * DATA_SIZE + DATA_HEADER_SIZE
+					+ Math.min(fileSize - chunk * DATA_BLOCK_SIZE, DATA_BLOCK_SIZE);
+			if (data == null || sectorEnd > data.capacity()) {
+				if (sectorEnd > Integer.MAX_VALUE)
+					return null;
+				data = dataRegion.map(sectorEnd);
+				if (data == null)
+					return null;
+			}
+			int position = sectorId * DATA_SIZE;
+
+			int readFileId = data.getShort(position) & 0xffff;
+			int readChunkId = data.getShort(position + 2) & 0xffff;
+			int readSectorId = ((data.get(position + 4) & 0xff) << 16) + (data.getShort(position + 5) & 0xffff);
+			int readTypeId = data.get(position + 7) & 0xff;
+			if (readFileId != fileId || readChunkId != chunk || readTypeId != fileType)
+				return null;
+
+			sectorPositions[chunk] = position + DATA_HEADER_SIZE;
+			sectorId = readSectorId;
+		}
+
+		byte[] fileData = new byte[fileSize];
+		ByteBuffer view = data == null ? null : data.duplicate();
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			int offset = chunk * DATA_BLOCK_SIZE;
+			view.position(sectorPositions[chunk]);
+			view.get(fileData, offset, Math.min(fileSize - offset, DATA_BLOCK_SIZE));
+		}
+		return fileData;
+	}
+
+
+	/**
+	 * Read a file from the data file using the shared sector buffer.
 	 *
 	 * First it reads the index file, which contains 6 bytes of information: the total file size and the
 	 * sector id where this file begins. It then begins reading the data file in 520 byte sectors. The sectors
@@ -48,7 +162,7 @@ final class Decompressor {
 	 * @param fileId The file id.
 	 * @return the file data.
 	 */
-	public synchronized byte[] read(int fileId) {
+	private synchronized byte[] readFile(int fileId) {
 		try {
 			seekTo(indexFile, fileId * INDEX_SIZE); // Seek index file to position of file data
 			int read;
@@ -108,11 +222,19 @@ final class Decompressor {
 		}
 	}
 
-	public synchronized boolean write(int fileSize, byte[] data, int fileId) {
-		boolean flag = write(true, fileId, fileSize, data); // Attempt to overwrite existing index
-		if (!flag)
-			flag = write(false, fileId, fileSize, data); // Existing index doesn't exist, add a new index
-		return flag;
+	public boolean write(int fileSize, byte[] data, int fileId) {
+		// The sector buffer and the shared data file position are used by every index
+		synchronized (buffer) {
+			fileLock.writeLock().lock();
+			try {
+				boolean flag = write(true, fileId, fileSize, data); // Attempt to overwrite existing index
+				if (!flag)
+					flag = write(false, fileId, fileSize, data); // Existing index doesn't exist, add a new index
+				return flag;
+			} finally {
+				fileLock.writeLock().unlock();
+			}
+		}
 	}
 
 	private synchronized boolean write(boolean overwrite, int fileId, int fileSize, byte[] data) {
@@ -208,4 +330,45 @@ final class Decompressor {
 			e.printStackTrace();
 		}
 	}
+
+	/**
+	 * A read-only mapping of a whole cache file. The mapping is replaced when a read needs bytes past
+	 * its end, which happens after new files are appended by {@link Decompressor#write(int, byte[], int)}.
+	 */
+	private static final class MappedRegion {
+
+		private final RandomAccessFile file;
+		private volatile MappedByteBuffer mapped;
+
+		private MappedRegion(RandomAccessFile file) {
+			this.file = file;
+		}
+
+		/**
+		 * @param required the number of bytes that must be mapped.
+		 * @return a mapping of at least {@code required} bytes, or null if the file is shorter than that.
+		 */
+		ByteBuffer map(long required) throws IOException {
+			MappedByteBuffer current = mapped;
+			if (current != null && current.capacity() >= required)
+				return current;
+			synchronized (this) {
+				current = mapped;
+				if (current != null && current.capacity() >= required)
+					return current;
+				long length = file.length();
+				if (length < required)
+					return null;
+				if (length > Integer.MAX_VALUE)
+					throw new IOException("Cache file too large to map: " + length);
+				try {
+					current = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+				} catch (RuntimeException e) {
+					throw new IOException("Cache file could not be mapped", e);
+				}
+				mapped = current;
+				return current;
+			}
+		}
+	}
 }
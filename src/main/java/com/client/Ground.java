@@ -14,8 +14,8 @@ public final class Ground extends Node {
 	}
 
 	int anInt1307;
-	final int anInt1308;
-	final int anInt1309;
+	int anInt1308;
+	int anInt1309;
 	final int anInt1310;
 	public Class43 aClass43_1311;
 	public ShapedTile aClass40_1312;
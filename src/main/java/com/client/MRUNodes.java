@@ -3,41 +3,52 @@ package com.client;
 import com.client.sign.Signlink;
 // Decompiled by Jad v1.5.8f. Copyright 2001 Pavel Kouznetsov.
 // Jad home page: http://www.kpdus.com/jad.html
-// Decompiler options: packimports(3) 
+// Decompiler options: packimports(3)
 
 
 public final class MRUNodes {
 
 	public MRUNodes(int i) {
-		emptyNodeSub = new NodeSub();
+		this(i, false);
+	}
+
+	private MRUNodes(long capacity, boolean weighted) {
 		nodeSubList = new NodeSubList();
-		initialCount = i;
-		spaceLeft = i;
+		this.capacity = capacity;
+		this.weighted = weighted;
 		nodeCache = new NodeCache();
 	}
 
+	/**
+	 * A cache bounded by the estimated size in bytes of its entries, see {@link NodeSub#getCacheWeight()},
+	 * instead of by their count.
+	 */
+	public static MRUNodes weighted(long bytes) {
+		return new MRUNodes(bytes, true);
+	}
+
 	public NodeSub insertFromCache(long l) {
 		NodeSub nodeSub = (NodeSub) nodeCache.findNodeByID(l);
 		if (nodeSub != null) {
 			nodeSubList.insertHead(nodeSub);
+			hits++;
+		} else {
+			misses++;
 		}
 		return nodeSub;
 	}
 
 	public void removeFromCache(NodeSub nodeSub, long l) {
 		try {
-			if (spaceLeft == 0) {
-				NodeSub nodeSub_1 = nodeSubList.popTail();
-				nodeSub_1.unlink();
-				nodeSub_1.unlinkSub();
-				if (nodeSub_1 == emptyNodeSub) {
-					NodeSub nodeSub_2 = nodeSubList.popTail();
-					nodeSub_2.unlink();
-					nodeSub_2.unlinkSub();
-				}
-			} else {
-				spaceLeft--;
+			if (nodeSub.nextNodeSub != null) {
+				used -= nodeSub.cachedWeight;
+				nodeSub.unlinkSub();
 			}
+			int weight = weighted ? nodeSub.getCacheWeight() : 1;
+			while (used + weight > capacity && evictTail())
+				;
+			nodeSub.cachedWeight = weight;
+			used += weight;
 			nodeCache.removeFromCache(nodeSub, l);
 			nodeSubList.insertHead(nodeSub);
 			return;
@@ -48,22 +59,69 @@ public final class MRUNodes {
 		throw new RuntimeException();
 	}
 
+	private boolean evictTail() {
+		NodeSub nodeSub = nodeSubList.popTail();
+		if (nodeSub == null)
+			return false;
+		nodeCache.remove(nodeSub.id, nodeSub);
+		used -= nodeSub.cachedWeight;
+		evictions++;
+		return true;
+	}
+
+	/**
+	 * Removes a node from the cache if it is still cached.
+	 */
+	public void remove(NodeSub nodeSub) {
+		if (nodeSub.nextNodeSub == null)
+			return;
+		nodeCache.remove(nodeSub.id, nodeSub);
+		nodeSub.unlinkSub();
+		used -= nodeSub.cachedWeight;
+	}
+
 	public void unlinkAll() {
-		do {
-			NodeSub nodeSub = nodeSubList.popTail();
-			if (nodeSub != null) {
-				nodeSub.unlink();
-				nodeSub.unlinkSub();
-			} else {
-				spaceLeft = initialCount;
-				return;
-			}
-		} while (true);
+		while (nodeSubList.popTail() != null)
+			;
+		nodeCache.clear();
+		used = 0;
+	}
+
+	/**
+	 * Changes the capacity, evicting the least recently used entries if it shrank.
+	 */
+	public void setCapacity(long capacity) {
+		this.capacity = capacity;
+		while (used > capacity && evictTail())
+			;
+	}
+
+	public long getCapacity() {
+		return capacity;
+	}
+
+	public long getUsed() {
+		return used;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getEvictions() {
+		return evictions;
 	}
 
-	private final NodeSub emptyNodeSub;
-	private final int initialCount;
-	private int spaceLeft;
+	private final boolean weighted;
+	private long capacity;
+	private long used;
+	private long hits;
+	private long misses;
+	private long evictions;
 	private final NodeCache nodeCache;
 	private final NodeSubList nodeSubList;
 }
@@ -0,0 +1,423 @@
+package com.client;
+
+import java.util.Random;
+
+import com.client.definitions.ObjectDefinition;
+import com.client.utilities.ObjectKey;
+
+/**
+ * Draws the region onto the minimap image, keeping a {@link MinimapLayer} for each plane, and redraws only
+ * the tiles around objects that changed since it was drawn.
+ *
+ * Drawing leaves the minimap image as the drawing area, the methods that draw say so and the caller sets
+ * its own canvas back.
+ */
+final class Minimap {
+
+	/**
+	 * How many tiles from its object's tile a map scene may reach before a change to the plane draws the
+	 * whole plane again instead of the tiles around it.
+	 */
+	static final int MAX_SCENE_REACH = 8;
+
+	private final WorldController worldController;
+	private final byte[][][] byteGroundArray;
+	private final Sprite image;
+	private final Background[] mapScenes;
+	private final Sprite[] mapFunctions;
+	/** Picks the wall and door colours each time a plane is drawn. */
+	private final Random random;
+	private final MinimapLayer[] layers = new MinimapLayer[4];
+	/** The map function icons of the plane last drawn, by x and then y. */
+	final Sprite[] icons = new Sprite[1000];
+	final int[] iconX = new int[1000];
+	final int[] iconY = new int[1000];
+	int iconCount;
+	private int changedFromX = 104;
+	private int changedFromY = 104;
+	private int changedToX = -1;
+	private int changedToY = -1;
+
+	Minimap(WorldController worldController, byte[][][] byteGroundArray, Sprite image, Background[] mapScenes,
+			Sprite[] mapFunctions, Random random) {
+		this.worldController = worldController;
+		this.byteGroundArray = byteGroundArray;
+		this.image = image;
+		this.mapScenes = mapScenes;
+		this.mapFunctions = mapFunctions;
+		this.random = random;
+	}
+
+	/**
+	 * Drops every plane's layer, for when the region is rebuilt.
+	 */
+	void invalidate() {
+		for (MinimapLayer layer : layers) {
+			if (layer != null)
+				layer.valid = false;
+		}
+	}
+
+	/**
+	 * Shows a plane on the minimap, copied from its layer when that is still valid and drawn tile by tile
+	 * otherwise.
+	 * @return whether the plane was drawn, leaving the minimap image as the drawing area
+	 */
+	boolean draw(int z) {
+		MinimapLayer layer = layer(z);
+		int ai[] = image.myPixels;
+		if (layer.valid) {
+			System.arraycopy(layer.pixels, 0, ai, 0, ai.length);
+			iconCount = layer.iconCount;
+			System.arraycopy(layer.icons, 0, icons, 0, iconCount);
+			System.arraycopy(layer.iconX, 0, iconX, 0, iconCount);
+			System.arraycopy(layer.iconY, 0, iconY, 0, iconCount);
+			return false;
+		}
+		int j = ai.length;
+
+		for (int k = 0; k < j; k++)
+			ai[k] = 0;
+
+		layer.wallColour = ((238 + (int) (random.nextDouble() * 20D)) - 10 << 16)
+				+ ((238 + (int) (random.nextDouble() * 20D)) - 10 << 8) + ((238 + (int) (random.nextDouble() * 20D)) - 10);
+		layer.doorColour = (238 + (int) (random.nextDouble() * 20D)) - 10 << 16;
+		layer.sceneReach = 0;
+		drawTiles(z, 1, 1, 102, 102, layer);
+		iconCount = 0;
+		for (int k2 = 0; k2 < 104; k2++) {
+			for (int l2 = 0; l2 < 104; l2++) {
+				Sprite icon = mapFunctionAt(z, k2, l2);
+				if (icon != null) {
+					icons[iconCount] = icon;
+					iconX[iconCount] = k2;
+					iconY[iconCount] = l2;
+					iconCount++;
+				}
+			}
+
+		}
+		System.arraycopy(ai, 0, layer.pixels, 0, ai.length);
+		saveIcons(layer);
+		layer.valid = true;
+		return true;
+	}
+
+	/**
+	 * Notes that the objects on a tile changed. The minimap of the current plane is redrawn around the
+	 * changed tiles by {@link #update}; other planes are drawn again when next shown.
+	 */
+	void tileChanged(int z, int x, int y, int plane) {
+		for (int layerPlane = z - 1; layerPlane <= z; layerPlane++) {
+			if (layerPlane < 0)
+				continue;
+			if (layerPlane != plane) {
+				if (layers[layerPlane] != null)
+					layers[layerPlane].valid = false;
+			} else {
+				changedFromX = Math.min(changedFromX, x);
+				changedFromY = Math.min(changedFromY, y);
+				changedToX = Math.max(changedToX, x);
+				changedToY = Math.max(changedToY, y);
+			}
+		}
+	}
+
+	/**
+	 * Redraws the minimap of the current plane around the tiles changed since the last update, so they come
+	 * out as drawing the whole plane with the same colours would draw them.
+	 *
+	 * The pixels a change can touch are those the map scenes of the changed tiles reach, before and after
+	 * the change. Their old scenes reach no further than any scene drawn on the layer, and their new ones are
+	 * measured from the objects now on them. Those pixels are cleared and drawn again, together with every
+	 * tile whose scene could reach them, and only they are kept. When a scene reaches further than
+	 * {@link #MAX_SCENE_REACH} the whole plane is drawn again instead.
+	 * @return whether anything was drawn, leaving the minimap image as the drawing area
+	 */
+	boolean update(int plane) {
+		if (changedToX < 0)
+			return false;
+		int startX = changedFromX;
+		int startY = changedFromY;
+		int endX = changedToX;
+		int endY = changedToY;
+		changedFromX = changedFromY = 104;
+		changedToX = changedToY = -1;
+		MinimapLayer layer = layer(plane);
+		int reach = layer.sceneReach;
+		for (int x = startX; x <= endX; x++) {
+			for (int y = startY; y <= endY; y++)
+				reach = Math.max(reach, sceneReachAt(plane, x, y));
+		}
+		if (reach > MAX_SCENE_REACH)
+			layer.valid = false;
+		if (!layer.valid)
+			return draw(plane);
+		// Scenes reach past the tiles that are drawn into the border, the kept tiles are clipped to the image
+		int fromX = startX - reach;
+		int fromY = startY - reach;
+		int toX = endX + reach;
+		int toY = endY + reach;
+		int[] ai = image.myPixels;
+		MinimapLayer.clearTiles(ai, fromX, fromY, toX, toY);
+		drawTiles(plane, Math.max(1, fromX - reach), Math.max(1, fromY - reach), Math.min(102, toX + reach),
+				Math.min(102, toY + reach), layer);
+		MinimapLayer.copyTiles(ai, layer.pixels, fromX, fromY, toX, toY);
+		System.arraycopy(layer.pixels, 0, ai, 0, ai.length);
+		// An icon is the ground decoration's of its own tile, only the changed tiles' can differ
+		int count = 0;
+		for (int index = 0; index < iconCount; index++) {
+			int x = iconX[index];
+			int y = iconY[index];
+			if (x >= startX && x <= endX && y >= startY && y <= endY)
+				continue;
+			icons[count] = icons[index];
+			iconX[count] = x;
+			iconY[count++] = y;
+		}
+		iconCount = count;
+		for (int x = Math.max(0, startX); x <= Math.min(103, endX); x++) {
+			for (int y = Math.max(0, startY); y <= Math.min(103, endY); y++) {
+				Sprite icon = mapFunctionAt(plane, x, y);
+				if (icon == null)
+					continue;
+				int index = iconCount;
+				while (index > 0 && iconX[index - 1] * 104 + iconY[index - 1] > x * 104 + y) {
+					icons[index] = icons[index - 1];
+					iconX[index] = iconX[index - 1];
+					iconY[index] = iconY[index - 1];
+					index--;
+				}
+				icons[index] = icon;
+				iconX[index] = x;
+				iconY[index] = y;
+				iconCount++;
+			}
+		}
+		saveIcons(layer);
+		return true;
+	}
+
+	/**
+	 * Draws the ground of a rectangle of tiles, inclusive, onto the minimap and then their walls and map
+	 * scenes, in the order {@link #draw} draws the whole region in.
+	 */
+	private void drawTiles(int i, int fromX, int fromY, int toX, int toY, MinimapLayer layer) {
+		int ai[] = image.myPixels;
+		for (int l = fromY; l <= toY; l++) {
+			int i1 = 24624 + fromX * 4 + (103 - l) * 512 * 4;
+			for (int k1 = fromX; k1 <= toX; k1++) {
+				if ((byteGroundArray[i][k1][l] & 0x18) == 0)
+					worldController.method309(ai, i1, i, k1, l);
+				if (i < 3 && (byteGroundArray[i + 1][k1][l] & 8) != 0)
+					worldController.method309(ai, i1, i + 1, k1, l);
+				i1 += 4;
+			}
+
+		}
+
+		image.method343();
+		for (int i2 = fromY; i2 <= toY; i2++) {
+			for (int j2 = fromX; j2 <= toX; j2++) {
+				if ((byteGroundArray[i][j2][i2] & 0x18) == 0)
+					drawObjects(i2, j2, i, layer);
+				if (i < 3 && (byteGroundArray[i + 1][j2][i2] & 8) != 0)
+					drawObjects(i2, j2, i + 1, layer);
+			}
+
+		}
+	}
+
+	/**
+	 * Draws the walls, map scenes and diagonal walls of a tile.
+	 */
+	private void drawObjects(int i, int l, int j1, MinimapLayer layer) {
+		long k1 = worldController.method300(j1, l, i);
+		if (k1 != 0) {
+			int l1 = worldController.method304(j1, l, i, k1);
+			int k2 = l1 >> 6 & 3;
+			int i3 = l1 & 0x1f;
+			int k3 = layer.wallColour;
+			if (k1 > 0)
+				k3 = layer.doorColour;
+			int ai[] = image.myPixels;
+			int k4 = 24624 + l * 4 + (103 - i) * 512 * 4;
+			int i5 = ObjectKey.getObjectId(k1);
+			ObjectDefinition class46_2 = ObjectDefinition.forID(i5);
+			if (class46_2.mapSceneId != -1) {
+				Background background_2 = mapScenes[class46_2.mapSceneId];
+				if (background_2 != null)
+					drawScene(class46_2, background_2, l, i, layer);
+			} else {
+				if (i3 == 0 || i3 == 2)
+					if (k2 == 0) {
+						ai[k4] = k3;
+						ai[k4 + 512] = k3;
+						ai[k4 + 1024] = k3;
+						ai[k4 + 1536] = k3;
+					} else if (k2 == 1) {
+						ai[k4] = k3;
+						ai[k4 + 1] = k3;
+						ai[k4 + 2] = k3;
+						ai[k4 + 3] = k3;
+					} else if (k2 == 2) {
+						ai[k4 + 3] = k3;
+						ai[k4 + 3 + 512] = k3;
+						ai[k4 + 3 + 1024] = k3;
+						ai[k4 + 3 + 1536] = k3;
+					} else if (k2 == 3) {
+						ai[k4 + 1536] = k3;
+						ai[k4 + 1536 + 1] = k3;
+						ai[k4 + 1536 + 2] = k3;
+						ai[k4 + 1536 + 3] = k3;
+					}
+				if (i3 == 3)
+					if (k2 == 0)
+						ai[k4] = k3;
+					else if (k2 == 1)
+						ai[k4 + 3] = k3;
+					else if (k2 == 2)
+						ai[k4 + 3 + 1536] = k3;
+					else if (k2 == 3)
+						ai[k4 + 1536] = k3;
+				if (i3 == 2)
+					if (k2 == 3) {
+						ai[k4] = k3;
+						ai[k4 + 512] = k3;
+						ai[k4 + 1024] = k3;
+						ai[k4 + 1536] = k3;
+					} else if (k2 == 0) {
+						ai[k4] = k3;
+						ai[k4 + 1] = k3;
+						ai[k4 + 2] = k3;
+						ai[k4 + 3] = k3;
+					} else if (k2 == 1) {
+						ai[k4 + 3] = k3;
+						ai[k4 + 3 + 512] = k3;
+						ai[k4 + 3 + 1024] = k3;
+						ai[k4 + 3 + 1536] = k3;
+					} else if (k2 == 2) {
+						ai[k4 + 1536] = k3;
+						ai[k4 + 1536 + 1] = k3;
+						ai[k4 + 1536 + 2] = k3;
+						ai[k4 + 1536 + 3] = k3;
+					}
+			}
+		}
+		k1 = worldController.method302(j1, l, i);
+		if (k1 != 0) {
+			int i2 = worldController.method304(j1, l, i, k1);
+			int l2 = i2 >> 6 & 3;
+			int j3 = i2 & 0x1f;
+			int l3 = ObjectKey.getObjectId(k1);
+			ObjectDefinition class46_1 = ObjectDefinition.forID(l3);
+			if (class46_1.mapSceneId != -1) {
+				if (class46_1.mapSceneId < mapScenes.length) {
+					Background background_1 = mapScenes[class46_1.mapSceneId];
+					if (background_1 != null)
+						drawScene(class46_1, background_1, l, i, layer);
+				} else if (Configuration.developerMode) {
+					System.err.println("Missing map scene: " + class46_1.mapSceneId);
+				}
+			} else if (j3 == 9) {
+				int l4 = 0xeeeeee;
+				if (k1 > 0)
+					l4 = 0xee0000;
+				int ai1[] = image.myPixels;
+				int l5 = 24624 + l * 4 + (103 - i) * 512 * 4;
+				if (l2 == 0 || l2 == 2) {
+					ai1[l5 + 1536] = l4;
+					ai1[l5 + 1024 + 1] = l4;
+					ai1[l5 + 512 + 2] = l4;
+					ai1[l5 + 3] = l4;
+				} else {
+					ai1[l5] = l4;
+					ai1[l5 + 512 + 1] = l4;
+					ai1[l5 + 1024 + 2] = l4;
+					ai1[l5 + 1536 + 3] = l4;
+				}
+			}
+		}
+		k1 = worldController.method303(j1, l, i);
+		if (k1 != 0) {
+			int j2 = ObjectKey.getObjectId(k1);
+			ObjectDefinition class46 = ObjectDefinition.forID(j2);
+			if (class46.mapSceneId != -1) {
+				Background background = mapScenes[class46.mapSceneId];
+				if (background != null)
+					drawScene(class46, background, l, i, layer);
+			}
+		}
+	}
+
+	/**
+	 * Draws an object's map scene centred on its footprint, and notes on the layer how far it reached.
+	 */
+	private static void drawScene(ObjectDefinition definition, Background scene, int x, int y, MinimapLayer layer) {
+		int i6 = (definition.xLength * 4 - scene.width) / 2;
+		int j6 = (definition.yLength * 4 - scene.anInt1453) / 2;
+		scene.drawBackground(48 + x * 4 + i6, 48 + (104 - y - definition.yLength) * 4 + j6);
+		layer.sceneReach = Math.max(layer.sceneReach, sceneReach(definition, scene));
+	}
+
+	/**
+	 * @return how many tiles from its object's tile, in any direction, {@link #drawScene} draws a map scene
+	 */
+	static int sceneReach(ObjectDefinition definition, Background scene) {
+		// Pixels from the left and top of the object's tile, the scene's offsets are added when it is drawn
+		int left = (definition.xLength * 4 - scene.width) / 2 + scene.anInt1454;
+		int top = (1 - definition.yLength) * 4 + (definition.yLength * 4 - scene.anInt1453) / 2 + scene.anInt1455;
+		int reach = Math.max(-Math.floorDiv(left, 4), Math.floorDiv(left + scene.width - 1, 4));
+		return Math.max(reach, Math.max(-Math.floorDiv(top, 4), Math.floorDiv(top + scene.anInt1453 - 1, 4)));
+	}
+
+	/**
+	 * @return how far the map scenes of the objects now on a tile reach, on the plane and on the plane above
+	 * in case it is drawn as a bridge
+	 */
+	private int sceneReachAt(int plane, int x, int y) {
+		if (x < 0 || y < 0 || x >= 104 || y >= 104)
+			return 0;
+		int reach = 0;
+		for (int z = plane; z <= Math.min(3, plane + 1); z++) {
+			reach = Math.max(reach, sceneReachOf(worldController.method300(z, x, y)));
+			reach = Math.max(reach, sceneReachOf(worldController.method302(z, x, y)));
+			reach = Math.max(reach, sceneReachOf(worldController.method303(z, x, y)));
+		}
+		return reach;
+	}
+
+	private int sceneReachOf(long key) {
+		if (key == 0)
+			return 0;
+		ObjectDefinition definition = ObjectDefinition.forID(ObjectKey.getObjectId(key));
+		if (definition.mapSceneId < 0 || definition.mapSceneId >= mapScenes.length)
+			return 0;
+		Background scene = mapScenes[definition.mapSceneId];
+		return scene == null ? 0 : sceneReach(definition, scene);
+	}
+
+	/**
+	 * @return the map function icon of the ground decoration on a tile, or null
+	 */
+	private Sprite mapFunctionAt(int z, int x, int y) {
+		long key = worldController.method303(z, x, y);
+		if (key == 0)
+			return null;
+		int function = ObjectDefinition.forID(ObjectKey.getObjectId(key)).mapFunctionId;
+		return function >= 0 && function < mapFunctions.length ? mapFunctions[function] : null;
+	}
+
+	private void saveIcons(MinimapLayer layer) {
+		layer.iconCount = iconCount;
+		System.arraycopy(icons, 0, layer.icons, 0, iconCount);
+		System.arraycopy(iconX, 0, layer.iconX, 0, iconCount);
+		System.arraycopy(iconY, 0, layer.iconY, 0, iconCount);
+	}
+
+	private MinimapLayer layer(int z) {
+		if (layers[z] == null)
+			layers[z] = new MinimapLayer();
+		return layers[z];
+	}
+}
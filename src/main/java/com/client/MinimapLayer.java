@@ -0,0 +1,54 @@
+package com.client;
+
+import java.util.Arrays;
+
+/**
+ * A plane's minimap as the client last drew it, with its map function icons, so that going up or down a
+ * plane copies it back instead of drawing every tile again.
+ *
+ * The minimap image is 512 pixels wide with the region's tiles drawn as 4 by 4 pixel blocks from 48 pixels
+ * in, north at the top. The helpers here work on rectangles of those blocks, clipped to the image, so a
+ * rectangle may run past the region into the border map scenes are drawn over.
+ */
+final class MinimapLayer {
+
+	private static final int WIDTH = 512;
+
+	final int[] pixels = new int[WIDTH * WIDTH];
+	/** The colours walls and doors are drawn in, picked when the layer is first drawn. */
+	int wallColour;
+	int doorColour;
+	final Sprite[] icons = new Sprite[1000];
+	final int[] iconX = new int[1000];
+	final int[] iconY = new int[1000];
+	int iconCount;
+	/** How many tiles from its object's tile the furthest reaching map scene drawn on the layer reaches. */
+	int sceneReach;
+	boolean valid;
+
+	/**
+	 * Copies the blocks of a rectangle of tiles, inclusive, between two minimap images.
+	 */
+	static void copyTiles(int[] from, int[] to, int fromX, int fromY, int toX, int toY) {
+		int left = Math.max(0, 48 + fromX * 4);
+		int length = Math.min(WIDTH, 52 + toX * 4) - left;
+		int bottom = Math.min(WIDTH, 52 + (103 - fromY) * 4);
+		for (int row = Math.max(0, 48 + (103 - toY) * 4); row < bottom; row++) {
+			int offset = row * WIDTH + left;
+			System.arraycopy(from, offset, to, offset, length);
+		}
+	}
+
+	/**
+	 * Clears the blocks of a rectangle of tiles, inclusive.
+	 */
+	static void clearTiles(int[] pixels, int fromX, int fromY, int toX, int toY) {
+		int left = Math.max(0, 48 + fromX * 4);
+		int length = Math.min(WIDTH, 52 + toX * 4) - left;
+		int bottom = Math.min(WIDTH, 52 + (103 - fromY) * 4);
+		for (int row = Math.max(0, 48 + (103 - toY) * 4); row < bottom; row++) {
+			int offset = row * WIDTH + left;
+			Arrays.fill(pixels, offset, offset + length, 0);
+		}
+	}
+}
@@ -7,6 +7,9 @@ import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 public class Model extends Renderable {
 
@@ -20,6 +23,7 @@ public class Model extends Renderable {
 
     public static void nullLoader() {
         aClass21Array1661 = null;
+        ModelCache.clear();
         hasAnEdgeToRestrict = null;
         outOfReach = null;
         projected_verticesY = null;
@@ -27,13 +31,6 @@ public class Model extends Renderable {
         anIntArray1668 = null;
         camera_verticesY = null;
         viewportTextureZ = null;
-        depthListIndices = null;
-        faceLists = null;
-        anIntArray1673 = null;
-        anIntArrayArray1674 = null;
-        anIntArray1675 = null;
-        anIntArray1676 = null;
-        anIntArray1677 = null;
         SINE = null;
         COSINE = null;
         hsl2rgb = null;
@@ -184,128 +181,241 @@ public class Model extends Renderable {
             return;
         }
 
+        byte[] data = aClass21Array1661[model].aByteArray368;
+        Model geometry = ModelCache.get(model, data);
+        if (geometry == null) {
+            geometry = decodeGeometry(model, data);
+            if (geometry == null) {
+                return;
+            }
+            ModelCache.put(model, data, geometry);
+        }
+        copyGeometry(geometry);
+
+        // Only create particle systems if this model actually has attachments
+        if (hasParticleAttachments) {
+            initParticleSystemsFromVertices();
+        }
+    }
+
+    /**
+     * Decodes a model file into geometry that can be stored in the {@link ModelCache}.
+     * Safe to call from the on-demand workers, it touches no shared state.
+     *
+     * @return the decoded model, or null if the data could not be decoded.
+     */
+    static Model decodeGeometry(int model, byte[] data) {
         try {
-            byte[] data = aClass21Array1661[model].aByteArray368;
+            Model geometry = new Model(true);
+            geometry.modelId = model;
             if (data[data.length - 1] == -3 && data[data.length - 2] == -1) {
-                ModelLoader.decodeType3(this, data);
+                ModelLoader.decodeType3(geometry, data);
             } else if (data[data.length - 1] == -2 && data[data.length - 2] == -1) {
-                ModelLoader.decodeType2(this, data);
+                ModelLoader.decodeType2(geometry, data);
             } else if (data[data.length - 1] == -1 && data[data.length - 2] == -1) {
-                ModelLoader.decodeType1(this, data);
+                ModelLoader.decodeType1(geometry, data);
             } else {
-                ModelLoader.decodeOldFormat(this, data);
+                ModelLoader.decodeOldFormat(geometry, data);
             }
 
             // ---- Optional scaling for new models ----
             if (newmodel[model]) {
-                scale2(4);
-                if (face_render_priorities != null) {
-                    for (int j = 0; j < face_render_priorities.length; j++) {
-                        face_render_priorities[j] = 10;
+                geometry.scale2(4);
+                if (geometry.face_render_priorities != null) {
+                    for (int j = 0; j < geometry.face_render_priorities.length; j++) {
+                        geometry.face_render_priorities[j] = 10;
                     }
                 }
             }
 
-            // ---- Particle attachments ----
-            // ---- Particle attachments ----
-            int[][] attachments = ParticleAttachment.getAttachments(model);
+            geometry.applyParticleAttachments(model);
+            return geometry;
+        } catch (Exception e) {
+            System.err.println("Error decoding model: " + model);
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-            if (attachments != null && verticesCount > 0) {
-                ensureParticleLayerArrays();
+    /**
+     * Decodes a model delivered by the on-demand fetcher on the calling worker thread, so the game thread
+     * only has to copy it out of the {@link ModelCache} when a definition asks for it.
+     */
+    static void predecode(int model, byte[] data) {
+        if (newmodel == null || model == 0 || model == 39284 || data == null) {
+            return;
+        }
+        Model geometry = decodeGeometry(model, data);
+        if (geometry == null) {
+            ModelCache.remove(model);
+        } else {
+            ModelCache.put(model, data, geometry);
+        }
+    }
 
-                int writes = 0;
-                int skippedNullAttach = 0;
-                int skippedShortAttach = 0;
-                int skippedOobVertex = 0;
+    private void applyParticleAttachments(int model) {
+        // ---- Particle attachments ----
+        int[][] attachments = ParticleAttachment.getAttachments(model);
 
-                for (int n = 0; n < attachments.length; n++) {
-                    int[] attach = attachments[n];
+        if (attachments != null && verticesCount > 0) {
+            ensureParticleLayerArrays();
 
-                    if (attach == null) { skippedNullAttach++; continue; }
-                    if (attach.length < 2) { skippedShortAttach++; continue; }
+            int writes = 0;
+            int skippedNullAttach = 0;
+            int skippedShortAttach = 0;
+            int skippedOobVertex = 0;
 
-                    int target = attach[0];
-                    int defIdPlus1 = attach[1] + 1;
+            for (int n = 0; n < attachments.length; n++) {
+                int[] attach = attachments[n];
 
-                    if (target == -1) {
-                        if (trianglesX == null) continue;
-                        for (int z = 0; z < trianglesX.length; z++) {
-                            int v = trianglesX[z];
-                            if (v < 0 || v >= verticesCount) { skippedOobVertex++; continue; }
-                            addParticleToVertex(v, defIdPlus1);
-                            writes++;
-                        }
+                if (attach == null) { skippedNullAttach++; continue; }
+                if (attach.length < 2) { skippedShortAttach++; continue; }
 
-                    } else if (target == -2) {
-                        if (trianglesY == null) continue;
-                        for (int z = 0; z < trianglesY.length; z++) {
-                            int v = trianglesY[z];
-                            if (v < 0 || v >= verticesCount) { skippedOobVertex++; continue; }
-                            addParticleToVertex(v, defIdPlus1);
-                            writes++;
-                        }
+                int target = attach[0];
+                int defIdPlus1 = attach[1] + 1;
 
-                    } else if (target == -3) {
-                        if (trianglesZ == null) continue;
-                        for (int z = 0; z < trianglesZ.length; z++) {
-                            int v = trianglesZ[z];
-                            if (v < 0 || v >= verticesCount) { skippedOobVertex++; continue; }
-                            addParticleToVertex(v, defIdPlus1);
-                            writes++;
-                        }
+                if (target == -1) {
+                    if (trianglesX == null) continue;
+                    for (int z = 0; z < trianglesX.length; z++) {
+                        int v = trianglesX[z];
+                        if (v < 0 || v >= verticesCount) { skippedOobVertex++; continue; }
+                        addParticleToVertex(v, defIdPlus1);
+                        writes++;
+                    }
 
-                    } else if (target == -4) {
-                        if (trianglesX == null || trianglesY == null || trianglesZ == null) continue;
+                } else if (target == -2) {
+                    if (trianglesY == null) continue;
+                    for (int z = 0; z < trianglesY.length; z++) {
+                        int v = trianglesY[z];
+                        if (v < 0 || v >= verticesCount) { skippedOobVertex++; continue; }
+                        addParticleToVertex(v, defIdPlus1);
+                        writes++;
+                    }
 
-                        for (int z = 0; z < trianglesX.length; z++) {
-                            int v = trianglesX[z];
-                            if (v < 0 || v >= verticesCount) { skippedOobVertex++; continue; }
-                            addParticleToVertex(v, defIdPlus1);
-                            writes++;
-                        }
-                        for (int z = 0; z < trianglesY.length; z++) {
-                            int v = trianglesY[z];
-                            if (v < 0 || v >= verticesCount) { skippedOobVertex++; continue; }
-                            addParticleToVertex(v, defIdPlus1);
-                            writes++;
-                        }
-                        for (int z = 0; z < trianglesZ.length; z++) {
-                            int v = trianglesZ[z];
-                            if (v < 0 || v >= verticesCount) { skippedOobVertex++; continue; }
-                            addParticleToVertex(v, defIdPlus1);
-                            writes++;
-                        }
+                } else if (target == -3) {
+                    if (trianglesZ == null) continue;
+                    for (int z = 0; z < trianglesZ.length; z++) {
+                        int v = trianglesZ[z];
+                        if (v < 0 || v >= verticesCount) { skippedOobVertex++; continue; }
+                        addParticleToVertex(v, defIdPlus1);
+                        writes++;
+                    }
 
+                } else if (target == -4) {
+                    if (trianglesX == null || trianglesY == null || trianglesZ == null) continue;
+
+                    for (int z = 0; z < trianglesX.length; z++) {
+                        int v = trianglesX[z];
+                        if (v < 0 || v >= verticesCount) { skippedOobVertex++; continue; }
+                        addParticleToVertex(v, defIdPlus1);
+                        writes++;
+                    }
+                    for (int z = 0; z < trianglesY.length; z++) {
+                        int v = trianglesY[z];
+                        if (v < 0 || v >= verticesCount) { skippedOobVertex++; continue; }
+                        addParticleToVertex(v, defIdPlus1);
+                        writes++;
+                    }
+                    for (int z = 0; z < trianglesZ.length; z++) {
+                        int v = trianglesZ[z];
+                        if (v < 0 || v >= verticesCount) { skippedOobVertex++; continue; }
+                        addParticleToVertex(v, defIdPlus1);
+                        writes++;
+                    }
+
+                } else {
+                    if (target < 0 || target >= verticesCount) {
+                        skippedOobVertex++;
                     } else {
-                        if (target < 0 || target >= verticesCount) {
-                            skippedOobVertex++;
-                        } else {
-                            addParticleToVertex(target, defIdPlus1);
-                            writes++;
-                        }
+                        addParticleToVertex(target, defIdPlus1);
+                        writes++;
                     }
                 }
+            }
 
-                if (DEBUG_PARTICLES && model == 33103) {
-                    pdebug("[Particles] Model=" + model
-                            + " attachment writes=" + writes
-                            + " skippedNullAttach=" + skippedNullAttach
-                            + " skippedShortAttach=" + skippedShortAttach
-                            + " skippedOobVertex=" + skippedOobVertex
-                            + " hasParticleAttachments=" + hasParticleAttachments);
-                }
+            if (DEBUG_PARTICLES && model == 33103) {
+                pdebug("[Particles] Model=" + model
+                        + " attachment writes=" + writes
+                        + " skippedNullAttach=" + skippedNullAttach
+                        + " skippedShortAttach=" + skippedShortAttach
+                        + " skippedOobVertex=" + skippedOobVertex
+                        + " hasParticleAttachments=" + hasParticleAttachments);
             }
+        }
+    }
+
+    @Override
+    public int getCacheWeight() {
+        int weight = 64 + verticesCount * 12 + trianglesCount * 23;
+        if (colorsX != null) {
+            weight += trianglesCount * 12;
+        }
+        if (vertexNormals != null) {
+            weight += verticesCount * 32;
+        }
+        if (faceNormals != null) {
+            weight += trianglesCount * 28;
+        }
+        return weight + texturesCount * 6;
+    }
 
-// Only create particle systems if this model actually has attachments
-            if (hasParticleAttachments) {
-                initParticleSystemsFromVertices();
+    private void copyGeometry(Model geometry) {
+        verticesCount = geometry.verticesCount;
+        trianglesCount = geometry.trianglesCount;
+        texturesCount = geometry.texturesCount;
+        face_priority = geometry.face_priority;
+        hasParticleAttachments = geometry.hasParticleAttachments;
+
+        verticesX = copyOf(geometry.verticesX);
+        verticesY = copyOf(geometry.verticesY);
+        verticesZ = copyOf(geometry.verticesZ);
+        trianglesX = copyOf(geometry.trianglesX);
+        trianglesY = copyOf(geometry.trianglesY);
+        trianglesZ = copyOf(geometry.trianglesZ);
+        types = copyOf(geometry.types);
+        alphas = copyOf(geometry.alphas);
+        colors = copyOf(geometry.colors);
+        face_render_priorities = copyOf(geometry.face_render_priorities);
+        vertexData = copyOf(geometry.vertexData);
+        triangleData = copyOf(geometry.triangleData);
+        materials = copyOf(geometry.materials);
+        textures = copyOf(geometry.textures);
+        textureTypes = copyOf(geometry.textureTypes);
+        texturesX = copyOf(geometry.texturesX);
+        texturesY = copyOf(geometry.texturesY);
+        texturesZ = copyOf(geometry.texturesZ);
+        animayaGroups = copyOf(geometry.animayaGroups);
+        animayaScales = copyOf(geometry.animayaScales);
+        verticesParticle = copyOf(geometry.verticesParticle);
+        if (geometry.verticesParticleLayers != null) {
+            verticesParticleLayers = new byte[geometry.verticesParticleLayers.length][];
+            for (int v = 0; v < verticesParticleLayers.length; v++) {
+                verticesParticleLayers[v] = copyOf(geometry.verticesParticleLayers[v]);
             }
+        }
+    }
 
+    private static int[] copyOf(int[] array) {
+        return array == null ? null : array.clone();
+    }
 
-        } catch (Exception e) {
-            System.err.println("Error decoding model: " + model);
-            e.printStackTrace();
+    private static short[] copyOf(short[] array) {
+        return array == null ? null : array.clone();
+    }
+
+    private static byte[] copyOf(byte[] array) {
+        return array == null ? null : array.clone();
+    }
+
+    private static int[][] copyOf(int[][] array) {
+        if (array == null) {
+            return null;
+        }
+        int[][] copy = new int[array.length][];
+        for (int i = 0; i < array.length; i++) {
+            copy[i] = copyOf(array[i]);
         }
+        return copy;
     }
 
     private static final boolean DEBUG_PARTICLES = true;
@@ -810,6 +920,7 @@ public class Model extends Renderable {
 
     public static void method461(int j) {
         aClass21Array1661[j] = null;
+        ModelCache.remove(j);
     }
 
     public static Model method462(int j) {
@@ -838,7 +949,7 @@ public class Model extends Renderable {
         }
     }
 
-    private Model(boolean flag) {
+    Model(boolean flag) {
         aBoolean1618 = true;
         fits_on_single_square = false;
         if (!flag) {
@@ -1004,11 +1115,35 @@ public class Model extends Renderable {
     }
 
     public Model(Model amodel[]) {
-        int i = 2;
         aBoolean1618 = true;
         fits_on_single_square = false;
         anInt1620++;
+        merge(amodel, null);
+    }
 
+    /**
+     * Makes this model what {@code new Model(amodel)} would construct, merging into the arrays of
+     * {@code scratch} rather than new ones. Used by {@link ModelPool}.
+     */
+    void mergeForFrame(Model amodel[], ModelPool.Scratch scratch) {
+        resetForFrame();
+        super.aClass33Array1425 = null;
+        vertexData = null;
+        triangleData = null;
+        vertexGroups = null;
+        faceGroups = null;
+        textureTypes = null;
+        vertexNormals = null;
+        faceNormals = null;
+        vertexNormalsOffsets = null;
+        merge(amodel, scratch);
+    }
+
+    /**
+     * Merges the first two models, into new arrays or, when {@code scratch} is given, into its arrays.
+     */
+    private void merge(Model amodel[], ModelPool.Scratch scratch) {
+        int i = 2;
         boolean flag1 = false;
         boolean flag2 = false;
         boolean flag3 = false;
@@ -1049,40 +1184,70 @@ public class Model extends Renderable {
         }
 
         hasParticleAttachments = anyParticles;
-        verticesParticle = anyParticles ? new int[verticesCount] : null;
-        verticesParticleLayers = anyParticles ? new byte[verticesCount][3] : null;
+        if (scratch == null) {
+            verticesParticle = anyParticles ? new int[verticesCount] : null;
+            verticesParticleLayers = anyParticles ? new byte[verticesCount][3] : null;
 
-        verticesX = new int[verticesCount];
-        verticesY = new int[verticesCount];
-        verticesZ = new int[verticesCount];
+            verticesX = new int[verticesCount];
+            verticesY = new int[verticesCount];
+            verticesZ = new int[verticesCount];
 
-        trianglesX = new int[trianglesCount];
-        trianglesY = new int[trianglesCount];
-        trianglesZ = new int[trianglesCount];
+            trianglesX = new int[trianglesCount];
+            trianglesY = new int[trianglesCount];
+            trianglesZ = new int[trianglesCount];
 
-        colorsX = new int[trianglesCount];
-        colorsY = new int[trianglesCount];
-        colorsZ = new int[trianglesCount];
+            colorsX = new int[trianglesCount];
+            colorsY = new int[trianglesCount];
+            colorsZ = new int[trianglesCount];
 
-        texturesX = new short[texturesCount];
-        texturesY = new short[texturesCount];
-        texturesZ = new short[texturesCount];
+            texturesX = new short[texturesCount];
+            texturesY = new short[texturesCount];
+            texturesZ = new short[texturesCount];
 
-        if (flag1)
-            types = new int[trianglesCount];
-        if (flag2)
-            face_render_priorities = new byte[trianglesCount];
-        if (flag3)
-            alphas = new int[trianglesCount];
+            types = flag1 ? new int[trianglesCount] : null;
+            face_render_priorities = flag2 ? new byte[trianglesCount] : null;
+            alphas = flag3 ? new int[trianglesCount] : null;
 
-        // Ensure colors exists (some merges assumed it)
-        colors = new short[trianglesCount];
+            // Ensure colors exists (some merges assumed it)
+            colors = new short[trianglesCount];
 
-        if (texture_flag)
-            materials = new short[trianglesCount];
+            materials = texture_flag ? new short[trianglesCount] : null;
+            textures = coordinate_flag ? new byte[trianglesCount] : null;
+        } else {
+            scratch.ensureCapacity(verticesCount, trianglesCount);
+            scratch.ensureMergeCapacity(trianglesCount, texturesCount);
+            if (anyParticles) {
+                // The particle maps are checked against the vertex count elsewhere, so they are kept exact
+                verticesParticle = scratch.particles(verticesCount);
+                verticesParticleLayers = scratch.particleLayers(verticesCount);
+            } else {
+                verticesParticle = null;
+                verticesParticleLayers = null;
+            }
+
+            verticesX = scratch.verticesX;
+            verticesY = scratch.verticesY;
+            verticesZ = scratch.verticesZ;
+
+            trianglesX = scratch.trianglesX;
+            trianglesY = scratch.trianglesY;
+            trianglesZ = scratch.trianglesZ;
+
+            colorsX = scratch.colorsX;
+            colorsY = scratch.colorsY;
+            colorsZ = scratch.colorsZ;
+
+            texturesX = scratch.texturesX;
+            texturesY = scratch.texturesY;
+            texturesZ = scratch.texturesZ;
 
-        if (coordinate_flag)
-            textures = new byte[trianglesCount];
+            types = flag1 ? scratch.types : null;
+            face_render_priorities = flag2 ? scratch.priorities : null;
+            alphas = flag3 ? scratch.alphas : null;
+            colors = scratch.colors;
+            materials = texture_flag ? scratch.materials : null;
+            textures = coordinate_flag ? scratch.textures : null;
+        }
 
         verticesCount = 0;
         trianglesCount = 0;
@@ -1340,6 +1505,122 @@ public class Model extends Renderable {
         vertexNormalsOffsets = model.vertexNormalsOffsets;
     }
 
+    /**
+     * Makes this model what {@code new Model(true, alpha_flag, false, model)} would construct, copying into the
+     * arrays of {@code scratch} rather than new ones. The lighting arrays are handed over zeroed as well, so
+     * {@link #method479} does not allocate them. Used by {@link ModelPool}.
+     */
+    void copyForFrame(boolean alpha_flag, Model model, ModelPool.Scratch scratch) {
+        verticesCount = model.verticesCount;
+        trianglesCount = model.trianglesCount;
+        texturesCount = model.texturesCount;
+        scratch.ensureCapacity(verticesCount, trianglesCount);
+
+        verticesX = scratch.verticesX;
+        verticesY = scratch.verticesY;
+        verticesZ = scratch.verticesZ;
+        System.arraycopy(model.verticesX, 0, verticesX, 0, verticesCount);
+        System.arraycopy(model.verticesY, 0, verticesY, 0, verticesCount);
+        System.arraycopy(model.verticesZ, 0, verticesZ, 0, verticesCount);
+
+        // Animation only moves vertices, so the attachment maps are shared rather than copied
+        verticesParticle = model.verticesParticle;
+        verticesParticleLayers = model.verticesParticleLayers;
+        hasParticleAttachments = model.hasParticleAttachments;
+        for (int v = 0; v < verticesCount && !hasParticleAttachments; v++) {
+            if (verticesParticle != null && verticesParticle[v] != 0) {
+                hasParticleAttachments = true;
+            }
+            if (verticesParticleLayers != null) {
+                byte[] layers = verticesParticleLayers[v];
+                for (int l = 0; l < layers.length; l++) {
+                    if ((layers[l] & 0xFF) != 0) {
+                        hasParticleAttachments = true;
+                    }
+                }
+            }
+        }
+
+        colors = model.colors;
+        if (model.materials != null) {
+            materials = scratch.materials;
+            System.arraycopy(model.materials, 0, materials, 0, trianglesCount);
+        } else {
+            materials = null;
+        }
+        if (alpha_flag) {
+            alphas = model.alphas;
+        } else {
+            alphas = scratch.alphas;
+            if (model.alphas == null) {
+                Arrays.fill(alphas, 0, trianglesCount, 0);
+            } else {
+                System.arraycopy(model.alphas, 0, alphas, 0, trianglesCount);
+            }
+        }
+
+        colorsX = scratch.colorsX;
+        colorsY = scratch.colorsY;
+        colorsZ = scratch.colorsZ;
+        Arrays.fill(colorsX, 0, trianglesCount, 0);
+        Arrays.fill(colorsY, 0, trianglesCount, 0);
+        Arrays.fill(colorsZ, 0, trianglesCount, 0);
+        VertexNormal[] normals = scratch.normals;
+        for (int v = 0; v < verticesCount; v++) {
+            VertexNormal normal = normals[v];
+            normal.x = 0;
+            normal.y = 0;
+            normal.z = 0;
+            normal.magnitude = 0;
+        }
+        super.aClass33Array1425 = normals;
+
+        vertexData = model.vertexData;
+        triangleData = model.triangleData;
+        vertexGroups = null;
+        faceGroups = null;
+        types = model.types;
+        trianglesX = model.trianglesX;
+        trianglesY = model.trianglesY;
+        trianglesZ = model.trianglesZ;
+        face_render_priorities = model.face_render_priorities;
+        face_priority = model.face_priority;
+        texturesX = model.texturesX;
+        texturesY = model.texturesY;
+        texturesZ = model.texturesZ;
+        textures = model.textures;
+        textureTypes = model.textureTypes;
+        vertexNormals = model.vertexNormals;
+        faceNormals = model.faceNormals;
+        vertexNormalsOffsets = model.vertexNormalsOffsets;
+
+        resetForFrame();
+    }
+
+    /**
+     * Puts back everything a new model would start without, for a pooled model being reused.
+     */
+    private void resetForFrame() {
+        aBoolean1618 = true;
+        fits_on_single_square = false;
+        super.modelHeight = 1000;
+        particleAttachment = null;
+        modelId = -1;
+        particleSystem = null;
+        particleSystems = null;
+        animayaGroups = null;
+        animayaScales = null;
+        minimumXVertex = 0;
+        maximumXVertex = 0;
+        maximumZVertex = 0;
+        minimumZVertex = 0;
+        XYZMag = 0;
+        maximumYVertex = 0;
+        maxRenderDepth = 0;
+        diagonal3DAboveOrigin = 0;
+        itemDropHeight = 0;
+    }
+
     public Model(boolean flag, boolean flag1, Model model) {
         aBoolean1618 = true;
         fits_on_single_square = false;
@@ -1575,52 +1856,51 @@ public class Model extends Renderable {
 
     public void method469() {
         if (vertexData != null) {
-            int ai[] = new int[256];
-            int j = 0;
-            for (int l = 0; l < verticesCount; l++) {
-                int j1 = vertexData[l];
-                ai[j1]++;
-                if (j1 > j) {
-                    j = j1;
-                }
-            }
-
-            vertexGroups = new int[j + 1][];
-            for (int k1 = 0; k1 <= j; k1++) {
-                vertexGroups[k1] = new int[ai[k1]];
-                ai[k1] = 0;
-            }
-
-            for (int j2 = 0; j2 < verticesCount; j2++) {
-                int l2 = vertexData[j2];
-                vertexGroups[l2][ai[l2]++] = j2;
-            }
-
+            vertexGroups = groupByLabel(vertexData, verticesCount);
             vertexData = null;
         }
         if (triangleData != null) {
-            int ai1[] = new int[256];
-            int k = 0;
-            for (int i1 = 0; i1 < trianglesCount; i1++) {
-                int l1 = triangleData[i1];
-                ai1[l1]++;
-                if (l1 > k) {
-                    k = l1;
+            faceGroups = groupByLabel(triangleData, trianglesCount);
+            triangleData = null;
+        }
+    }
+
+    /**
+     * Lists the first {@code count} indices under each label. Labels are not changed once a model is loaded
+     * and the groups are only read, so every copy of a model animated from the same labels shares one list.
+     */
+    private static int[][] groupByLabel(int[] labels, int count) {
+        synchronized (labelGroups) {
+            int[][] groups = labelGroups.get(labels);
+            if (groups != null) {
+                int grouped = 0;
+                for (int[] group : groups) {
+                    grouped += group.length;
+                }
+                if (grouped == count) {
+                    return groups;
                 }
             }
-
-            faceGroups = new int[k + 1][];
-            for (int i2 = 0; i2 <= k; i2++) {
-                faceGroups[i2] = new int[ai1[i2]];
-                ai1[i2] = 0;
+            int sizes[] = new int[256];
+            int max = 0;
+            for (int i = 0; i < count; i++) {
+                int label = labels[i];
+                sizes[label]++;
+                if (label > max) {
+                    max = label;
+                }
             }
-
-            for (int k2 = 0; k2 < trianglesCount; k2++) {
-                int i3 = triangleData[k2];
-                faceGroups[i3][ai1[i3]++] = k2;
+            groups = new int[max + 1][];
+            for (int label = 0; label <= max; label++) {
+                groups[label] = new int[sizes[label]];
+                sizes[label] = 0;
             }
-
-            triangleData = null;
+            for (int i = 0; i < count; i++) {
+                int label = labels[i];
+                groups[label][sizes[label]++] = i;
+            }
+            labelGroups.put(labels, groups);
+            return groups;
         }
     }
 
@@ -2344,6 +2624,7 @@ public class Model extends Renderable {
 
     @Override
     public final void renderAtPoint(int i, int j, int k, int l, int i1, int j1, int k1, int l1, long i2) {
+        RenderStats.modelsSubmitted++;
         int j2 = l1 * i1 - j1 * l >> 16;
         int k2 = k1 * j + j2 * k >> 16;
         int l2 = XYZMag * k >> 16;
@@ -2376,6 +2657,10 @@ public class Model extends Renderable {
         if (k2 - j5 <= 50) {
             flag = true;
         }
+        if (!flag && OcclusionPyramid.isActive() && isOccluded(k2 - j5, i3, j3, i4 - l4, i4 + j4)) {
+            RenderStats.modelsOccluded++;
+            return;
+        }
         boolean flag1 = false;
         if (i2 > 0 && aBoolean1684) {
             int k5 = k2 - l2;
@@ -2450,6 +2735,7 @@ public class Model extends Renderable {
             }
         }
 
+        RenderStats.modelsDrawn++;
         try {
             method483(flag, flag1, i2);
             return;
@@ -2458,11 +2744,30 @@ public class Model extends Renderable {
         }
     }
 
+    /**
+     * Tests the model's view space bounds against the occlusion pyramid.
+     * @param near the nearest depth of the model
+     * @param far the farthest depth of the model
+     * @param centerX the view x of the model's origin
+     * @param top the view y of the model's top
+     * @param bottom the view y of the model's bottom
+     */
+    private boolean isOccluded(int near, int far, int centerX, int top, int bottom) {
+        int left = centerX - XYZMag;
+        int right = centerX + XYZMag;
+        int focal = WorldController.focalLength;
+        int screenLeft = Rasterizer.textureInt1 + left * focal / (left < 0 ? near : far);
+        int screenRight = Rasterizer.textureInt1 + right * focal / (right > 0 ? near : far);
+        int screenTop = Rasterizer.textureInt2 + top * focal / (top < 0 ? near : far);
+        int screenBottom = Rasterizer.textureInt2 + bottom * focal / (bottom > 0 ? near : far);
+        return OcclusionPyramid.isHidden(screenLeft, screenTop, screenRight, screenBottom, near);
+    }
+
     private final void method483(boolean flag, boolean flag1, long i22) {
         renderAttachedParticlesScreenSpace();
 
-        for (int j = 0; j < maxRenderDepth; j++)
-            depthListIndices[j] = 0;
+        ModelFaceSort sort = ModelFaceSort.get();
+        sort.reset(trianglesCount, maxRenderDepth);
 
         for (int k = 0; k < trianglesCount; k++)
             if (types == null || types[k] != -1) {
@@ -2476,7 +2781,7 @@ public class Model extends Renderable {
                     outOfReach[k] = true;
                     int j5 = (projected_verticesZ[l] + projected_verticesZ[k1] + projected_verticesZ[j2])
                             / 3 + diagonal3DAboveOrigin;
-                    faceLists[j5][depthListIndices[j5]++] = k;
+                    sort.add(k, j5);
                 } else {
                     if (flag1 && method486(anInt1685, anInt1686,
                             projected_verticesY[l],
@@ -2499,134 +2804,61 @@ public class Model extends Renderable {
                             hasAnEdgeToRestrict[k] = false;
                         int k5 = (projected_verticesZ[l] + projected_verticesZ[k1] + projected_verticesZ[j2])
                                 / 3 + diagonal3DAboveOrigin;
-                        faceLists[k5][depthListIndices[k5]++] = k;
+                        sort.add(k, k5);
                     }
                 }
             }
 
+        sort.sortByDepth();
+        int[] faces = sort.faces;
+        int count = sort.count;
         if (face_render_priorities == null) {
-            for (int i1 = maxRenderDepth - 1; i1 >= 0; i1--) {
-                int l1 = depthListIndices[i1];
-                if (l1 > 0) {
-                    int ai[] = faceLists[i1];
-                    for (int j3 = 0; j3 < l1; j3++)
-                        method484(ai[j3]);
-                }
-            }
-
+            for (int i1 = 0; i1 < count; i1++)
+                method484(faces[i1]);
             return;
         }
 
-        for (int j1 = 0; j1 < 12; j1++) {
-            anIntArray1673[j1] = 0;
-            anIntArray1677[j1] = 0;
-        }
-
-        for (int i2 = maxRenderDepth - 1; i2 >= 0; i2--) {
-            int k2 = depthListIndices[i2];
-            if (k2 > 0) {
-                int ai1[] = faceLists[i2];
-                for (int i4 = 0; i4 < k2; i4++) {
-                    int l4 = ai1[i4];
-                    int l5 = face_render_priorities[l4];
-                    int j6 = anIntArray1673[l5]++;
-                    anIntArrayArray1674[l5][j6] = l4;
-                    if (l5 < 10)
-                        anIntArray1677[l5] += i2;
-                    else if (l5 == 10)
-                        anIntArray1675[j6] = i2;
-                    else
-                        anIntArray1676[j6] = i2;
-                }
-            }
-        }
-
+        sort.sortByPriority(face_render_priorities);
+        int[] priorityStarts = sort.priorityStarts;
+        int[] depthSums = sort.priorityDepthSums;
+        int[] priorityFaces = sort.priorityFaces;
+        int[] priorityDepths = sort.priorityDepths;
         int l2 = 0;
-        if (anIntArray1673[1] > 0 || anIntArray1673[2] > 0)
-            l2 = (anIntArray1677[1] + anIntArray1677[2])
-                    / (anIntArray1673[1] + anIntArray1673[2]);
+        int count12 = priorityStarts[3] - priorityStarts[1];
+        if (count12 > 0)
+            l2 = (depthSums[1] + depthSums[2]) / count12;
         int k3 = 0;
-        if (anIntArray1673[3] > 0 || anIntArray1673[4] > 0)
-            k3 = (anIntArray1677[3] + anIntArray1677[4])
-                    / (anIntArray1673[3] + anIntArray1673[4]);
+        int count34 = priorityStarts[5] - priorityStarts[3];
+        if (count34 > 0)
+            k3 = (depthSums[3] + depthSums[4]) / count34;
         int j4 = 0;
-        if (anIntArray1673[6] > 0 || anIntArray1673[8] > 0)
-            j4 = (anIntArray1677[6] + anIntArray1677[8])
-                    / (anIntArray1673[6] + anIntArray1673[8]);
-        int i6 = 0;
-        int k6 = anIntArray1673[10];
-        int ai2[] = anIntArrayArray1674[10];
-        int ai3[] = anIntArray1675;
-        if (i6 == k6) {
-            i6 = 0;
-            k6 = anIntArray1673[11];
-            ai2 = anIntArrayArray1674[11];
-            ai3 = anIntArray1676;
-        }
-        int i5;
-        if (i6 < k6)
-            i5 = ai3[i6];
-        else
-            i5 = -1000;
+        int count68 = priorityStarts[7] - priorityStarts[6] + priorityStarts[9] - priorityStarts[8];
+        if (count68 > 0)
+            j4 = (depthSums[6] + depthSums[8]) / count68;
+        // Priorities 10 and 11 are adjacent, so they're drawn as one far to near run interleaved with the rest
+        int i6 = priorityStarts[10];
+        int k6 = priorityStarts[12];
+        int i5 = i6 < k6 ? priorityDepths[i6] : -1000;
         for (int l6_ = 0; l6_ < 10; l6_++) {
             while (l6_ == 0 && i5 > l2) {
-                method484(ai2[i6++]);
-                if (i6 == k6 && ai2 != anIntArrayArray1674[11]) {
-                    i6 = 0;
-                    k6 = anIntArray1673[11];
-                    ai2 = anIntArrayArray1674[11];
-                    ai3 = anIntArray1676;
-                }
-                if (i6 < k6)
-                    i5 = ai3[i6];
-                else
-                    i5 = -1000;
+                method484(priorityFaces[i6++]);
+                i5 = i6 < k6 ? priorityDepths[i6] : -1000;
             }
             while (l6_ == 3 && i5 > k3) {
-                method484(ai2[i6++]);
-                if (i6 == k6 && ai2 != anIntArrayArray1674[11]) {
-                    i6 = 0;
-                    k6 = anIntArray1673[11];
-                    ai2 = anIntArrayArray1674[11];
-                    ai3 = anIntArray1676;
-                }
-                if (i6 < k6)
-                    i5 = ai3[i6];
-                else
-                    i5 = -1000;
+                method484(priorityFaces[i6++]);
+                i5 = i6 < k6 ? priorityDepths[i6] : -1000;
             }
             while (l6_ == 5 && i5 > j4) {
-                method484(ai2[i6++]);
-                if (i6 == k6 && ai2 != anIntArrayArray1674[11]) {
-                    i6 = 0;
-                    k6 = anIntArray1673[11];
-                    ai2 = anIntArrayArray1674[11];
-                    ai3 = anIntArray1676;
-                }
-                if (i6 < k6)
-                    i5 = ai3[i6];
-                else
-                    i5 = -1000;
+                method484(priorityFaces[i6++]);
+                i5 = i6 < k6 ? priorityDepths[i6] : -1000;
             }
-            int i7 = anIntArray1673[l6_];
-            int ai4[] = anIntArrayArray1674[l6_];
-            for (int j7 = 0; j7 < i7; j7++)
-                method484(ai4[j7]);
-
+            for (int j7 = priorityStarts[l6_]; j7 < priorityStarts[l6_ + 1]; j7++)
+                method484(priorityFaces[j7]);
         }
 
         while (i5 != -1000) {
-            method484(ai2[i6++]);
-            if (i6 == k6 && ai2 != anIntArrayArray1674[11]) {
-                i6 = 0;
-                ai2 = anIntArrayArray1674[11];
-                k6 = anIntArray1673[11];
-                ai3 = anIntArray1676;
-            }
-            if (i6 < k6)
-                i5 = ai3[i6];
-            else
-                i5 = -1000;
+            method484(priorityFaces[i6++]);
+            i5 = i6 < k6 ? priorityDepths[i6] : -1000;
         }
     }
 
@@ -3068,6 +3300,8 @@ public class Model extends Renderable {
     public byte[] textureTypes;
     private boolean aBoolean1618;
     public static int anInt1620;
+    /** Vertex and face groups by the label array they were built from; arrays hash and compare by identity. */
+    private static final Map<int[], int[][]> labelGroups = new WeakHashMap<>();
     public static Model EMPTY_MODEL = new Model(true);
     private static int anIntArray1622[] = new int[2000];
     private static int anIntArray1623[] = new int[2000];
@@ -3126,13 +3360,6 @@ public class Model extends Renderable {
     static int camera_verticesY[] = new int[15000];
     static int viewportTextureZ[] = new int[15000];
     static int camera_verticesZ[] = new int[8000];
-    static int depthListIndices[] = new int[15000];
-    static int faceLists[][] = new int[15000][512];
-    static int anIntArray1673[] = new int[12];
-    static int anIntArrayArray1674[][] = new int[12][15000];
-    static int anIntArray1675[] = new int[15000];
-    static int anIntArray1676[] = new int[15000];
-    static int anIntArray1677[] = new int[12];
     static int anIntArray1678[] = new int[10];
     static int anIntArray1679[] = new int[10];
     static int anIntArray1680[] = new int[10];
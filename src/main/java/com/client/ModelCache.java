@@ -0,0 +1,88 @@
+package com.client;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decoded model geometry keyed by model id, bounded by an estimate of the bytes held.
+ *
+ * Entries are written by the on-demand workers as model files arrive and read by {@link Model#Model(int)},
+ * which copies the geometry instead of parsing the file again. Cached models are never handed out or
+ * modified. Each entry remembers the file data it was decoded from, so a model whose data was replaced
+ * (custom models, cache updates) is decoded again rather than served stale.
+ */
+final class ModelCache {
+
+	private static final long DEFAULT_BUDGET = 48L * 1024 * 1024;
+
+	private static final class Entry {
+		private final byte[] source;
+		private final Model geometry;
+		private final int weight;
+
+		private Entry(byte[] source, Model geometry) {
+			this.source = source;
+			this.geometry = geometry;
+			this.weight = geometry.getCacheWeight();
+		}
+	}
+
+	private static final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+	private static long budget = DEFAULT_BUDGET;
+	private static long weight;
+
+	private ModelCache() {
+	}
+
+	/**
+	 * @return the decoded geometry for this model if it was decoded from {@code source}, otherwise null.
+	 */
+	static synchronized Model get(int modelId, byte[] source) {
+		Entry entry = entries.get(modelId);
+		if (entry == null || entry.source != source)
+			return null;
+		return entry.geometry;
+	}
+
+	static synchronized void put(int modelId, byte[] source, Model geometry) {
+		Entry entry = new Entry(source, geometry);
+		Entry previous = entries.put(modelId, entry);
+		if (previous != null)
+			weight -= previous.weight;
+		weight += entry.weight;
+		trim();
+	}
+
+	static synchronized void remove(int modelId) {
+		Entry previous = entries.remove(modelId);
+		if (previous != null)
+			weight -= previous.weight;
+	}
+
+	static synchronized void clear() {
+		entries.clear();
+		weight = 0;
+	}
+
+	static synchronized void setBudget(long bytes) {
+		budget = bytes;
+		trim();
+	}
+
+	static synchronized long getWeight() {
+		return weight;
+	}
+
+	static synchronized int size() {
+		return entries.size();
+	}
+
+	private static void trim() {
+		Iterator<Map.Entry<Integer, Entry>> iterator = entries.entrySet().iterator();
+		while (weight > budget && iterator.hasNext()) {
+			weight -= iterator.next().getValue().weight;
+			iterator.remove();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.client;
+
+import java.util.Arrays;
+
+/**
+ * Orders the faces of the model being drawn back to front, replacing the fixed 15000 by 512 depth buckets.
+ *
+ * Faces are counting sorted by depth, then by render priority, into arrays sized to the largest model
+ * drawn so far. Both sorts are stable, so faces at the same depth keep the order they were added in.
+ * Each rendering thread gets its own instance through {@link #get()}.
+ */
+final class ModelFaceSort {
+
+	private static final int PRIORITIES = 12;
+
+	private static final ThreadLocal<ModelFaceSort> scratch = ThreadLocal.withInitial(ModelFaceSort::new);
+
+	static ModelFaceSort get() {
+		return scratch.get();
+	}
+
+	/** The faces sorted far to near, and their depths. */
+	int[] faces = new int[256];
+	int[] depths = new int[256];
+	int count;
+
+	/** The sorted faces grouped by priority; priority p occupies [priorityStarts[p], priorityStarts[p + 1]). */
+	int[] priorityFaces = new int[256];
+	int[] priorityDepths = new int[256];
+	final int[] priorityStarts = new int[PRIORITIES + 1];
+	/** The sum of the face depths per priority. */
+	final int[] priorityDepthSums = new int[PRIORITIES];
+
+	private int[] addedFaces = new int[256];
+	private int[] addedDepths = new int[256];
+	private int[] depthStarts = new int[1024];
+	private int depthRange;
+	private final int[] next = new int[PRIORITIES];
+
+	private ModelFaceSort() {
+	}
+
+	/**
+	 * Starts a model.
+	 * @param faceCount the most faces that will be added
+	 * @param depthRange faces must have a depth below this
+	 */
+	void reset(int faceCount, int depthRange) {
+		if (addedFaces.length < faceCount) {
+			int capacity = Math.max(faceCount, addedFaces.length << 1);
+			addedFaces = new int[capacity];
+			addedDepths = new int[capacity];
+			faces = new int[capacity];
+			depths = new int[capacity];
+			priorityFaces = new int[capacity];
+			priorityDepths = new int[capacity];
+		}
+		if (depthStarts.length < depthRange + 1)
+			depthStarts = new int[Math.max(depthRange + 1, depthStarts.length << 1)];
+		Arrays.fill(depthStarts, 0, depthRange + 1, 0);
+		this.depthRange = depthRange;
+		count = 0;
+	}
+
+	/**
+	 * Adds a face, ignoring it if its depth is outside the model's range.
+	 */
+	void add(int face, int depth) {
+		if (depth < 0 || depth >= depthRange)
+			return;
+		addedFaces[count] = face;
+		addedDepths[count++] = depth;
+		// Buckets are keyed from the far end so the prefix sum lays them out far to near
+		depthStarts[depthRange - depth]++;
+	}
+
+	/**
+	 * Sorts the added faces far to near into {@link #faces}.
+	 */
+	void sortByDepth() {
+		int[] starts = depthStarts;
+		for (int i = 1; i <= depthRange; i++)
+			starts[i] += starts[i - 1];
+		for (int i = 0; i < count; i++) {
+			int depth = addedDepths[i];
+			int index = starts[depthRange - depth - 1]++;
+			faces[index] = addedFaces[i];
+			depths[index] = depth;
+		}
+	}
+
+	/**
+	 * Groups the depth sorted faces by priority into {@link #priorityFaces}, keeping them far to near.
+	 */
+	void sortByPriority(byte[] priorities) {
+		int[] starts = priorityStarts;
+		Arrays.fill(starts, 0);
+		Arrays.fill(priorityDepthSums, 0);
+		for (int i = 0; i < count; i++) {
+			int priority = priorities[faces[i]];
+			starts[priority + 1]++;
+			priorityDepthSums[priority] += depths[i];
+		}
+		for (int p = 0; p < PRIORITIES; p++)
+			starts[p + 1] += starts[p];
+		int[] next = this.next;
+		System.arraycopy(starts, 0, next, 0, PRIORITIES);
+		for (int i = 0; i < count; i++) {
+			int index = next[priorities[faces[i]]]++;
+			priorityFaces[index] = faces[i];
+			priorityDepths[index] = depths[i];
+		}
+	}
+}
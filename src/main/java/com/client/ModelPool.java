@@ -0,0 +1,183 @@
+package com.client;
+
+import java.util.Arrays;
+
+/**
+ * Per-frame models for the animated spot animations and projectiles drawn in the scene, and for players and
+ * npcs merged with their spot animation.
+ *
+ * {@link Renderable#renderAtPoint} draws the model {@link Renderable#getRotatedModel()} returns straight away,
+ * so a copy made to apply an animation frame, or a merge of two models, is only needed until the end of the
+ * frame. Instead of {@code new Model(true, alpha_flag, false, model)} and {@code new Model(models)}, those
+ * come from here: each slot keeps a model
+ * and arrays sized for the largest model it has held, and {@link #reset()} hands the slots out again at the
+ * start of the next frame. Once the slots have grown to the scene, animating and lighting them allocates
+ * nothing. Only the thread drawing the scene may use it.
+ */
+final class ModelPool {
+
+	/** Past this many copies in one frame, copies are allocated as before. */
+	private static final int MAX_SLOTS = 1024;
+
+	/**
+	 * The arrays a pooled model owns, grown as needed.
+	 */
+	static final class Scratch {
+		int[] verticesX = new int[0];
+		int[] verticesY = new int[0];
+		int[] verticesZ = new int[0];
+		int[] alphas = new int[0];
+		int[] colorsX = new int[0];
+		int[] colorsY = new int[0];
+		int[] colorsZ = new int[0];
+		short[] materials = new short[0];
+		VertexNormal[] normals = new VertexNormal[0];
+		int[] trianglesX = new int[0];
+		int[] trianglesY = new int[0];
+		int[] trianglesZ = new int[0];
+		int[] types = new int[0];
+		byte[] priorities = new byte[0];
+		short[] colors = new short[0];
+		byte[] textures = new byte[0];
+		short[] texturesX = new short[0];
+		short[] texturesY = new short[0];
+		short[] texturesZ = new short[0];
+		private int[] particles = new int[0];
+		private byte[][] particleLayers = new byte[0][];
+
+		private Scratch() {
+		}
+
+		void ensureCapacity(int vertices, int triangles) {
+			if (verticesX.length < vertices) {
+				int capacity = Math.max(vertices, verticesX.length * 3 / 2);
+				verticesX = new int[capacity];
+				verticesY = new int[capacity];
+				verticesZ = new int[capacity];
+				int from = normals.length;
+				normals = Arrays.copyOf(normals, capacity);
+				for (int i = from; i < capacity; i++)
+					normals[i] = new VertexNormal();
+			}
+			if (alphas.length < triangles) {
+				int capacity = Math.max(triangles, alphas.length * 3 / 2);
+				alphas = new int[capacity];
+				colorsX = new int[capacity];
+				colorsY = new int[capacity];
+				colorsZ = new int[capacity];
+				materials = new short[capacity];
+			}
+		}
+
+		/**
+		 * Grows the arrays only a merge uses, on top of {@link #ensureCapacity(int, int)}.
+		 */
+		void ensureMergeCapacity(int triangles, int textureCount) {
+			if (trianglesX.length < triangles) {
+				int capacity = Math.max(triangles, trianglesX.length * 3 / 2);
+				trianglesX = new int[capacity];
+				trianglesY = new int[capacity];
+				trianglesZ = new int[capacity];
+				types = new int[capacity];
+				priorities = new byte[capacity];
+				colors = new short[capacity];
+				textures = new byte[capacity];
+			}
+			if (texturesX.length < textureCount) {
+				int capacity = Math.max(textureCount, texturesX.length * 3 / 2);
+				texturesX = new short[capacity];
+				texturesY = new short[capacity];
+				texturesZ = new short[capacity];
+			}
+		}
+
+		/**
+		 * @return a zeroed particle map of exactly {@code vertices} entries
+		 */
+		int[] particles(int vertices) {
+			if (particles.length != vertices)
+				particles = new int[vertices];
+			else
+				Arrays.fill(particles, 0);
+			return particles;
+		}
+
+		/**
+		 * @return zeroed particle layers of exactly {@code vertices} entries
+		 */
+		byte[][] particleLayers(int vertices) {
+			if (particleLayers.length != vertices) {
+				particleLayers = new byte[vertices][3];
+			} else {
+				for (byte[] layers : particleLayers)
+					Arrays.fill(layers, (byte) 0);
+			}
+			return particleLayers;
+		}
+	}
+
+	private static Model[] models = new Model[0];
+	private static Scratch[] scratches = new Scratch[0];
+	private static int used;
+
+	private ModelPool() {
+	}
+
+	/**
+	 * Hands every slot out again. Models returned before this call must no longer be in use.
+	 */
+	static void reset() {
+		used = 0;
+	}
+
+	/**
+	 * @return how many pooled models were handed out since the last {@link #reset()}
+	 */
+	static int used() {
+		return used;
+	}
+
+	/**
+	 * Copies {@code model} as {@code new Model(true, alpha_flag, false, model)} would, into a model that is
+	 * only valid until the next {@link #reset()}.
+	 */
+	static Model copy(boolean alpha_flag, Model model) {
+		int slot = take();
+		if (slot == -1)
+			return new Model(true, alpha_flag, false, model);
+		Model copy = models[slot];
+		copy.copyForFrame(alpha_flag, model, scratches[slot]);
+		return copy;
+	}
+
+	/**
+	 * Merges {@code models} as {@code new Model(models)} would, into a model that is only valid until the next
+	 * {@link #reset()}.
+	 */
+	static Model merge(Model[] models) {
+		int slot = take();
+		if (slot == -1)
+			return new Model(models);
+		Model merged = ModelPool.models[slot];
+		merged.mergeForFrame(models, scratches[slot]);
+		return merged;
+	}
+
+	/**
+	 * @return the next free slot, or -1 once {@value #MAX_SLOTS} are in use
+	 */
+	private static int take() {
+		if (used == MAX_SLOTS)
+			return -1;
+		if (used == models.length) {
+			int capacity = Math.min(MAX_SLOTS, Math.max(16, used * 2));
+			models = Arrays.copyOf(models, capacity);
+			scratches = Arrays.copyOf(scratches, capacity);
+		}
+		if (models[used] == null) {
+			models[used] = new Model(true);
+			scratches[used] = new Scratch();
+		}
+		return used++;
+	}
+}
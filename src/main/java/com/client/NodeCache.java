@@ -1,52 +1,125 @@
 package com.client;
 
-import com.client.sign.Signlink;
-// Decompiled by Jad v1.5.8f. Copyright 2001 Pavel Kouznetsov.
-// Jad home page: http://www.kpdus.com/jad.html
-// Decompiler options: packimports(3) 
-
+import java.util.Arrays;
 
+/**
+ * Open-addressing hash index from a long key to a cached node, backing {@link MRUNodes}.
+ *
+ * Keys and nodes live in parallel arrays probed linearly, so lookups don't walk a linked chain and no
+ * wrapper is allocated per entry. The table doubles once it is more than {@link #MAX_LOAD} full.
+ */
 final class NodeCache {
 
+	private static final int INITIAL_CAPACITY = 64;
+	private static final float MAX_LOAD = 0.6f;
+
 	public NodeCache() {
-		int i = 1024;// was parameter
-		size = i;
-		cache = new Node[i];
-		for (int k = 0; k < i; k++) {
-			Node node = cache[k] = new Node();
-			node.prev = node;
-			node.next = node;
+		allocate(INITIAL_CAPACITY);
+	}
+
+	public Node findNodeByID(long l) {
+		for (int slot = slotOf(l); ; slot = (slot + 1) & mask) {
+			Node node = nodes[slot];
+			if (node == null)
+				return null;
+			if (keys[slot] == l)
+				return node;
 		}
+	}
 
+	/**
+	 * Maps the key to the node, replacing any node already stored under it. A node stored under
+	 * a different key is moved.
+	 */
+	public void removeFromCache(Node node, long l) {
+		if (node.id != l)
+			remove(node.id, node);
+		node.id = l;
+		int slot = slotOf(l);
+		for (; nodes[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot] == l) {
+				nodes[slot] = node;
+				return;
+			}
+		}
+		keys[slot] = l;
+		nodes[slot] = node;
+		if (++size > threshold)
+			allocate(nodes.length << 1);
 	}
 
-	public Node findNodeByID(long l) {
-		Node node = cache[(int) (l & size - 1)];
-		for (Node node_1 = node.prev; node_1 != node; node_1 = node_1.prev)
-			if (node_1.id == l)
-				return node_1;
+	/**
+	 * Removes the key if it is mapped to this node.
+	 */
+	public boolean remove(long l, Node node) {
+		int slot = slotOf(l);
+		for (; ; slot = (slot + 1) & mask) {
+			Node current = nodes[slot];
+			if (current == null)
+				return false;
+			if (keys[slot] == l) {
+				if (current != node)
+					return false;
+				break;
+			}
+		}
+		size--;
+		// Shift following entries back so no probe sequence is broken by the hole
+		int hole = slot;
+		for (int next = (hole + 1) & mask; nodes[next] != null; next = (next + 1) & mask) {
+			int home = slotOf(keys[next]);
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				nodes[hole] = nodes[next];
+				hole = next;
+			}
+		}
+		nodes[hole] = null;
+		return true;
+	}
 
-		return null;
+	public void clear() {
+		if (size == 0)
+			return;
+		Arrays.fill(nodes, null);
+		size = 0;
 	}
 
-	public void removeFromCache(Node node, long l) {
-		try {
-			if (node.next != null)
-				node.unlink();
-			Node node_1 = cache[(int) (l & size - 1)];
-			node.next = node_1.next;
-			node.prev = node_1;
-			node.next.prev = node;
-			node.prev.next = node;
-			node.id = l;
+	public int size() {
+		return size;
+	}
+
+	private int slotOf(long l) {
+		// Fibonacci hashing spreads clustered keys such as appearance hashes over the whole table
+		return (int) ((l * 0x9E3779B97F4A7C15L) >>> shift);
+	}
+
+	private void allocate(int capacity) {
+		long[] oldKeys = keys;
+		Node[] oldNodes = nodes;
+		keys = new long[capacity];
+		nodes = new Node[capacity];
+		mask = capacity - 1;
+		shift = 64 - Integer.numberOfTrailingZeros(capacity);
+		threshold = (int) (capacity * MAX_LOAD);
+		if (oldNodes == null)
 			return;
-		} catch (RuntimeException runtimeexception) {
-			Signlink.reporterror("91499, " + node + ", " + l + ", " + (byte) 7
-					+ ", " + runtimeexception.toString());
+		for (int i = 0; i < oldNodes.length; i++) {
+			Node node = oldNodes[i];
+			if (node == null)
+				continue;
+			int slot = slotOf(oldKeys[i]);
+			while (nodes[slot] != null)
+				slot = (slot + 1) & mask;
+			keys[slot] = oldKeys[i];
+			nodes[slot] = node;
 		}
-		throw new RuntimeException();
 	}
 
-	private final int size;
-	private final Node[] cache;
+	private long[] keys;
+	private Node[] nodes;
+	private int size;
+	private int mask;
+	private int shift;
+	private int threshold;
 }
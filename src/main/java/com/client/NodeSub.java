@@ -15,6 +15,15 @@ public class NodeSub extends Node {
     public NodeSub() {
     }
 
+    /**
+     * @return the estimated size in bytes of this node, used by {@link MRUNodes#weighted(long)} caches.
+     * Nodes that don't override this count as a single byte.
+     */
+    public int getCacheWeight() {
+        return 1;
+    }
+
     public NodeSub prevNodeSub;
     NodeSub nextNodeSub;
+    int cachedWeight;
 }
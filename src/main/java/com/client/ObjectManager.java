@@ -1,5 +1,7 @@
 package com.client;
 
+import java.util.Arrays;
+
 import com.client.definitions.FloorOverlayDefinition;
 import com.client.definitions.FloorUnderlayDefinition;
 import com.client.definitions.ObjectDefinition;
@@ -13,7 +15,6 @@ import com.client.utilities.ObjectKey;
 final class ObjectManager {
 
 	public ObjectManager(byte abyte0[][][], int ai[][][]) {
-		maximumPlane = 99;
 		regionSizeX = 104;
 		regionSizeY = 104;
 		tileHeights = ai;
@@ -25,11 +26,8 @@ final class ObjectManager {
 		anIntArrayArrayArray135 = new int[4][regionSizeX + 1][regionSizeY + 1];
 		shading = new byte[4][regionSizeX + 1][regionSizeY + 1];
 		tileLighting = new int[regionSizeX + 1][regionSizeY + 1];
-		hues = new int[regionSizeY];
-		saturations = new int[regionSizeY];
-		luminances = new int[regionSizeY];
-		chromas = new int[regionSizeY];
-		anIntArray128 = new int[regionSizeY];
+		columnSums = new long[regionSizeY];
+		columnCounts = new int[regionSizeY];
 	}
 
 	/**
@@ -85,11 +83,102 @@ final class ObjectManager {
 		return l >> 19 & 0xff;
 	}
 
+	/**
+	 * Limits the build to the given 8 by 8 tile chunks of the scene, which {@link SceneWindow#prepare} left
+	 * empty, starting from the shading and occluder flags the window kept for the rest.
+	 * @param chunks the chunks to build, or null to build the whole scene
+	 */
+	void useSceneWindow(SceneWindow window, boolean[][] chunks) {
+		this.window = window;
+		rebuiltChunks = chunks;
+		if (chunks == null)
+			return;
+		for (int plane = 0; plane < 4; plane++) {
+			for (int x = 0; x <= regionSizeX; x++) {
+				System.arraycopy(window.shading[plane][x], 0, shading[plane][x], 0, regionSizeY + 1);
+				System.arraycopy(window.occlusion[plane][x], 0, anIntArrayArrayArray135[plane][x], 0, regionSizeY + 1);
+			}
+		}
+	}
+
+	private boolean isRebuilt(int x, int z) {
+		return rebuiltChunks == null || rebuiltChunks[x >> 3][z >> 3];
+	}
+
+	/**
+	 * @return whether a tile with this corner is built
+	 */
+	private boolean isCornerRebuilt(int x, int z) {
+		return isRebuilt(x, z) || isRebuilt(x - 1, z) || isRebuilt(x, z - 1) || isRebuilt(x - 1, z - 1);
+	}
+
+	private boolean isNextToRebuilt(int x, int z) {
+		for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, regionSizeX - 1); i++) {
+			for (int j = Math.max(z - 1, 0); j <= Math.min(z + 1, regionSizeY - 1); j++)
+				if (isRebuilt(i, j))
+					return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Blocks again the rebuilt tiles faced by the walls kept next to them, as resetting the rebuilt chunks
+	 * cleared those flags along with their own.
+	 */
+	private void restoreWallCollision(CollisionMap aclass11[], WorldController worldController) {
+		for (int x = 0; x < regionSizeX; x++) {
+			for (int z = 0; z < regionSizeY; z++) {
+				if (isRebuilt(x, z) || !isNextToRebuilt(x, z))
+					continue;
+				for (int plane = 0; plane < 4; plane++) {
+					long key = worldController.method300(plane, x, z);
+					if (key == 0)
+						continue;
+					int config = worldController.method304(plane, x, z, key);
+					ObjectDefinition definition = ObjectDefinition.forID(ObjectKey.getObjectId(key));
+					if (definition.aBoolean767)
+						aclass11[plane].method211(z, config >> 6, x, config & 0x1f, definition.aBoolean757);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Blocks the rebuilt tiles under a kept object of more than one tile again, as {@link #renderObject} did
+	 * for the whole object. This goes by the object file rather than the scene, which leaves out objects
+	 * without a model.
+	 */
+	private void restoreObjectCollision(CollisionMap collisionMap, int y, int x, int id, int type, int orientation) {
+		if (type < 9 || type == 22)
+			return;
+		ObjectDefinition definition = ObjectDefinition.forID(id);
+		if (!definition.aBoolean767)
+			return;
+		int sizeX = orientation == 1 || orientation == 3 ? definition.yLength : definition.xLength;
+		int sizeY = orientation == 1 || orientation == 3 ? definition.xLength : definition.yLength;
+		int flags = definition.aBoolean757 ? 0x20100 : 0x100;
+		for (int i = x; i < Math.min(x + sizeX, regionSizeX); i++) {
+			for (int j = y; j < Math.min(y + sizeY, regionSizeY); j++)
+				if (isRebuilt(i, j))
+					collisionMap.flag(i, j, flags);
+		}
+	}
+
 	public final void createRegionScene(CollisionMap aclass11[], WorldController worldController) {
+		createRegionScene(aclass11, worldController,
+				Client.getUserSettings().isTileBlending() && Client.getUserSettings().isSmoothShading());
+	}
+
+	/**
+	 * @param smoothShading whether the corners of a tile are coloured apart, or all as the first
+	 */
+	final void createRegionScene(CollisionMap aclass11[], WorldController worldController, boolean smoothShading) {
+		if (rebuiltChunks != null)
+			restoreWallCollision(aclass11, worldController);
 		for (int j = 0; j < 4; j++) {
 			for (int k = 0; k < 104; k++) {
 				for (int i1 = 0; i1 < 104; i1++)
-					if ((tileFlags[j][k][i1] & 1) == 1) {
+					if ((tileFlags[j][k][i1] & 1) == 1 && isRebuilt(k, i1)) {
 						int k1 = j;
 						if ((tileFlags[1][k][i1] & 2) == 2)
 							k1--;
@@ -110,6 +199,8 @@ final class ObjectManager {
 			int l3 = c * j3 >> 8;
 			for (int j4 = 1; j4 < regionSizeY - 1; j4++) {
 				for (int j5 = 1; j5 < regionSizeX - 1; j5++) {
+					if (!isCornerRebuilt(j5, j4))
+						continue;
 					int k6 = tileHeights[l][j5 + 1][j4] - tileHeights[l][j5 - 1][j4];
 					int l7 = tileHeights[l][j5][j4 + 1] - tileHeights[l][j5][j4 - 1];
 					int j9 = (int) Math.sqrt(k6 * k6 + 0x10000 + l7 * l7);
@@ -122,78 +213,19 @@ final class ObjectManager {
 					tileLighting[j5][j4] = j16 - j17;
 				}
 			}
-			int[][] paletteIndices = new int[regionSizeX][regionSizeY];
-			for (int z = 0; z < regionSizeY; z++) {
-				hues[z] = 0;
-				saturations[z] = 0;
-				luminances[z] = 0;
-				chromas[z] = 0;
-				anIntArray128[z] = 0;
-			}
-
-			for (int x = -5; x < regionSizeX; x++) {
-				for (int z = 0; z < regionSizeY; z++) {
-					int xForwardOffset = x + 5;
-					if (xForwardOffset < regionSizeX) {
-						int underlayId = underlays[l][xForwardOffset][z] & 0xff;
-						if (underlayId > 0) {
-							FloorUnderlayDefinition flo = FloorUnderlayDefinition.underlays[underlayId - 1];
-							hues[z] += flo.blendHue;
-							saturations[z] += flo.saturation;
-							luminances[z] += flo.luminance;
-							chromas[z] += flo.blendHueMultiplier;
-							anIntArray128[z]++;
-						}
-					}
-					int xBackwardOffset = x - 5;
-					if (xBackwardOffset >= 0) {
-						int underlayId = underlays[l][xBackwardOffset][z] & 0xff;
-						if (underlayId > 0) {
-							FloorUnderlayDefinition flo_1 = FloorUnderlayDefinition.underlays[underlayId - 1];
-							hues[z] -= flo_1.blendHue;
-							saturations[z] -= flo_1.saturation;
-							luminances[z] -= flo_1.luminance;
-							chromas[z] -= flo_1.blendHueMultiplier;
-							anIntArray128[z]--;
-						}
-					}
-				}
-				if (x >= 0) {
-					int hueSum = 0;
-					int saturationSum = 0;
-					int lightnessSum = 0;
-					int dividerSum = 0;
-					int sizeSum = 0;
-					for (int z = -5; z < regionSizeY; z++) {
-						int zForwardOffset = z + 5;
-						if (zForwardOffset < regionSizeY) {
-							hueSum += hues[zForwardOffset];
-							saturationSum += saturations[zForwardOffset];
-							lightnessSum += luminances[zForwardOffset];
-							dividerSum += chromas[zForwardOffset];
-							sizeSum += anIntArray128[zForwardOffset];
-						}
-						int zBackwardOffset = z - 5;
-						if (zBackwardOffset >= 0) {
-							hueSum -= hues[zBackwardOffset];
-							saturationSum -= saturations[zBackwardOffset];
-							lightnessSum -= luminances[zBackwardOffset];
-							dividerSum -= chromas[zBackwardOffset];
-							sizeSum -= anIntArray128[zBackwardOffset];
-						}
-						if (z >= 0 && dividerSum > 0 && sizeSum > 0) {
-							int hue = (hueSum * 256) / dividerSum;
-							int sat = saturationSum / sizeSum;
-							int light = lightnessSum / sizeSum;
-							paletteIndices[x][z] = FloorOverlayDefinition.hsl24to16(hue, sat, light);
-						}
-					}
-				}
-			}
+			int[][] paletteIndices;
+			if (blendedUnderlays != null)
+				paletteIndices = blendedUnderlays[l];
+			else if (rebuiltChunks == null)
+				paletteIndices = blendUnderlays(l);
+			else
+				paletteIndices = blendRebuiltChunks(l);
 			for (int x = 0; x < regionSizeX; x++) {
 				int nextX = x >= regionSizeX - 1 ? x : x + 1;
 				for (int z = 0; z < regionSizeY; z++) {
 					int nextZ = z >= regionSizeY - 1 ? z : z + 1;
+					if (!isRebuilt(x, z))
+						continue;
 					if ((!lowMem || (tileFlags[0][x][z] & 2) != 0
 							|| (tileFlags[l][x][z] & 0x10) == 0 && getCollisionPlane(z, l, x) == anInt131)) {
 						if (l < maximumPlane) {
@@ -260,7 +292,7 @@ final class ObjectManager {
 								}
 							}
 							int minimapRgb = 0;
-							boolean check = !Client.getUserSettings().isTileBlending() || !Client.getUserSettings().isSmoothShading();
+							boolean check = !smoothShading;
 							if (paletteIndexA != -1) {
 								minimapRgb = Rasterizer.hslToRgb[method187(paletteIndexA, 96)];
 							}
@@ -317,15 +349,25 @@ final class ObjectManager {
 
 			for (int j8 = 1; j8 < regionSizeY - 1; j8++) {
 				for (int i10 = 1; i10 < regionSizeX - 1; i10++)
-					worldController.method278(l, i10, j8, method182(j8, l, i10));
+					if (isRebuilt(i10, j8))
+						worldController.method278(l, i10, j8, method182(j8, l, i10));
 			}
 		}
-		worldController.method305(-10, -50, -50);
+		worldController.method305(-10, -50, -50, rebuiltChunks);
 		for (int j1 = 0; j1 < regionSizeX; j1++) {
 			for (int l1 = 0; l1 < regionSizeY; l1++)
-				if ((tileFlags[1][j1][l1] & 2) == 2)
+				if ((tileFlags[1][j1][l1] & 2) == 2 && isRebuilt(j1, l1))
 					worldController.method276(l1, j1);
 		}
+		if (window != null) {
+			for (int plane = 0; plane < 4; plane++) {
+				for (int x = 0; x <= regionSizeX; x++) {
+					System.arraycopy(shading[plane][x], 0, window.shading[plane][x], 0, regionSizeY + 1);
+					System.arraycopy(anIntArrayArrayArray135[plane][x], 0, window.occlusion[plane][x], 0,
+							regionSizeY + 1);
+				}
+			}
+		}
 		int i2 = 1;
 		int j2 = 2;
 		int k2 = 4;
@@ -437,6 +479,164 @@ final class ObjectManager {
 		}
 	}
 
+	/**
+	 * Blends the underlay colours of every plane ahead of {@link #createRegionScene}, which only reads the
+	 * underlays for it. Safe to call off the game thread.
+	 */
+	final void blendUnderlays() {
+		int[][][] blended = new int[4][][];
+		for (int plane = 0; plane < 4; plane++)
+			blended[plane] = blendUnderlays(plane);
+		blendedUnderlays = blended;
+	}
+
+	/**
+	 * Averages the underlay colours over the 10 by 10 tiles from 4 before to 5 after each tile of a plane,
+	 * reusing the result when the plane is the same as one blended recently.
+	 * @return the blended colour of each tile
+	 */
+	private int[][] blendUnderlays(int l) {
+		byte[] key = new byte[regionSizeX * regionSizeY];
+		for (int x = 0; x < regionSizeX; x++)
+			System.arraycopy(underlays[l][x], 0, key, x * regionSizeY, regionSizeY);
+		int[][] paletteIndices = BlendedPlane.find(key);
+		if (paletteIndices == null) {
+			paletteIndices = sumUnderlays(l);
+			BlendedPlane.add(key, paletteIndices);
+		}
+		return paletteIndices;
+	}
+
+	/**
+	 * Blends a plane without looking at the planes blended recently. The window slides along x over sums of
+	 * each z, and along z over those, adding and removing whole {@link FloorUnderlayDefinition#blendSums}
+	 * entries so the four fields are summed at once.
+	 */
+	int[][] sumUnderlays(int l) {
+		int[][] paletteIndices = new int[regionSizeX][regionSizeY];
+		if (!isEmpty(underlays[l]))
+			sumUnderlays(l, paletteIndices, 0, 0, regionSizeX, regionSizeY);
+		return paletteIndices;
+	}
+
+	/**
+	 * Blends the tiles of the rebuilt chunks of a plane, and the row and column past each chunk that its
+	 * tiles take their far corners from. The other tiles are left 0.
+	 */
+	private int[][] blendRebuiltChunks(int l) {
+		int[][] paletteIndices = new int[regionSizeX][regionSizeY];
+		if (isEmpty(underlays[l]))
+			return paletteIndices;
+		for (int x = 0; x < regionSizeX; x += 8) {
+			for (int z = 0; z < regionSizeY; z += 8)
+				if (isRebuilt(x, z))
+					sumUnderlays(l, paletteIndices, x, z, Math.min(x + 9, regionSizeX), Math.min(z + 9, regionSizeY));
+		}
+		return paletteIndices;
+	}
+
+	/**
+	 * Blends the tiles from x0, z0 up to x1, z1 of a plane.
+	 */
+	private void sumUnderlays(int l, int[][] paletteIndices, int x0, int z0, int x1, int z1) {
+		long[] sumTable = FloorUnderlayDefinition.blendSums;
+		int[] countTable = FloorUnderlayDefinition.blendCounts;
+		int firstZ = Math.max(z0 - 4, 0);
+		int lastZ = Math.min(z1 + 5, regionSizeY);
+		Arrays.fill(columnSums, 0);
+		Arrays.fill(columnCounts, 0);
+		for (int x = x0 - 9; x < x1; x++) {
+			if (x + 5 >= 0 && x + 5 < regionSizeX) {
+				byte[] column = underlays[l][x + 5];
+				for (int z = firstZ; z < lastZ; z++) {
+					int id = column[z] & 0xff;
+					columnSums[z] += sumTable[id];
+					columnCounts[z] += countTable[id];
+				}
+			}
+			if (x - 5 >= Math.max(x0 - 4, 0)) {
+				byte[] column = underlays[l][x - 5];
+				for (int z = firstZ; z < lastZ; z++) {
+					int id = column[z] & 0xff;
+					columnSums[z] -= sumTable[id];
+					columnCounts[z] -= countTable[id];
+				}
+			}
+			if (x < x0)
+				continue;
+			long sum = 0;
+			int count = 0;
+			for (int z = z0 - 9; z < z1; z++) {
+				if (z + 5 >= firstZ && z + 5 < lastZ) {
+					sum += columnSums[z + 5];
+					count += columnCounts[z + 5];
+				}
+				if (z - 5 >= firstZ) {
+					sum -= columnSums[z - 5];
+					count -= columnCounts[z - 5];
+				}
+				if (z < z0)
+					continue;
+				int multiplier = (int) (sum >>> 48);
+				if (multiplier > 0 && count > 0) {
+					int hue = (int) (sum & 0xffff) - FloorUnderlayDefinition.BLEND_HUE_OFFSET * count;
+					int saturation = (int) (sum >>> 16 & 0xffff);
+					int luminance = (int) (sum >>> 32 & 0xffff);
+					paletteIndices[x][z] = FloorOverlayDefinition.hsl24to16((hue * 256) / multiplier,
+							saturation / count, luminance / count);
+				}
+			}
+		}
+	}
+
+	private static boolean isEmpty(byte[][] plane) {
+		for (byte[] column : plane) {
+			for (byte underlay : column)
+				if (underlay != 0)
+					return false;
+		}
+		return true;
+	}
+
+	/**
+	 * A plane of underlays blended recently, kept because the same regions tend to be entered again.
+	 */
+	private static final class BlendedPlane {
+
+		private static final BlendedPlane[] recent = new BlendedPlane[16];
+
+		private final byte[] underlays;
+		private final int hash;
+		private final long[] sumTable;
+		private final int[][] paletteIndices;
+
+		private BlendedPlane(byte[] underlays, int[][] paletteIndices) {
+			this.underlays = underlays;
+			this.hash = Arrays.hashCode(underlays);
+			this.sumTable = FloorUnderlayDefinition.blendSums;
+			this.paletteIndices = paletteIndices;
+		}
+
+		static synchronized int[][] find(byte[] underlays) {
+			int hash = Arrays.hashCode(underlays);
+			for (int i = 0; i < recent.length && recent[i] != null; i++) {
+				BlendedPlane plane = recent[i];
+				if (plane.hash == hash && plane.sumTable == FloorUnderlayDefinition.blendSums
+						&& Arrays.equals(plane.underlays, underlays)) {
+					System.arraycopy(recent, 0, recent, 1, i);
+					recent[0] = plane;
+					return plane.paletteIndices;
+				}
+			}
+			return null;
+		}
+
+		static synchronized void add(byte[] underlays, int[][] paletteIndices) {
+			System.arraycopy(recent, 0, recent, 1, recent.length - 1);
+			recent[0] = new BlendedPlane(underlays, paletteIndices);
+		}
+	}
+
 	private int checkedLight(int color, int light) {
 		if (color == -2)
 			return 0xbc614e;
@@ -860,12 +1060,8 @@ final class ObjectManager {
 
 	public final void method179(int i, int j, CollisionMap aclass11[], int l, int i1, byte abyte0[], int j1, int k1,
 								int l1) {
-		for (int i2 = 0; i2 < 8; i2++) {
-			for (int j2 = 0; j2 < 8; j2++)
-				if (l + i2 > 0 && l + i2 < 103 && l1 + j2 > 0 && l1 + j2 < 103)
-					aclass11[k1].anIntArrayArray294[l + i2][l1 + j2] &= 0xfeffffff;
-
-		}
+		if (aclass11 != null)
+			markTerrainLoaded(aclass11[k1], l, l1, 8);
 		Buffer stream = new Buffer(abyte0);
 		for (int l2 = 0; l2 < 4; l2++) {
 			for (int i3 = 0; i3 < 64; i3++) {
@@ -883,14 +1079,9 @@ final class ObjectManager {
 	}
 
 	public final void method180(byte abyte0[], int i, int j, int k, int l, CollisionMap aclass11[]) {
-		for (int i1 = 0; i1 < 4; i1++) {
-			for (int j1 = 0; j1 < 64; j1++) {
-				for (int k1 = 0; k1 < 64; k1++)
-					if (j + j1 > 0 && j + j1 < 103 && i + k1 > 0 && i + k1 < 103)
-						aclass11[i1].anIntArrayArray294[j + j1][i + k1] &= 0xfeffffff;
-
-			}
-
+		if (aclass11 != null) {
+			for (int i1 = 0; i1 < 4; i1++)
+				markTerrainLoaded(aclass11[i1], j, i, 64);
 		}
 
 		Buffer stream = new Buffer(abyte0);
@@ -904,6 +1095,31 @@ final class ObjectManager {
 		}
 	}
 
+	/**
+	 * Clears the flag that marks tiles without terrain in a square of the collision map, as
+	 * {@link #method180} and {@link #method179} do when given the collision maps.
+	 */
+	static void markTerrainLoaded(CollisionMap collisionMap, int x, int y, int size) {
+		for (int dx = 0; dx < size; dx++) {
+			for (int dy = 0; dy < size; dy++)
+				if (x + dx > 0 && x + dx < 103 && y + dy > 0 && y + dy < 103)
+					collisionMap.anIntArrayArray294[x + dx][y + dy] &= 0xfeffffff;
+		}
+		collisionMap.version++;
+	}
+
+	/**
+	 * Copies the decoded tile heights and flags over the given arrays.
+	 */
+	final void copyGround(byte[][][] flags, int[][][] heights) {
+		for (int plane = 0; plane < 4; plane++) {
+			for (int x = 0; x < tileFlags[plane].length; x++)
+				System.arraycopy(tileFlags[plane][x], 0, flags[plane][x], 0, tileFlags[plane][x].length);
+			for (int x = 0; x < tileHeights[plane].length; x++)
+				System.arraycopy(tileHeights[plane][x], 0, heights[plane][x], 0, tileHeights[plane][x].length);
+		}
+	}
+
 	private void method181(int i, int j, Buffer stream, int k, int l, int i1, int k1) {
 		try {
 			if (k >= 0 && k < 104 && i >= 0 && i < 104) {
@@ -1339,6 +1555,11 @@ final class ObjectManager {
 						CollisionMap class11 = null;
 						if (l3 >= 0)
 							class11 = aclass11[l3];
+						if (!isRebuilt(j3, k3)) {
+							if (class11 != null)
+								restoreObjectCollision(class11, k3, j3, l, l2, i3);
+							continue;
+						}
 						try {
 							renderObject(k3, worldController, class11, l2, j2, j3, l, i3);
 						} catch (Exception e) {
@@ -1350,11 +1571,8 @@ final class ObjectManager {
 		}
 	}
 
-	private final int[] hues;
-	private final int[] saturations;
-	private final int[] luminances;
-	private final int[] chromas;
-	private final int[] anIntArray128;
+	private final long[] columnSums;
+	private final int[] columnCounts;
 	private final int[][][] tileHeights;
 	private final byte[][][] overlays;
 	static int anInt131;
@@ -1364,13 +1582,16 @@ final class ObjectManager {
 	private static final int anIntArray137[] = { 1, 0, -1, 0 };
 	private final int[][] tileLighting;
 	private static final int anIntArray140[] = { 16, 32, 64, 128 };
-	private final byte[][][] underlays;
+	final byte[][][] underlays;
 	private static final int anIntArray144[] = { 0, -1, 0, 1 };
 	static int maximumPlane = 99; // anInt145
 	private final int regionSizeX;
 	private final int regionSizeY;
 	private final byte[][][] overlayOrientations;
 	private final byte[][][] tileFlags;
+	private int[][][] blendedUnderlays;
+	private SceneWindow window;
+	private boolean[][] rebuiltChunks;
 	static boolean lowMem = true;
 	private static final int anIntArray152[] = { 1, 2, 4, 8 };
 	public static final int BRIDGE_TILE = 2;
@@ -0,0 +1,197 @@
+package com.client;
+
+import java.util.Arrays;
+
+/**
+ * A coarse depth pyramid of the large occluders in view, enabled with {@link Configuration#occlusionCulling}.
+ *
+ * {@link WorldController#draw} fills it each frame with the opaque terrain tiles and the occluder clusters,
+ * then tiles and models are tested against it before they are drawn. The base level stores, for every
+ * 8 by 8 pixel cell, the far depth of the nearest occluder that covers the whole cell. Each level above
+ * keeps the farthest of its four children, so a box hidden at a coarse level is hidden at every finer one.
+ * Occluders only mark cells they cover with a pixel to spare, so a visible box is never reported hidden.
+ */
+final class OcclusionPyramid {
+
+	private static final int CELL_SHIFT = 3;
+	private static final int CELL_SIZE = 1 << CELL_SHIFT;
+	private static final int EMPTY = Integer.MAX_VALUE;
+
+	private static boolean active;
+	private static int width;
+	private static int height;
+	private static int[][] levels = new int[0][];
+	private static int[] levelWidths = new int[0];
+	private static int[] levelHeights = new int[0];
+	private static int levelCount;
+
+	private OcclusionPyramid() {
+	}
+
+	/**
+	 * Clears the pyramid for a viewport of this size and starts accepting occluders.
+	 */
+	static void begin(int viewportWidth, int viewportHeight) {
+		width = viewportWidth;
+		height = viewportHeight;
+		int w = Math.max(1, (width + CELL_SIZE - 1) >> CELL_SHIFT);
+		int h = Math.max(1, (height + CELL_SIZE - 1) >> CELL_SHIFT);
+		int count = 1;
+		for (int lw = w, lh = h; lw > 1 || lh > 1; lw = (lw + 1) >> 1, lh = (lh + 1) >> 1)
+			count++;
+		if (levels.length < count) {
+			levels = Arrays.copyOf(levels, count);
+			levelWidths = Arrays.copyOf(levelWidths, count);
+			levelHeights = Arrays.copyOf(levelHeights, count);
+		}
+		for (int level = 0; level < count; level++) {
+			if (levels[level] == null || levels[level].length < w * h)
+				levels[level] = new int[w * h];
+			levelWidths[level] = w;
+			levelHeights[level] = h;
+			w = (w + 1) >> 1;
+			h = (h + 1) >> 1;
+		}
+		levelCount = count;
+		Arrays.fill(levels[0], 0, levelWidths[0] * levelHeights[0], EMPTY);
+		active = false;
+	}
+
+	/**
+	 * Marks the base cells fully inside a convex polygon in screen space, wound either way.
+	 * @param depth the farthest depth of the polygon
+	 */
+	static void fillConvex(int[] xs, int[] ys, int n, int depth) {
+		int minX = xs[0], maxX = xs[0], minY = ys[0], maxY = ys[0];
+		long area = 0;
+		for (int i = 0; i < n; i++) {
+			int j = i + 1 == n ? 0 : i + 1;
+			minX = Math.min(minX, xs[i]);
+			maxX = Math.max(maxX, xs[i]);
+			minY = Math.min(minY, ys[i]);
+			maxY = Math.max(maxY, ys[i]);
+			area += (long) xs[i] * ys[j] - (long) xs[j] * ys[i];
+		}
+		// A cell plus its margin is CELL_SIZE + 2 pixels across
+		if (area == 0 || maxX - minX < CELL_SIZE + 2 || maxY - minY < CELL_SIZE + 2)
+			return;
+		int sign = area > 0 ? 1 : -1;
+		int[] cells = levels[0];
+		int cellsWide = levelWidths[0];
+		int fromX = Math.max(0, (minX + 1) >> CELL_SHIFT);
+		int toX = Math.min(cellsWide - 1, (maxX - 1 - CELL_SIZE) >> CELL_SHIFT);
+		int fromY = Math.max(0, (minY + 1) >> CELL_SHIFT);
+		int toY = Math.min(levelHeights[0] - 1, (maxY - 1 - CELL_SIZE) >> CELL_SHIFT);
+		for (int cy = fromY; cy <= toY; cy++) {
+			int top = (cy << CELL_SHIFT) - 1;
+			int bottom = top + CELL_SIZE + 2;
+			cells:
+			for (int cx = fromX; cx <= toX; cx++) {
+				int index = cy * cellsWide + cx;
+				if (cells[index] <= depth)
+					continue;
+				int left = (cx << CELL_SHIFT) - 1;
+				int right = left + CELL_SIZE + 2;
+				for (int i = 0; i < n; i++) {
+					int j = i + 1 == n ? 0 : i + 1;
+					long a = (long) (ys[i] - ys[j]) * sign;
+					long b = (long) (xs[j] - xs[i]) * sign;
+					// The edge function is linear, so the corner that scores lowest decides the whole cell
+					int x = a > 0 ? left : right;
+					int y = b > 0 ? top : bottom;
+					if (a * (x - xs[i]) + b * (y - ys[i]) < 0)
+						continue cells;
+				}
+				cells[index] = depth;
+			}
+		}
+	}
+
+	/**
+	 * Builds the coarser levels from the filled base level and starts answering {@link #isHidden} queries.
+	 */
+	static void build() {
+		for (int level = 1; level < levelCount; level++) {
+			int[] below = levels[level - 1];
+			int belowWidth = levelWidths[level - 1];
+			int belowHeight = levelHeights[level - 1];
+			int[] cells = levels[level];
+			int w = levelWidths[level];
+			int h = levelHeights[level];
+			for (int y = 0; y < h; y++) {
+				int y0 = y << 1;
+				int y1 = Math.min(y0 + 1, belowHeight - 1);
+				for (int x = 0; x < w; x++) {
+					int x0 = x << 1;
+					int x1 = Math.min(x0 + 1, belowWidth - 1);
+					int far = Math.max(Math.max(below[y0 * belowWidth + x0], below[y0 * belowWidth + x1]),
+							Math.max(below[y1 * belowWidth + x0], below[y1 * belowWidth + x1]));
+					cells[y * w + x] = far;
+				}
+			}
+		}
+		active = true;
+	}
+
+	static void end() {
+		active = false;
+	}
+
+	static boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * @param depth the nearest depth of the box
+	 * @return whether every on-screen pixel of the box is behind an occluder
+	 */
+	static boolean isHidden(int left, int top, int right, int bottom, int depth) {
+		if (left < 0)
+			left = 0;
+		if (top < 0)
+			top = 0;
+		if (right >= width)
+			right = width - 1;
+		if (bottom >= height)
+			bottom = height - 1;
+		if (left > right || top > bottom)
+			return false;
+		int fromX = left >> CELL_SHIFT;
+		int toX = right >> CELL_SHIFT;
+		int fromY = top >> CELL_SHIFT;
+		int toY = bottom >> CELL_SHIFT;
+		int level = 0;
+		while (level < levelCount - 1 && ((toX >> level) - (fromX >> level) > 1 || (toY >> level) - (fromY >> level) > 1))
+			level++;
+		for (int y = fromY >> level; y <= toY >> level; y++) {
+			for (int x = fromX >> level; x <= toX >> level; x++) {
+				if (!isCellHidden(level, x, y, fromX, toX, fromY, toY, depth))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks the part of a cell inside the base cell range [fromX, toX] by [fromY, toY], descending into its
+	 * children where the cell itself is not conclusive.
+	 */
+	private static boolean isCellHidden(int level, int x, int y, int fromX, int toX, int fromY, int toY, int depth) {
+		if (levels[level][y * levelWidths[level] + x] < depth)
+			return true;
+		if (level == 0)
+			return false;
+		int below = level - 1;
+		for (int childY = y << 1; childY <= (y << 1) + 1; childY++) {
+			if (childY < fromY >> below || childY > toY >> below || childY >= levelHeights[below])
+				continue;
+			for (int childX = x << 1; childX <= (x << 1) + 1; childX++) {
+				if (childX < fromX >> below || childX > toX >> below || childX >= levelWidths[below])
+					continue;
+				if (!isCellHidden(below, childX, childY, fromX, toX, fromY, toY, depth))
+					return false;
+			}
+		}
+		return true;
+	}
+}
@@ -7,6 +7,7 @@ public final class OnDemandData extends NodeSub {
 
 	public OnDemandData() {
 		incomplete = true;
+		requestTime = System.nanoTime();
 	}
 
 	int dataType;
@@ -14,5 +15,7 @@ public final class OnDemandData extends NodeSub {
 	int ID;
 	boolean incomplete;
 	int loopCycle;
+	/** When the request was made, whichever path made it, for the fetcher's latency statistics. */
+	long requestTime;
 	public int dataID;
 }
@@ -4,11 +4,226 @@ import com.client.sign.Signlink;
 
 import java.io.*;
 import java.net.Socket;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.zip.CRC32;
 import java.util.zip.GZIPInputStream;
 
 public final class OnDemandFetcher extends OnDemandFetcherParent implements Runnable {
 
+	/**
+	 * Number of threads that read and decompress requested files, the fetcher thread itself only
+	 * handles the update server connection.
+	 */
+	private static final int WORKER_COUNT = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+	/**
+	 * Requests waiting for a worker at most. Past that the thread making the request reads and decompresses
+	 * it itself, which holds back a region load that asks for more than the workers can keep up with.
+	 */
+	private static final int QUEUE_CAPACITY = 512;
+
+	/**
+	 * Request priority classes, lower runs first.
+	 */
+	private static final int PRIORITY_MAP = 0;
+	private static final int PRIORITY_MODEL = 1;
+	private static final int PRIORITY_ANIMATION = 2;
+	private static final int PRIORITY_EXTRA = 3;
+
+	/**
+	 * Statistics are kept for data types 0-3, everything else (music, textures, passive map requests)
+	 * is counted in the last slot.
+	 */
+	private static final int STATISTIC_SLOTS = 5;
+
+	private static final ThreadLocal<byte[]> gzipInputBuffer = ThreadLocal.withInitial(() -> new byte[0x71868]);
+
+	private static int priorityOf(int dataType) {
+		switch (dataType) {
+			case 3:
+				return PRIORITY_MAP;
+			case 0:
+				return PRIORITY_MODEL;
+			case 1:
+				return PRIORITY_ANIMATION;
+			default:
+				return PRIORITY_EXTRA;
+		}
+	}
+
+	private static int statisticSlot(int dataType) {
+		return dataType >= 0 && dataType < STATISTIC_SLOTS - 1 ? dataType : STATISTIC_SLOTS - 1;
+	}
+
+	private static long requestKey(int dataType, int id) {
+		return ((long) dataType << 32) | (id & 0xffffffffL);
+	}
+
+	/**
+	 * The workers' priority queue, refusing tasks once {@link #QUEUE_CAPACITY} are waiting so the pool's
+	 * rejection policy takes over. Offers are serialised so two threads cannot both take the last place.
+	 */
+	private static final class BoundedPriorityQueue extends PriorityBlockingQueue<Runnable> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public synchronized boolean offer(Runnable task) {
+			return size() < QUEUE_CAPACITY && super.offer(task);
+		}
+
+		@Override
+		public int remainingCapacity() {
+			return Math.max(0, QUEUE_CAPACITY - size());
+		}
+	}
+
+	/**
+	 * A request handled on the worker pool. Cache reads are decompressed on the same worker, files
+	 * that arrived from the update server only need decompressing.
+	 */
+	private final class FetchTask implements Runnable, Comparable<FetchTask> {
+
+		private final OnDemandData data;
+		private final boolean readCache;
+		private final int priority;
+		private final long sequence;
+
+		private FetchTask(OnDemandData data, boolean readCache) {
+			this.data = data;
+			this.readCache = readCache;
+			this.priority = priorityOf(data.dataType);
+			this.sequence = taskSequence.getAndIncrement();
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (readCache && !readFromCache(data))
+					return;
+				deliver(data);
+			} catch (Exception e) {
+				Signlink.reporterror("od_worker " + e.getMessage());
+				e.printStackTrace();
+			}
+		}
+
+		@Override
+		public int compareTo(FetchTask other) {
+			if (priority != other.priority)
+				return Integer.compare(priority, other.priority);
+			return Long.compare(sequence, other.sequence);
+		}
+	}
+
+	private boolean readFromCache(OnDemandData onDemandData) {
+		byte[] fileData = null;
+		Decompressor[] decompressors = clientInstance.decompressors;
+		if (decompressors[0] != null && onDemandData.dataType + 1 < decompressors.length)
+			fileData = decompressors[onDemandData.dataType + 1].read(onDemandData.ID);
+		if (fileData == null) {
+			synchronized (aClass19_1368) {
+				aClass19_1368.insertHead(onDemandData);
+			}
+			wakeUp();
+			return false;
+		}
+		onDemandData.buffer = fileData;
+		return true;
+	}
+
+	/**
+	 * Decompresses a completed request and publishes it to the queue drained by {@link #getNextNode()}.
+	 * Models are decoded here as well so the game thread only copies them out of the {@link ModelCache}.
+	 */
+	private void deliver(OnDemandData onDemandData) {
+		byte[] compressed = onDemandData.buffer;
+		if (compressed != null) {
+			byte[] scratch = gzipInputBuffer.get();
+			int i = 0;
+			try (GZIPInputStream gzipinputstream = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+				do {
+					if (i == scratch.length)
+						throw new RuntimeException("buffer overflow!");
+					int k = gzipinputstream.read(scratch, i, scratch.length - i);
+					if (k == -1)
+						break;
+					i += k;
+				} while (true);
+			} catch (IOException _ex) {
+				System.err.println("Failed to unzip [" + onDemandData.ID + "] type = " + onDemandData.dataType);
+				_ex.printStackTrace();
+				synchronized (nodeSubList) {
+					onDemandData.unlinkSub();
+					inFlight.remove(requestKey(onDemandData.dataType, onDemandData.ID));
+				}
+				return;
+			}
+			onDemandData.buffer = new byte[i];
+			System.arraycopy(scratch, 0, onDemandData.buffer, 0, i);
+			bytesDelivered.addAndGet(compressed.length);
+			if (onDemandData.dataType == 0)
+				Model.predecode(onDemandData.ID, onDemandData.buffer);
+		}
+		recordLatency(onDemandData);
+		synchronized (aClass19_1358) {
+			aClass19_1358.insertHead(onDemandData);
+		}
+	}
+
+	private void recordLatency(OnDemandData onDemandData) {
+		int slot = statisticSlot(onDemandData.dataType);
+		deliveredCounts.incrementAndGet(slot);
+		latencyNanos.addAndGet(slot, System.nanoTime() - onDemandData.requestTime);
+	}
+
+	private void wakeUp() {
+		synchronized (wakeLock) {
+			wakeLock.notify();
+		}
+	}
+
+	/**
+	 * @return the number of requests waiting for a worker.
+	 */
+	public int getQueueDepth() {
+		return workers.getQueue().size();
+	}
+
+	/**
+	 * @return the average time in milliseconds between a request of this data type and its delivery.
+	 */
+	public double getAverageLatency(int dataType) {
+		int slot = statisticSlot(dataType);
+		long count = deliveredCounts.get(slot);
+		return count == 0 ? 0 : latencyNanos.get(slot) / (count * 1_000_000D);
+	}
+
+	/**
+	 * @return the number of compressed bytes delivered over the last second.
+	 */
+	public int getBytesPerSecond() {
+		return bytesPerSecond;
+	}
+
+	private void sampleThroughput() {
+		long now = System.currentTimeMillis();
+		long elapsed = now - lastThroughputSample;
+		if (elapsed < 1000)
+			return;
+		long total = bytesDelivered.get();
+		bytesPerSecond = (int) ((total - lastBytesDelivered) * 1000 / elapsed);
+		lastBytesDelivered = total;
+		lastThroughputSample = now;
+	}
+
 	private void readData() {
 		try {
 			int j = inputStream.available();
@@ -71,12 +286,14 @@ public final class OnDemandFetcher extends OnDemandFetcherParent implements Runn
 						current.incomplete = true;
 						current.dataType = 93;
 					}
-					if (current.incomplete)
-						synchronized (aClass19_1358) {
-							aClass19_1358.insertHead(current);
-						}
-					else
+					if (current.incomplete) {
 						current.unlink();
+						workers.execute(new FetchTask(current, false));
+					} else {
+						// Passive downloads only fill the cache, they are counted once written
+						current.unlink();
+						recordLatency(current);
+					}
 				}
 				expectedSize = 0;
 			}
@@ -200,12 +417,14 @@ public final class OnDemandFetcher extends OnDemandFetcherParent implements Runn
 
 	public int getNodeCount() {
 		synchronized (nodeSubList) {
-			return nodeSubList.getNodeCount();
+			return inFlight.size();
 		}
 	}
 
 	public void disable() {
 		running = false;
+		workers.shutdownNow();
+		wakeUp();
 	}
 
 	public void method554(boolean flag) {
@@ -270,22 +489,19 @@ public final class OnDemandFetcher extends OnDemandFetcherParent implements Runn
 	}
 
 	public void provide(int i, int j) {
+		if (!running)
+			return;
+		OnDemandData onDemandData;
 		synchronized (nodeSubList) {
-			for (OnDemandData onDemandData = (OnDemandData) nodeSubList
-					.reverseGetFirst(); onDemandData != null; onDemandData = (OnDemandData) nodeSubList
-					.reverseGetNext())
-				if (onDemandData.dataType == i && onDemandData.ID == j)
-					return;
-
-			OnDemandData onDemandData_1 = new OnDemandData();
-			onDemandData_1.dataType = i;
-			onDemandData_1.ID = j;
-			onDemandData_1.incomplete = true;
-			synchronized (aClass19_1370) {
-				aClass19_1370.insertHead(onDemandData_1);
-			}
-			nodeSubList.insertHead(onDemandData_1);
+			if (!inFlight.add(requestKey(i, j)))
+				return;
+			onDemandData = new OnDemandData();
+			onDemandData.dataType = i;
+			onDemandData.ID = j;
+			onDemandData.incomplete = true;
+			nodeSubList.insertHead(onDemandData);
 		}
+		workers.execute(new FetchTask(onDemandData, true));
 	}
 
 	public int getModelIndex(int i) {
@@ -302,15 +518,17 @@ public final class OnDemandFetcher extends OnDemandFetcherParent implements Runn
 				if (anInt1332 == 0 && clientInstance.decompressors[0] != null)
 					i = 50;
 				try {
-					Thread.sleep(i);
+					synchronized (wakeLock) {
+						wakeLock.wait(i);
+					}
 				} catch (Exception _ex) {
 				}
+				sampleThroughput();
 				waiting = true;
 				for (int j = 0; j < 100; j++) {
 					if (!waiting)
 						break;
 					waiting = false;
-					checkReceived();
 					handleFailed();
 					if (uncompletedCount == 0 && j >= 5)
 						break;
@@ -407,28 +625,8 @@ public final class OnDemandFetcher extends OnDemandFetcherParent implements Runn
 			return null;
 		synchronized (nodeSubList) {
 			onDemandData.unlinkSub();
+			inFlight.remove(requestKey(onDemandData.dataType, onDemandData.ID));
 		}
-		if (onDemandData.buffer == null)
-			return onDemandData;
-		int i = 0;
-		try (GZIPInputStream gzipinputstream = new GZIPInputStream(new ByteArrayInputStream(onDemandData.buffer))) {
-			do {
-				if (i == gzipInputBuffer.length)
-					throw new RuntimeException("buffer overflow!");
-				int k = gzipinputstream.read(gzipInputBuffer, i, gzipInputBuffer.length - i);
-				if (k == -1)
-					break;
-				i += k;
-			} while (true);
-		} catch (IOException _ex) {
-			// RuntimeException("error unzipping");
-			System.err.println("Failed to unzip [" + onDemandData.ID + "] type = " + onDemandData.dataType);
-			_ex.printStackTrace();
-			return null;
-		}
-		onDemandData.buffer = new byte[i];
-		System.arraycopy(gzipInputBuffer, 0, onDemandData.buffer, 0, i);
-
 		return onDemandData;
 	}
 
@@ -483,7 +681,10 @@ public final class OnDemandFetcher extends OnDemandFetcherParent implements Runn
 
 		while (uncompletedCount < 10) {
 			try {
-				OnDemandData onDemandData_1 = (OnDemandData) aClass19_1368.popHead();
+				OnDemandData onDemandData_1;
+				synchronized (aClass19_1368) {
+					onDemandData_1 = (OnDemandData) aClass19_1368.popHead();
+				}
 				if (onDemandData_1 == null)
 					break;
 				if (fileStatus[onDemandData_1.dataType][onDemandData_1.ID] != 0)
@@ -509,30 +710,6 @@ public final class OnDemandFetcher extends OnDemandFetcherParent implements Runn
 		}
 	}
 
-	private void checkReceived() {
-		OnDemandData onDemandData;
-		synchronized (aClass19_1370) {
-			onDemandData = (OnDemandData) aClass19_1370.popHead();
-		}
-		while (onDemandData != null) {
-			waiting = true;
-			byte abyte0[] = null;
-			if (clientInstance.decompressors[0] != null)
-				abyte0 = clientInstance.decompressors[onDemandData.dataType + 1].read(onDemandData.ID);
-			synchronized (aClass19_1370) {
-				if (abyte0 == null) {
-					aClass19_1368.insertHead(onDemandData);
-				} else {
-					onDemandData.buffer = abyte0;
-					synchronized (aClass19_1358) {
-						aClass19_1358.insertHead(onDemandData);
-					}
-				}
-				onDemandData = (OnDemandData) aClass19_1370.popHead();
-			}
-		}
-	}
-
 	private void method568() {
 		while (uncompletedCount == 0 && completedCount < 10) {
 			if (anInt1332 == 0)
@@ -599,11 +776,25 @@ public final class OnDemandFetcher extends OnDemandFetcherParent implements Runn
 		running = true;
 		waiting = false;
 		aClass19_1358 = new NodeList();
-		gzipInputBuffer = new byte[0x71868];
 		nodeSubList = new NodeSubList();
+		inFlight = new HashSet<>();
 		versions = new int[4][];
 		aClass19_1368 = new NodeList();
-		aClass19_1370 = new NodeList();
+		wakeLock = new Object();
+		taskSequence = new AtomicLong();
+		bytesDelivered = new AtomicLong();
+		deliveredCounts = new AtomicLongArray(STATISTIC_SLOTS);
+		latencyNanos = new AtomicLongArray(STATISTIC_SLOTS);
+		AtomicInteger workerCount = new AtomicInteger();
+		// A full queue runs the request on the requesting thread, and once disable() has shut the pool down
+		// requests still coming in from the game or the update server are dropped
+		workers = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, 0L, TimeUnit.MILLISECONDS,
+				new BoundedPriorityQueue(), runnable -> {
+			Thread thread = new Thread(runnable, "OnDemandWorker-" + workerCount.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(2);
+			return thread;
+		}, new ThreadPoolExecutor.CallerRunsPolicy());
 	}
 
 	private int totalFiles;
@@ -624,13 +815,22 @@ public final class OnDemandFetcher extends OnDemandFetcherParent implements Runn
 	public int anInt1349;
 	private int[] mapIndices2;
 	private int filesLoaded;
-	private boolean running;
+	private volatile boolean running;
 	private OutputStream outputStream;
 	private int[] mapIndices4;
 	private boolean waiting;
 	private final NodeList aClass19_1358;
-	private final byte[] gzipInputBuffer;
 	private final NodeSubList nodeSubList;
+	private final Set<Long> inFlight;
+	private final ThreadPoolExecutor workers;
+	private final Object wakeLock;
+	private final AtomicLong taskSequence;
+	private final AtomicLong bytesDelivered;
+	private final AtomicLongArray deliveredCounts;
+	private final AtomicLongArray latencyNanos;
+	private long lastBytesDelivered;
+	private long lastThroughputSample;
+	private volatile int bytesPerSecond;
 	private InputStream inputStream;
 	private Socket socket;
 	private final int[][] versions;
@@ -638,7 +838,6 @@ public final class OnDemandFetcher extends OnDemandFetcherParent implements Runn
 	private int completedCount;
 	private final NodeList aClass19_1368;
 	private OnDemandData current;
-	private final NodeList aClass19_1370;
 	private int[] mapIndices1;
 	private byte[] modelIndices;
 	private int loopCycle;
@@ -0,0 +1,243 @@
+package com.client;
+
+import java.util.Arrays;
+
+/**
+ * The breadth first search the client walks by, over the collision map of the player's plane.
+ *
+ * Which of several equally short routes is sent depends on the order tiles are expanded in, and walking to
+ * the closest tile reads the step counts the search leaves behind, so tiles are expanded exactly as
+ * {@code doWalkTo} always has: west, east, south, north, south west, south east, north west, north east.
+ * What changed is the work around it:
+ * <ul>
+ * <li>The steps that can be taken from each tile are packed into a bit per direction once, and rebuilt only
+ * when the collision map's {@link CollisionMap#version} moves on.</li>
+ * <li>Visited tiles are stamped with a generation instead of clearing two grids before every search.</li>
+ * <li>Repeating the last search on an unchanged map, as clicking the same spot again does, returns the last
+ * route without searching.</li>
+ * </ul>
+ */
+final class PathFinder {
+
+	private static final int SIZE = 104;
+	private static final int WEST = 1;
+	private static final int EAST = 2;
+	private static final int SOUTH = 4;
+	private static final int NORTH = 8;
+	private static final int SOUTH_WEST = 16;
+	private static final int SOUTH_EAST = 32;
+	private static final int NORTH_WEST = 64;
+	private static final int NORTH_EAST = 128;
+	/** The step count of a tile the search has not reached. */
+	private static final int UNREACHED = 0x5f5e0ff;
+
+	private final byte[] moves = new byte[SIZE * SIZE];
+	private CollisionMap movesMap;
+	private int movesVersion;
+
+	private final int[] visited = new int[SIZE * SIZE];
+	private int generation;
+	/** The direction of the step back towards the start, as bits of 1 north, 2 east, 4 south and 8 west. */
+	private final int[] back = new int[SIZE * SIZE];
+	private final int[] steps = new int[SIZE * SIZE];
+	private final int[] queue = new int[SIZE * SIZE];
+
+	private boolean closestTile;
+
+	private CollisionMap lastMap;
+	private int lastVersion;
+	private final int[] lastQuery = new int[10];
+	private int[] lastRouteX;
+	private int[] lastRouteY;
+	private int lastLength;
+	private boolean lastClosestTile;
+
+	/**
+	 * Finds a route from the start tile to the target, all in region coordinates.
+	 * @param type the type of the object walked to plus one, or 0 to walk onto the target tile
+	 * @param sizeX the width of an object walked next to, or 0
+	 * @param surroundings the sides of an object walked next to that may not be approached from
+	 * @param closest whether to walk to the closest tile reached next to the target when it can't be reached
+	 * @return how many turning points were written to {@code routeX} and {@code routeY}, the last tile of the
+	 *         route first and the start not included unless the route is empty, or -1 if there is no route
+	 */
+	int findRoute(CollisionMap map, int startX, int startY, int targetX, int targetY, int type, int orientation,
+			int sizeX, int sizeY, int surroundings, boolean closest, int[] routeX, int[] routeY) {
+		int[] query = { startX, startY, targetX, targetY, type, orientation, sizeX, sizeY, surroundings,
+				closest ? 1 : 0 };
+		if (map == lastMap && map.version == lastVersion && Arrays.equals(query, lastQuery)) {
+			closestTile = lastClosestTile;
+			if (lastLength > 0) {
+				System.arraycopy(lastRouteX, 0, routeX, 0, lastLength);
+				System.arraycopy(lastRouteY, 0, routeY, 0, lastLength);
+			}
+			return lastLength;
+		}
+		int length = search(map, startX, startY, targetX, targetY, type, orientation, sizeX, sizeY, surroundings,
+				closest, routeX, routeY);
+		lastMap = map;
+		lastVersion = map.version;
+		System.arraycopy(query, 0, lastQuery, 0, query.length);
+		lastLength = length;
+		lastClosestTile = closestTile;
+		lastRouteX = length > 0 ? Arrays.copyOf(routeX, length) : null;
+		lastRouteY = length > 0 ? Arrays.copyOf(routeY, length) : null;
+		return length;
+	}
+
+	/**
+	 * @return whether the last route found ends at the closest tile rather than at the target
+	 */
+	boolean closestTile() {
+		return closestTile;
+	}
+
+	private int search(CollisionMap map, int startX, int startY, int targetX, int targetY, int type,
+			int orientation, int sizeX, int sizeY, int surroundings, boolean closest, int[] routeX, int[] routeY) {
+		if (map != movesMap || map.version != movesVersion)
+			buildMoves(map);
+		if (++generation == 0) {
+			Arrays.fill(visited, 0);
+			generation = 1;
+		}
+		int start = startX * SIZE + startY;
+		visited[start] = generation;
+		back[start] = 99;
+		steps[start] = 0;
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = start;
+		int x = startX;
+		int y = startY;
+		boolean found = false;
+		while (head != tail) {
+			int tile = queue[head++];
+			x = tile / SIZE;
+			y = tile - x * SIZE;
+			if (x == targetX && y == targetY) {
+				found = true;
+				break;
+			}
+			if (type != 0) {
+				if ((type < 5 || type == 10) && map.method219(targetX, x, y, orientation, type - 1, targetY)) {
+					found = true;
+					break;
+				}
+				if (type < 10 && map.method220(targetX, targetY, y, type - 1, orientation, x)) {
+					found = true;
+					break;
+				}
+			}
+			if (sizeY != 0 && sizeX != 0 && map.method221(targetY, targetX, x, sizeX, surroundings, sizeY, y)) {
+				found = true;
+				break;
+			}
+			int step = steps[tile] + 1;
+			int free = moves[tile];
+			if ((free & WEST) != 0 && visited[tile - SIZE] != generation)
+				tail = enqueue(tile - SIZE, 2, step, tail);
+			if ((free & EAST) != 0 && visited[tile + SIZE] != generation)
+				tail = enqueue(tile + SIZE, 8, step, tail);
+			if ((free & SOUTH) != 0 && visited[tile - 1] != generation)
+				tail = enqueue(tile - 1, 1, step, tail);
+			if ((free & NORTH) != 0 && visited[tile + 1] != generation)
+				tail = enqueue(tile + 1, 4, step, tail);
+			if ((free & SOUTH_WEST) != 0 && visited[tile - SIZE - 1] != generation)
+				tail = enqueue(tile - SIZE - 1, 3, step, tail);
+			if ((free & SOUTH_EAST) != 0 && visited[tile + SIZE - 1] != generation)
+				tail = enqueue(tile + SIZE - 1, 9, step, tail);
+			if ((free & NORTH_WEST) != 0 && visited[tile - SIZE + 1] != generation)
+				tail = enqueue(tile - SIZE + 1, 6, step, tail);
+			if ((free & NORTH_EAST) != 0 && visited[tile + SIZE + 1] != generation)
+				tail = enqueue(tile + SIZE + 1, 12, step, tail);
+		}
+		closestTile = false;
+		if (!found) {
+			if (closest) {
+				int fewest = 100;
+				for (int tileX = targetX - 1; tileX <= targetX + 1; tileX++) {
+					for (int tileY = targetY - 1; tileY <= targetY + 1; tileY++) {
+						if (tileX >= 0 && tileY >= 0 && tileX < SIZE && tileY < SIZE
+								&& steps(tileX * SIZE + tileY) < fewest) {
+							fewest = steps(tileX * SIZE + tileY);
+							x = tileX;
+							y = tileY;
+							closestTile = true;
+							found = true;
+						}
+					}
+				}
+			}
+			if (!found)
+				return -1;
+		}
+		int length = 0;
+		routeX[length] = x;
+		routeY[length++] = y;
+		int direction = back[x * SIZE + y];
+		for (int previous = direction; x != startX || y != startY; direction = back[x * SIZE + y]) {
+			if (direction != previous) {
+				previous = direction;
+				routeX[length] = x;
+				routeY[length++] = y;
+			}
+			if ((direction & 2) != 0)
+				x++;
+			else if ((direction & 8) != 0)
+				x--;
+			if ((direction & 1) != 0)
+				y++;
+			else if ((direction & 4) != 0)
+				y--;
+		}
+		return length;
+	}
+
+	private int enqueue(int tile, int direction, int step, int tail) {
+		visited[tile] = generation;
+		back[tile] = direction;
+		steps[tile] = step;
+		queue[tail] = tile;
+		return tail + 1;
+	}
+
+	private int steps(int tile) {
+		return visited[tile] == generation ? steps[tile] : UNREACHED;
+	}
+
+	/**
+	 * Works out which steps can be taken from each tile, with the flags {@code doWalkTo} has always checked:
+	 * a step is blocked by the tile stepped onto, and a diagonal step also by the two tiles beside it.
+	 */
+	private void buildMoves(CollisionMap map) {
+		int[][] flags = map.anIntArrayArray294;
+		for (int x = 0; x < SIZE; x++) {
+			for (int y = 0; y < SIZE; y++) {
+				boolean west = x > 0 && (flags[x - 1][y] & 0x1280108) == 0;
+				boolean east = x < SIZE - 1 && (flags[x + 1][y] & 0x1280180) == 0;
+				boolean south = y > 0 && (flags[x][y - 1] & 0x1280102) == 0;
+				boolean north = y < SIZE - 1 && (flags[x][y + 1] & 0x1280120) == 0;
+				int free = 0;
+				if (west)
+					free |= WEST;
+				if (east)
+					free |= EAST;
+				if (south)
+					free |= SOUTH;
+				if (north)
+					free |= NORTH;
+				if (west && south && (flags[x - 1][y - 1] & 0x128010e) == 0)
+					free |= SOUTH_WEST;
+				if (east && south && (flags[x + 1][y - 1] & 0x1280183) == 0)
+					free |= SOUTH_EAST;
+				if (west && north && (flags[x - 1][y + 1] & 0x1280138) == 0)
+					free |= NORTH_WEST;
+				if (east && north && (flags[x + 1][y + 1] & 0x12801e0) == 0)
+					free |= NORTH_EAST;
+				moves[x * SIZE + y] = (byte) free;
+			}
+		}
+		movesMap = map;
+		movesVersion = map.version;
+	}
+}
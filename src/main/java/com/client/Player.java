@@ -27,7 +27,7 @@ public final class Player extends Entity {
 			GraphicsDefinition spotAnim = GraphicsDefinition.cache[super.anInt1520];
 			Model model_2 = spotAnim.getModel();
 			if (model_2 != null) {
-				Model model_3 = new Model(true, Class36.method532(super.anInt1521), false, model_2);
+				Model model_3 = ModelPool.copy(Class36.method532(super.anInt1521), model_2);
 				model_3.method475(0, -super.anInt1524, 0);
 				model_3.method469();
 				model_3.method470(spotAnim.aAnimation_407.anIntArray353[super.anInt1521]);
@@ -41,7 +41,7 @@ public final class Player extends Entity {
 				model_3.method479(84 + spotAnim.anInt413,
 						1550 + spotAnim.anInt414, -50, -110, -50, true);
 				Model aclass30_sub2_sub4_sub6_1s[] = { model, model_3 };
-				model = new Model(aclass30_sub2_sub4_sub6_1s);
+				model = ModelPool.merge(aclass30_sub2_sub4_sub6_1s);
 			}
 		}
 		if (aModel_1714 != null) {
@@ -61,7 +61,7 @@ public final class Player extends Entity {
 				} else if (super.getTurnDirection() == 1536)
 					model_1.method473();
 				Model aclass30_sub2_sub4_sub6s[] = { model, model_1 };
-				model = new Model(aclass30_sub2_sub4_sub6s);
+				model = ModelPool.merge(aclass30_sub2_sub4_sub6s);
 				if (super.getTurnDirection() == 512)
 					model_1.method473();
 				else if (super.getTurnDirection() == 1024) {
@@ -7,7 +7,6 @@ public final class Rasterizer extends DrawingArea {
     public static boolean DEBUG_SCANLINE_SKIP = false;
     private static int frameId;
     private static int lastSkipFrame = -1;
-    private static int mipMapLevel;
     public static int textureAmount = 96;
     static boolean aBoolean1462;
     private static boolean aBoolean1463;
@@ -34,6 +33,13 @@ public final class Rasterizer extends DrawingArea {
     public static int lastTextureRetrievalCount;
     public static int hslToRgb[] = new int[0x10000];
     private static int[][] currentPalette = new int[textureAmount][];
+    private static final int TEXTURE_BUFFER_BYTES = 0x10000 << 2;
+    private static double textureBrightness;
+    /** Bumped whenever the brightness changes; palettes and buffers built under an older generation are stale. */
+    private static int paletteGeneration = 1;
+    private static int[] paletteGenerations = new int[textureAmount];
+    /** The generation each resident buffer was built under, or 0 once its texture has changed. */
+    private static int[] bufferGenerations = new int[textureAmount];
 
     static {
         anIntArray1468 = new int[512];
@@ -66,6 +72,8 @@ public final class Rasterizer extends DrawingArea {
         textureLastUsed = null;
         hslToRgb = null;
         currentPalette = null;
+        paletteGenerations = null;
+        bufferGenerations = null;
     }
 
     public static void method364() {
@@ -77,6 +85,72 @@ public final class Rasterizer extends DrawingArea {
         textureInt2 = DrawingArea.height / 2;
     }
 
+    /**
+     * Where a triangle is rasterized to, and the per face state the scanline functions read.
+     *
+     * {@link #DIRECT} mirrors the static state below and draws straight into {@link DrawingArea}. The
+     * {@link BinnedRasterizer} gives every band its own target, clipped to the band's lines, so bands can be
+     * filled by different threads.
+     */
+    static final class Target {
+        int[] pixels;
+        float[] depth;
+        int width;
+        int height;
+        int bottomY;
+        int clipRight;
+        int[] lineOffsets;
+        /** Lines starting before this pixel offset are stepped over but not drawn. */
+        int topOffset;
+        int centerX;
+        int centerY;
+        boolean restrictEdges;
+        int alpha;
+        boolean opaqueTexture;
+        /**
+         * The texture and per-pixel steps of the triangle being drawn, see {@link Rasterizer#drawTexturedSpan} and
+         * {@link Rasterizer#drawMaterializedSpan}.
+         */
+        int[] spanTexels;
+        int spanShadeStep;
+        int spanUStep;
+        int spanVStep;
+        int spanWStep;
+        /** The change in depth per pixel of the materialized triangle being drawn. */
+        float spanDepthStep;
+        int mipMapLevel;
+        /** Pixels written through this target since {@link RenderStats} last collected them. */
+        int pixelCount;
+    }
+
+    private static final Target DIRECT = new Target();
+
+    private static Target direct() {
+        Target t = DIRECT;
+        t.pixels = DrawingArea.pixels;
+        t.depth = depthBuffer;
+        t.width = DrawingArea.width;
+        t.height = DrawingArea.height;
+        t.bottomY = DrawingArea.bottomY;
+        t.clipRight = DrawingArea.centerX;
+        t.lineOffsets = anIntArray1472;
+        t.topOffset = 0;
+        t.centerX = textureInt1;
+        t.centerY = textureInt2;
+        t.restrictEdges = aBoolean1462;
+        t.alpha = anInt1465;
+        return t;
+    }
+
+    /**
+     * @return the pixels the triangle functions have written since the last call, on any thread
+     */
+    static int takePixelCount() {
+        int pixels = DIRECT.pixelCount + BinnedRasterizer.takePixelCount();
+        DIRECT.pixelCount = 0;
+        return pixels;
+    }
+
     public static void method365(int width, int height) {
         anIntArray1472 = new int[height];
         for (int l = 0; l < height; l++) {
@@ -99,63 +173,87 @@ public final class Rasterizer extends DrawingArea {
                 + "viewport=" + width + "x" + height + " pixels=" + pixelLength + " offsets=" + offsetsLength);
     }
 
+    /**
+     * Blends the fog colour over the clipped viewport by depth, from none at {@code begin} to solid at
+     * {@code end}. Depth at or past {@code end}, including untouched infinite depth, gets the fog colour
+     * and depth before {@code begin} is left as it is. Rows are fogged in parallel.
+     */
     public static void drawFog(int rgb, int begin, int end) {
-        float length = end - begin;// Store as a float for division later
-        for (int index = 0; index < pixels.length; index++) {
-            float factor = (depthBuffer[index] - begin) / length;
-            pixels[index] = blend(pixels[index], rgb, factor);
+        final int[] dest = DrawingArea.pixels;
+        final float[] depth = depthBuffer;
+        if (dest == null || depth == null || end <= begin) {
+            return;
         }
-    }
-
-    private static int blend(int c1, int c2, float factor) {
-        if (factor >= 1f) {
-            return c2;
+        if (rgb != fogColour) {
+            for (int alpha = 0; alpha <= 256; alpha++) {
+                fogRedBlue[alpha] = (rgb & 0xff00ff) * alpha;
+                fogGreen[alpha] = (rgb & 0xff00) * alpha;
+            }
+            fogColour = rgb;
         }
-        if (factor <= 0f) {
-            return c1;
+        final int width = DrawingArea.width;
+        final int left = Math.max(DrawingArea.topX, 0);
+        final int right = Math.min(DrawingArea.bottomX, width);
+        final int top = Math.max(DrawingArea.topY, 0);
+        final int bottom = Math.min(DrawingArea.bottomY, Math.min(DrawingArea.height, dest.length / width));
+        if (left >= right || top >= bottom) {
+            return;
         }
+        // The blend weight out of 256 is (depth - begin) * 256 / (end - begin), clamped
+        final float scale = 256f / (end - begin);
+        final float offset = -begin * scale;
+        RenderWorkers.forRows(bottom - top, 16,
+                (from, to) -> drawFogRows(dest, depth, width, left, right, top + from, top + to, scale, offset));
+    }
 
-        int r1 = (c1 >> 16) & 0xff;
-        int g1 = (c1 >> 8) & 0xff;
-        int b1 = (c1) & 0xff;
-
-        int r2 = (c2 >> 16) & 0xff;
-        int g2 = (c2 >> 8) & 0xff;
-        int b2 = (c2) & 0xff;
-
-        int r3 = r2 - r1;
-        int g3 = g2 - g1;
-        int b3 = b2 - b1;
-
-        int r = (int) (r1 + (r3 * factor));
-        int g = (int) (g1 + (g3 * factor));
-        int b = (int) (b1 + (b3 * factor));
-
-        return (r << 16) + (g << 8) + b;
+    private static void drawFogRows(int[] dest, float[] depth, int width, int left, int right, int from, int to,
+                                    float scale, float offset) {
+        final int[] redBlue = fogRedBlue;
+        final int[] green = fogGreen;
+        for (int y = from; y < to; y++) {
+            for (int index = y * width + left, end = y * width + right; index < end; index++) {
+                int alpha = Math.min(256, Math.max(0, (int) (depth[index] * scale + offset)));
+                int colour = dest[index];
+                int keep = 256 - alpha;
+                dest[index] = ((colour & 0xff00ff) * keep + redBlue[alpha] >>> 8 & 0xff00ff)
+                        | ((colour & 0xff00) * keep + green[alpha] >>> 8 & 0xff00);
+            }
+        }
     }
 
     public static int texelPos(int defaultIndex) {
-        int x = (defaultIndex & 127) >> mipMapLevel;
-        int y = (defaultIndex >> 7) >> mipMapLevel;
-        return x + (y << (7 - mipMapLevel));
+        return texelPos(DIRECT, defaultIndex);
+    }
+
+    private static int texelPos(Target t, int defaultIndex) {
+        int x = (defaultIndex & 127) >> t.mipMapLevel;
+        int y = (defaultIndex >> 7) >> t.mipMapLevel;
+        return x + (y << (7 - t.mipMapLevel));
     }
 
     public static boolean enableMipmapping = true;
     public static boolean enableDistanceFog = true;
+    private static int fogColour;
+    private static final int[] fogRedBlue = new int[257];
+    private static final int[] fogGreen = new int[257];
 
     private static final int[] ids = { 17, 31, 34, 40, 53, 54, 56, 57, 58, 59 };
 
     public static void setMipmapLevel(int y1, int y2, int y3, int x1, int x2, int x3, int tex) {
+        setMipmapLevel(DIRECT, y1, y2, y3, x1, x2, x3, tex);
+    }
+
+    private static void setMipmapLevel(Target t, int y1, int y2, int y3, int x1, int x2, int x3, int tex) {
+        t.mipMapLevel = mipmapLevel(y1, y2, y3, x1, x2, x3, tex);
+    }
+
+    private static int mipmapLevel(int y1, int y2, int y3, int x1, int x2, int x3, int tex) {
         if (!enableMipmapping) {
-            if (mipMapLevel != 0) {
-                mipMapLevel = 0;
-            }
-            return;
+            return 0;
         }
         for (int tex2 : ids) {
             if (tex == tex2) {
-                mipMapLevel = 0;
-                return;
+                return 0;
             }
         }
         int textureArea = x1 * (y2 - y3) + x2 * (y3 - y1) + x3 * (y1 - y2) >> 1;
@@ -163,40 +261,46 @@ public final class Rasterizer extends DrawingArea {
             textureArea = -textureArea;
         }
         if (textureArea > 16384) {
-            mipMapLevel = 0;
+            return 0;
         } else if (textureArea > 4096) {
-            mipMapLevel = 1;
+            return 1;
         } else if (textureArea > 1024) {
-            mipMapLevel = 1;
+            return 1;
         } else if (textureArea > 256) {
-            mipMapLevel = 2;
+            return 2;
         } else if (textureArea > 64) {
-            mipMapLevel = 3;
+            return 3;
         } else if (textureArea > 16) {
-            mipMapLevel = 4;
+            return 4;
         } else if (textureArea > 4) {
-            mipMapLevel = 5;
+            return 5;
         } else if (textureArea > 1) {
-            mipMapLevel = 6;
+            return 6;
         } else {
-            mipMapLevel = 7;
+            return 7;
         }
     }
 
     public static void method366() {
+        int buffers = textureRequestBufferPointer;
         textureRequestPixelBuffer = null;
+        textureRequestBufferPointer = 0;
         for (int j = 0; j < textureAmount; j++) {
+            if (texturesPixelBuffer[j] != null)
+                buffers++;
             texturesPixelBuffer[j] = null;
         }
+        TextureResidency.allocated(-buffers * TEXTURE_BUFFER_BYTES);
     }
 
+    /**
+     * Readies the buffer pool. Buffers are allocated as textures are first drawn, up to
+     * {@link Configuration#textureCacheBudget}.
+     */
     public static void method367() {
         if (textureRequestPixelBuffer == null) {
-            textureRequestBufferPointer = 20;
-            textureRequestPixelBuffer = new int[textureRequestBufferPointer][0x10000];
-            for (int k = 0; k < textureAmount; k++) {
-                texturesPixelBuffer[k] = null;
-            }
+            method366();
+            textureRequestPixelBuffer = new int[textureAmount][];
         }
     }
 
@@ -218,17 +322,18 @@ public final class Rasterizer extends DrawingArea {
     }
 
     public static int method369(int texture) {
+        int[] palette = texturePalette(texture);
         if (averageTextureColours[texture] != 0) {
             return averageTextureColours[texture];
         }
         int r = 0;
         int g = 0;
         int b = 0;
-        final int textureColorCount = currentPalette[texture].length;
+        final int textureColorCount = palette.length;
         for (int index = 0; index < textureColorCount; index++) {
-            r += currentPalette[texture][index] >> 16 & 0xff;
-            g += currentPalette[texture][index] >> 8 & 0xff;
-            b += currentPalette[texture][index] & 0xff;
+            r += palette[index] >> 16 & 0xff;
+            g += palette[index] >> 8 & 0xff;
+            b += palette[index] & 0xff;
         }
         int color = (r / textureColorCount << 16) + (g / textureColorCount << 8) + b / textureColorCount;
         color = adjustBrightness(color, 1.3999999999999999D);
@@ -251,16 +356,17 @@ public final class Rasterizer extends DrawingArea {
         }
     }
     public static int getOverallColour(int textureId) {
+        int[] palette = texturePalette(textureId);
         if (averageTextureColours[textureId] != 0)
             return averageTextureColours[textureId];
         int totalRed = 0;
         int totalGreen = 0;
         int totalBlue = 0;
-        int colourCount = currentPalette[textureId].length;
+        int colourCount = palette.length;
         for (int ptr = 0; ptr < colourCount; ptr++) {
-            totalRed += currentPalette[textureId][ptr] >> 16 & 0xff;
-            totalGreen += currentPalette[textureId][ptr] >> 8 & 0xff;
-            totalBlue += currentPalette[textureId][ptr] & 0xff;
+            totalRed += palette[ptr] >> 16 & 0xff;
+            totalGreen += palette[ptr] >> 8 & 0xff;
+            totalBlue += palette[ptr] & 0xff;
         }
 
         int avgPaletteColour = (totalRed / colourCount << 16) + (totalGreen / colourCount << 8) + totalBlue / colourCount;
@@ -271,41 +377,97 @@ public final class Rasterizer extends DrawingArea {
         return avgPaletteColour;
     }
 
+    /**
+     * Marks a texture's pixels as changed. Its buffer stays resident and is rebuilt the next time it is drawn.
+     */
     public static void requestTextureUpdate(int i) {
-        if (i > 50 && i != 59){
-            return;
-        }
-        if (texturesPixelBuffer[i] == null)
-            return;
-        textureRequestPixelBuffer[textureRequestBufferPointer++] = texturesPixelBuffer[i];
-        texturesPixelBuffer[i] = null;
+        bufferGenerations[i] = 0;
     }
 
-    public static int[] getTexturePixels(int textureId) {
-        textureLastUsed[textureId] = lastTextureRetrievalCount++;
-        if (texturesPixelBuffer[textureId] != null) {
-            return texturesPixelBuffer[textureId];
+    static boolean isTextureResident(int textureId) {
+        return texturesPixelBuffer[textureId] != null;
+    }
+
+    static boolean hasPooledTextureBuffer() {
+        return textureRequestBufferPointer > 0;
+    }
+
+    /**
+     * Frees one pooled buffer.
+     * @return false if the pool was empty
+     */
+    static boolean dropPooledTextureBuffer() {
+        if (textureRequestBufferPointer == 0)
+            return false;
+        textureRequestPixelBuffer[--textureRequestBufferPointer] = null;
+        TextureResidency.allocated(-TEXTURE_BUFFER_BYTES);
+        return true;
+    }
+
+    /**
+     * Returns a resident texture's buffer to the pool.
+     */
+    static void evictTexture(int textureId) {
+        if (BinnedRasterizer.isRecording()) {
+            // Triangles waiting to be drawn may still sample the buffer about to be reused
+            BinnedRasterizer.flush();
         }
-        int texturePixels[];
+        textureRequestPixelBuffer[textureRequestBufferPointer++] = texturesPixelBuffer[textureId];
+        texturesPixelBuffer[textureId] = null;
+    }
+
+    private static int[] takeTextureBuffer() {
+        if (textureRequestPixelBuffer == null)
+            method367();
+        TextureResidency.reserve(TEXTURE_BUFFER_BYTES, true, null);
         if (textureRequestBufferPointer > 0) {
-            texturePixels = textureRequestPixelBuffer[--textureRequestBufferPointer];
+            int[] buffer = textureRequestPixelBuffer[--textureRequestBufferPointer];
             textureRequestPixelBuffer[textureRequestBufferPointer] = null;
-        } else {
-            int lastUsed = 0;
-            int target = -1;
-            for (int l = 0; l < textureCount; l++) {
-                if (texturesPixelBuffer[l] != null && (textureLastUsed[l] < lastUsed || target == -1)) {
-                    lastUsed = textureLastUsed[l];
-                    target = l;
-                }
-            }
+            return buffer;
+        }
+        TextureResidency.allocated(TEXTURE_BUFFER_BYTES);
+        return new int[0x10000];
+    }
+
+    /**
+     * Returns a texture's palette under the current brightness, rebuilding it if the brightness changed since
+     * it was last used.
+     */
+    private static int[] texturePalette(int textureId) {
+        int[] palette = currentPalette[textureId];
+        if (palette != null && paletteGenerations[textureId] == paletteGeneration)
+            return palette;
+        int[] originalPalette = textures[textureId].palette;
+        if (palette == null || palette.length != originalPalette.length)
+            palette = currentPalette[textureId] = new int[originalPalette.length];
+        for (int colourId = 0; colourId < originalPalette.length; colourId++) {
+            palette[colourId] = adjustBrightness(originalPalette[colourId], textureBrightness);
+            if ((palette[colourId] & 0xf8f8ff) == 0 && colourId != 0)
+                palette[colourId] = 1;
+        }
+        paletteGenerations[textureId] = paletteGeneration;
+        averageTextureColours[textureId] = 0;
+        return palette;
+    }
 
-            texturePixels = texturesPixelBuffer[target];
-            texturesPixelBuffer[target] = null;
+    public static int[] getTexturePixels(int textureId) {
+        textureLastUsed[textureId] = lastTextureRetrievalCount++;
+        int texturePixels[] = texturesPixelBuffer[textureId];
+        if (texturePixels != null) {
+            if (bufferGenerations[textureId] == paletteGeneration)
+                return texturePixels;
+            if (BinnedRasterizer.isRecording()) {
+                // Triangles waiting to be drawn may still sample the buffer about to be rebuilt
+                BinnedRasterizer.flush();
+            }
+        } else {
+            RenderStats.textureMisses++;
+            texturePixels = takeTextureBuffer();
+            texturesPixelBuffer[textureId] = texturePixels;
         }
-        texturesPixelBuffer[textureId] = texturePixels;
+        bufferGenerations[textureId] = paletteGeneration;
         Background background = textures[textureId];
-        int texturePalette[] = currentPalette[textureId];
+        int texturePalette[] = texturePalette(textureId);
         if (lowMem) {
             textureIsTransparant[textureId] = false;
             for (int i1 = 0; i1 < 4096; i1++) {
@@ -414,20 +576,11 @@ public final class Rasterizer extends DrawingArea {
 
         }
 
-        for (int textureId = 0; textureId < textureAmount; textureId++)
-            if (textures[textureId] != null) {
-                int originalPalette[] = textures[textureId].palette;
-                currentPalette[textureId] = new int[originalPalette.length];
-                for (int colourId = 0; colourId < originalPalette.length; colourId++) {
-                    currentPalette[textureId][colourId] = adjustBrightness(originalPalette[colourId], d);
-                    if ((currentPalette[textureId][colourId] & 0xf8f8ff) == 0 && colourId != 0)
-                        currentPalette[textureId][colourId] = 1;
-                }
-
-            }
-
-        for (int textureId = 0; textureId < textureAmount + 1; textureId++)
-            requestTextureUpdate(textureId);
+        // Palettes and texture buffers are rebuilt as each texture is next used
+        if (d != textureBrightness) {
+            textureBrightness = d;
+            paletteGeneration++;
+        }
     }
     static int adjustBrightness(int color, double amt) {
         double red = (color >> 16) / 256D;
@@ -447,12 +600,27 @@ public final class Rasterizer extends DrawingArea {
     public static void drawMaterializedTriangle(int y1, int y2, int y3, int x1, int x2, int x3, int hsl1, int hsl2,
                                                 int hsl3, int tx1, int tx2, int tx3, int ty1, int ty2, int ty3, int tz1, int tz2, int tz3, int tex, float z1,
                                                 float z2, float z3) {
-        if (!enableHDTextures || Texture.get(tex) == null) {
+        Texture texture;
+        if (!enableHDTextures || (texture = Texture.get(tex)) == null) {
             drawGouraudTriangle(y1, y2, y3, x1, x2, x3, hsl1, hsl2, hsl3, z1, z2, z3);
             return;
         }
-        setMipmapLevel(y1, y2, y3, x1, x2, x3, tex);
-        int[] texels = Texture.get(tex).mipmaps[mipMapLevel];
+        RenderStats.materializedTriangles++;
+        // Mipmaps are generated here on the drawing thread, as generating one may evict other textures
+        int[] texels = texture.mipmap(mipmapLevel(y1, y2, y3, x1, x2, x3, tex));
+        if (BinnedRasterizer.isRecording()) {
+            BinnedRasterizer.recordMaterialized(texels, y1, y2, y3, x1, x2, x3, hsl1, hsl2, hsl3, tx1, tx2, tx3, ty1, ty2,
+                    ty3, tz1, tz2, tz3, tex, z1, z2, z3);
+            return;
+        }
+        drawMaterializedTriangle(direct(), texels, y1, y2, y3, x1, x2, x3, hsl1, hsl2, hsl3, tx1, tx2, tx3, ty1, ty2, ty3,
+                tz1, tz2, tz3, tex, z1, z2, z3);
+    }
+
+    static void drawMaterializedTriangle(Target t, int[] texels, int y1, int y2, int y3, int x1, int x2, int x3,
+                                         int hsl1, int hsl2, int hsl3, int tx1, int tx2, int tx3, int ty1, int ty2, int ty3,
+                                         int tz1, int tz2, int tz3, int tex, float z1, float z2, float z3) {
+        setMipmapLevel(t, y1, y2, y3, x1, x2, x3, tex);
         tx2 = tx1 - tx2;
         ty2 = ty1 - ty2;
         tz2 = tz1 - tz2;
@@ -497,16 +665,21 @@ public final class Rasterizer extends DrawingArea {
         float div = x21 * y31 - x31 * y32;
         float depthSlope = (z21 * y31 - z31 * y32) / div;
         float depthScale = (z31 * x21 - z21 * x31) / div;
+        t.spanTexels = texels;
+        t.spanUStep = i5;
+        t.spanVStep = l5;
+        t.spanWStep = k6;
+        t.spanDepthStep = depthSlope;
 
         if (y1 <= y2 && y1 <= y3) {
-            if (y1 >= DrawingArea.bottomY) {
+            if (y1 >= t.bottomY) {
                 return;
             }
-            if (y2 > DrawingArea.bottomY) {
-                y2 = DrawingArea.bottomY;
+            if (y2 > t.bottomY) {
+                y2 = t.bottomY;
             }
-            if (y3 > DrawingArea.bottomY) {
-                y3 = DrawingArea.bottomY;
+            if (y3 > t.bottomY) {
+                y3 = t.bottomY;
             }
             z1 = z1 - depthSlope * x1 + depthSlope;
             if (y2 < y3) {
@@ -527,36 +700,34 @@ public final class Rasterizer extends DrawingArea {
                     hsl2 -= l7 * y2;
                     y2 = 0;
                 }
-                int k8 = y1 - textureInt2;
+                int k8 = y1 - t.centerY;
                 l4 += j5 * k8;
                 k5 += i6 * k8;
                 j6 += l6 * k8;
                 if (y1 != y2 && i8 < i7 || y1 == y2 && i8 > k7) {
                     y3 -= y2;
                     y2 -= y1;
-                    y1 = anIntArray1472[y1];
+                    y1 = t.lineOffsets[y1];
                     while (--y2 >= 0) {
-                        drawMaterializedScanline(DrawingArea.pixels, texels, y1, x3 >> 16, x1 >> 16, hsl3 >> 7,
-                                hsl1 >> 7, l4, k5, j6, i5, l5, k6, z1, depthSlope);
+                        drawMaterializedSpan(t, y1, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7, l4, k5, j6, z1);
                         x3 += i8;
                         x1 += i7;
                         z1 += depthScale;
                         hsl3 += j8;
                         hsl1 += j7;
-                        y1 += DrawingArea.width;
+                        y1 += t.width;
                         l4 += j5;
                         k5 += i6;
                         j6 += l6;
                     }
                     while (--y3 >= 0) {
-                        drawMaterializedScanline(DrawingArea.pixels, texels, y1, x3 >> 16, x2 >> 16, hsl3 >> 7,
-                                hsl2 >> 7, l4, k5, j6, i5, l5, k6, z1, depthSlope);
+                        drawMaterializedSpan(t, y1, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7, l4, k5, j6, z1);
                         x3 += i8;
                         x2 += k7;
                         z1 += depthScale;
                         hsl3 += j8;
                         hsl2 += l7;
-                        y1 += DrawingArea.width;
+                        y1 += t.width;
                         l4 += j5;
                         k5 += i6;
                         j6 += l6;
@@ -566,29 +737,27 @@ public final class Rasterizer extends DrawingArea {
                 }
                 y3 -= y2;
                 y2 -= y1;
-                y1 = anIntArray1472[y1];
+                y1 = t.lineOffsets[y1];
                 while (--y2 >= 0) {
-                    drawMaterializedScanline(DrawingArea.pixels, texels, y1, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7,
-                            l4, k5, j6, i5, l5, k6, z1, depthSlope);
+                    drawMaterializedSpan(t, y1, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7, l4, k5, j6, z1);
                     x3 += i8;
                     x1 += i7;
                     z1 += depthScale;
                     hsl3 += j8;
                     hsl1 += j7;
-                    y1 += DrawingArea.width;
+                    y1 += t.width;
                     l4 += j5;
                     k5 += i6;
                     j6 += l6;
                 }
                 while (--y3 >= 0) {
-                    drawMaterializedScanline(DrawingArea.pixels, texels, y1, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7,
-                            l4, k5, j6, i5, l5, k6, z1, depthSlope);
+                    drawMaterializedSpan(t, y1, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7, l4, k5, j6, z1);
                     x3 += i8;
                     x2 += k7;
                     z1 += depthScale;
                     hsl3 += j8;
                     hsl2 += l7;
-                    y1 += DrawingArea.width;
+                    y1 += t.width;
                     l4 += j5;
                     k5 += i6;
                     j6 += l6;
@@ -613,36 +782,34 @@ public final class Rasterizer extends DrawingArea {
                 hsl3 -= l7 * y3;
                 y3 = 0;
             }
-            int l8 = y1 - textureInt2;
+            int l8 = y1 - t.centerY;
             l4 += j5 * l8;
             k5 += i6 * l8;
             j6 += l6 * l8;
             if (y1 != y3 && i8 < i7 || y1 == y3 && k7 > i7) {
                 y2 -= y3;
                 y3 -= y1;
-                y1 = anIntArray1472[y1];
+                y1 = t.lineOffsets[y1];
                 while (--y3 >= 0) {
-                    drawMaterializedScanline(DrawingArea.pixels, texels, y1, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7,
-                            l4, k5, j6, i5, l5, k6, z1, depthSlope);
+                    drawMaterializedSpan(t, y1, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7, l4, k5, j6, z1);
                     x2 += i8;
                     x1 += i7;
                     z1 += depthScale;
                     hsl2 += j8;
                     hsl1 += j7;
-                    y1 += DrawingArea.width;
+                    y1 += t.width;
                     l4 += j5;
                     k5 += i6;
                     j6 += l6;
                 }
                 while (--y2 >= 0) {
-                    drawMaterializedScanline(DrawingArea.pixels, texels, y1, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7,
-                            l4, k5, j6, i5, l5, k6, z1, depthSlope);
+                    drawMaterializedSpan(t, y1, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7, l4, k5, j6, z1);
                     x3 += k7;
                     x1 += i7;
                     z1 += depthScale;
                     hsl3 += l7;
                     hsl1 += j7;
-                    y1 += DrawingArea.width;
+                    y1 += t.width;
                     l4 += j5;
                     k5 += i6;
                     j6 += l6;
@@ -652,29 +819,27 @@ public final class Rasterizer extends DrawingArea {
             }
             y2 -= y3;
             y3 -= y1;
-            y1 = anIntArray1472[y1];
+            y1 = t.lineOffsets[y1];
             while (--y3 >= 0) {
-                drawMaterializedScanline(DrawingArea.pixels, texels, y1, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7, l4,
-                        k5, j6, i5, l5, k6, z1, depthSlope);
+                drawMaterializedSpan(t, y1, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7, l4, k5, j6, z1);
                 x2 += i8;
                 x1 += i7;
                 z1 += depthScale;
                 hsl2 += j8;
                 hsl1 += j7;
-                y1 += DrawingArea.width;
+                y1 += t.width;
                 l4 += j5;
                 k5 += i6;
                 j6 += l6;
             }
             while (--y2 >= 0) {
-                drawMaterializedScanline(DrawingArea.pixels, texels, y1, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7, l4,
-                        k5, j6, i5, l5, k6, z1, depthSlope);
+                drawMaterializedSpan(t, y1, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7, l4, k5, j6, z1);
                 x3 += k7;
                 x1 += i7;
                 z1 += depthScale;
                 hsl3 += l7;
                 hsl1 += j7;
-                y1 += DrawingArea.width;
+                y1 += t.width;
                 l4 += j5;
                 k5 += i6;
                 j6 += l6;
@@ -683,14 +848,14 @@ public final class Rasterizer extends DrawingArea {
             return;
         }
         if (y2 <= y3) {
-            if (y2 >= DrawingArea.bottomY) {
+            if (y2 >= t.bottomY) {
                 return;
             }
-            if (y3 > DrawingArea.bottomY) {
-                y3 = DrawingArea.bottomY;
+            if (y3 > t.bottomY) {
+                y3 = t.bottomY;
             }
-            if (y1 > DrawingArea.bottomY) {
-                y1 = DrawingArea.bottomY;
+            if (y1 > t.bottomY) {
+                y1 = t.bottomY;
             }
             z2 = z2 - depthSlope * x2 + depthSlope;
             if (y3 < y1) {
@@ -711,36 +876,34 @@ public final class Rasterizer extends DrawingArea {
                     hsl3 -= j8 * y3;
                     y3 = 0;
                 }
-                int i9 = y2 - textureInt2;
+                int i9 = y2 - t.centerY;
                 l4 += j5 * i9;
                 k5 += i6 * i9;
                 j6 += l6 * i9;
                 if (y2 != y3 && i7 < k7 || y2 == y3 && i7 > i8) {
                     y1 -= y3;
                     y3 -= y2;
-                    y2 = anIntArray1472[y2];
+                    y2 = t.lineOffsets[y2];
                     while (--y3 >= 0) {
-                        drawMaterializedScanline(DrawingArea.pixels, texels, y2, x1 >> 16, x2 >> 16, hsl1 >> 7,
-                                hsl2 >> 7, l4, k5, j6, i5, l5, k6, z2, depthSlope);
+                        drawMaterializedSpan(t, y2, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7, l4, k5, j6, z2);
                         x1 += i7;
                         x2 += k7;
                         z2 += depthScale;
                         hsl1 += j7;
                         hsl2 += l7;
-                        y2 += DrawingArea.width;
+                        y2 += t.width;
                         l4 += j5;
                         k5 += i6;
                         j6 += l6;
                     }
                     while (--y1 >= 0) {
-                        drawMaterializedScanline(DrawingArea.pixels, texels, y2, x1 >> 16, x3 >> 16, hsl1 >> 7,
-                                hsl3 >> 7, l4, k5, j6, i5, l5, k6, z2, depthSlope);
+                        drawMaterializedSpan(t, y2, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7, l4, k5, j6, z2);
                         x1 += i7;
                         x3 += i8;
                         z2 += depthScale;
                         hsl1 += j7;
                         hsl3 += j8;
-                        y2 += DrawingArea.width;
+                        y2 += t.width;
                         l4 += j5;
                         k5 += i6;
                         j6 += l6;
@@ -750,29 +913,27 @@ public final class Rasterizer extends DrawingArea {
                 }
                 y1 -= y3;
                 y3 -= y2;
-                y2 = anIntArray1472[y2];
+                y2 = t.lineOffsets[y2];
                 while (--y3 >= 0) {
-                    drawMaterializedScanline(DrawingArea.pixels, texels, y2, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7,
-                            l4, k5, j6, i5, l5, k6, z2, depthSlope);
+                    drawMaterializedSpan(t, y2, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7, l4, k5, j6, z2);
                     x1 += i7;
                     x2 += k7;
                     z2 += depthScale;
                     hsl1 += j7;
                     hsl2 += l7;
-                    y2 += DrawingArea.width;
+                    y2 += t.width;
                     l4 += j5;
                     k5 += i6;
                     j6 += l6;
                 }
                 while (--y1 >= 0) {
-                    drawMaterializedScanline(DrawingArea.pixels, texels, y2, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7,
-                            l4, k5, j6, i5, l5, k6, z2, depthSlope);
+                    drawMaterializedSpan(t, y2, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7, l4, k5, j6, z2);
                     x1 += i7;
                     x3 += i8;
                     z2 += depthScale;
                     hsl1 += j7;
                     hsl3 += j8;
-                    y2 += DrawingArea.width;
+                    y2 += t.width;
                     l4 += j5;
                     k5 += i6;
                     j6 += l6;
@@ -797,36 +958,34 @@ public final class Rasterizer extends DrawingArea {
                 hsl1 -= j8 * y1;
                 y1 = 0;
             }
-            int j9 = y2 - textureInt2;
+            int j9 = y2 - t.centerY;
             l4 += j5 * j9;
             k5 += i6 * j9;
             j6 += l6 * j9;
             if (i7 < k7) {
                 y3 -= y1;
                 y1 -= y2;
-                y2 = anIntArray1472[y2];
+                y2 = t.lineOffsets[y2];
                 while (--y1 >= 0) {
-                    drawMaterializedScanline(DrawingArea.pixels, texels, y2, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7,
-                            l4, k5, j6, i5, l5, k6, z2, depthSlope);
+                    drawMaterializedSpan(t, y2, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7, l4, k5, j6, z2);
                     x3 += i7;
                     x2 += k7;
                     z2 += depthScale;
                     hsl3 += j7;
                     hsl2 += l7;
-                    y2 += DrawingArea.width;
+                    y2 += t.width;
                     l4 += j5;
                     k5 += i6;
                     j6 += l6;
                 }
                 while (--y3 >= 0) {
-                    drawMaterializedScanline(DrawingArea.pixels, texels, y2, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7,
-                            l4, k5, j6, i5, l5, k6, z2, depthSlope);
+                    drawMaterializedSpan(t, y2, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7, l4, k5, j6, z2);
                     x1 += i8;
                     x2 += k7;
                     z2 += depthScale;
                     hsl1 += j8;
                     hsl2 += l7;
-                    y2 += DrawingArea.width;
+                    y2 += t.width;
                     l4 += j5;
                     k5 += i6;
                     j6 += l6;
@@ -836,29 +995,27 @@ public final class Rasterizer extends DrawingArea {
             }
             y3 -= y1;
             y1 -= y2;
-            y2 = anIntArray1472[y2];
+            y2 = t.lineOffsets[y2];
             while (--y1 >= 0) {
-                drawMaterializedScanline(DrawingArea.pixels, texels, y2, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7, l4,
-                        k5, j6, i5, l5, k6, z2, depthSlope);
+                drawMaterializedSpan(t, y2, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7, l4, k5, j6, z2);
                 x3 += i7;
                 x2 += k7;
                 z2 += depthScale;
                 hsl3 += j7;
                 hsl2 += l7;
-                y2 += DrawingArea.width;
+                y2 += t.width;
                 l4 += j5;
                 k5 += i6;
                 j6 += l6;
             }
             while (--y3 >= 0) {
-                drawMaterializedScanline(DrawingArea.pixels, texels, y2, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7, l4,
-                        k5, j6, i5, l5, k6, z2, depthSlope);
+                drawMaterializedSpan(t, y2, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7, l4, k5, j6, z2);
                 x1 += i8;
                 x2 += k7;
                 z2 += depthScale;
                 hsl1 += j8;
                 hsl2 += l7;
-                y2 += DrawingArea.width;
+                y2 += t.width;
                 l4 += j5;
                 k5 += i6;
                 j6 += l6;
@@ -866,14 +1023,14 @@ public final class Rasterizer extends DrawingArea {
             texels = null;
             return;
         }
-        if (y3 >= DrawingArea.bottomY) {
+        if (y3 >= t.bottomY) {
             return;
         }
-        if (y1 > DrawingArea.bottomY) {
-            y1 = DrawingArea.bottomY;
+        if (y1 > t.bottomY) {
+            y1 = t.bottomY;
         }
-        if (y2 > DrawingArea.bottomY) {
-            y2 = DrawingArea.bottomY;
+        if (y2 > t.bottomY) {
+            y2 = t.bottomY;
         }
         z3 = z3 - depthSlope * x3 + depthSlope;
         if (y1 < y2) {
@@ -894,36 +1051,34 @@ public final class Rasterizer extends DrawingArea {
                 hsl1 -= j7 * y1;
                 y1 = 0;
             }
-            int k9 = y3 - textureInt2;
+            int k9 = y3 - t.centerY;
             l4 += j5 * k9;
             k5 += i6 * k9;
             j6 += l6 * k9;
             if (k7 < i8) {
                 y2 -= y1;
                 y1 -= y3;
-                y3 = anIntArray1472[y3];
+                y3 = t.lineOffsets[y3];
                 while (--y1 >= 0) {
-                    drawMaterializedScanline(DrawingArea.pixels, texels, y3, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7,
-                            l4, k5, j6, i5, l5, k6, z3, depthSlope);
+                    drawMaterializedSpan(t, y3, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7, l4, k5, j6, z3);
                     x2 += k7;
                     x3 += i8;
                     z3 += depthScale;
                     hsl2 += l7;
                     hsl3 += j8;
-                    y3 += DrawingArea.width;
+                    y3 += t.width;
                     l4 += j5;
                     k5 += i6;
                     j6 += l6;
                 }
                 while (--y2 >= 0) {
-                    drawMaterializedScanline(DrawingArea.pixels, texels, y3, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7,
-                            l4, k5, j6, i5, l5, k6, z3, depthSlope);
+                    drawMaterializedSpan(t, y3, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7, l4, k5, j6, z3);
                     x2 += k7;
                     x1 += i7;
                     z3 += depthScale;
                     hsl2 += l7;
                     hsl1 += j7;
-                    y3 += DrawingArea.width;
+                    y3 += t.width;
                     l4 += j5;
                     k5 += i6;
                     j6 += l6;
@@ -933,29 +1088,27 @@ public final class Rasterizer extends DrawingArea {
             }
             y2 -= y1;
             y1 -= y3;
-            y3 = anIntArray1472[y3];
+            y3 = t.lineOffsets[y3];
             while (--y1 >= 0) {
-                drawMaterializedScanline(DrawingArea.pixels, texels, y3, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7, l4,
-                        k5, j6, i5, l5, k6, z3, depthSlope);
+                drawMaterializedSpan(t, y3, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7, l4, k5, j6, z3);
                 x2 += k7;
                 x3 += i8;
                 z3 += depthScale;
                 hsl2 += l7;
                 hsl3 += j8;
-                y3 += DrawingArea.width;
+                y3 += t.width;
                 l4 += j5;
                 k5 += i6;
                 j6 += l6;
             }
             while (--y2 >= 0) {
-                drawMaterializedScanline(DrawingArea.pixels, texels, y3, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7, l4,
-                        k5, j6, i5, l5, k6, z3, depthSlope);
+                drawMaterializedSpan(t, y3, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7, l4, k5, j6, z3);
                 x2 += k7;
                 x1 += i7;
                 z3 += depthScale;
                 hsl2 += l7;
                 hsl1 += j7;
-                y3 += DrawingArea.width;
+                y3 += t.width;
                 l4 += j5;
                 k5 += i6;
                 j6 += l6;
@@ -980,36 +1133,34 @@ public final class Rasterizer extends DrawingArea {
             hsl2 -= j7 * y2;
             y2 = 0;
         }
-        int l9 = y3 - textureInt2;
+        int l9 = y3 - t.centerY;
         l4 += j5 * l9;
         k5 += i6 * l9;
         j6 += l6 * l9;
         if (k7 < i8) {
             y1 -= y2;
             y2 -= y3;
-            y3 = anIntArray1472[y3];
+            y3 = t.lineOffsets[y3];
             while (--y2 >= 0) {
-                drawMaterializedScanline(DrawingArea.pixels, texels, y3, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7, l4,
-                        k5, j6, i5, l5, k6, z3, depthSlope);
+                drawMaterializedSpan(t, y3, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7, l4, k5, j6, z3);
                 x1 += k7;
                 x3 += i8;
                 z3 += depthScale;
                 hsl1 += l7;
                 hsl3 += j8;
-                y3 += DrawingArea.width;
+                y3 += t.width;
                 l4 += j5;
                 k5 += i6;
                 j6 += l6;
             }
             while (--y1 >= 0) {
-                drawMaterializedScanline(DrawingArea.pixels, texels, y3, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7, l4,
-                        k5, j6, i5, l5, k6, z3, depthSlope);
+                drawMaterializedSpan(t, y3, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7, l4, k5, j6, z3);
                 x2 += i7;
                 x3 += i8;
                 z3 += depthScale;
                 hsl2 += j7;
                 hsl3 += j8;
-                y3 += DrawingArea.width;
+                y3 += t.width;
                 l4 += j5;
                 k5 += i6;
                 j6 += l6;
@@ -1019,29 +1170,27 @@ public final class Rasterizer extends DrawingArea {
         }
         y1 -= y2;
         y2 -= y3;
-        y3 = anIntArray1472[y3];
+        y3 = t.lineOffsets[y3];
         while (--y2 >= 0) {
-            drawMaterializedScanline(DrawingArea.pixels, texels, y3, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7, l4, k5,
-                    j6, i5, l5, k6, z3, depthSlope);
+            drawMaterializedSpan(t, y3, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7, l4, k5, j6, z3);
             x1 += k7;
             x3 += i8;
             z3 += depthScale;
             hsl1 += l7;
             hsl3 += j8;
-            y3 += DrawingArea.width;
+            y3 += t.width;
             l4 += j5;
             k5 += i6;
             j6 += l6;
         }
         while (--y1 >= 0) {
-            drawMaterializedScanline(DrawingArea.pixels, texels, y3, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7, l4, k5,
-                    j6, i5, l5, k6, z3, depthSlope);
+            drawMaterializedSpan(t, y3, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7, l4, k5, j6, z3);
             x2 += i7;
             x3 += i8;
             z3 += depthScale;
             hsl2 += j7;
             hsl3 += j8;
-            y3 += DrawingArea.width;
+            y3 += t.width;
             l4 += j5;
             k5 += i6;
             j6 += l6;
@@ -1049,208 +1198,100 @@ public final class Rasterizer extends DrawingArea {
         texels = null;
     }
 
-    private static final void drawMaterializedScanline(int[] dest, int[] texels, int offset, int x1, int x2, int hsl1,
-                                                       int hsl2, int t1, int t2, int t3, int t4, int t5, int t6, float z1, float z2) {
-        if (x2 <= x1) {
+    /**
+     * Draws one row of a materialized triangle using the per-triangle values {@link #drawMaterializedTriangle} left
+     * in the target. As {@link #drawTexturedSpan}, the texture position is corrected for perspective every 8 pixels
+     * and the colour steps every 4.
+     * @param hsl1 the colour at the left edge, in 9.8 fixed point; hsl2 the colour at the right edge
+     * @param z the depth at the left edge of the triangle's row
+     */
+    static void drawMaterializedSpan(Target t, int offset, int x1, int x2, int hsl1, int hsl2, int u, int v, int w,
+                                     float z) {
+        if (offset < t.topOffset) {
             return;
         }
-        int texPos = 0;
-        int rgb = 0;
-        if (aBoolean1462) {
-            if (x2 > DrawingArea.centerX) {
-                x2 = DrawingArea.centerX;
+        if (t.restrictEdges) {
+            if (x2 > t.clipRight) {
+                x2 = t.clipRight;
             }
             if (x1 < 0) {
                 x1 = 0;
             }
         }
-        if (x1 < x2) {
-            offset += x1;
-            z1 += z2 * (float) x1;
-            int n = x2 - x1 >> 2;
-            int dhsl = 0;
-            if (n > 0) {
-                dhsl = (hsl2 - hsl1) * anIntArray1468[n] >> 15;
-            }
-            int dist = x1 - textureInt1;
-            t1 += (t4 >> 3) * dist;
-            t2 += (t5 >> 3) * dist;
-            t3 += (t6 >> 3) * dist;
-            int i_57_ = t3 >> 14;
-            int i_58_;
-            int i_59_;
-            if (i_57_ != 0) {
-                i_58_ = t1 / i_57_;
-                i_59_ = t2 / i_57_;
-            } else {
-                i_58_ = 0;
-                i_59_ = 0;
-            }
-            t1 += t4;
-            t2 += t5;
-            t3 += t6;
-            i_57_ = t3 >> 14;
-            int i_60_;
-            int i_61_;
-            if (i_57_ != 0) {
-                i_60_ = t1 / i_57_;
-                i_61_ = t2 / i_57_;
-            } else {
-                i_60_ = 0;
-                i_61_ = 0;
-            }
-            texPos = (i_58_ << 18) + i_59_;
-            int dtexPos = (i_60_ - i_58_ >> 3 << 18) + (i_61_ - i_59_ >> 3);
-            n >>= 1;
-            int light;
-            if (n > 0) {
-                do {
-                    hsl1 += dhsl;
-                    rgb = texels[texelPos((texPos & 0x3f80) + (texPos >>> 25))];
-                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
-                            / 384;
-                    if (light > 127) {
-                        light = 127;
-                    }
-                    texPos += dtexPos;
-                    dest[offset] = hslToRgb[(hsl1 >> 8 & 0xff80) | light];
-                    if (saveDepth) {
-                        depthBuffer[offset] = z1;
-                    }
-                    z1 += z2;
-                    offset++;
-                    rgb = texels[texelPos((texPos & 0x3f80) + (texPos >>> 25))];
-                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
-                            / 384;
-                    if (light > 127) {
-                        light = 127;
-                    }
-                    texPos += dtexPos;
-                    dest[offset] = hslToRgb[(hsl1 >> 8 & 0xff80) | light];
-                    if (saveDepth) {
-                        depthBuffer[offset] = z1;
-                    }
-                    z1 += z2;
-                    offset++;
-                    rgb = texels[texelPos((texPos & 0x3f80) + (texPos >>> 25))];
-                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
-                            / 384;
-                    if (light > 127) {
-                        light = 127;
-                    }
-                    texPos += dtexPos;
-                    dest[offset] = hslToRgb[(hsl1 >> 8 & 0xff80) | light];
-                    if (saveDepth) {
-                        depthBuffer[offset] = z1;
-                    }
-                    z1 += z2;
-                    offset++;
-                    rgb = texels[texelPos((texPos & 0x3f80) + (texPos >>> 25))];
-                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
-                            / 384;
-                    if (light > 127) {
-                        light = 127;
-                    }
-                    texPos += dtexPos;
-                    dest[offset] = hslToRgb[(hsl1 >> 8 & 0xff80) | light];
-                    if (saveDepth) {
-                        depthBuffer[offset] = z1;
-                    }
-                    z1 += z2;
-                    offset++;
-                    hsl1 += dhsl;
-                    rgb = texels[texelPos((texPos & 0x3f80) + (texPos >>> 25))];
-                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
-                            / 384;
-                    if (light > 127) {
-                        light = 127;
-                    }
-                    texPos += dtexPos;
-                    dest[offset] = hslToRgb[(hsl1 >> 8 & 0xff80) | light];
-                    if (saveDepth) {
-                        depthBuffer[offset] = z1;
-                    }
-                    z1 += z2;
-                    offset++;
-                    rgb = texels[texelPos((texPos & 0x3f80) + (texPos >>> 25))];
-                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
-                            / 384;
-                    if (light > 127) {
-                        light = 127;
-                    }
-                    texPos += dtexPos;
-                    dest[offset] = hslToRgb[(hsl1 >> 8 & 0xff80) | light];
-                    if (saveDepth) {
-                        depthBuffer[offset] = z1;
-                    }
-                    z1 += z2;
-                    offset++;
-                    rgb = texels[texelPos((texPos & 0x3f80) + (texPos >>> 25))];
-                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
-                            / 384;
-                    if (light > 127) {
-                        light = 127;
-                    }
-                    texPos += dtexPos;
-                    dest[offset] = hslToRgb[(hsl1 >> 8 & 0xff80) | light];
-                    if (saveDepth) {
-                        depthBuffer[offset] = z1;
-                    }
-                    z1 += z2;
-                    offset++;
-                    rgb = texels[texelPos((texPos & 0x3f80) + (texPos >>> 25))];
-                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
-                            / 384;
-                    if (light > 127) {
-                        light = 127;
-                    }
-                    texPos += dtexPos;
-                    dest[offset] = hslToRgb[(hsl1 >> 8 & 0xff80) | light];
-                    if (saveDepth) {
-                        depthBuffer[offset] = z1;
-                    }
-                    z1 += z2;
-                    offset++;
-                    i_58_ = i_60_;
-                    i_59_ = i_61_;
-                    t1 += t4;
-                    t2 += t5;
-                    t3 += t6;
-                    i_57_ = t3 >> 14;
-                    if (i_57_ != 0) {
-                        i_60_ = t1 / i_57_;
-                        i_61_ = t2 / i_57_;
-                    } else {
-                        i_60_ = 0;
-                        i_61_ = 0;
-                    }
-                    texPos = (i_58_ << 18) + i_59_;
-                    dtexPos = (i_60_ - i_58_ >> 3 << 18) + (i_61_ - i_59_ >> 3);
-                } while (--n > 0);
-            }
-            n = x2 - x1 & 7;
-            if (n > 0) {
-                do {
-                    if ((n & 3) == 0) {
-                        hsl1 += dhsl;
+        if (x1 >= x2) {
+            return;
+        }
+        int[] dest = t.pixels;
+        float[] depth = t.depth;
+        int[] texels = t.spanTexels;
+        int uStep = t.spanUStep;
+        int vStep = t.spanVStep;
+        int wStep = t.spanWStep;
+        float zStep = t.spanDepthStep;
+        boolean writeDepth = saveDepth;
+        int level = t.mipMapLevel;
+        int length = x2 - x1;
+        t.pixelCount += length;
+        offset += x1;
+        z += zStep * (float) x1;
+        int hslStep = length >> 2 > 0 ? (hsl2 - hsl1) * anIntArray1468[length >> 2] >> 15 : 0;
+        int hsl = hsl1;
+        int dx = x1 - t.centerX;
+        u += (uStep >> 3) * dx;
+        v += (vStep >> 3) * dx;
+        w += (wStep >> 3) * dx;
+        int divisor = w >> 14;
+        int startU = divisor != 0 ? u / divisor : 0;
+        int startV = divisor != 0 ? v / divisor : 0;
+        for (int blocks = length >> 3; ; blocks--) {
+            u += uStep;
+            v += vStep;
+            w += wStep;
+            divisor = w >> 14;
+            int endU = divisor != 0 ? u / divisor : 0;
+            int endV = divisor != 0 ? v / divisor : 0;
+            int texel = (startU << 18) + startV;
+            int step = (endU - startU >> 3 << 18) + (endV - startV >> 3);
+            if (blocks > 0) {
+                // A full block: the colour steps before its first and fifth pixels
+                hsl += hslStep;
+                for (int i = 0; i < 4; i++) {
+                    dest[offset + i] = materializedTexel(texels, texel, level, hsl);
+                    texel += step;
+                }
+                hsl += hslStep;
+                for (int i = 4; i < 8; i++) {
+                    dest[offset + i] = materializedTexel(texels, texel, level, hsl);
+                    texel += step;
+                }
+                if (writeDepth) {
+                    for (int i = 0; i < 8; i++) {
+                        depth[offset + i] = z;
+                        z += zStep;
                     }
-                    rgb = texels[texelPos((texPos & 0x3f80) + (texPos >>> 25))];
-                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
-                            / 384;
-                    if (light > 127) {
-                        light = 127;
+                }
+            } else {
+                // The last pixels: the colour steps before every fourth one counting back from the end
+                int count = length & 7;
+                for (int i = 0; i < count; i++) {
+                    if ((count - i & 3) == 0) {
+                        hsl += hslStep;
                     }
-                    texPos += dtexPos;
-                    dest[offset] = hslToRgb[(hsl1 >> 8 & 0xff80) | light];
-                    if (saveDepth) {
-                        depthBuffer[offset] = z1;
+                    dest[offset + i] = materializedTexel(texels, texel, level, hsl);
+                    if (writeDepth) {
+                        depth[offset + i] = z;
                     }
-                    z1 += z2;
-                    offset++;
-                } while (--n > 0);
+                    z += zStep;
+                    texel += step;
+                }
+            }
+            if (blocks == 0) {
+                return;
             }
+            offset += 8;
+            startU = endU;
+            startV = endV;
         }
-        texels = dest = null;
     }
 
     public static void drawGouraudTriangle(int y1, int y2, int y3, int x1, int x2, int x3, int hsl1, int hsl2, int hsl3,
@@ -1264,6 +1305,16 @@ public final class Rasterizer extends DrawingArea {
 
     public static void drawLDGouraudTriangle(int y1, int y2, int y3, int x1, int x2, int x3, int hsl1, int hsl2,
                                              int hsl3, float z1, float z2, float z3) {
+        RenderStats.gouraudTriangles++;
+        if (BinnedRasterizer.isRecording()) {
+            BinnedRasterizer.recordGouraud(false, y1, y2, y3, x1, x2, x3, hsl1, hsl2, hsl3, z1, z2, z3);
+            return;
+        }
+        drawLDGouraudTriangle(direct(), y1, y2, y3, x1, x2, x3, hsl1, hsl2, hsl3, z1, z2, z3);
+    }
+
+    static void drawLDGouraudTriangle(Target t, int y1, int y2, int y3, int x1, int x2, int x3, int hsl1, int hsl2,
+                                      int hsl3, float z1, float z2, float z3) {
         if (!saveDepth) {
             z1 = z2 = z3 = 0;
         }
@@ -1298,14 +1349,14 @@ public final class Rasterizer extends DrawingArea {
         float depthScale = (z31 * x21 - z21 * x31) / div;
 
         if (y1 <= y2 && y1 <= y3) {
-            if (y1 >= DrawingArea.bottomY) {
+            if (y1 >= t.bottomY) {
                 return;
             }
-            if (y2 > DrawingArea.bottomY) {
-                y2 = DrawingArea.bottomY;
+            if (y2 > t.bottomY) {
+                y2 = t.bottomY;
             }
-            if (y3 > DrawingArea.bottomY) {
-                y3 = DrawingArea.bottomY;
+            if (y3 > t.bottomY) {
+                y3 = t.bottomY;
             }
             z1 = z1 - depthSlope * x1 + depthSlope;
             if (y2 < y3) {
@@ -1331,8 +1382,8 @@ public final class Rasterizer extends DrawingArea {
                 if (y1 != y2 && dx3 < dx1 || y1 == y2 && dx3 > dx2) {
                     y3 -= y2;
                     y2 -= y1;
-                    for (y1 = anIntArray1472[y1]; --y2 >= 0; y1 += DrawingArea.width) {
-                        drawLDGouraudScanline(DrawingArea.pixels, y1, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7, z1,
+                    for (y1 = t.lineOffsets[y1]; --y2 >= 0; y1 += t.width) {
+                        drawLDGouraudScanline(t, t.pixels, y1, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7, z1,
                                 depthSlope);
                         z1 += depthScale;
                         x3 += dx3;
@@ -1341,21 +1392,21 @@ public final class Rasterizer extends DrawingArea {
                         hsl1 += dhsl1;
                     }
                     while (--y3 >= 0) {
-                        drawLDGouraudScanline(DrawingArea.pixels, y1, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7, z1,
+                        drawLDGouraudScanline(t, t.pixels, y1, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7, z1,
                                 depthSlope);
                         z1 += depthScale;
                         x3 += dx3;
                         x2 += dx2;
                         hsl3 += dhsl3;
                         hsl2 += dhsl2;
-                        y1 += DrawingArea.width;
+                        y1 += t.width;
                     }
                     return;
                 }
                 y3 -= y2;
                 y2 -= y1;
-                for (y1 = anIntArray1472[y1]; --y2 >= 0; y1 += DrawingArea.width) {
-                    drawLDGouraudScanline(DrawingArea.pixels, y1, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7, z1,
+                for (y1 = t.lineOffsets[y1]; --y2 >= 0; y1 += t.width) {
+                    drawLDGouraudScanline(t, t.pixels, y1, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7, z1,
                             depthSlope);
                     z1 += depthScale;
                     x3 += dx3;
@@ -1364,14 +1415,14 @@ public final class Rasterizer extends DrawingArea {
                     hsl1 += dhsl1;
                 }
                 while (--y3 >= 0) {
-                    drawLDGouraudScanline(DrawingArea.pixels, y1, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7, z1,
+                    drawLDGouraudScanline(t, t.pixels, y1, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7, z1,
                             depthSlope);
                     z1 += depthScale;
                     x3 += dx3;
                     x2 += dx2;
                     hsl3 += dhsl3;
                     hsl2 += dhsl2;
-                    y1 += DrawingArea.width;
+                    y1 += t.width;
                 }
                 return;
             }
@@ -1397,8 +1448,8 @@ public final class Rasterizer extends DrawingArea {
             if (y1 != y3 && dx3 < dx1 || y1 == y3 && dx2 > dx1) {
                 y2 -= y3;
                 y3 -= y1;
-                for (y1 = anIntArray1472[y1]; --y3 >= 0; y1 += DrawingArea.width) {
-                    drawLDGouraudScanline(DrawingArea.pixels, y1, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7, z1,
+                for (y1 = t.lineOffsets[y1]; --y3 >= 0; y1 += t.width) {
+                    drawLDGouraudScanline(t, t.pixels, y1, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7, z1,
                             depthSlope);
                     z1 += depthScale;
                     x2 += dx3;
@@ -1407,21 +1458,21 @@ public final class Rasterizer extends DrawingArea {
                     hsl1 += dhsl1;
                 }
                 while (--y2 >= 0) {
-                    drawLDGouraudScanline(DrawingArea.pixels, y1, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7, z1,
+                    drawLDGouraudScanline(t, t.pixels, y1, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7, z1,
                             depthSlope);
                     z1 += depthScale;
                     x3 += dx2;
                     x1 += dx1;
                     hsl3 += dhsl2;
                     hsl1 += dhsl1;
-                    y1 += DrawingArea.width;
+                    y1 += t.width;
                 }
                 return;
             }
             y2 -= y3;
             y3 -= y1;
-            for (y1 = anIntArray1472[y1]; --y3 >= 0; y1 += DrawingArea.width) {
-                drawLDGouraudScanline(DrawingArea.pixels, y1, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7, z1, depthSlope);
+            for (y1 = t.lineOffsets[y1]; --y3 >= 0; y1 += t.width) {
+                drawLDGouraudScanline(t, t.pixels, y1, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7, z1, depthSlope);
                 z1 += depthScale;
                 x2 += dx3;
                 x1 += dx1;
@@ -1429,25 +1480,25 @@ public final class Rasterizer extends DrawingArea {
                 hsl1 += dhsl1;
             }
             while (--y2 >= 0) {
-                drawLDGouraudScanline(DrawingArea.pixels, y1, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7, z1, depthSlope);
+                drawLDGouraudScanline(t, t.pixels, y1, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7, z1, depthSlope);
                 z1 += depthScale;
                 x3 += dx2;
                 x1 += dx1;
                 hsl3 += dhsl2;
                 hsl1 += dhsl1;
-                y1 += DrawingArea.width;
+                y1 += t.width;
             }
             return;
         }
         if (y2 <= y3) {
-            if (y2 >= DrawingArea.bottomY) {
+            if (y2 >= t.bottomY) {
                 return;
             }
-            if (y3 > DrawingArea.bottomY) {
-                y3 = DrawingArea.bottomY;
+            if (y3 > t.bottomY) {
+                y3 = t.bottomY;
             }
-            if (y1 > DrawingArea.bottomY) {
-                y1 = DrawingArea.bottomY;
+            if (y1 > t.bottomY) {
+                y1 = t.bottomY;
             }
             z2 = z2 - depthSlope * x2 + depthSlope;
             if (y3 < y1) {
@@ -1473,8 +1524,8 @@ public final class Rasterizer extends DrawingArea {
                 if (y2 != y3 && dx1 < dx2 || y2 == y3 && dx1 > dx3) {
                     y1 -= y3;
                     y3 -= y2;
-                    for (y2 = anIntArray1472[y2]; --y3 >= 0; y2 += DrawingArea.width) {
-                        drawLDGouraudScanline(DrawingArea.pixels, y2, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7, z2,
+                    for (y2 = t.lineOffsets[y2]; --y3 >= 0; y2 += t.width) {
+                        drawLDGouraudScanline(t, t.pixels, y2, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7, z2,
                                 depthSlope);
                         z2 += depthScale;
                         x1 += dx1;
@@ -1484,21 +1535,21 @@ public final class Rasterizer extends DrawingArea {
                     }
 
                     while (--y1 >= 0) {
-                        drawLDGouraudScanline(DrawingArea.pixels, y2, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7, z2,
+                        drawLDGouraudScanline(t, t.pixels, y2, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7, z2,
                                 depthSlope);
                         z2 += depthScale;
                         x1 += dx1;
                         x3 += dx3;
                         hsl1 += dhsl1;
                         hsl3 += dhsl3;
-                        y2 += DrawingArea.width;
+                        y2 += t.width;
                     }
                     return;
                 }
                 y1 -= y3;
                 y3 -= y2;
-                for (y2 = anIntArray1472[y2]; --y3 >= 0; y2 += DrawingArea.width) {
-                    drawLDGouraudScanline(DrawingArea.pixels, y2, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7, z2,
+                for (y2 = t.lineOffsets[y2]; --y3 >= 0; y2 += t.width) {
+                    drawLDGouraudScanline(t, t.pixels, y2, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7, z2,
                             depthSlope);
                     z2 += depthScale;
                     x1 += dx1;
@@ -1508,14 +1559,14 @@ public final class Rasterizer extends DrawingArea {
                 }
 
                 while (--y1 >= 0) {
-                    drawLDGouraudScanline(DrawingArea.pixels, y2, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7, z2,
+                    drawLDGouraudScanline(t, t.pixels, y2, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7, z2,
                             depthSlope);
                     z2 += depthScale;
                     x1 += dx1;
                     x3 += dx3;
                     hsl1 += dhsl1;
                     hsl3 += dhsl3;
-                    y2 += DrawingArea.width;
+                    y2 += t.width;
                 }
                 return;
             }
@@ -1541,8 +1592,8 @@ public final class Rasterizer extends DrawingArea {
             if (dx1 < dx2) {
                 y3 -= y1;
                 y1 -= y2;
-                for (y2 = anIntArray1472[y2]; --y1 >= 0; y2 += DrawingArea.width) {
-                    drawLDGouraudScanline(DrawingArea.pixels, y2, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7, z2,
+                for (y2 = t.lineOffsets[y2]; --y1 >= 0; y2 += t.width) {
+                    drawLDGouraudScanline(t, t.pixels, y2, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7, z2,
                             depthSlope);
                     z2 += depthScale;
                     x3 += dx1;
@@ -1551,21 +1602,21 @@ public final class Rasterizer extends DrawingArea {
                     hsl2 += dhsl2;
                 }
                 while (--y3 >= 0) {
-                    drawLDGouraudScanline(DrawingArea.pixels, y2, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7, z2,
+                    drawLDGouraudScanline(t, t.pixels, y2, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7, z2,
                             depthSlope);
                     z2 += depthScale;
                     x1 += dx3;
                     x2 += dx2;
                     hsl1 += dhsl3;
                     hsl2 += dhsl2;
-                    y2 += DrawingArea.width;
+                    y2 += t.width;
                 }
                 return;
             }
             y3 -= y1;
             y1 -= y2;
-            for (y2 = anIntArray1472[y2]; --y1 >= 0; y2 += DrawingArea.width) {
-                drawLDGouraudScanline(DrawingArea.pixels, y2, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7, z2, depthSlope);
+            for (y2 = t.lineOffsets[y2]; --y1 >= 0; y2 += t.width) {
+                drawLDGouraudScanline(t, t.pixels, y2, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7, z2, depthSlope);
                 z2 += depthScale;
                 x3 += dx1;
                 x2 += dx2;
@@ -1574,24 +1625,24 @@ public final class Rasterizer extends DrawingArea {
             }
 
             while (--y3 >= 0) {
-                drawLDGouraudScanline(DrawingArea.pixels, y2, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7, z2, depthSlope);
+                drawLDGouraudScanline(t, t.pixels, y2, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7, z2, depthSlope);
                 z2 += depthScale;
                 x1 += dx3;
                 x2 += dx2;
                 hsl1 += dhsl3;
                 hsl2 += dhsl2;
-                y2 += DrawingArea.width;
+                y2 += t.width;
             }
             return;
         }
-        if (y3 >= DrawingArea.bottomY) {
+        if (y3 >= t.bottomY) {
             return;
         }
-        if (y1 > DrawingArea.bottomY) {
-            y1 = DrawingArea.bottomY;
+        if (y1 > t.bottomY) {
+            y1 = t.bottomY;
         }
-        if (y2 > DrawingArea.bottomY) {
-            y2 = DrawingArea.bottomY;
+        if (y2 > t.bottomY) {
+            y2 = t.bottomY;
         }
         z3 = z3 - depthSlope * x3 + depthSlope;
         if (y1 < y2) {
@@ -1617,8 +1668,8 @@ public final class Rasterizer extends DrawingArea {
             if (dx2 < dx3) {
                 y2 -= y1;
                 y1 -= y3;
-                for (y3 = anIntArray1472[y3]; --y1 >= 0; y3 += DrawingArea.width) {
-                    drawLDGouraudScanline(DrawingArea.pixels, y3, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7, z3,
+                for (y3 = t.lineOffsets[y3]; --y1 >= 0; y3 += t.width) {
+                    drawLDGouraudScanline(t, t.pixels, y3, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7, z3,
                             depthSlope);
                     z3 += depthScale;
                     x2 += dx2;
@@ -1627,21 +1678,21 @@ public final class Rasterizer extends DrawingArea {
                     hsl3 += dhsl3;
                 }
                 while (--y2 >= 0) {
-                    drawLDGouraudScanline(DrawingArea.pixels, y3, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7, z3,
+                    drawLDGouraudScanline(t, t.pixels, y3, x2 >> 16, x1 >> 16, hsl2 >> 7, hsl1 >> 7, z3,
                             depthSlope);
                     z3 += depthScale;
                     x2 += dx2;
                     x1 += dx1;
                     hsl2 += dhsl2;
                     hsl1 += dhsl1;
-                    y3 += DrawingArea.width;
+                    y3 += t.width;
                 }
                 return;
             }
             y2 -= y1;
             y1 -= y3;
-            for (y3 = anIntArray1472[y3]; --y1 >= 0; y3 += DrawingArea.width) {
-                drawLDGouraudScanline(DrawingArea.pixels, y3, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7, z3, depthSlope);
+            for (y3 = t.lineOffsets[y3]; --y1 >= 0; y3 += t.width) {
+                drawLDGouraudScanline(t, t.pixels, y3, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7, z3, depthSlope);
                 z3 += depthScale;
                 x2 += dx2;
                 x3 += dx3;
@@ -1650,13 +1701,13 @@ public final class Rasterizer extends DrawingArea {
             }
 
             while (--y2 >= 0) {
-                drawLDGouraudScanline(DrawingArea.pixels, y3, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7, z3, depthSlope);
+                drawLDGouraudScanline(t, t.pixels, y3, x1 >> 16, x2 >> 16, hsl1 >> 7, hsl2 >> 7, z3, depthSlope);
                 z3 += depthScale;
                 x2 += dx2;
                 x1 += dx1;
                 hsl2 += dhsl2;
                 hsl1 += dhsl1;
-                y3 += DrawingArea.width;
+                y3 += t.width;
             }
             return;
         }
@@ -1682,8 +1733,8 @@ public final class Rasterizer extends DrawingArea {
         if (dx2 < dx3) {
             y1 -= y2;
             y2 -= y3;
-            for (y3 = anIntArray1472[y3]; --y2 >= 0; y3 += DrawingArea.width) {
-                drawLDGouraudScanline(DrawingArea.pixels, y3, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7, z3, depthSlope);
+            for (y3 = t.lineOffsets[y3]; --y2 >= 0; y3 += t.width) {
+                drawLDGouraudScanline(t, t.pixels, y3, x1 >> 16, x3 >> 16, hsl1 >> 7, hsl3 >> 7, z3, depthSlope);
                 z3 += depthScale;
                 x1 += dx2;
                 x3 += dx3;
@@ -1691,20 +1742,20 @@ public final class Rasterizer extends DrawingArea {
                 hsl3 += dhsl3;
             }
             while (--y1 >= 0) {
-                drawLDGouraudScanline(DrawingArea.pixels, y3, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7, z3, depthSlope);
+                drawLDGouraudScanline(t, t.pixels, y3, x2 >> 16, x3 >> 16, hsl2 >> 7, hsl3 >> 7, z3, depthSlope);
                 z3 += depthScale;
                 x2 += dx1;
                 x3 += dx3;
                 hsl2 += dhsl1;
                 hsl3 += dhsl3;
-                y3 += DrawingArea.width;
+                y3 += t.width;
             }
             return;
         }
         y1 -= y2;
         y2 -= y3;
-        for (y3 = anIntArray1472[y3]; --y2 >= 0; y3 += DrawingArea.width) {
-            drawLDGouraudScanline(DrawingArea.pixels, y3, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7, z3, depthSlope);
+        for (y3 = t.lineOffsets[y3]; --y2 >= 0; y3 += t.width) {
+            drawLDGouraudScanline(t, t.pixels, y3, x3 >> 16, x1 >> 16, hsl3 >> 7, hsl1 >> 7, z3, depthSlope);
             z3 += depthScale;
             x1 += dx2;
             x3 += dx3;
@@ -1712,30 +1763,33 @@ public final class Rasterizer extends DrawingArea {
             hsl3 += dhsl3;
         }
         while (--y1 >= 0) {
-            drawLDGouraudScanline(DrawingArea.pixels, y3, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7, z3, depthSlope);
+            drawLDGouraudScanline(t, t.pixels, y3, x3 >> 16, x2 >> 16, hsl3 >> 7, hsl2 >> 7, z3, depthSlope);
             z3 += depthScale;
             x2 += dx1;
             x3 += dx3;
             hsl2 += dhsl1;
             hsl3 += dhsl3;
-            y3 += DrawingArea.width;
+            y3 += t.width;
         }
     }
 
-    private static void drawLDGouraudScanline(int dest[], int offset, int x1, int x2, int hsl1, int hsl2, float z1,
+    private static void drawLDGouraudScanline(Target t, int dest[], int offset, int x1, int x2, int hsl1, int hsl2, float z1,
                                               float z2) {
+        if (offset < t.topOffset) {
+            return;
+        }
         int rgb;
         int div;
         int dhsl;
         if (aBoolean1464) {
-            if (aBoolean1462) {
+            if (t.restrictEdges) {
                 if (x2 - x1 > 3) {
                     dhsl = (hsl2 - hsl1) / (x2 - x1);
                 } else {
                     dhsl = 0;
                 }
-                if (x2 > DrawingArea.centerX) {
-                    x2 = DrawingArea.centerX;
+                if (x2 > t.clipRight) {
+                    x2 = t.clipRight;
                 }
                 if (x1 < 0) {
                     hsl1 -= x1 * dhsl;
@@ -1761,32 +1815,33 @@ public final class Rasterizer extends DrawingArea {
                     dhsl = 0;
                 }
             }
-            if (anInt1465 == 0) {
+            t.pixelCount += x2 - x1;
+            if (t.alpha == 0) {
                 while (--div >= 0) {
                     rgb = hslToRgb[hsl1 >> 8];
                     hsl1 += dhsl;
                     offset++;
                     dest[offset] = rgb;
                     if (saveDepth) {
-                        depthBuffer[offset] = z1;
+                        t.depth[offset] = z1;
                     }
                     z1 += z2;
                     offset++;
                     dest[offset] = rgb;
                     if (saveDepth) {
-                        depthBuffer[offset] = z1;
+                        t.depth[offset] = z1;
                     }
                     z1 += z2;
                     offset++;
                     dest[offset] = rgb;
                     if (saveDepth) {
-                        depthBuffer[offset] = z1;
+                        t.depth[offset] = z1;
                     }
                     z1 += z2;
                     offset++;
                     dest[offset] = rgb;
                     if (saveDepth) {
-                        depthBuffer[offset] = z1;
+                        t.depth[offset] = z1;
                     }
                     z1 += z2;
                 }
@@ -1797,15 +1852,15 @@ public final class Rasterizer extends DrawingArea {
                         offset++;
                         dest[offset] = rgb;
                         if (saveDepth) {
-                            depthBuffer[offset] = z1;
+                            t.depth[offset] = z1;
                         }
                         z1 += z2;
                     } while (--div > 0);
                     return;
                 }
             } else {
-                int a1 = anInt1465;
-                int a2 = 256 - anInt1465;
+                int a1 = t.alpha;
+                int a2 = 256 - t.alpha;
                 while (--div >= 0) {
                     rgb = hslToRgb[hsl1 >> 8];
                     hsl1 += dhsl;
@@ -1813,28 +1868,28 @@ public final class Rasterizer extends DrawingArea {
                     dest[offset] = rgb + ((dest[offset] & 0xff00ff) * a1 >> 8 & 0xff00ff)
                             + ((dest[offset] & 0xff00) * a1 >> 8 & 0xff00);
                     if (saveDepth) {
-                        depthBuffer[offset] = z1;
+                        t.depth[offset] = z1;
                     }
                     offset++;
                     z1 += z2;
                     dest[offset] = rgb + ((dest[offset] & 0xff00ff) * a1 >> 8 & 0xff00ff)
                             + ((dest[offset] & 0xff00) * a1 >> 8 & 0xff00);
                     if (saveDepth) {
-                        depthBuffer[offset] = z1;
+                        t.depth[offset] = z1;
                     }
                     offset++;
                     z1 += z2;
                     dest[offset] = rgb + ((dest[offset] & 0xff00ff) * a1 >> 8 & 0xff00ff)
                             + ((dest[offset] & 0xff00) * a1 >> 8 & 0xff00);
                     if (saveDepth) {
-                        depthBuffer[offset] = z1;
+                        t.depth[offset] = z1;
                     }
                     offset++;
                     z1 += z2;
                     dest[offset] = rgb + ((dest[offset] & 0xff00ff) * a1 >> 8 & 0xff00ff)
                             + ((dest[offset] & 0xff00) * a1 >> 8 & 0xff00);
                     if (saveDepth) {
-                        depthBuffer[offset] = z1;
+                        t.depth[offset] = z1;
                     }
                     offset++;
                     z1 += z2;
@@ -1847,7 +1902,7 @@ public final class Rasterizer extends DrawingArea {
                         dest[offset] = rgb + ((dest[offset] & 0xff00ff) * a1 >> 8 & 0xff00ff)
                                 + ((dest[offset] & 0xff00) * a1 >> 8 & 0xff00);
                         if (saveDepth) {
-                            depthBuffer[offset] = z1;
+                            t.depth[offset] = z1;
                         }
                         offset++;
                         z1 += z2;
@@ -1860,9 +1915,9 @@ public final class Rasterizer extends DrawingArea {
             return;
         }
         int dhsl2 = (hsl2 - hsl1) / (x2 - x1);
-        if (aBoolean1462) {
-            if (x2 > DrawingArea.centerX) {
-                x2 = DrawingArea.centerX;
+        if (t.restrictEdges) {
+            if (x2 > t.clipRight) {
+                x2 = t.clipRight;
             }
             if (x1 < 0) {
                 hsl1 -= x1 * dhsl2;
@@ -1874,11 +1929,12 @@ public final class Rasterizer extends DrawingArea {
         }
         offset += x1;
         div = x2 - x1;
-        if (anInt1465 == 0) {
+        t.pixelCount += div;
+        if (t.alpha == 0) {
             do {
                 dest[offset] = hslToRgb[hsl1 >> 8];
                 if (saveDepth) {
-                    depthBuffer[offset] = z1;
+                    t.depth[offset] = z1;
                 }
                 offset++;
                 z1 += z2;
@@ -1886,8 +1942,8 @@ public final class Rasterizer extends DrawingArea {
             } while (--div > 0);
             return;
         }
-        int a1 = anInt1465;
-        int a2 = 256 - anInt1465;
+        int a1 = t.alpha;
+        int a2 = 256 - t.alpha;
         do {
             rgb = hslToRgb[hsl1 >> 8];
             hsl1 += dhsl2;
@@ -1895,7 +1951,7 @@ public final class Rasterizer extends DrawingArea {
             dest[offset] = rgb + ((dest[offset] & 0xff00ff) * a1 >> 8 & 0xff00ff)
                     + ((dest[offset] & 0xff00) * a1 >> 8 & 0xff00);
             if (saveDepth) {
-                depthBuffer[offset] = z1;
+                t.depth[offset] = z1;
             }
             offset++;
             z1 += z2;
@@ -1904,6 +1960,16 @@ public final class Rasterizer extends DrawingArea {
 
     public static void drawHDGouraudTriangle(int y1, int y2, int y3, int x1, int x2, int x3, int hsl1, int hsl2,
                                              int hsl3, float z1,float z2, float z3) {
+        RenderStats.gouraudTriangles++;
+        if (BinnedRasterizer.isRecording()) {
+            BinnedRasterizer.recordGouraud(true, y1, y2, y3, x1, x2, x3, hsl1, hsl2, hsl3, z1, z2, z3);
+            return;
+        }
+        drawHDGouraudTriangle(direct(), y1, y2, y3, x1, x2, x3, hsl1, hsl2, hsl3, z1, z2, z3);
+    }
+
+    static void drawHDGouraudTriangle(Target t, int y1, int y2, int y3, int x1, int x2, int x3, int hsl1, int hsl2,
+                                      int hsl3, float z1, float z2, float z3) {
         if (!saveDepth) {
             z1 = z2 = z3 = 0;
         }
@@ -1962,14 +2028,14 @@ public final class Rasterizer extends DrawingArea {
         float depthScale = (z31 * x21 - z21 * x31) / div;
 
         if (y1 <= y2 && y1 <= y3) {
-            if (y1 >= DrawingArea.bottomY) {
+            if (y1 >= t.bottomY) {
                 return;
             }
-            if (y2 > DrawingArea.bottomY) {
-                y2 = DrawingArea.bottomY;
+            if (y2 > t.bottomY) {
+                y2 = t.bottomY;
             }
-            if (y3 > DrawingArea.bottomY) {
-                y3 = DrawingArea.bottomY;
+            if (y3 > t.bottomY) {
+                y3 = t.bottomY;
             }
             z1 = z1 - depthSlope * x1 + depthSlope;
             if (y2 < y3) {
@@ -2003,8 +2069,8 @@ public final class Rasterizer extends DrawingArea {
                 if (y1 != y2 && dx3 < dx1 || y1 == y2 && dx3 > dx2) {
                     y3 -= y2;
                     y2 -= y1;
-                    for (y1 = anIntArray1472[y1]; --y2 >= 0; y1 += DrawingArea.width) {
-                        drawHDGouraudScanline(DrawingArea.pixels, y1, x3 >> 16, x1 >> 16, r3, g3, b3, r1, g1, b1, z1,
+                    for (y1 = t.lineOffsets[y1]; --y2 >= 0; y1 += t.width) {
+                        drawHDGouraudScanline(t, t.pixels, y1, x3 >> 16, x1 >> 16, r3, g3, b3, r1, g1, b1, z1,
                                 depthSlope);
                         x3 += dx3;
                         x1 += dx1;
@@ -2017,7 +2083,7 @@ public final class Rasterizer extends DrawingArea {
                         z1 += depthScale;
                     }
                     while (--y3 >= 0) {
-                        drawHDGouraudScanline(DrawingArea.pixels, y1, x3 >> 16, x2 >> 16, r3, g3, b3, r2, g2, b2, z1,
+                        drawHDGouraudScanline(t, t.pixels, y1, x3 >> 16, x2 >> 16, r3, g3, b3, r2, g2, b2, z1,
                                 depthSlope);
                         x3 += dx3;
                         x2 += dx2;
@@ -2027,15 +2093,15 @@ public final class Rasterizer extends DrawingArea {
                         r2 += dr2;
                         g2 += dg2;
                         b2 += db2;
-                        y1 += DrawingArea.width;
+                        y1 += t.width;
                         z1 += depthScale;
                     }
                     return;
                 }
                 y3 -= y2;
                 y2 -= y1;
-                for (y1 = anIntArray1472[y1]; --y2 >= 0; y1 += DrawingArea.width) {
-                    drawHDGouraudScanline(DrawingArea.pixels, y1, x1 >> 16, x3 >> 16, r1, g1, b1, r3, g3, b3, z1,
+                for (y1 = t.lineOffsets[y1]; --y2 >= 0; y1 += t.width) {
+                    drawHDGouraudScanline(t, t.pixels, y1, x1 >> 16, x3 >> 16, r1, g1, b1, r3, g3, b3, z1,
                             depthSlope);
                     x3 += dx3;
                     x1 += dx1;
@@ -2048,7 +2114,7 @@ public final class Rasterizer extends DrawingArea {
                     z1 += depthScale;
                 }
                 while (--y3 >= 0) {
-                    drawHDGouraudScanline(DrawingArea.pixels, y1, x2 >> 16, x3 >> 16, r2, g2, b2, r3, g3, b3, z1,
+                    drawHDGouraudScanline(t, t.pixels, y1, x2 >> 16, x3 >> 16, r2, g2, b2, r3, g3, b3, z1,
                             depthSlope);
                     x3 += dx3;
                     x2 += dx2;
@@ -2058,7 +2124,7 @@ public final class Rasterizer extends DrawingArea {
                     r2 += dr2;
                     g2 += dg2;
                     b2 += db2;
-                    y1 += DrawingArea.width;
+                    y1 += t.width;
                     z1 += depthScale;
                 }
                 return;
@@ -2093,8 +2159,8 @@ public final class Rasterizer extends DrawingArea {
             if (y1 != y3 && dx3 < dx1 || y1 == y3 && dx2 > dx1) {
                 y2 -= y3;
                 y3 -= y1;
-                for (y1 = anIntArray1472[y1]; --y3 >= 0; y1 += DrawingArea.width) {
-                    drawHDGouraudScanline(DrawingArea.pixels, y1, x2 >> 16, x1 >> 16, r2, g2, b2, r1, g1, b1, z1,
+                for (y1 = t.lineOffsets[y1]; --y3 >= 0; y1 += t.width) {
+                    drawHDGouraudScanline(t, t.pixels, y1, x2 >> 16, x1 >> 16, r2, g2, b2, r1, g1, b1, z1,
                             depthSlope);
                     x2 += dx3;
                     x1 += dx1;
@@ -2107,7 +2173,7 @@ public final class Rasterizer extends DrawingArea {
                     z1 += depthScale;
                 }
                 while (--y2 >= 0) {
-                    drawHDGouraudScanline(DrawingArea.pixels, y1, x3 >> 16, x1 >> 16, r3, g3, b3, r1, g1, b1, z1,
+                    drawHDGouraudScanline(t, t.pixels, y1, x3 >> 16, x1 >> 16, r3, g3, b3, r1, g1, b1, z1,
                             depthSlope);
                     x3 += dx2;
                     x1 += dx1;
@@ -2117,15 +2183,15 @@ public final class Rasterizer extends DrawingArea {
                     r1 += dr1;
                     g1 += dg1;
                     b1 += db1;
-                    y1 += DrawingArea.width;
+                    y1 += t.width;
                     z1 += depthScale;
                 }
                 return;
             }
             y2 -= y3;
             y3 -= y1;
-            for (y1 = anIntArray1472[y1]; --y3 >= 0; y1 += DrawingArea.width) {
-                drawHDGouraudScanline(DrawingArea.pixels, y1, x1 >> 16, x2 >> 16, r1, g1, b1, r2, g2, b2, z1,
+            for (y1 = t.lineOffsets[y1]; --y3 >= 0; y1 += t.width) {
+                drawHDGouraudScanline(t, t.pixels, y1, x1 >> 16, x2 >> 16, r1, g1, b1, r2, g2, b2, z1,
                         depthSlope);
                 x2 += dx3;
                 x1 += dx1;
@@ -2138,7 +2204,7 @@ public final class Rasterizer extends DrawingArea {
                 z1 += depthScale;
             }
             while (--y2 >= 0) {
-                drawHDGouraudScanline(DrawingArea.pixels, y1, x1 >> 16, x3 >> 16, r1, g1, b1, r3, g3, b3, z1,
+                drawHDGouraudScanline(t, t.pixels, y1, x1 >> 16, x3 >> 16, r1, g1, b1, r3, g3, b3, z1,
                         depthSlope);
                 x3 += dx2;
                 x1 += dx1;
@@ -2148,20 +2214,20 @@ public final class Rasterizer extends DrawingArea {
                 r1 += dr1;
                 g1 += dg1;
                 b1 += db1;
-                y1 += DrawingArea.width;
+                y1 += t.width;
                 z1 += depthScale;
             }
             return;
         }
         if (y2 <= y3) {
-            if (y2 >= DrawingArea.bottomY) {
+            if (y2 >= t.bottomY) {
                 return;
             }
-            if (y3 > DrawingArea.bottomY) {
-                y3 = DrawingArea.bottomY;
+            if (y3 > t.bottomY) {
+                y3 = t.bottomY;
             }
-            if (y1 > DrawingArea.bottomY) {
-                y1 = DrawingArea.bottomY;
+            if (y1 > t.bottomY) {
+                y1 = t.bottomY;
             }
             z2 = z2 - depthSlope * x2 + depthSlope;
             if (y3 < y1) {
@@ -2195,8 +2261,8 @@ public final class Rasterizer extends DrawingArea {
                 if (y2 != y3 && dx1 < dx2 || y2 == y3 && dx1 > dx3) {
                     y1 -= y3;
                     y3 -= y2;
-                    for (y2 = anIntArray1472[y2]; --y3 >= 0; y2 += DrawingArea.width) {
-                        drawHDGouraudScanline(DrawingArea.pixels, y2, x1 >> 16, x2 >> 16, r1, g1, b1, r2, g2, b2, z2,
+                    for (y2 = t.lineOffsets[y2]; --y3 >= 0; y2 += t.width) {
+                        drawHDGouraudScanline(t, t.pixels, y2, x1 >> 16, x2 >> 16, r1, g1, b1, r2, g2, b2, z2,
                                 depthSlope);
                         x1 += dx1;
                         x2 += dx2;
@@ -2209,7 +2275,7 @@ public final class Rasterizer extends DrawingArea {
                         z2 += depthScale;
                     }
                     while (--y1 >= 0) {
-                        drawHDGouraudScanline(DrawingArea.pixels, y2, x1 >> 16, x3 >> 16, r1, g1, b1, r3, g3, b3, z2,
+                        drawHDGouraudScanline(t, t.pixels, y2, x1 >> 16, x3 >> 16, r1, g1, b1, r3, g3, b3, z2,
                                 depthSlope);
                         x1 += dx1;
                         x3 += dx3;
@@ -2219,15 +2285,15 @@ public final class Rasterizer extends DrawingArea {
                         r3 += dr3;
                         g3 += dg3;
                         b3 += db3;
-                        y2 += DrawingArea.width;
+                        y2 += t.width;
                         z2 += depthScale;
                     }
                     return;
                 }
                 y1 -= y3;
                 y3 -= y2;
-                for (y2 = anIntArray1472[y2]; --y3 >= 0; y2 += DrawingArea.width) {
-                    drawHDGouraudScanline(DrawingArea.pixels, y2, x2 >> 16, x1 >> 16, r2, g2, b2, r1, g1, b1, z2,
+                for (y2 = t.lineOffsets[y2]; --y3 >= 0; y2 += t.width) {
+                    drawHDGouraudScanline(t, t.pixels, y2, x2 >> 16, x1 >> 16, r2, g2, b2, r1, g1, b1, z2,
                             depthSlope);
                     x1 += dx1;
                     x2 += dx2;
@@ -2240,7 +2306,7 @@ public final class Rasterizer extends DrawingArea {
                     z2 += depthScale;
                 }
                 while (--y1 >= 0) {
-                    drawHDGouraudScanline(DrawingArea.pixels, y2, x3 >> 16, x1 >> 16, r3, g3, b3, r1, g1, b1, z2,
+                    drawHDGouraudScanline(t, t.pixels, y2, x3 >> 16, x1 >> 16, r3, g3, b3, r1, g1, b1, z2,
                             depthSlope);
                     x1 += dx1;
                     x3 += dx3;
@@ -2250,7 +2316,7 @@ public final class Rasterizer extends DrawingArea {
                     r3 += dr3;
                     g3 += dg3;
                     b3 += db3;
-                    y2 += DrawingArea.width;
+                    y2 += t.width;
                     z2 += depthScale;
                 }
                 return;
@@ -2285,8 +2351,8 @@ public final class Rasterizer extends DrawingArea {
             if (dx1 < dx2) {
                 y3 -= y1;
                 y1 -= y2;
-                for (y2 = anIntArray1472[y2]; --y1 >= 0; y2 += DrawingArea.width) {
-                    drawHDGouraudScanline(DrawingArea.pixels, y2, x3 >> 16, x2 >> 16, r3, g3, b3, r2, g2, b2, z2,
+                for (y2 = t.lineOffsets[y2]; --y1 >= 0; y2 += t.width) {
+                    drawHDGouraudScanline(t, t.pixels, y2, x3 >> 16, x2 >> 16, r3, g3, b3, r2, g2, b2, z2,
                             depthSlope);
                     x3 += dx1;
                     x2 += dx2;
@@ -2299,7 +2365,7 @@ public final class Rasterizer extends DrawingArea {
                     z2 += depthScale;
                 }
                 while (--y3 >= 0) {
-                    drawHDGouraudScanline(DrawingArea.pixels, y2, x1 >> 16, x2 >> 16, r1, g1, b1, r2, g2, b2, z2,
+                    drawHDGouraudScanline(t, t.pixels, y2, x1 >> 16, x2 >> 16, r1, g1, b1, r2, g2, b2, z2,
                             depthSlope);
                     x1 += dx3;
                     x2 += dx2;
@@ -2309,15 +2375,15 @@ public final class Rasterizer extends DrawingArea {
                     r2 += dr2;
                     g2 += dg2;
                     b2 += db2;
-                    y2 += DrawingArea.width;
+                    y2 += t.width;
                     z2 += depthScale;
                 }
                 return;
             }
             y3 -= y1;
             y1 -= y2;
-            for (y2 = anIntArray1472[y2]; --y1 >= 0; y2 += DrawingArea.width) {
-                drawHDGouraudScanline(DrawingArea.pixels, y2, x2 >> 16, x3 >> 16, r2, g2, b2, r3, g3, b3, z2,
+            for (y2 = t.lineOffsets[y2]; --y1 >= 0; y2 += t.width) {
+                drawHDGouraudScanline(t, t.pixels, y2, x2 >> 16, x3 >> 16, r2, g2, b2, r3, g3, b3, z2,
                         depthSlope);
                 x3 += dx1;
                 x2 += dx2;
@@ -2330,7 +2396,7 @@ public final class Rasterizer extends DrawingArea {
                 z2 += depthScale;
             }
             while (--y3 >= 0) {
-                drawHDGouraudScanline(DrawingArea.pixels, y2, x2 >> 16, x1 >> 16, r2, g2, b2, r1, g1, b1, z2,
+                drawHDGouraudScanline(t, t.pixels, y2, x2 >> 16, x1 >> 16, r2, g2, b2, r1, g1, b1, z2,
                         depthSlope);
                 x1 += dx3;
                 x2 += dx2;
@@ -2340,19 +2406,19 @@ public final class Rasterizer extends DrawingArea {
                 r2 += dr2;
                 g2 += dg2;
                 b2 += db2;
-                y2 += DrawingArea.width;
+                y2 += t.width;
                 z2 += depthScale;
             }
             return;
         }
-        if (y3 >= DrawingArea.bottomY) {
+        if (y3 >= t.bottomY) {
             return;
         }
-        if (y1 > DrawingArea.bottomY) {
-            y1 = DrawingArea.bottomY;
+        if (y1 > t.bottomY) {
+            y1 = t.bottomY;
         }
-        if (y2 > DrawingArea.bottomY) {
-            y2 = DrawingArea.bottomY;
+        if (y2 > t.bottomY) {
+            y2 = t.bottomY;
         }
         z3 = z3 - depthSlope * x3 + depthSlope;
         if (y1 < y2) {
@@ -2386,8 +2452,8 @@ public final class Rasterizer extends DrawingArea {
             if (dx2 < dx3) {
                 y2 -= y1;
                 y1 -= y3;
-                for (y3 = anIntArray1472[y3]; --y1 >= 0; y3 += DrawingArea.width) {
-                    drawHDGouraudScanline(DrawingArea.pixels, y3, x2 >> 16, x3 >> 16, r2, g2, b2, r3, g3, b3, z3,
+                for (y3 = t.lineOffsets[y3]; --y1 >= 0; y3 += t.width) {
+                    drawHDGouraudScanline(t, t.pixels, y3, x2 >> 16, x3 >> 16, r2, g2, b2, r3, g3, b3, z3,
                             depthSlope);
                     x2 += dx2;
                     x3 += dx3;
@@ -2400,7 +2466,7 @@ public final class Rasterizer extends DrawingArea {
                     z3 += depthScale;
                 }
                 while (--y2 >= 0) {
-                    drawHDGouraudScanline(DrawingArea.pixels, y3, x2 >> 16, x1 >> 16, r2, g2, b2, r1, g1, b1, z3,
+                    drawHDGouraudScanline(t, t.pixels, y3, x2 >> 16, x1 >> 16, r2, g2, b2, r1, g1, b1, z3,
                             depthSlope);
                     x2 += dx2;
                     x1 += dx1;
@@ -2410,15 +2476,15 @@ public final class Rasterizer extends DrawingArea {
                     r1 += dr1;
                     g1 += dg1;
                     b1 += db1;
-                    y3 += DrawingArea.width;
+                    y3 += t.width;
                     z3 += depthScale;
                 }
                 return;
             }
             y2 -= y1;
             y1 -= y3;
-            for (y3 = anIntArray1472[y3]; --y1 >= 0; y3 += DrawingArea.width) {
-                drawHDGouraudScanline(DrawingArea.pixels, y3, x3 >> 16, x2 >> 16, r3, g3, b3, r2, g2, b2, z3,
+            for (y3 = t.lineOffsets[y3]; --y1 >= 0; y3 += t.width) {
+                drawHDGouraudScanline(t, t.pixels, y3, x3 >> 16, x2 >> 16, r3, g3, b3, r2, g2, b2, z3,
                         depthSlope);
                 x2 += dx2;
                 x3 += dx3;
@@ -2431,7 +2497,7 @@ public final class Rasterizer extends DrawingArea {
                 z3 += depthScale;
             }
             while (--y2 >= 0) {
-                drawHDGouraudScanline(DrawingArea.pixels, y3, x1 >> 16, x2 >> 16, r1, g1, b1, r2, g2, b2, z3,
+                drawHDGouraudScanline(t, t.pixels, y3, x1 >> 16, x2 >> 16, r1, g1, b1, r2, g2, b2, z3,
                         depthSlope);
                 x2 += dx2;
                 x1 += dx1;
@@ -2442,7 +2508,7 @@ public final class Rasterizer extends DrawingArea {
                 g1 += dg1;
                 b1 += db1;
                 z3 += depthScale;
-                y3 += DrawingArea.width;
+                y3 += t.width;
             }
             return;
         }
@@ -2476,8 +2542,8 @@ public final class Rasterizer extends DrawingArea {
         if (dx2 < dx3) {
             y1 -= y2;
             y2 -= y3;
-            for (y3 = anIntArray1472[y3]; --y2 >= 0; y3 += DrawingArea.width) {
-                drawHDGouraudScanline(DrawingArea.pixels, y3, x1 >> 16, x3 >> 16, r1, g1, b1, r3, g3, b3, z3,
+            for (y3 = t.lineOffsets[y3]; --y2 >= 0; y3 += t.width) {
+                drawHDGouraudScanline(t, t.pixels, y3, x1 >> 16, x3 >> 16, r1, g1, b1, r3, g3, b3, z3,
                         depthSlope);
                 x1 += dx2;
                 x3 += dx3;
@@ -2490,7 +2556,7 @@ public final class Rasterizer extends DrawingArea {
                 z3 += depthScale;
             }
             while (--y1 >= 0) {
-                drawHDGouraudScanline(DrawingArea.pixels, y3, x2 >> 16, x3 >> 16, r2, g2, b2, r3, g3, b3, z3,
+                drawHDGouraudScanline(t, t.pixels, y3, x2 >> 16, x3 >> 16, r2, g2, b2, r3, g3, b3, z3,
                         depthSlope);
                 x2 += dx1;
                 x3 += dx3;
@@ -2501,14 +2567,14 @@ public final class Rasterizer extends DrawingArea {
                 g3 += dg3;
                 b3 += db3;
                 z3 += depthScale;
-                y3 += DrawingArea.width;
+                y3 += t.width;
             }
             return;
         }
         y1 -= y2;
         y2 -= y3;
-        for (y3 = anIntArray1472[y3]; --y2 >= 0; y3 += DrawingArea.width) {
-            drawHDGouraudScanline(DrawingArea.pixels, y3, x3 >> 16, x1 >> 16, r3, g3, b3, r1, g1, b1, z3, depthSlope);
+        for (y3 = t.lineOffsets[y3]; --y2 >= 0; y3 += t.width) {
+            drawHDGouraudScanline(t, t.pixels, y3, x3 >> 16, x1 >> 16, r3, g3, b3, r1, g1, b1, z3, depthSlope);
             x1 += dx2;
             x3 += dx3;
             r1 += dr2;
@@ -2520,7 +2586,7 @@ public final class Rasterizer extends DrawingArea {
             z3 += depthScale;
         }
         while (--y1 >= 0) {
-            drawHDGouraudScanline(DrawingArea.pixels, y3, x3 >> 16, x2 >> 16, r3, g3, b3, r2, g2, b2, z3, depthSlope);
+            drawHDGouraudScanline(t, t.pixels, y3, x3 >> 16, x2 >> 16, r3, g3, b3, r2, g2, b2, z3, depthSlope);
             x2 += dx1;
             x3 += dx3;
             r2 += dr1;
@@ -2529,29 +2595,33 @@ public final class Rasterizer extends DrawingArea {
             r3 += dr3;
             g3 += dg3;
             b3 += db3;
-            y3 += DrawingArea.width;
+            y3 += t.width;
             z3 += depthScale;
         }
     }
 
-    public static void drawHDGouraudScanline(int[] dest, int offset, int x1, int x2, int r1, int g1, int b1, int r2,
+    private static void drawHDGouraudScanline(Target t, int[] dest, int offset, int x1, int x2, int r1, int g1, int b1, int r2,
                                              int g2, int b2, float z1, float z2) {
-        int width = DrawingArea.width;
-        int height = DrawingArea.height;
+        if (offset < t.topOffset) {
+            return;
+        }
+        int width = t.width;
+        int height = t.height;
         if (width <= 0 || height <= 0 || dest == null) {
             return;
         }
-        if (anIntArray1472 == null || anIntArray1472.length != height) {
+        if (t == DIRECT && (t.lineOffsets == null || t.lineOffsets.length != height)) {
             method365(width, height); // keep scanline offsets aligned with the viewport
+            t.lineOffsets = anIntArray1472;
         }
         int y = offset / width;
         if (y < 0 || y >= height) {
-            logScanlineSkip(y, x1, x2, width, height, dest.length, anIntArray1472.length);
+            logScanlineSkip(y, x1, x2, width, height, dest.length, t.lineOffsets.length);
             return;
         }
-        int baseOffset = anIntArray1472[y];
+        int baseOffset = t.lineOffsets[y];
         if (baseOffset < 0 || baseOffset >= dest.length) {
-            logScanlineSkip(y, x1, x2, width, height, dest.length, anIntArray1472.length);
+            logScanlineSkip(y, x1, x2, width, height, dest.length, t.lineOffsets.length);
             return;
         }
         offset = baseOffset;
@@ -2562,10 +2632,10 @@ public final class Rasterizer extends DrawingArea {
         r2 = (r2 - r1) / n;
         g2 = (g2 - g1) / n;
         b2 = (b2 - b1) / n;
-        if (aBoolean1462) {
-            if (x2 > DrawingArea.centerX) {
-                n -= x2 - DrawingArea.centerX;
-                x2 = DrawingArea.centerX;
+        if (t.restrictEdges) {
+            if (x2 > t.clipRight) {
+                n -= x2 - t.clipRight;
+                x2 = t.clipRight;
             }
             if (x1 < 0) {
                 n = x2;
@@ -2593,20 +2663,21 @@ public final class Rasterizer extends DrawingArea {
             offset += x1;
             int maxCount = dest.length - offset;
             if (maxCount <= 0 || maxCount < n) {
-                logScanlineSkip(y, x1, x2, width, height, dest.length, anIntArray1472.length);
+                logScanlineSkip(y, x1, x2, width, height, dest.length, t.lineOffsets.length);
                 return;
             }
-            if (saveDepth && (depthBuffer == null || depthBuffer.length <= offset + n - 1)) {
+            if (saveDepth && (t.depth == null || t.depth.length <= offset + n - 1)) {
                 logScanlineSkip(y, x1, x2, width, height, dest.length,
-                        anIntArray1472 != null ? anIntArray1472.length : 0);
+                        t.lineOffsets != null ? t.lineOffsets.length : 0);
                 return;
             }
             z1 += z2 * x1;
-            if (anInt1465 == 0) {
+            t.pixelCount += n;
+            if (t.alpha == 0) {
                 while (--n >= 0) {
                     dest[offset] = (r1 & 0xff0000) | (g1 >> 8 & 0xff00) | (b1 >> 16 & 0xff);
                     if (saveDepth) {
-                        depthBuffer[offset] = z1;
+                        t.depth[offset] = z1;
                     }
                     z1 += z2;
                     r1 += r2;
@@ -2615,8 +2686,8 @@ public final class Rasterizer extends DrawingArea {
                     offset++;
                 }
             } else {
-                final int a1 = anInt1465;
-                final int a2 = 256 - anInt1465;
+                final int a1 = t.alpha;
+                final int a2 = 256 - t.alpha;
                 int rgb;
                 while (--n >= 0) {
                     rgb = r1 & 0xff0000 | g1 >> 8 & 0xff00 | b1 >> 16 & 0xff;
@@ -2624,7 +2695,7 @@ public final class Rasterizer extends DrawingArea {
                     int dst = dest[offset];
                     dest[offset] = rgb + ((dst & 0xff00ff) * a1 >> 8 & 0xff00ff) + ((dst & 0xff00) * a1 >> 8 & 0xff00);
                     if (saveDepth) {
-                        depthBuffer[offset] = z1;
+                        t.depth[offset] = z1;
                     }
 
                     offset++;
@@ -2639,6 +2710,16 @@ public final class Rasterizer extends DrawingArea {
 
     public static void drawFlatTriangle(int y1, int y2, int y3, int x1, int x2, int x3, int rgb, float z1, float z2,
                                         float z3) {
+        RenderStats.flatTriangles++;
+        if (BinnedRasterizer.isRecording()) {
+            BinnedRasterizer.recordFlat(y1, y2, y3, x1, x2, x3, rgb, z1, z2, z3);
+            return;
+        }
+        drawFlatTriangle(direct(), y1, y2, y3, x1, x2, x3, rgb, z1, z2, z3);
+    }
+
+    static void drawFlatTriangle(Target t, int y1, int y2, int y3, int x1, int x2, int x3, int rgb, float z1, float z2,
+                                 float z3) {
         if (!saveDepth) {
             z1 = z2 = z3 = 0;
         }
@@ -2670,14 +2751,14 @@ public final class Rasterizer extends DrawingArea {
         float depthScale = (z31 * x21 - z21 * x31) / div;
 
         if (y1 <= y2 && y1 <= y3) {
-            if (y1 >= DrawingArea.bottomY) {
+            if (y1 >= t.bottomY) {
                 return;
             }
-            if (y2 > DrawingArea.bottomY) {
-                y2 = DrawingArea.bottomY;
+            if (y2 > t.bottomY) {
+                y2 = t.bottomY;
             }
-            if (y3 > DrawingArea.bottomY) {
-                y3 = DrawingArea.bottomY;
+            if (y3 > t.bottomY) {
+                y3 = t.bottomY;
             }
             z1 = z1 - depthSlope * x1 + depthSlope;
             if (y2 < y3) {
@@ -2696,35 +2777,35 @@ public final class Rasterizer extends DrawingArea {
                 if (y1 != y2 && dx3 < dx1 || y1 == y2 && dx3 > dx2) {
                     y3 -= y2;
                     y2 -= y1;
-                    for (y1 = anIntArray1472[y1]; --y2 >= 0; y1 += DrawingArea.width) {
-                        drawFlatScanline(DrawingArea.pixels, y1, rgb, x3 >> 16, x1 >> 16, z1, depthSlope);
+                    for (y1 = t.lineOffsets[y1]; --y2 >= 0; y1 += t.width) {
+                        drawFlatScanline(t, t.pixels, y1, rgb, x3 >> 16, x1 >> 16, z1, depthSlope);
                         z1 += depthScale;
                         x3 += dx3;
                         x1 += dx1;
                     }
                     while (--y3 >= 0) {
-                        drawFlatScanline(DrawingArea.pixels, y1, rgb, x3 >> 16, x2 >> 16, z1, depthSlope);
+                        drawFlatScanline(t, t.pixels, y1, rgb, x3 >> 16, x2 >> 16, z1, depthSlope);
                         z1 += depthScale;
                         x3 += dx3;
                         x2 += dx2;
-                        y1 += DrawingArea.width;
+                        y1 += t.width;
                     }
                     return;
                 }
                 y3 -= y2;
                 y2 -= y1;
-                for (y1 = anIntArray1472[y1]; --y2 >= 0; y1 += DrawingArea.width) {
-                    drawFlatScanline(DrawingArea.pixels, y1, rgb, x1 >> 16, x3 >> 16, z1, depthSlope);
+                for (y1 = t.lineOffsets[y1]; --y2 >= 0; y1 += t.width) {
+                    drawFlatScanline(t, t.pixels, y1, rgb, x1 >> 16, x3 >> 16, z1, depthSlope);
                     z1 += depthScale;
                     x3 += dx3;
                     x1 += dx1;
                 }
                 while (--y3 >= 0) {
-                    drawFlatScanline(DrawingArea.pixels, y1, rgb, x2 >> 16, x3 >> 16, z1, depthSlope);
+                    drawFlatScanline(t, t.pixels, y1, rgb, x2 >> 16, x3 >> 16, z1, depthSlope);
                     z1 += depthScale;
                     x3 += dx3;
                     x2 += dx2;
-                    y1 += DrawingArea.width;
+                    y1 += t.width;
                 }
                 return;
             }
@@ -2743,47 +2824,47 @@ public final class Rasterizer extends DrawingArea {
             if (y1 != y3 && dx3 < dx1 || y1 == y3 && dx2 > dx1) {
                 y2 -= y3;
                 y3 -= y1;
-                for (y1 = anIntArray1472[y1]; --y3 >= 0; y1 += DrawingArea.width) {
-                    drawFlatScanline(DrawingArea.pixels, y1, rgb, x2 >> 16, x1 >> 16, z1, depthSlope);
+                for (y1 = t.lineOffsets[y1]; --y3 >= 0; y1 += t.width) {
+                    drawFlatScanline(t, t.pixels, y1, rgb, x2 >> 16, x1 >> 16, z1, depthSlope);
                     z1 += depthScale;
                     x2 += dx3;
                     x1 += dx1;
                 }
                 while (--y2 >= 0) {
-                    drawFlatScanline(DrawingArea.pixels, y1, rgb, x3 >> 16, x1 >> 16, z1, depthSlope);
+                    drawFlatScanline(t, t.pixels, y1, rgb, x3 >> 16, x1 >> 16, z1, depthSlope);
                     z1 += depthScale;
                     x3 += dx2;
                     x1 += dx1;
-                    y1 += DrawingArea.width;
+                    y1 += t.width;
                 }
                 return;
             }
             y2 -= y3;
             y3 -= y1;
-            for (y1 = anIntArray1472[y1]; --y3 >= 0; y1 += DrawingArea.width) {
-                drawFlatScanline(DrawingArea.pixels, y1, rgb, x1 >> 16, x2 >> 16, z1, depthSlope);
+            for (y1 = t.lineOffsets[y1]; --y3 >= 0; y1 += t.width) {
+                drawFlatScanline(t, t.pixels, y1, rgb, x1 >> 16, x2 >> 16, z1, depthSlope);
                 z1 += depthScale;
                 x2 += dx3;
                 x1 += dx1;
             }
             while (--y2 >= 0) {
-                drawFlatScanline(DrawingArea.pixels, y1, rgb, x1 >> 16, x3 >> 16, z1, depthSlope);
+                drawFlatScanline(t, t.pixels, y1, rgb, x1 >> 16, x3 >> 16, z1, depthSlope);
                 z1 += depthScale;
                 x3 += dx2;
                 x1 += dx1;
-                y1 += DrawingArea.width;
+                y1 += t.width;
             }
             return;
         }
         if (y2 <= y3) {
-            if (y2 >= DrawingArea.bottomY) {
+            if (y2 >= t.bottomY) {
                 return;
             }
-            if (y3 > DrawingArea.bottomY) {
-                y3 = DrawingArea.bottomY;
+            if (y3 > t.bottomY) {
+                y3 = t.bottomY;
             }
-            if (y1 > DrawingArea.bottomY) {
-                y1 = DrawingArea.bottomY;
+            if (y1 > t.bottomY) {
+                y1 = t.bottomY;
             }
             z2 = z2 - depthSlope * x2 + depthSlope;
             if (y3 < y1) {
@@ -2802,35 +2883,35 @@ public final class Rasterizer extends DrawingArea {
                 if (y2 != y3 && dx1 < dx2 || y2 == y3 && dx1 > dx3) {
                     y1 -= y3;
                     y3 -= y2;
-                    for (y2 = anIntArray1472[y2]; --y3 >= 0; y2 += DrawingArea.width) {
-                        drawFlatScanline(DrawingArea.pixels, y2, rgb, x1 >> 16, x2 >> 16, z2, depthSlope);
+                    for (y2 = t.lineOffsets[y2]; --y3 >= 0; y2 += t.width) {
+                        drawFlatScanline(t, t.pixels, y2, rgb, x1 >> 16, x2 >> 16, z2, depthSlope);
                         z2 += depthScale;
                         x1 += dx1;
                         x2 += dx2;
                     }
                     while (--y1 >= 0) {
-                        drawFlatScanline(DrawingArea.pixels, y2, rgb, x1 >> 16, x3 >> 16, z2, depthSlope);
+                        drawFlatScanline(t, t.pixels, y2, rgb, x1 >> 16, x3 >> 16, z2, depthSlope);
                         z2 += depthScale;
                         x1 += dx1;
                         x3 += dx3;
-                        y2 += DrawingArea.width;
+                        y2 += t.width;
                     }
                     return;
                 }
                 y1 -= y3;
                 y3 -= y2;
-                for (y2 = anIntArray1472[y2]; --y3 >= 0; y2 += DrawingArea.width) {
-                    drawFlatScanline(DrawingArea.pixels, y2, rgb, x2 >> 16, x1 >> 16, z2, depthSlope);
+                for (y2 = t.lineOffsets[y2]; --y3 >= 0; y2 += t.width) {
+                    drawFlatScanline(t, t.pixels, y2, rgb, x2 >> 16, x1 >> 16, z2, depthSlope);
                     z2 += depthScale;
                     x1 += dx1;
                     x2 += dx2;
                 }
                 while (--y1 >= 0) {
-                    drawFlatScanline(DrawingArea.pixels, y2, rgb, x3 >> 16, x1 >> 16, z2, depthSlope);
+                    drawFlatScanline(t, t.pixels, y2, rgb, x3 >> 16, x1 >> 16, z2, depthSlope);
                     z2 += depthScale;
                     x1 += dx1;
                     x3 += dx3;
-                    y2 += DrawingArea.width;
+                    y2 += t.width;
                 }
                 return;
             }
@@ -2849,46 +2930,46 @@ public final class Rasterizer extends DrawingArea {
             if (dx1 < dx2) {
                 y3 -= y1;
                 y1 -= y2;
-                for (y2 = anIntArray1472[y2]; --y1 >= 0; y2 += DrawingArea.width) {
-                    drawFlatScanline(DrawingArea.pixels, y2, rgb, x3 >> 16, x2 >> 16, z2, depthSlope);
+                for (y2 = t.lineOffsets[y2]; --y1 >= 0; y2 += t.width) {
+                    drawFlatScanline(t, t.pixels, y2, rgb, x3 >> 16, x2 >> 16, z2, depthSlope);
                     z2 += depthScale;
                     x3 += dx1;
                     x2 += dx2;
                 }
                 while (--y3 >= 0) {
-                    drawFlatScanline(DrawingArea.pixels, y2, rgb, x1 >> 16, x2 >> 16, z2, depthSlope);
+                    drawFlatScanline(t, t.pixels, y2, rgb, x1 >> 16, x2 >> 16, z2, depthSlope);
                     z2 += depthScale;
                     x1 += dx3;
                     x2 += dx2;
-                    y2 += DrawingArea.width;
+                    y2 += t.width;
                 }
                 return;
             }
             y3 -= y1;
             y1 -= y2;
-            for (y2 = anIntArray1472[y2]; --y1 >= 0; y2 += DrawingArea.width) {
-                drawFlatScanline(DrawingArea.pixels, y2, rgb, x2 >> 16, x3 >> 16, z2, depthSlope);
+            for (y2 = t.lineOffsets[y2]; --y1 >= 0; y2 += t.width) {
+                drawFlatScanline(t, t.pixels, y2, rgb, x2 >> 16, x3 >> 16, z2, depthSlope);
                 z2 += depthScale;
                 x3 += dx1;
                 x2 += dx2;
             }
             while (--y3 >= 0) {
-                drawFlatScanline(DrawingArea.pixels, y2, rgb, x2 >> 16, x1 >> 16, z2, depthSlope);
+                drawFlatScanline(t, t.pixels, y2, rgb, x2 >> 16, x1 >> 16, z2, depthSlope);
                 z2 += depthScale;
                 x1 += dx3;
                 x2 += dx2;
-                y2 += DrawingArea.width;
+                y2 += t.width;
             }
             return;
         }
-        if (y3 >= DrawingArea.bottomY) {
+        if (y3 >= t.bottomY) {
             return;
         }
-        if (y1 > DrawingArea.bottomY) {
-            y1 = DrawingArea.bottomY;
+        if (y1 > t.bottomY) {
+            y1 = t.bottomY;
         }
-        if (y2 > DrawingArea.bottomY) {
-            y2 = DrawingArea.bottomY;
+        if (y2 > t.bottomY) {
+            y2 = t.bottomY;
         }
         z3 = z3 - depthSlope * x3 + depthSlope;
         if (y1 < y2) {
@@ -2907,35 +2988,35 @@ public final class Rasterizer extends DrawingArea {
             if (dx2 < dx3) {
                 y2 -= y1;
                 y1 -= y3;
-                for (y3 = anIntArray1472[y3]; --y1 >= 0; y3 += DrawingArea.width) {
-                    drawFlatScanline(DrawingArea.pixels, y3, rgb, x2 >> 16, x3 >> 16, z3, depthSlope);
+                for (y3 = t.lineOffsets[y3]; --y1 >= 0; y3 += t.width) {
+                    drawFlatScanline(t, t.pixels, y3, rgb, x2 >> 16, x3 >> 16, z3, depthSlope);
                     z3 += depthScale;
                     x2 += dx2;
                     x3 += dx3;
                 }
                 while (--y2 >= 0) {
-                    drawFlatScanline(DrawingArea.pixels, y3, rgb, x2 >> 16, x1 >> 16, z3, depthSlope);
+                    drawFlatScanline(t, t.pixels, y3, rgb, x2 >> 16, x1 >> 16, z3, depthSlope);
                     z3 += depthScale;
                     x2 += dx2;
                     x1 += dx1;
-                    y3 += DrawingArea.width;
+                    y3 += t.width;
                 }
                 return;
             }
             y2 -= y1;
             y1 -= y3;
-            for (y3 = anIntArray1472[y3]; --y1 >= 0; y3 += DrawingArea.width) {
-                drawFlatScanline(DrawingArea.pixels, y3, rgb, x3 >> 16, x2 >> 16, z3, depthSlope);
+            for (y3 = t.lineOffsets[y3]; --y1 >= 0; y3 += t.width) {
+                drawFlatScanline(t, t.pixels, y3, rgb, x3 >> 16, x2 >> 16, z3, depthSlope);
                 z3 += depthScale;
                 x2 += dx2;
                 x3 += dx3;
             }
             while (--y2 >= 0) {
-                drawFlatScanline(DrawingArea.pixels, y3, rgb, x1 >> 16, x2 >> 16, z3, depthSlope);
+                drawFlatScanline(t, t.pixels, y3, rgb, x1 >> 16, x2 >> 16, z3, depthSlope);
                 z3 += depthScale;
                 x2 += dx2;
                 x1 += dx1;
-                y3 += DrawingArea.width;
+                y3 += t.width;
             }
             return;
         }
@@ -2954,45 +3035,48 @@ public final class Rasterizer extends DrawingArea {
         if (dx2 < dx3) {
             y1 -= y2;
             y2 -= y3;
-            for (y3 = anIntArray1472[y3]; --y2 >= 0; y3 += DrawingArea.width) {
-                drawFlatScanline(DrawingArea.pixels, y3, rgb, x1 >> 16, x3 >> 16, z3, depthSlope);
+            for (y3 = t.lineOffsets[y3]; --y2 >= 0; y3 += t.width) {
+                drawFlatScanline(t, t.pixels, y3, rgb, x1 >> 16, x3 >> 16, z3, depthSlope);
                 z3 += depthScale;
                 x1 += dx2;
                 x3 += dx3;
             }
             while (--y1 >= 0) {
-                drawFlatScanline(DrawingArea.pixels, y3, rgb, x2 >> 16, x3 >> 16, z3, depthSlope);
+                drawFlatScanline(t, t.pixels, y3, rgb, x2 >> 16, x3 >> 16, z3, depthSlope);
                 z3 += depthScale;
                 x2 += dx1;
                 x3 += dx3;
-                y3 += DrawingArea.width;
+                y3 += t.width;
             }
             return;
         }
         y1 -= y2;
         y2 -= y3;
-        for (y3 = anIntArray1472[y3]; --y2 >= 0; y3 += DrawingArea.width) {
-            drawFlatScanline(DrawingArea.pixels, y3, rgb, x3 >> 16, x1 >> 16, z3, depthSlope);
+        for (y3 = t.lineOffsets[y3]; --y2 >= 0; y3 += t.width) {
+            drawFlatScanline(t, t.pixels, y3, rgb, x3 >> 16, x1 >> 16, z3, depthSlope);
             z3 += depthScale;
             x1 += dx2;
             x3 += dx3;
         }
         while (--y1 >= 0) {
-            drawFlatScanline(DrawingArea.pixels, y3, rgb, x3 >> 16, x2 >> 16, z3, depthSlope);
+            drawFlatScanline(t, t.pixels, y3, rgb, x3 >> 16, x2 >> 16, z3, depthSlope);
             z3 += depthScale;
             x2 += dx1;
             x3 += dx3;
-            y3 += DrawingArea.width;
+            y3 += t.width;
         }
     }
 
-    private static void drawFlatScanline(int[] dest, int offset, int rgb, int x1, int x2, float z1, float z2) {
+    private static void drawFlatScanline(Target t, int[] dest, int offset, int rgb, int x1, int x2, float z1, float z2) {
+        if (offset < t.topOffset) {
+            return;
+        }
         if (x1 >= x2) {
             return;
         }
-        if (aBoolean1462) {
-            if (x2 > DrawingArea.centerX) {
-                x2 = DrawingArea.centerX;
+        if (t.restrictEdges) {
+            if (x2 > t.clipRight) {
+                x2 = t.clipRight;
             }
             if (x1 < 0) {
                 x1 = 0;
@@ -3004,24 +3088,25 @@ public final class Rasterizer extends DrawingArea {
         offset += x1;
         z1 += z2 * x1;
         int n = x2 - x1;
-        if (anInt1465 == 0) {
+        t.pixelCount += n;
+        if (t.alpha == 0) {
             while (--n >= 0) {
                 dest[offset] = rgb;
                 if (saveDepth) {
-                    depthBuffer[offset] = z1;
+                    t.depth[offset] = z1;
                 }
                 z1 += z2;
                 offset++;
             }
         } else {
-            final int a1 = anInt1465;
-            final int a2 = 256 - anInt1465;
+            final int a1 = t.alpha;
+            final int a2 = 256 - t.alpha;
             rgb = ((rgb & 0xff00ff) * a2 >> 8 & 0xff00ff) + ((rgb & 0xff00) * a2 >> 8 & 0xff00);
             while (--n >= 0) {
                 dest[offset] = rgb + ((dest[offset] & 0xff00ff) * a1 >> 8 & 0xff00ff)
                         + ((dest[offset] & 0xff00) * a1 >> 8 & 0xff00);
                 if (saveDepth) {
-                    depthBuffer[offset] = z1;
+                    t.depth[offset] = z1;
                 }
                 z1 += z2;
                 offset++;
@@ -3916,8 +4001,20 @@ public final class Rasterizer extends DrawingArea {
     }
     public static void drawTexturedTriangle(int var0, int var1, int var2, int var3, int var4, int var5, int var6, int var7, int var8, int var9, int var10, int var11, int var12, int var13, int var14, int var15, int var16, int var17, int var18) {
         int[] texturePixels = getTexturePixels(var18);
+        boolean opaque = !textureIsTransparant[var18];
+        RenderStats.texturedTriangles++;
+        if (BinnedRasterizer.isRecording()) {
+            BinnedRasterizer.recordTextured(texturePixels, opaque, var0, var1, var2, var3, var4, var5, var6, var7, var8,
+                    var9, var10, var11, var12, var13, var14, var15, var16, var17);
+            return;
+        }
+        drawTexturedTriangle(direct(), texturePixels, opaque, var0, var1, var2, var3, var4, var5, var6, var7, var8, var9,
+                var10, var11, var12, var13, var14, var15, var16, var17);
+    }
+
+    static void drawTexturedTriangle(Target t, int[] texturePixels, boolean opaque, int var0, int var1, int var2, int var3, int var4, int var5, int var6, int var7, int var8, int var9, int var10, int var11, int var12, int var13, int var14, int var15, int var16, int var17) {
         int var21;
-        aBoolean1463 = !textureIsTransparant[var18];
+        t.opaqueTexture = opaque;
         var21 = var4 - var3;
         int var26 = var1 - var0;
         int var27 = var5 - var3;
@@ -3959,17 +4056,22 @@ public final class Rasterizer extends DrawingArea {
             int var33 = var13 * var11 - var10 * var14 << 14;
             int var40 = (int)(((long)(var16 * var14 - var13 * var17) << 3 << 14) / (long)FOV);
             int var34 = (int)(((long)(var10 * var17 - var16 * var11) << 14) / (long)FOV);
+            t.spanTexels = texturePixels;
+            t.spanShadeStep = var41;
+            t.spanUStep = var38;
+            t.spanVStep = var39;
+            t.spanWStep = var40;
 
 
             int var35;
             if(var0 <= var1 && var0 <= var2) {
-                if(var0 < DrawingArea.bottomY) {
-                    if(var1 > DrawingArea.bottomY) {
-                        var1 = DrawingArea.bottomY;
+                if(var0 < t.bottomY) {
+                    if(var1 > t.bottomY) {
+                        var1 = t.bottomY;
                     }
 
-                    if(var2 > DrawingArea.bottomY) {
-                        var2 = DrawingArea.bottomY;
+                    if(var2 > t.bottomY) {
+                        var2 = t.bottomY;
                     }
 
                     var6 = (var6 << 9) - var41 * var3 + var41;
@@ -3988,14 +4090,14 @@ public final class Rasterizer extends DrawingArea {
                             var1 = 0;
                         }
 
-                        var35 = var0 - textureInt2;
+                        var35 = var0 - t.centerY;
                         var24 += var25 * var35;
                         var36 += var37 * var35;
                         var33 += var34 * var35;
                         if((var0 == var1 || var22 >= var29) && (var0 != var1 || var22 <= var30)) {
                             var2 -= var1;
                             var1 -= var0;
-                            var0 = anIntArray1472[var0];
+                            var0 = t.lineOffsets[var0];
 
                             while(true) {
                                 --var1;
@@ -4006,22 +4108,22 @@ public final class Rasterizer extends DrawingArea {
                                             return;
                                         }
 
-                                        drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var0, var4 >> 16, var5 >> 16, var6, var41, var24, var36, var33, var38, var39, var40);
+                                        drawTexturedSpan(t, var0, var4 >> 16, var5 >> 16, var6, var24, var36, var33);
                                         var5 += var22;
                                         var4 += var30;
                                         var6 += var20;
-                                        var0 += DrawingArea.width;
+                                        var0 += t.width;
                                         var24 += var25;
                                         var36 += var37;
                                         var33 += var34;
                                     }
                                 }
 
-                                drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var0, var3 >> 16, var5 >> 16, var6, var41, var24, var36, var33, var38, var39, var40);
+                                drawTexturedSpan(t, var0, var3 >> 16, var5 >> 16, var6, var24, var36, var33);
                                 var5 += var22;
                                 var3 += var29;
                                 var6 += var20;
-                                var0 += DrawingArea.width;
+                                var0 += t.width;
                                 var24 += var25;
                                 var36 += var37;
                                 var33 += var34;
@@ -4029,7 +4131,7 @@ public final class Rasterizer extends DrawingArea {
                         } else {
                             var2 -= var1;
                             var1 -= var0;
-                            var0 = anIntArray1472[var0];
+                            var0 = t.lineOffsets[var0];
 
                             while(true) {
                                 --var1;
@@ -4040,22 +4142,22 @@ public final class Rasterizer extends DrawingArea {
                                             return;
                                         }
 
-                                        drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var0, var5 >> 16, var4 >> 16, var6, var41, var24, var36, var33, var38, var39, var40);
+                                        drawTexturedSpan(t, var0, var5 >> 16, var4 >> 16, var6, var24, var36, var33);
                                         var5 += var22;
                                         var4 += var30;
                                         var6 += var20;
-                                        var0 += DrawingArea.width;
+                                        var0 += t.width;
                                         var24 += var25;
                                         var36 += var37;
                                         var33 += var34;
                                     }
                                 }
 
-                                drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var0, var5 >> 16, var3 >> 16, var6, var41, var24, var36, var33, var38, var39, var40);
+                                drawTexturedSpan(t, var0, var5 >> 16, var3 >> 16, var6, var24, var36, var33);
                                 var5 += var22;
                                 var3 += var29;
                                 var6 += var20;
-                                var0 += DrawingArea.width;
+                                var0 += t.width;
                                 var24 += var25;
                                 var36 += var37;
                                 var33 += var34;
@@ -4076,14 +4178,14 @@ public final class Rasterizer extends DrawingArea {
                             var2 = 0;
                         }
 
-                        var35 = var0 - textureInt2;
+                        var35 = var0 - t.centerY;
                         var24 += var25 * var35;
                         var36 += var37 * var35;
                         var33 += var34 * var35;
                         if((var0 == var2 || var22 >= var29) && (var0 != var2 || var30 <= var29)) {
                             var1 -= var2;
                             var2 -= var0;
-                            var0 = anIntArray1472[var0];
+                            var0 = t.lineOffsets[var0];
 
                             while(true) {
                                 --var2;
@@ -4094,22 +4196,22 @@ public final class Rasterizer extends DrawingArea {
                                             return;
                                         }
 
-                                        drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var0, var3 >> 16, var5 >> 16, var6, var41, var24, var36, var33, var38, var39, var40);
+                                        drawTexturedSpan(t, var0, var3 >> 16, var5 >> 16, var6, var24, var36, var33);
                                         var5 += var30;
                                         var3 += var29;
                                         var6 += var20;
-                                        var0 += DrawingArea.width;
+                                        var0 += t.width;
                                         var24 += var25;
                                         var36 += var37;
                                         var33 += var34;
                                     }
                                 }
 
-                                drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var0, var3 >> 16, var4 >> 16, var6, var41, var24, var36, var33, var38, var39, var40);
+                                drawTexturedSpan(t, var0, var3 >> 16, var4 >> 16, var6, var24, var36, var33);
                                 var4 += var22;
                                 var3 += var29;
                                 var6 += var20;
-                                var0 += DrawingArea.width;
+                                var0 += t.width;
                                 var24 += var25;
                                 var36 += var37;
                                 var33 += var34;
@@ -4117,7 +4219,7 @@ public final class Rasterizer extends DrawingArea {
                         } else {
                             var1 -= var2;
                             var2 -= var0;
-                            var0 = anIntArray1472[var0];
+                            var0 = t.lineOffsets[var0];
 
                             while(true) {
                                 --var2;
@@ -4128,22 +4230,22 @@ public final class Rasterizer extends DrawingArea {
                                             return;
                                         }
 
-                                        drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var0, var5 >> 16, var3 >> 16, var6, var41, var24, var36, var33, var38, var39, var40);
+                                        drawTexturedSpan(t, var0, var5 >> 16, var3 >> 16, var6, var24, var36, var33);
                                         var5 += var30;
                                         var3 += var29;
                                         var6 += var20;
-                                        var0 += DrawingArea.width;
+                                        var0 += t.width;
                                         var24 += var25;
                                         var36 += var37;
                                         var33 += var34;
                                     }
                                 }
 
-                                drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var0, var4 >> 16, var3 >> 16, var6, var41, var24, var36, var33, var38, var39, var40);
+                                drawTexturedSpan(t, var0, var4 >> 16, var3 >> 16, var6, var24, var36, var33);
                                 var4 += var22;
                                 var3 += var29;
                                 var6 += var20;
-                                var0 += DrawingArea.width;
+                                var0 += t.width;
                                 var24 += var25;
                                 var36 += var37;
                                 var33 += var34;
@@ -4152,13 +4254,13 @@ public final class Rasterizer extends DrawingArea {
                     }
                 }
             } else if(var1 <= var2) {
-                if(var1 < DrawingArea.bottomY) {
-                    if(var2 > DrawingArea.bottomY) {
-                        var2 = DrawingArea.bottomY;
+                if(var1 < t.bottomY) {
+                    if(var2 > t.bottomY) {
+                        var2 = t.bottomY;
                     }
 
-                    if(var0 > DrawingArea.bottomY) {
-                        var0 = DrawingArea.bottomY;
+                    if(var0 > t.bottomY) {
+                        var0 = t.bottomY;
                     }
 
                     var7 = (var7 << 9) - var41 * var4 + var41;
@@ -4177,14 +4279,14 @@ public final class Rasterizer extends DrawingArea {
                             var2 = 0;
                         }
 
-                        var35 = var1 - textureInt2;
+                        var35 = var1 - t.centerY;
                         var24 += var25 * var35;
                         var36 += var37 * var35;
                         var33 += var34 * var35;
                         if((var1 == var2 || var29 >= var30) && (var1 != var2 || var29 <= var22)) {
                             var0 -= var2;
                             var2 -= var1;
-                            var1 = anIntArray1472[var1];
+                            var1 = t.lineOffsets[var1];
 
                             while(true) {
                                 --var2;
@@ -4195,22 +4297,22 @@ public final class Rasterizer extends DrawingArea {
                                             return;
                                         }
 
-                                        drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var1, var5 >> 16, var3 >> 16, var7, var41, var24, var36, var33, var38, var39, var40);
+                                        drawTexturedSpan(t, var1, var5 >> 16, var3 >> 16, var7, var24, var36, var33);
                                         var3 += var29;
                                         var5 += var22;
                                         var7 += var20;
-                                        var1 += DrawingArea.width;
+                                        var1 += t.width;
                                         var24 += var25;
                                         var36 += var37;
                                         var33 += var34;
                                     }
                                 }
 
-                                drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var1, var4 >> 16, var3 >> 16, var7, var41, var24, var36, var33, var38, var39, var40);
+                                drawTexturedSpan(t, var1, var4 >> 16, var3 >> 16, var7, var24, var36, var33);
                                 var3 += var29;
                                 var4 += var30;
                                 var7 += var20;
-                                var1 += DrawingArea.width;
+                                var1 += t.width;
                                 var24 += var25;
                                 var36 += var37;
                                 var33 += var34;
@@ -4218,7 +4320,7 @@ public final class Rasterizer extends DrawingArea {
                         } else {
                             var0 -= var2;
                             var2 -= var1;
-                            var1 = anIntArray1472[var1];
+                            var1 = t.lineOffsets[var1];
 
                             while(true) {
                                 --var2;
@@ -4229,22 +4331,22 @@ public final class Rasterizer extends DrawingArea {
                                             return;
                                         }
 
-                                        drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var1, var3 >> 16, var5 >> 16, var7, var41, var24, var36, var33, var38, var39, var40);
+                                        drawTexturedSpan(t, var1, var3 >> 16, var5 >> 16, var7, var24, var36, var33);
                                         var3 += var29;
                                         var5 += var22;
                                         var7 += var20;
-                                        var1 += DrawingArea.width;
+                                        var1 += t.width;
                                         var24 += var25;
                                         var36 += var37;
                                         var33 += var34;
                                     }
                                 }
 
-                                drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var1, var3 >> 16, var4 >> 16, var7, var41, var24, var36, var33, var38, var39, var40);
+                                drawTexturedSpan(t, var1, var3 >> 16, var4 >> 16, var7, var24, var36, var33);
                                 var3 += var29;
                                 var4 += var30;
                                 var7 += var20;
-                                var1 += DrawingArea.width;
+                                var1 += t.width;
                                 var24 += var25;
                                 var36 += var37;
                                 var33 += var34;
@@ -4265,14 +4367,14 @@ public final class Rasterizer extends DrawingArea {
                             var0 = 0;
                         }
 
-                        var35 = var1 - textureInt2;
+                        var35 = var1 - t.centerY;
                         var24 += var25 * var35;
                         var36 += var37 * var35;
                         var33 += var34 * var35;
                         if(var29 < var30) {
                             var2 -= var0;
                             var0 -= var1;
-                            var1 = anIntArray1472[var1];
+                            var1 = t.lineOffsets[var1];
 
                             while(true) {
                                 --var0;
@@ -4283,22 +4385,22 @@ public final class Rasterizer extends DrawingArea {
                                             return;
                                         }
 
-                                        drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var1, var3 >> 16, var4 >> 16, var7, var41, var24, var36, var33, var38, var39, var40);
+                                        drawTexturedSpan(t, var1, var3 >> 16, var4 >> 16, var7, var24, var36, var33);
                                         var3 += var22;
                                         var4 += var30;
                                         var7 += var20;
-                                        var1 += DrawingArea.width;
+                                        var1 += t.width;
                                         var24 += var25;
                                         var36 += var37;
                                         var33 += var34;
                                     }
                                 }
 
-                                drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var1, var5 >> 16, var4 >> 16, var7, var41, var24, var36, var33, var38, var39, var40);
+                                drawTexturedSpan(t, var1, var5 >> 16, var4 >> 16, var7, var24, var36, var33);
                                 var5 += var29;
                                 var4 += var30;
                                 var7 += var20;
-                                var1 += DrawingArea.width;
+                                var1 += t.width;
                                 var24 += var25;
                                 var36 += var37;
                                 var33 += var34;
@@ -4306,7 +4408,7 @@ public final class Rasterizer extends DrawingArea {
                         } else {
                             var2 -= var0;
                             var0 -= var1;
-                            var1 = anIntArray1472[var1];
+                            var1 = t.lineOffsets[var1];
 
                             while(true) {
                                 --var0;
@@ -4317,22 +4419,22 @@ public final class Rasterizer extends DrawingArea {
                                             return;
                                         }
 
-                                        drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var1, var4 >> 16, var3 >> 16, var7, var41, var24, var36, var33, var38, var39, var40);
+                                        drawTexturedSpan(t, var1, var4 >> 16, var3 >> 16, var7, var24, var36, var33);
                                         var3 += var22;
                                         var4 += var30;
                                         var7 += var20;
-                                        var1 += DrawingArea.width;
+                                        var1 += t.width;
                                         var24 += var25;
                                         var36 += var37;
                                         var33 += var34;
                                     }
                                 }
 
-                                drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var1, var4 >> 16, var5 >> 16, var7, var41, var24, var36, var33, var38, var39, var40);
+                                drawTexturedSpan(t, var1, var4 >> 16, var5 >> 16, var7, var24, var36, var33);
                                 var5 += var29;
                                 var4 += var30;
                                 var7 += var20;
-                                var1 += DrawingArea.width;
+                                var1 += t.width;
                                 var24 += var25;
                                 var36 += var37;
                                 var33 += var34;
@@ -4340,13 +4442,13 @@ public final class Rasterizer extends DrawingArea {
                         }
                     }
                 }
-            } else if(var2 < DrawingArea.bottomY) {
-                if(var0 > DrawingArea.bottomY) {
-                    var0 = DrawingArea.bottomY;
+            } else if(var2 < t.bottomY) {
+                if(var0 > t.bottomY) {
+                    var0 = t.bottomY;
                 }
 
-                if(var1 > DrawingArea.bottomY) {
-                    var1 = DrawingArea.bottomY;
+                if(var1 > t.bottomY) {
+                    var1 = t.bottomY;
                 }
 
                 var8 = (var8 << 9) - var41 * var5 + var41;
@@ -4365,14 +4467,14 @@ public final class Rasterizer extends DrawingArea {
                         var0 = 0;
                     }
 
-                    var35 = var2 - textureInt2;
+                    var35 = var2 - t.centerY;
                     var24 += var25 * var35;
                     var36 += var37 * var35;
                     var33 += var34 * var35;
                     if(var30 < var22) {
                         var1 -= var0;
                         var0 -= var2;
-                        var2 = anIntArray1472[var2];
+                        var2 = t.lineOffsets[var2];
 
                         while(true) {
                             --var0;
@@ -4383,22 +4485,22 @@ public final class Rasterizer extends DrawingArea {
                                         return;
                                     }
 
-                                    drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var2, var4 >> 16, var3 >> 16, var8, var41, var24, var36, var33, var38, var39, var40);
+                                    drawTexturedSpan(t, var2, var4 >> 16, var3 >> 16, var8, var24, var36, var33);
                                     var4 += var30;
                                     var3 += var29;
                                     var8 += var20;
-                                    var2 += DrawingArea.width;
+                                    var2 += t.width;
                                     var24 += var25;
                                     var36 += var37;
                                     var33 += var34;
                                 }
                             }
 
-                            drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var2, var4 >> 16, var5 >> 16, var8, var41, var24, var36, var33, var38, var39, var40);
+                            drawTexturedSpan(t, var2, var4 >> 16, var5 >> 16, var8, var24, var36, var33);
                             var4 += var30;
                             var5 += var22;
                             var8 += var20;
-                            var2 += DrawingArea.width;
+                            var2 += t.width;
                             var24 += var25;
                             var36 += var37;
                             var33 += var34;
@@ -4406,7 +4508,7 @@ public final class Rasterizer extends DrawingArea {
                     } else {
                         var1 -= var0;
                         var0 -= var2;
-                        var2 = anIntArray1472[var2];
+                        var2 = t.lineOffsets[var2];
 
                         while(true) {
                             --var0;
@@ -4417,22 +4519,22 @@ public final class Rasterizer extends DrawingArea {
                                         return;
                                     }
 
-                                    drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var2, var3 >> 16, var4 >> 16, var8, var41, var24, var36, var33, var38, var39, var40);
+                                    drawTexturedSpan(t, var2, var3 >> 16, var4 >> 16, var8, var24, var36, var33);
                                     var4 += var30;
                                     var3 += var29;
                                     var8 += var20;
-                                    var2 += DrawingArea.width;
+                                    var2 += t.width;
                                     var24 += var25;
                                     var36 += var37;
                                     var33 += var34;
                                 }
                             }
 
-                            drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var2, var5 >> 16, var4 >> 16, var8, var41, var24, var36, var33, var38, var39, var40);
+                            drawTexturedSpan(t, var2, var5 >> 16, var4 >> 16, var8, var24, var36, var33);
                             var4 += var30;
                             var5 += var22;
                             var8 += var20;
-                            var2 += DrawingArea.width;
+                            var2 += t.width;
                             var24 += var25;
                             var36 += var37;
                             var33 += var34;
@@ -4453,14 +4555,14 @@ public final class Rasterizer extends DrawingArea {
                         var1 = 0;
                     }
 
-                    var35 = var2 - textureInt2;
+                    var35 = var2 - t.centerY;
                     var24 += var25 * var35;
                     var36 += var37 * var35;
                     var33 += var34 * var35;
                     if(var30 < var22) {
                         var0 -= var1;
                         var1 -= var2;
-                        var2 = anIntArray1472[var2];
+                        var2 = t.lineOffsets[var2];
 
                         while(true) {
                             --var1;
@@ -4471,22 +4573,22 @@ public final class Rasterizer extends DrawingArea {
                                         return;
                                     }
 
-                                    drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var2, var4 >> 16, var5 >> 16, var8, var41, var24, var36, var33, var38, var39, var40);
+                                    drawTexturedSpan(t, var2, var4 >> 16, var5 >> 16, var8, var24, var36, var33);
                                     var4 += var29;
                                     var5 += var22;
                                     var8 += var20;
-                                    var2 += DrawingArea.width;
+                                    var2 += t.width;
                                     var24 += var25;
                                     var36 += var37;
                                     var33 += var34;
                                 }
                             }
 
-                            drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var2, var3 >> 16, var5 >> 16, var8, var41, var24, var36, var33, var38, var39, var40);
+                            drawTexturedSpan(t, var2, var3 >> 16, var5 >> 16, var8, var24, var36, var33);
                             var3 += var30;
                             var5 += var22;
                             var8 += var20;
-                            var2 += DrawingArea.width;
+                            var2 += t.width;
                             var24 += var25;
                             var36 += var37;
                             var33 += var34;
@@ -4494,7 +4596,7 @@ public final class Rasterizer extends DrawingArea {
                     } else {
                         var0 -= var1;
                         var1 -= var2;
-                        var2 = anIntArray1472[var2];
+                        var2 = t.lineOffsets[var2];
 
                         while(true) {
                             --var1;
@@ -4505,22 +4607,22 @@ public final class Rasterizer extends DrawingArea {
                                         return;
                                     }
 
-                                    drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var2, var5 >> 16, var4 >> 16, var8, var41, var24, var36, var33, var38, var39, var40);
+                                    drawTexturedSpan(t, var2, var5 >> 16, var4 >> 16, var8, var24, var36, var33);
                                     var4 += var29;
                                     var5 += var22;
                                     var8 += var20;
-                                    var2 += DrawingArea.width;
+                                    var2 += t.width;
                                     var24 += var25;
                                     var36 += var37;
                                     var33 += var34;
                                 }
                             }
 
-                            drawTexturedLine(DrawingArea.pixels, texturePixels, 0, 0, var2, var5 >> 16, var3 >> 16, var8, var41, var24, var36, var33, var38, var39, var40);
+                            drawTexturedSpan(t, var2, var5 >> 16, var3 >> 16, var8, var24, var36, var33);
                             var3 += var30;
                             var5 += var22;
                             var8 += var20;
-                            var2 += DrawingArea.width;
+                            var2 += t.width;
                             var24 += var25;
                             var36 += var37;
                             var33 += var34;
@@ -4531,420 +4633,112 @@ public final class Rasterizer extends DrawingArea {
         }
     }
 
-    static void drawTexturedLine(int[] var0, int[] var1, int var2, int var3, int var4, int var5, int var6, int var7, int var8, int var9, int var10, int var11, int var12, int var13, int var14) {
-        if(aBoolean1462) {
-            if(var6 > DrawingArea.centerX) {
-                var6 = DrawingArea.centerX;
-            }
-
-            if(var5 < 0) {
-                var5 = 0;
-            }
-        }
-
-        if(var5 < var6) {
-            var4 += var5;
-            var7 += var8 * var5;
-            int var17 = var6 - var5;
-            int var15;
-            int var16;
-            int var18;
-            int var19;
-            int var20;
-            int var21;
-            int var22;
-            int var23;
-            if(false) {
-                var15 = var5 - textureInt1;
-                var9 += (var12 >> 3) * var15;
-                var10 += (var13 >> 3) * var15;
-                var11 += (var14 >> 3) * var15;
-                var19 = var11 >> 12;
-                if(var19 != 0) {
-                    var20 = var9 / var19;
-                    var18 = var10 / var19;
-                    if(var20 < 0) {
-                        var20 = 0;
-                    } else if(var20 > 4032) {
-                        var20 = 4032;
-                    }
-                } else {
-                    var20 = 0;
-                    var18 = 0;
-                }
-
-                var9 += var12;
-                var10 += var13;
-                var11 += var14;
-                var19 = var11 >> 12;
-                if(var19 != 0) {
-                    var22 = var9 / var19;
-                    var16 = var10 / var19;
-                    if(var22 < 0) {
-                        var22 = 0;
-                    } else if(var22 > 4032) {
-                        var22 = 4032;
-                    }
-                } else {
-                    var22 = 0;
-                    var16 = 0;
-                }
-
-                var2 = (var20 << 20) + var18;
-                var23 = (var22 - var20 >> 3 << 20) + (var16 - var18 >> 3);
-                var17 >>= 3;
-                var8 <<= 3;
-                var21 = var7 >> 8;
-                if(aBoolean1463) {
-                    if(var17 > 0) {
-                        do {
-                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var20 = var22;
-                            var18 = var16;
-                            var9 += var12;
-                            var10 += var13;
-                            var11 += var14;
-                            var19 = var11 >> 12;
-                            if(var19 != 0) {
-                                var22 = var9 / var19;
-                                var16 = var10 / var19;
-                                if(var22 < 0) {
-                                    var22 = 0;
-                                } else if(var22 > 4032) {
-                                    var22 = 4032;
-                                }
-                            } else {
-                                var22 = 0;
-                                var16 = 0;
-                            }
-
-                            var2 = (var20 << 20) + var18;
-                            var23 = (var22 - var20 >> 3 << 20) + (var16 - var18 >> 3);
-                            var7 += var8;
-                            var21 = var7 >> 8;
-                            --var17;
-                        } while(var17 > 0);
-                    }
-
-                    var17 = var6 - var5 & 7;
-                    if(var17 > 0) {
-                        do {
-                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            --var17;
-                        } while(var17 > 0);
-
-                    }
-                } else {
-                    if(var17 > 0) {
-                        do {
-                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var20 = var22;
-                            var18 = var16;
-                            var9 += var12;
-                            var10 += var13;
-                            var11 += var14;
-                            var19 = var11 >> 12;
-                            if(var19 != 0) {
-                                var22 = var9 / var19;
-                                var16 = var10 / var19;
-                                if(var22 < 0) {
-                                    var22 = 0;
-                                } else if(var22 > 4032) {
-                                    var22 = 4032;
-                                }
-                            } else {
-                                var22 = 0;
-                                var16 = 0;
-                            }
-
-                            var2 = (var20 << 20) + var18;
-                            var23 = (var22 - var20 >> 3 << 20) + (var16 - var18 >> 3);
-                            var7 += var8;
-                            var21 = var7 >> 8;
-                            --var17;
-                        } while(var17 > 0);
-                    }
-
-                    var17 = var6 - var5 & 7;
-                    if(var17 > 0) {
-                        do {
-                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            --var17;
-                        } while(var17 > 0);
-
-                    }
-                }
+    /**
+     * Draws one row of a textured triangle using the per-triangle values {@link #drawTexturedTriangle} left in the
+     * target. The texture coordinates are divided through by depth every 8 pixels and stepped linearly in between.
+     * @param shade the light level at the left edge, in 8.8 fixed point
+     * @param u the u numerator at the centre column; v and w are the v numerator and the depth term
+     */
+    static void drawTexturedSpan(Target t, int offset, int x1, int x2, int shade, int u, int v, int w) {
+        if (offset < t.topOffset) {
+            return;
+        }
+        if (t.restrictEdges) {
+            if (x2 > t.clipRight) {
+                x2 = t.clipRight;
+            }
+            if (x1 < 0) {
+                x1 = 0;
+            }
+        }
+        if (x1 >= x2) {
+            return;
+        }
+        int[] dest = t.pixels;
+        int[] texels = t.spanTexels;
+        boolean opaque = t.opaqueTexture;
+        int uStep = t.spanUStep;
+        int vStep = t.spanVStep;
+        int wStep = t.spanWStep;
+        int length = x2 - x1;
+        t.pixelCount += length;
+        offset += x1;
+        shade += t.spanShadeStep * x1;
+        int dx = x1 - t.centerX;
+        u += (uStep >> 3) * dx;
+        v += (vStep >> 3) * dx;
+        w += (wStep >> 3) * dx;
+        int depth = w >> 14;
+        int startU = depth != 0 ? clampTexelU(u / depth) : 0;
+        int startV = depth != 0 ? v / depth : 0;
+        int shadeStep = t.spanShadeStep << 3;
+        for (int blocks = length >> 3; ; blocks--) {
+            u += uStep;
+            v += vStep;
+            w += wStep;
+            depth = w >> 14;
+            int endU = depth != 0 ? clampTexelU(u / depth) : 0;
+            int endV = depth != 0 ? v / depth : 0;
+            int texel = (startU << 18) + startV;
+            int step = (endU - startU >> 3 << 18) + (endV - startV >> 3);
+            int count = blocks > 0 ? 8 : length & 7;
+            if (opaque) {
+                drawOpaqueTexels(dest, offset, texels, texel, step, shade >> 8, count);
             } else {
-                var15 = var5 - textureInt1;
-                var9 += (var12 >> 3) * var15;
-                var10 += (var13 >> 3) * var15;
-                var11 += (var14 >> 3) * var15;
-                var19 = var11 >> 14;
-                if(var19 != 0) {
-                    var20 = var9 / var19;
-                    var18 = var10 / var19;
-                    if(var20 < 0) {
-                        var20 = 0;
-                    } else if(var20 > 16256) {
-                        var20 = 16256;
-                    }
-                } else {
-                    var20 = 0;
-                    var18 = 0;
-                }
-
-                var9 += var12;
-                var10 += var13;
-                var11 += var14;
-                var19 = var11 >> 14;
-                if(var19 != 0) {
-                    var22 = var9 / var19;
-                    var16 = var10 / var19;
-                    if(var22 < 0) {
-                        var22 = 0;
-                    } else if(var22 > 16256) {
-                        var22 = 16256;
-                    }
-                } else {
-                    var22 = 0;
-                    var16 = 0;
-                }
-
-                var2 = (var20 << 18) + var18;
-                var23 = (var22 - var20 >> 3 << 18) + (var16 - var18 >> 3);
-                var17 >>= 3;
-                var8 <<= 3;
-                var21 = var7 >> 8;
-                if(aBoolean1463) {
-                    if(var17 > 0) {
-                        do {
-                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var20 = var22;
-                            var18 = var16;
-                            var9 += var12;
-                            var10 += var13;
-                            var11 += var14;
-                            var19 = var11 >> 14;
-                            if(var19 != 0) {
-                                var22 = var9 / var19;
-                                var16 = var10 / var19;
-                                if(var22 < 0) {
-                                    var22 = 0;
-                                } else if(var22 > 16256) {
-                                    var22 = 16256;
-                                }
-                            } else {
-                                var22 = 0;
-                                var16 = 0;
-                            }
-
-                            var2 = (var20 << 18) + var18;
-                            var23 = (var22 - var20 >> 3 << 18) + (var16 - var18 >> 3);
-                            var7 += var8;
-                            var21 = var7 >> 8;
-                            --var17;
-                        } while(var17 > 0);
-                    }
-
-                    var17 = var6 - var5 & 7;
-                    if(var17 > 0) {
-                        do {
-                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
-                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            var2 += var23;
-                            --var17;
-                        } while(var17 > 0);
-
-                    }
-                } else {
-                    if(var17 > 0) {
-                        do {
-                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var2 += var23;
-                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
-
-                            ++var4;
-                            var20 = var22;
-                            var18 = var16;
-                            var9 += var12;
-                            var10 += var13;
-                            var11 += var14;
-                            var19 = var11 >> 14;
-                            if(var19 != 0) {
-                                var22 = var9 / var19;
-                                var16 = var10 / var19;
-                                if(var22 < 0) {
-                                    var22 = 0;
-                                } else if(var22 > 16256) {
-                                    var22 = 16256;
-                                }
-                            } else {
-                                var22 = 0;
-                                var16 = 0;
-                            }
+                drawTransparentTexels(dest, offset, texels, texel, step, shade >> 8, count);
+            }
+            if (blocks == 0) {
+                return;
+            }
+            offset += 8;
+            shade += shadeStep;
+            startU = endU;
+            startV = endV;
+        }
+    }
 
-                            var2 = (var20 << 18) + var18;
-                            var23 = (var22 - var20 >> 3 << 18) + (var16 - var18 >> 3);
-                            var7 += var8;
-                            var21 = var7 >> 8;
-                            --var17;
-                        } while(var17 > 0);
-                    }
+    /**
+     * Looks up a texel of a materialized texture, at a position packing the column in its top 7 bits and the row
+     * in bits 7 to 13, and lights it with the colour.
+     */
+    private static int materializedTexel(int[] texels, int texel, int level, int hsl) {
+        int position = (texel & 0x3f80) + (texel >>> 25);
+        int rgb = texels[((position & 127) >> level) + ((position >> 7 >> level) << 7 - level)];
+        int light = ((hsl >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3) / 384;
+        if (light > 127) {
+            light = 127;
+        }
+        return hslToRgb[(hsl >> 8 & 0xff80) | light];
+    }
 
-                    var17 = var6 - var5 & 7;
-                    if(var17 > 0) {
-                        do {
-                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
-                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
-                            }
+    private static int clampTexelU(int u) {
+        return u < 0 ? 0 : u > 16256 ? 16256 : u;
+    }
 
-                            ++var4;
-                            var2 += var23;
-                            --var17;
-                        } while(var17 > 0);
+    /**
+     * Writes {@code count} texels shaded by {@code light}. The texel position packs u in its top 14 bits and v
+     * in its bottom 18.
+     */
+    private static void drawOpaqueTexels(int[] dest, int offset, int[] texels, int texel, int step, int light,
+                                         int count) {
+        for (int i = 0; i < count; i++) {
+            int rgb = texels[(texel & 16256) + (texel >>> 25)];
+            dest[offset + i] = ((rgb & 0xff00ff) * light & 0xff00ff00) + ((rgb & 0xff00) * light & 0xff0000) >> 8;
+            texel += step;
+        }
+    }
 
-                    }
-                }
-            }
+    /**
+     * As {@link #drawOpaqueTexels}, leaving the pixels under transparent texels alone.
+     */
+    private static void drawTransparentTexels(int[] dest, int offset, int[] texels, int texel, int step, int light,
+                                              int count) {
+        for (int i = 0; i < count; i++) {
+            int rgb = texels[(texel & 16256) + (texel >>> 25)];
+            if (rgb != 0) {
+                dest[offset + i] = ((rgb & 0xff00ff) * light & 0xff00ff00) + ((rgb & 0xff00) * light & 0xff0000) >> 8;
+            }
+            texel += step;
         }
     }
 
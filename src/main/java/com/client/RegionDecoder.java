@@ -0,0 +1,153 @@
+package com.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decodes the terrain of a new region on a worker thread while the client waits for the rest of it.
+ *
+ * The tile heights, flags, underlays and overlays and the blended underlay colours only depend on the
+ * terrain files, so they are decoded into a staging {@link ObjectManager} with its own height and flag
+ * arrays as soon as those files have arrived. {@link #finish} then copies the heights and flags over the
+ * live ones on the game thread, where the collision maps, the objects and the {@link WorldController}
+ * scene are built as before.
+ */
+final class RegionDecoder {
+
+	private static final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "RegionDecoder");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.NORM_PRIORITY - 1);
+		return thread;
+	});
+
+	private final byte[][] terrainData;
+	/** The squares decoded, as plane, x, y and size, whose tiles are marked loaded in the collision maps. */
+	private final List<int[]> decodedSquares = new ArrayList<>();
+	private final CompletableFuture<ObjectManager> staged;
+
+	private RegionDecoder(byte[][] terrainData, int[] mapCoordinates, int baseX, int baseY, int regionX,
+			int regionY, int[][][] constructionRegionData, int[][][] heights, boolean blend) {
+		this.terrainData = terrainData;
+		byte[][] terrain = terrainData.clone();
+		int[] coordinates = mapCoordinates.clone();
+		int[][][] chunks = constructionRegionData == null ? null : copy(constructionRegionData);
+		int[][][] stagedHeights = copy(heights);
+		staged = CompletableFuture.supplyAsync(() -> {
+			ObjectManager objectManager = new ObjectManager(new byte[4][104][104], stagedHeights);
+			if (chunks == null)
+				decode(objectManager, terrain, coordinates, baseX, baseY, regionX, regionY);
+			else
+				decodeDynamic(objectManager, terrain, coordinates, chunks);
+			if (blend)
+				objectManager.blendUnderlays();
+			return objectManager;
+		}, worker);
+	}
+
+	/**
+	 * Starts decoding the terrain of a region.
+	 * @param constructionRegionData the chunks of a dynamic region, or null
+	 * @param heights the live tile heights, which tiles without terrain keep
+	 * @param blend whether to blend the underlays of the whole region, or leave the chunks to rebuild to
+	 *            {@link ObjectManager#createRegionScene}
+	 */
+	static RegionDecoder start(byte[][] terrainData, int[] mapCoordinates, int baseX, int baseY, int regionX,
+			int regionY, int[][][] constructionRegionData, int[][][] heights, boolean blend) {
+		return new RegionDecoder(terrainData, mapCoordinates, baseX, baseY, regionX, regionY,
+				constructionRegionData, heights, blend);
+	}
+
+	/**
+	 * @return whether this is decoding the given terrain files, which are a new array for each region
+	 */
+	boolean isFor(byte[][] terrainData) {
+		return this.terrainData == terrainData;
+	}
+
+	boolean isDone() {
+		return staged.isDone();
+	}
+
+	/**
+	 * Waits for the terrain, copies its heights and flags over the live arrays and marks its tiles loaded in
+	 * the collision maps. Must be called on the game thread.
+	 * @return the object manager to place the objects and build the scene with
+	 */
+	ObjectManager finish(CollisionMap[] collisionMaps, byte[][][] flags, int[][][] heights) {
+		ObjectManager objectManager = staged.join();
+		// Lowered by the objects and tiles placed from here on, all on the game thread
+		ObjectManager.maximumPlane = 99;
+		objectManager.copyGround(flags, heights);
+		for (int[] square : decodedSquares)
+			ObjectManager.markTerrainLoaded(collisionMaps[square[0]], square[1], square[2], square[3]);
+		return objectManager;
+	}
+
+	private void decode(ObjectManager objectManager, byte[][] terrain, int[] coordinates, int baseX, int baseY,
+			int regionX, int regionY) {
+		for (int i = 0; i < terrain.length; i++) {
+			int x = (coordinates[i] >> 8) * 64 - baseX;
+			int y = (coordinates[i] & 0xff) * 64 - baseY;
+			if (terrain[i] != null) {
+				objectManager.method180(terrain[i], y, x, (regionX - 6) * 8, (regionY - 6) * 8, null);
+				for (int plane = 0; plane < 4; plane++)
+					decoded(plane, x, y, 64);
+			}
+		}
+		for (int i = 0; i < terrain.length; i++) {
+			int x = (coordinates[i] >> 8) * 64 - baseX;
+			int y = (coordinates[i] & 0xff) * 64 - baseY;
+			if (terrain[i] == null && regionY < 800)
+				objectManager.initiateVertexHeights(y, 64, 64, x);
+		}
+	}
+
+	private void decodeDynamic(ObjectManager objectManager, byte[][] terrain, int[] coordinates, int[][][] chunks) {
+		for (int plane = 0; plane < 4; plane++) {
+			for (int x = 0; x < 13; x++) {
+				for (int y = 0; y < 13; y++) {
+					int chunk = chunks[plane][x][y];
+					if (chunk != -1) {
+						int sourcePlane = chunk >> 24 & 3;
+						int rotation = chunk >> 1 & 3;
+						int chunkX = chunk >> 14 & 0x3ff;
+						int chunkY = chunk >> 3 & 0x7ff;
+						int coordinate = (chunkX / 8 << 8) + chunkY / 8;
+						for (int i = 0; i < coordinates.length; i++) {
+							if (coordinates[i] != coordinate || terrain[i] == null)
+								continue;
+							objectManager.method179(sourcePlane, rotation, null, x * 8, (chunkX & 7) * 8, terrain[i],
+									(chunkY & 7) * 8, plane, y * 8);
+							decoded(plane, x * 8, y * 8, 8);
+							break;
+						}
+					}
+				}
+			}
+		}
+		for (int x = 0; x < 13; x++) {
+			for (int y = 0; y < 13; y++) {
+				if (chunks[0][x][y] == -1)
+					objectManager.initiateVertexHeights(y * 8, 8, 8, x * 8);
+			}
+		}
+	}
+
+	private void decoded(int plane, int x, int y, int size) {
+		decodedSquares.add(new int[] { plane, x, y, size });
+	}
+
+	private static int[][][] copy(int[][][] array) {
+		int[][][] copy = new int[array.length][][];
+		for (int i = 0; i < array.length; i++) {
+			copy[i] = new int[array[i].length][];
+			for (int j = 0; j < array[i].length; j++)
+				copy[i][j] = array[i][j].clone();
+		}
+		return copy;
+	}
+}
@@ -0,0 +1,257 @@
+package com.client;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+import com.client.sign.Signlink;
+
+/**
+ * Counts what the 3D pipeline did each frame and how long its passes took.
+ *
+ * The rasterizer and model code bump the counters while a frame is drawn, and {@link #endFrame()} copies
+ * them into a ring holding the last {@value #HISTORY} frames. The dev console command {@code renderstats}
+ * shows the last frame over the game screen and {@code renderstats export} starts or stops a rolling CSV
+ * export in the cache directory, which gets the frames recorded so far and then new ones every
+ * {@value #FLUSH_FRAMES} frames.
+ */
+public final class RenderStats {
+
+	static final int SCENE = 0;
+	static final int FOG = 1;
+	static final int PARTICLES = 2;
+	static final int RESOLVE = 3;
+	static final int UI = 4;
+	private static final int STAGES = 5;
+
+	private static final int HISTORY = 3600;
+	private static final int FLUSH_FRAMES = 250;
+	private static final String[] COLUMNS = { "time_ms", "models_submitted", "models_culled", "models_occluded",
+			"tiles_occluded", "flat_triangles",
+			"gouraud_triangles", "textured_triangles", "materialized_triangles", "pixels_written",
+			"texture_lookups", "texture_misses", "texture_evictions", "texture_kb", "pooled_models", "allocated_kb", "scene_us", "fog_us", "particles_us", "resolve_us", "ui_us",
+			"region_load_us", "frame_us" };
+
+	/** Whether the last frame's numbers are drawn over the game screen. */
+	public static boolean overlay;
+
+	static int modelsSubmitted;
+	static int modelsDrawn;
+	static int modelsOccluded;
+	static int tilesOccluded;
+	static int flatTriangles;
+	static int gouraudTriangles;
+	static int texturedTriangles;
+	static int materializedTriangles;
+	static int textureMisses;
+	static int textureEvictions;
+
+	private static final long[] stageNanos = new long[STAGES];
+	private static int textureLookupsAtStart;
+	private static long allocatedAtStart;
+	private static long frameStart;
+	private static long regionLoadMicros;
+	private static long lastRegionLoadMicros;
+
+	private static final long[][] history = new long[HISTORY][COLUMNS.length];
+	private static int frames;
+
+	private static File exportFile;
+	private static BufferedWriter exportWriter;
+	private static int exportedFrames;
+
+	private RenderStats() {
+	}
+
+	/**
+	 * Clears the counters for a new frame.
+	 */
+	static void beginFrame() {
+		modelsSubmitted = 0;
+		modelsDrawn = 0;
+		modelsOccluded = 0;
+		tilesOccluded = 0;
+		flatTriangles = 0;
+		gouraudTriangles = 0;
+		texturedTriangles = 0;
+		materializedTriangles = 0;
+		textureMisses = 0;
+		textureEvictions = 0;
+		Rasterizer.takePixelCount();
+		Arrays.fill(stageNanos, 0);
+		textureLookupsAtStart = Rasterizer.lastTextureRetrievalCount;
+		allocatedAtStart = allocatedBytes();
+		frameStart = System.nanoTime();
+	}
+
+	/**
+	 * Adds the time since {@code startNanos}, taken from {@link System#nanoTime()}, to a stage.
+	 */
+	static void addTime(int stage, long startNanos) {
+		stageNanos[stage] += System.nanoTime() - startNanos;
+	}
+
+	/**
+	 * Records how long a region rebuild took, started at {@code startNanos} from {@link System#nanoTime()}.
+	 * It is recorded with the next frame.
+	 */
+	static void regionLoaded(long startNanos) {
+		regionLoadMicros += (System.nanoTime() - startNanos) / 1000;
+		lastRegionLoadMicros = regionLoadMicros;
+	}
+
+	/**
+	 * Records the frame started by {@link #beginFrame()} in the ring.
+	 */
+	static void endFrame() {
+		long[] row = history[frames++ % HISTORY];
+		int column = 0;
+		row[column++] = System.currentTimeMillis();
+		row[column++] = modelsSubmitted;
+		row[column++] = modelsSubmitted - modelsDrawn;
+		row[column++] = modelsOccluded;
+		row[column++] = tilesOccluded;
+		row[column++] = flatTriangles;
+		row[column++] = gouraudTriangles;
+		row[column++] = texturedTriangles;
+		row[column++] = materializedTriangles;
+		row[column++] = Rasterizer.takePixelCount();
+		row[column++] = Rasterizer.lastTextureRetrievalCount - textureLookupsAtStart;
+		row[column++] = textureMisses;
+		row[column++] = textureEvictions;
+		row[column++] = TextureResidency.allocatedBytes() / 1024;
+		row[column++] = ModelPool.used();
+		long allocated = allocatedBytes();
+		row[column++] = allocated < 0 || allocatedAtStart < 0 ? -1 : (allocated - allocatedAtStart) / 1024;
+		for (int stage = 0; stage < STAGES; stage++)
+			row[column++] = stageNanos[stage] / 1000;
+		row[column++] = regionLoadMicros;
+		regionLoadMicros = 0;
+		row[column] = (System.nanoTime() - frameStart) / 1000;
+		if (exportWriter != null && frames - exportedFrames >= FLUSH_FRAMES) {
+			try {
+				writeFrames();
+			} catch (IOException e) {
+				e.printStackTrace();
+				closeExport();
+			}
+		}
+	}
+
+	/**
+	 * @return the last recorded frame as lines of overlay text
+	 */
+	public static String[] overlayLines() {
+		if (frames == 0)
+			return new String[0];
+		long[] row = history[(frames - 1) % HISTORY];
+		return new String[] {
+				"Models: " + row[1] + " (" + row[2] + " culled)",
+				"Occluded: " + row[3] + " models " + row[4] + " tiles",
+				"Flat: " + row[5] + " Gouraud: " + row[6],
+				"Textured: " + row[7] + " Material: " + row[8],
+				"Pixels: " + row[9],
+				"Textures: " + row[10] + " (" + row[11] + " missed, " + row[12] + " evicted)",
+				"Texture memory: " + row[13] + "KB",
+				"Pooled models: " + row[14] + " Allocated: " + row[15] + "KB",
+				"Scene: " + millis(row[16]) + " Fog: " + millis(row[17]),
+				"Particles: " + millis(row[18]) + " AA: " + millis(row[19]),
+				"UI: " + millis(row[20]) + " Frame: " + millis(row[22]),
+				"Last region load: " + millis(lastRegionLoadMicros),
+		};
+	}
+
+	/**
+	 * @return the bytes allocated so far by the calling thread, or -1 where the JVM does not count them
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return -1;
+		return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static String millis(long micros) {
+		return micros / 1000 + "." + micros / 100 % 10 + "ms";
+	}
+
+	/**
+	 * @return whether frames are being appended to an export file
+	 */
+	public static boolean isExporting() {
+		return exportWriter != null;
+	}
+
+	/**
+	 * Starts a new CSV file in the cache directory with the frames recorded so far, oldest first. Later frames
+	 * are appended to it as they are recorded until {@link #stopExport()}.
+	 * @return the file written
+	 */
+	public static File startExport() throws IOException {
+		if (exportWriter != null)
+			return exportFile;
+		File file = new File(Signlink.getCacheDirectory() + "render_stats_" + System.currentTimeMillis() + ".csv");
+		exportWriter = new BufferedWriter(new FileWriter(file));
+		exportFile = file;
+		exportedFrames = Math.max(0, frames - HISTORY);
+		try {
+			exportWriter.write(String.join(",", COLUMNS));
+			exportWriter.newLine();
+			writeFrames();
+		} catch (IOException e) {
+			closeExport();
+			throw e;
+		}
+		return file;
+	}
+
+	/**
+	 * Appends the frames not yet written and closes the export file.
+	 * @return the file written, or null if nothing was being exported
+	 */
+	public static File stopExport() throws IOException {
+		File file = exportFile;
+		if (exportWriter == null)
+			return null;
+		try {
+			writeFrames();
+		} finally {
+			closeExport();
+		}
+		return file;
+	}
+
+	/**
+	 * Appends the frames recorded since the last write. Frames that already left the ring are skipped.
+	 */
+	private static void writeFrames() throws IOException {
+		StringBuilder line = new StringBuilder();
+		for (int i = Math.max(exportedFrames, frames - HISTORY); i < frames; i++) {
+			long[] row = history[i % HISTORY];
+			line.setLength(0);
+			for (int column = 0; column < row.length; column++) {
+				if (column > 0)
+					line.append(',');
+				line.append(row[column]);
+			}
+			exportWriter.write(line.toString());
+			exportWriter.newLine();
+		}
+		exportedFrames = frames;
+		exportWriter.flush();
+	}
+
+	private static void closeExport() {
+		try {
+			exportWriter.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		exportWriter = null;
+		exportFile = null;
+	}
+}
@@ -0,0 +1,58 @@
+package com.client;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The worker threads shared by the passes that split a frame into rows.
+ */
+final class RenderWorkers {
+
+	interface RowRange {
+		void run(int from, int to);
+	}
+
+	private static final int PARALLELISM = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+	private static ForkJoinPool pool;
+
+	private RenderWorkers() {
+	}
+
+	/**
+	 * Runs the task over rows [0, rows), split into ranges of at least {@code minRows} rows that run in
+	 * parallel. Returns once every range has finished.
+	 */
+	static void forRows(int rows, int minRows, RowRange task) {
+		if (rows <= minRows || Runtime.getRuntime().availableProcessors() == 1) {
+			task.run(0, rows);
+			return;
+		}
+		if (pool == null)
+			pool = new ForkJoinPool(PARALLELISM);
+		pool.invoke(new Split(task, 0, rows, Math.max(minRows, rows / (PARALLELISM * 4))));
+	}
+
+	private static final class Split extends RecursiveAction {
+		private final RowRange task;
+		private final int from;
+		private final int to;
+		private final int grain;
+
+		private Split(RowRange task, int from, int to, int grain) {
+			this.task = task;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				task.run(from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new Split(task, from, middle, grain), new Split(task, middle, to, grain));
+		}
+	}
+}
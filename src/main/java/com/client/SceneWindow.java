@@ -0,0 +1,208 @@
+package com.client;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the scene of the last region built so that a region change of whole 8 by 8 tile chunks only builds
+ * the chunks it changes.
+ *
+ * {@link #slide} moves the scene, the collision maps, the tile heights and flags and the shading and occluder
+ * flags the scene was built from by the change of the region base. {@link #prepare} then empties the chunks to
+ * build again: the chunks that came in and the ring around them, whose blending, lighting and edges depend on
+ * them, and the chunks next to the ones that left, which lose the shading those cast and the objects the new
+ * scene edge cuts off. Objects spanning chunks pull their chunks in together.
+ */
+final class SceneWindow {
+
+	private static final int CHUNKS = 13;
+
+	/** The shading {@link ObjectManager} lit the tiles with. */
+	final byte[][][] shading = new byte[4][105][105];
+	/** The occluder flags {@link ObjectManager} made the clusters from. */
+	final int[][][] occlusion = new int[4][105][105];
+	/** The chunks that came in since the last build. */
+	private boolean[][] entered = new boolean[CHUNKS][CHUNKS];
+	/** The chunks next to ones that left since the last build, whose shading and occluder flags are cleared. */
+	private boolean[][] cleared = new boolean[CHUNKS][CHUNKS];
+	private boolean built;
+
+	/**
+	 * Makes the next build a full one.
+	 */
+	void invalidate() {
+		built = false;
+	}
+
+	/**
+	 * @return whether the next build keeps some of the scene, leaving the blending to it
+	 */
+	boolean hasKeptChunks() {
+		return built;
+	}
+
+	/**
+	 * Moves the scene by the change of the region base, if it is one of whole chunks and the last build is
+	 * whole.
+	 * @return whether the scene was moved, or the next build has to be a full one
+	 */
+	boolean slide(int dx, int dy, WorldController worldController, CollisionMap[] collisionMaps, byte[][][] flags,
+			int[][][] heights) {
+		if (!built || (dx & 7) != 0 || (dy & 7) != 0)
+			return false;
+		int chunkDx = dx >> 3;
+		int chunkDy = dy >> 3;
+		if (Math.abs(chunkDx) >= CHUNKS || Math.abs(chunkDy) >= CHUNKS)
+			return false;
+		boolean[][] movedEntered = new boolean[CHUNKS][CHUNKS];
+		boolean[][] movedCleared = new boolean[CHUNKS][CHUNKS];
+		boolean[][] newlyCleared = new boolean[CHUNKS][CHUNKS];
+		for (int x = 0; x < CHUNKS; x++) {
+			for (int y = 0; y < CHUNKS; y++) {
+				int fromX = x + chunkDx;
+				int fromY = y + chunkDy;
+				if (inScene(fromX, fromY)) {
+					movedEntered[x][y] = entered[fromX][fromY];
+					movedCleared[x][y] = cleared[fromX][fromY];
+				} else {
+					movedEntered[x][y] = true;
+				}
+				if (!movedEntered[x][y] && nextToLeft(x, y, chunkDx, chunkDy))
+					newlyCleared[x][y] = movedCleared[x][y] = true;
+			}
+		}
+		entered = movedEntered;
+		cleared = movedCleared;
+		for (int plane = 0; plane < 4; plane++) {
+			shift(shading[plane], dx, dy, 105);
+			shift(occlusion[plane], dx, dy, 105);
+			for (int x = 0; x < 105; x++) {
+				for (int y = 0; y < 105; y++)
+					if (newlyCleared[Math.min(x >> 3, CHUNKS - 1)][Math.min(y >> 3, CHUNKS - 1)]) {
+						shading[plane][x][y] = 0;
+						occlusion[plane][x][y] = 0;
+					}
+			}
+			// The heights past the last tile are never decoded, so a full build leaves them as they are
+			shift(heights[plane], dx, dy, 104);
+			shift(flags[plane], dx, dy, 104);
+		}
+		worldController.shiftChunks(dx, dy);
+		for (CollisionMap collisionMap : collisionMaps)
+			collisionMap.shift(dx, dy);
+		return true;
+	}
+
+	/**
+	 * Empties the chunks the next build has to build, or the whole scene when it has to be a full one.
+	 * @return the chunks to build, or null to build the whole scene
+	 */
+	boolean[][] prepare(WorldController worldController, CollisionMap[] collisionMaps) {
+		boolean[][] chunks = built ? chunksToBuild() : null;
+		built = false;
+		if (chunks != null) {
+			worldController.joinChunks(chunks);
+			if (isWhole(chunks))
+				chunks = null;
+		}
+		if (chunks == null) {
+			worldController.initToNull();
+			for (CollisionMap collisionMap : collisionMaps)
+				collisionMap.setDefault();
+			for (int plane = 0; plane < 4; plane++) {
+				for (int x = 0; x < 105; x++) {
+					Arrays.fill(shading[plane][x], (byte) 0);
+					Arrays.fill(occlusion[plane][x], 0);
+				}
+			}
+			return null;
+		}
+		worldController.clearClusters();
+		worldController.releaseChunks(chunks);
+		for (CollisionMap collisionMap : collisionMaps)
+			collisionMap.resetChunks(chunks);
+		return chunks;
+	}
+
+	/**
+	 * Marks the scene built, for the next region change to slide.
+	 */
+	void finished() {
+		built = true;
+		for (int x = 0; x < CHUNKS; x++) {
+			Arrays.fill(entered[x], false);
+			Arrays.fill(cleared[x], false);
+		}
+	}
+
+	private boolean[][] chunksToBuild() {
+		boolean[][] chunks = new boolean[CHUNKS][CHUNKS];
+		for (int x = 0; x < CHUNKS; x++) {
+			for (int y = 0; y < CHUNKS; y++) {
+				if (entered[x][y])
+					mark(chunks, x - 1, y - 1, x + 1, y + 1);
+				// The chunks behind a cleared one cast their shading and occluder flags on it again
+				if (cleared[x][y])
+					mark(chunks, x - 1, y - 1, x, y);
+			}
+		}
+		return chunks;
+	}
+
+	/**
+	 * @return whether a chunk in the scene has a neighbour that was in the scene before the move but is not now
+	 */
+	private static boolean nextToLeft(int x, int y, int chunkDx, int chunkDy) {
+		for (int i = x - 1; i <= x + 1; i++) {
+			for (int j = y - 1; j <= y + 1; j++)
+				if (!inScene(i, j) && inScene(i + chunkDx, j + chunkDy))
+					return true;
+		}
+		return false;
+	}
+
+	private static boolean inScene(int x, int y) {
+		return x >= 0 && y >= 0 && x < CHUNKS && y < CHUNKS;
+	}
+
+	private static void mark(boolean[][] chunks, int x0, int y0, int x1, int y1) {
+		for (int x = Math.max(x0, 0); x <= Math.min(x1, CHUNKS - 1); x++) {
+			for (int y = Math.max(y0, 0); y <= Math.min(y1, CHUNKS - 1); y++)
+				chunks[x][y] = true;
+		}
+	}
+
+	private static boolean isWhole(boolean[][] chunks) {
+		for (boolean[] column : chunks) {
+			for (boolean chunk : column)
+				if (!chunk)
+					return false;
+		}
+		return true;
+	}
+
+	private static void shift(int[][] tiles, int dx, int dy, int size) {
+		int[][] old = new int[size][];
+		for (int x = 0; x < size; x++)
+			old[x] = Arrays.copyOf(tiles[x], size);
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				int fromX = x + dx;
+				int fromY = y + dy;
+				tiles[x][y] = fromX >= 0 && fromY >= 0 && fromX < size && fromY < size ? old[fromX][fromY] : 0;
+			}
+		}
+	}
+
+	private static void shift(byte[][] tiles, int dx, int dy, int size) {
+		byte[][] old = new byte[size][];
+		for (int x = 0; x < size; x++)
+			old[x] = Arrays.copyOf(tiles[x], size);
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				int fromX = x + dx;
+				int fromY = y + dy;
+				tiles[x][y] = fromX >= 0 && fromY >= 0 && fromX < size && fromY < size ? old[fromX][fromY] : 0;
+			}
+		}
+	}
+}
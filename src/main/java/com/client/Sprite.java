@@ -8,8 +8,8 @@ import java.awt.image.ColorModel;
 import java.awt.image.MemoryImageSource;
 import java.awt.image.PixelGrabber;
 import java.io.File;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.ImageIcon;
 
@@ -31,7 +31,7 @@ public class Sprite extends DrawingArea {
 	private String spriteLocation;
 	public static int loadedSprites;
 
-	private static final Map<String, Sprite> sprites = new HashMap<>();
+	private static final Map<String, Sprite> sprites = new ConcurrentHashMap<>();
 
 
 	public Sprite(String img) {
@@ -0,0 +1,179 @@
+package com.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The client start up as a graph of stages with declared dependencies.
+ *
+ * A stage runs as soon as every stage it depends on has completed, on the given executor, or on the thread
+ * calling {@link #run} if it was added with {@link #addOnMainThread} (anything that draws or shares state
+ * with the loading screen). Progress callbacks are always made on the calling thread. If a stage fails,
+ * the stages depending on it are skipped and the failure is rethrown once everything else has finished.
+ */
+public final class StartupGraph {
+
+	public interface Task {
+		void run() throws Exception;
+	}
+
+	public interface ProgressListener {
+		void stageCompleted(Stage stage, int completed, int total);
+	}
+
+	public static final class Stage {
+		private final String name;
+		private final Task task;
+		private final boolean mainThread;
+		private final Stage[] dependencies;
+		private CompletableFuture<Void> future;
+		private String threadName;
+		private long startNanos;
+		private long wallNanos;
+		private long cpuNanos = -1;
+
+		private Stage(String name, Task task, boolean mainThread, Stage[] dependencies) {
+			this.name = name;
+			this.task = task;
+			this.mainThread = mainThread;
+			this.dependencies = dependencies;
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+
+	private final List<Stage> stages = new ArrayList<>();
+	private final BlockingQueue<Runnable> mainThreadQueue = new LinkedBlockingQueue<>();
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private long runStartNanos;
+	private long runNanos;
+	private int parallelism;
+
+	public Stage add(String name, Task task, Stage... dependencies) {
+		return add(name, task, false, dependencies);
+	}
+
+	public Stage addOnMainThread(String name, Task task, Stage... dependencies) {
+		return add(name, task, true, dependencies);
+	}
+
+	private Stage add(String name, Task task, boolean mainThread, Stage... dependencies) {
+		Stage stage = new Stage(name, task, mainThread, dependencies);
+		stages.add(stage);
+		return stage;
+	}
+
+	/**
+	 * Runs every stage, blocking until all of them have completed or been skipped.
+	 * @param executor runs the stages that aren't bound to the calling thread
+	 * @param parallelism the number of worker threads, for the report
+	 * @param listener told about each completed stage
+	 * @throws Exception the first exception thrown by a stage
+	 */
+	public void run(Executor executor, int parallelism, ProgressListener listener) throws Exception {
+		this.parallelism = parallelism;
+		runStartNanos = System.nanoTime();
+		Executor mainThread = mainThreadQueue::add;
+		for (Stage stage : stages) {
+			CompletableFuture<?>[] dependencies = new CompletableFuture<?>[stage.dependencies.length];
+			for (int i = 0; i < dependencies.length; i++) {
+				dependencies[i] = stage.dependencies[i].future;
+				if (dependencies[i] == null)
+					throw new IllegalStateException(stage.name + " depends on a stage added after it");
+			}
+			stage.future = CompletableFuture.allOf(dependencies).thenRunAsync(() -> execute(stage),
+					stage.mainThread ? mainThread : executor);
+		}
+
+		Throwable failure = null;
+		int completed = 0;
+		int finished = 0;
+		for (Stage stage : stages)
+			stage.future.whenComplete((result, error) -> mainThreadQueue.add(new StageFinished(stage, error)));
+		while (finished < stages.size()) {
+			Runnable next = mainThreadQueue.take();
+			if (!(next instanceof StageFinished)) {
+				next.run();
+				continue;
+			}
+			StageFinished done = (StageFinished) next;
+			finished++;
+			if (done.error == null) {
+				listener.stageCompleted(done.stage, ++completed, stages.size());
+			} else if (failure == null) {
+				failure = done.error instanceof CompletionException && done.error.getCause() != null
+						? done.error.getCause() : done.error;
+			}
+		}
+		runNanos = System.nanoTime() - runStartNanos;
+
+		if (failure instanceof Exception)
+			throw (Exception) failure;
+		if (failure != null)
+			throw new CompletionException(failure);
+	}
+
+	private void execute(Stage stage) {
+		stage.threadName = Thread.currentThread().getName();
+		boolean cpuTime = threads.isCurrentThreadCpuTimeSupported();
+		long cpuStart = cpuTime ? threads.getCurrentThreadCpuTime() : 0;
+		stage.startNanos = System.nanoTime();
+		try {
+			stage.task.run();
+		} catch (Exception e) {
+			throw new CompletionException(e);
+		} finally {
+			stage.wallNanos = System.nanoTime() - stage.startNanos;
+			if (cpuTime)
+				stage.cpuNanos = threads.getCurrentThreadCpuTime() - cpuStart;
+		}
+	}
+
+	/**
+	 * Writes the wall clock and CPU time of every stage that ran, in the order they started.
+	 */
+	public void writeReport(File file) throws IOException {
+		List<Stage> ran = new ArrayList<>();
+		for (Stage stage : stages)
+			if (stage.threadName != null)
+				ran.add(stage);
+		ran.sort(Comparator.comparingLong(stage -> stage.startNanos));
+		try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+			writer.printf("# start up took %d ms, %d stages, %d worker threads%n", runNanos / 1_000_000L,
+					stages.size(), parallelism);
+			writer.println("stage,thread,start_ms,wall_ms,cpu_ms");
+			for (Stage stage : ran) {
+				writer.printf("%s,%s,%d,%d,%s%n", stage.name, stage.threadName,
+						(stage.startNanos - runStartNanos) / 1_000_000L, stage.wallNanos / 1_000_000L,
+						stage.cpuNanos < 0 ? "" : String.valueOf(stage.cpuNanos / 1_000_000L));
+			}
+		}
+	}
+
+	private static final class StageFinished implements Runnable {
+		private final Stage stage;
+		private final Throwable error;
+
+		private StageFinished(Stage stage, Throwable error) {
+			this.stage = stage;
+			this.error = error;
+		}
+
+		@Override
+		public void run() {
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.client;
+
+import com.client.utilities.settings.AntiAliasingFactor;
+
+/**
+ * Scales the supersampled scene back down to the viewport, resolving the anti-aliasing.
+ *
+ * Output rows are resolved in parallel. At 2x every output pixel is the mean of a 2 by 2 block, summed with
+ * red and blue packed in one int and green in another. At 1.5x every 2 by 2 block of output comes from a
+ * 3 by 3 block of source, each source pixel weighted by how much of it the output pixel covers.
+ */
+final class SupersampleResolve {
+
+	private static final int MIN_ROWS = 32;
+
+	private SupersampleResolve() {
+	}
+
+	/**
+	 * @param source the supersampled pixels, {@code factor.scale(width)} wide
+	 * @param dest receives the resolved pixels
+	 */
+	static void resolve(AntiAliasingFactor factor, int[] source, int[] dest, int width, int height) {
+		int sourceWidth = factor.scale(width);
+		switch (factor) {
+			case DOUBLE:
+				RenderWorkers.forRows(height, MIN_ROWS,
+						(from, to) -> resolveDouble(source, sourceWidth, dest, width, from, to));
+				break;
+			case ONE_AND_A_HALF:
+				RenderWorkers.forRows(height, MIN_ROWS,
+						(from, to) -> resolveOneAndAHalf(source, sourceWidth, dest, width, from, to));
+				break;
+			default:
+				break;
+		}
+	}
+
+	private static void resolveDouble(int[] source, int sourceWidth, int[] dest, int width, int from, int to) {
+		for (int y = from; y < to; y++) {
+			int row0 = (y << 1) * sourceWidth;
+			int row1 = row0 + sourceWidth;
+			int out = y * width;
+			for (int x = 0; x < width; x++) {
+				int c1 = source[row0++];
+				int c2 = source[row0++];
+				int c3 = source[row1++];
+				int c4 = source[row1++];
+				int rb = (c1 & 0xff00ff) + (c2 & 0xff00ff) + (c3 & 0xff00ff) + (c4 & 0xff00ff);
+				int g = (c1 & 0xff00) + (c2 & 0xff00) + (c3 & 0xff00) + (c4 & 0xff00);
+				dest[out++] = (rb >>> 2 & 0xff00ff) | (g >>> 2 & 0xff00);
+			}
+		}
+	}
+
+	private static void resolveOneAndAHalf(int[] source, int sourceWidth, int[] dest, int width, int from, int to) {
+		for (int y = from; y < to; y++) {
+			// The outer row of the 3 by 3 block covers two thirds of the output pixel and the shared middle row the rest
+			int near = ((y >> 1) * 3 + ((y & 1) << 1)) * sourceWidth;
+			int middle = ((y >> 1) * 3 + 1) * sourceWidth;
+			int out = y * width;
+			for (int x = 0; x < width; x++) {
+				int nearX = (x >> 1) * 3 + ((x & 1) << 1);
+				int middleX = (x >> 1) * 3 + 1;
+				int c1 = source[near + nearX];
+				int c2 = source[near + middleX];
+				int c3 = source[middle + nearX];
+				int c4 = source[middle + middleX];
+				// Weights of 4, 2, 2 and 1 ninths; every channel sum stays below 12 bits
+				int rb = ((c1 & 0xff00ff) << 2) + ((c2 & 0xff00ff) << 1) + ((c3 & 0xff00ff) << 1) + (c4 & 0xff00ff);
+				int g = ((c1 & 0xff00) << 2) + ((c2 & 0xff00) << 1) + ((c3 & 0xff00) << 1) + (c4 & 0xff00);
+				// x * 7282 >>> 16 is x / 9 for every sum up to 9 * 255
+				int r = (rb >>> 16) * 7282 >>> 16;
+				int b = (rb & 0xffff) * 7282 >>> 16;
+				dest[out++] = r << 16 | ((g >>> 8) * 7282 >>> 16) << 8 | b;
+			}
+		}
+	}
+}
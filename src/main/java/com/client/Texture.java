@@ -4,11 +4,27 @@ public final class Texture extends DrawingArea {
 
     public static int TEXTURE_IDX = 7;
 
-    private static Texture[] cache = new Texture[678];
+    static final int CACHE_SIZE = 678;
+    private static final int MIPMAP_LEVELS = 8;
 
-    public int[][] mipmaps = new int[8][];
+    private static Texture[] cache = new Texture[CACHE_SIZE];
 
     private static double brightness;
+    /** Bumped whenever the brightness changes; mipmaps built under an older generation are rebuilt on use. */
+    private static int generation = 1;
+    /** Each colour channel after the brightness curve. */
+    private static final int[] channelBrightness = new int[256];
+
+    /** Level 0 as decoded, before the brightness curve. */
+    private final int[] pixels = new int[16384];
+    private final int[][] mipmaps = new int[MIPMAP_LEVELS][];
+    private int mipmapGeneration;
+    private int residentBytes;
+    int lastUsed;
+
+    static {
+        buildChannelBrightness();
+    }
 
     public static final Texture get(int index) {
         if (index < 0 || index >= cache.length){
@@ -21,12 +37,18 @@ public final class Texture extends DrawingArea {
         return cache[index];
     }
 
+    static Texture cached(int index) {
+        return cache == null ? null : cache[index];
+    }
+
     public static final void decode(int index, byte[] data) {
+        if (cache[index] != null) {
+            cache[index].release();
+        }
         Texture texture = cache[index] = new Texture();
         Stream buffer = new Stream(data);
         int width = buffer.readUShort();
         int height = buffer.readUShort();
-        texture.mipmaps[0] = new int[16384];
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
                 int rgb = buffer.read3Bytes();
@@ -42,59 +64,135 @@ public final class Texture extends DrawingArea {
                 }
             }
         }
-        texture.generate();
     }
 
+    /**
+     * Changes the brightness curve. Textures pick it up the next time they are drawn rather than all at once.
+     */
     public static void setBrightness(double value) {
+        if (value == brightness) {
+            return;
+        }
         brightness = value;
+        generation++;
+        buildChannelBrightness();
+    }
+
+    private static void buildChannelBrightness() {
+        double exponent = brightness / 1.25D;
+        for (int channel = 0; channel < 256; channel++) {
+            channelBrightness[channel] = (int) (Math.pow(channel / 256.0D, exponent) * 256.0D);
+        }
     }
 
     private void set(int x, int y, int rgb) {
         if (x < 128 && y < 128) {
-            mipmaps[0][x + (y << 7)] = adjustBrightness(rgb, brightness / 1.25D);
+            pixels[x + (y << 7)] = rgb;
         }
     }
 
-    private static int adjustBrightness(int rgb, double brightness) {
-        int r = ((int) (Math.pow((rgb >>> 16) / 256.0D, brightness) * 256.0D) << 16);
-        int g = ((int) (Math.pow(((rgb >>> 8) & 0xff) / 256.0D, brightness) * 256.0D) << 8);
-        int b = (int) (Math.pow((rgb & 0xff) / 256.0D, brightness) * 256.0D);
-        return r | g | b;
+    /**
+     * Returns a mipmap level, generating it and any finer levels it is built from on first use. Must be
+     * called from the thread that draws the scene, as generating a level may evict other textures.
+     * @param level 0 for 128 by 128 down to 7 for 1 by 1
+     */
+    int[] mipmap(int level) {
+        lastUsed = Rasterizer.lastTextureRetrievalCount++;
+        if (mipmapGeneration != generation) {
+            release();
+            mipmapGeneration = generation;
+        }
+        if (mipmaps[level] == null) {
+            generate(level);
+        }
+        return mipmaps[level];
     }
 
-    private void generate() {
-        for (int level = 1, size = 64; level < 8; level++) {
-            int[] src = mipmaps[level - 1];
-            int[] dst = mipmaps[level] = new int[size * size];
-            for (int x = 0; x < size; x++) {
-                for (int y = 0; y < size; y++) {
-                    double r = 0, g = 0, b = 0;
-                    int count = 0;
-                    for (int rgb : new int[] { src[x + (y * size << 1) << 1], src[(x + (y * size << 1) << 1) + 1], src[(x + (y * size << 1) << 1) + (size << 1)], src[(x + (y * size << 1) << 1) + (size << 1) + 1] }) {
-                        if (rgb != 0) {
-                            double dr = (rgb >> 16 & 0xff) / 255d;
-                            double dg = (rgb >> 8 & 0xff) / 255d;
-                            double db = (rgb & 0xff) / 255d;
-                            r += dr * dr;
-                            g += dg * dg;
-                            b += db * db;
-                            count++;
-                        }
-                    }
-                    if (count != 0) {
-                        int ri = Math.round(255 * (float) Math.sqrt(r / count));
-                        int gi = Math.round(255 * (float) Math.sqrt(g / count));
-                        int bi = Math.round(255 * (float) Math.sqrt(b / count));
-                        dst[x + y * size] = ri << 16 | gi << 8 | bi;
+    private void generate(int level) {
+        int first = level;
+        while (first > 0 && mipmaps[first - 1] == null) {
+            first--;
+        }
+        int bytes = 0;
+        for (int l = first; l <= level; l++) {
+            bytes += (16384 >> (l << 1)) << 2;
+        }
+        TextureResidency.reserve(bytes, false, this);
+        RenderStats.textureMisses++;
+        for (int l = first; l <= level; l++) {
+            mipmaps[l] = l == 0 ? applyBrightness() : downsample(mipmaps[l - 1], 128 >> l);
+        }
+        residentBytes += bytes;
+        TextureResidency.allocated(bytes);
+    }
+
+    private int[] applyBrightness() {
+        int[] level0 = new int[16384];
+        int[] curve = channelBrightness;
+        for (int i = 0; i < 16384; i++) {
+            int rgb = pixels[i];
+            level0[i] = curve[rgb >>> 16 & 0xff] << 16 | curve[rgb >>> 8 & 0xff] << 8 | curve[rgb & 0xff];
+        }
+        return level0;
+    }
+
+    /**
+     * Averages each 2 by 2 block in linear light, skipping transparent texels.
+     */
+    private static int[] downsample(int[] src, int size) {
+        int[] dst = new int[size * size];
+        int srcSize = size << 1;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                int offset = (x << 1) + (y << 1) * srcSize;
+                double r = 0, g = 0, b = 0;
+                int count = 0;
+                for (int i = 0; i < 4; i++) {
+                    int rgb = src[offset + (i & 1) + (i >> 1) * srcSize];
+                    if (rgb != 0) {
+                        double dr = (rgb >> 16 & 0xff) / 255d;
+                        double dg = (rgb >> 8 & 0xff) / 255d;
+                        double db = (rgb & 0xff) / 255d;
+                        r += dr * dr;
+                        g += dg * dg;
+                        b += db * db;
+                        count++;
                     }
                 }
+                if (count != 0) {
+                    int ri = Math.round(255 * (float) Math.sqrt(r / count));
+                    int gi = Math.round(255 * (float) Math.sqrt(g / count));
+                    int bi = Math.round(255 * (float) Math.sqrt(b / count));
+                    dst[x + y * size] = ri << 16 | gi << 8 | bi;
+                }
             }
-            size >>= 1;
-            dst = src = null;
         }
+        return dst;
+    }
+
+    boolean isResident() {
+        return residentBytes != 0;
+    }
+
+    /**
+     * Drops every generated mipmap level.
+     */
+    void release() {
+        for (int level = 0; level < MIPMAP_LEVELS; level++) {
+            mipmaps[level] = null;
+        }
+        TextureResidency.allocated(-residentBytes);
+        residentBytes = 0;
     }
 
     public static final void reset() {
+        if (cache != null) {
+            for (Texture texture : cache) {
+                if (texture != null) {
+                    texture.release();
+                }
+            }
+        }
         cache = null;
     }
 }
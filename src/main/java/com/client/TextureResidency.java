@@ -0,0 +1,83 @@
+package com.client;
+
+/**
+ * Keeps the texture pixels resident in memory within {@link Configuration#textureCacheBudget}, quartered in
+ * low memory mode.
+ *
+ * Two kinds of texture share the budget: the 317 texture buffers built by {@link Rasterizer#getTexturePixels}
+ * and the mipmap chains of the high detail {@link Texture}s. Both stamp themselves with
+ * {@link Rasterizer#lastTextureRetrievalCount} when drawn, so when a new buffer or mipmap would go over the
+ * budget the least recently drawn texture of either kind is evicted first. Evicted 317 buffers go back to
+ * the rasterizer's pool to be reused rather than freed. Only the thread drawing the scene may call this.
+ */
+final class TextureResidency {
+
+	private static long allocatedBytes;
+
+	private TextureResidency() {
+	}
+
+	/**
+	 * Records bytes of texture pixels allocated, or freed when negative.
+	 */
+	static void allocated(long bytes) {
+		allocatedBytes += bytes;
+	}
+
+	/**
+	 * @return the bytes of texture pixels held, pooled 317 buffers included
+	 */
+	static long allocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * Makes room for {@code bytes} more within the budget, evicting the least recently drawn textures. The
+	 * caller allocates anyway if nothing is left to evict.
+	 * @param rasterBuffer whether the room is for a 317 buffer, which is satisfied as soon as one is pooled
+	 * @param keep a texture that must not be evicted, or null
+	 */
+	static void reserve(int bytes, boolean rasterBuffer, Texture keep) {
+		long budget = Rasterizer.lowMem ? Configuration.textureCacheBudget / 4 : Configuration.textureCacheBudget;
+		while (allocatedBytes + bytes > budget) {
+			if (rasterBuffer) {
+				if (Rasterizer.hasPooledTextureBuffer())
+					return;
+			} else if (Rasterizer.dropPooledTextureBuffer()) {
+				continue;
+			}
+			if (!evictLeastRecentlyUsed(keep))
+				return;
+		}
+	}
+
+	private static boolean evictLeastRecentlyUsed(Texture keep) {
+		int clock = Rasterizer.lastTextureRetrievalCount;
+		// Ages rather than stamps are compared so the order survives the counter wrapping
+		int oldest = -1;
+		int rasterVictim = -1;
+		Texture materialVictim = null;
+		for (int id = 0; id < Rasterizer.textureAmount; id++) {
+			if (Rasterizer.isTextureResident(id) && clock - Rasterizer.textureLastUsed[id] > oldest) {
+				oldest = clock - Rasterizer.textureLastUsed[id];
+				rasterVictim = id;
+			}
+		}
+		for (int index = 0; index < Texture.CACHE_SIZE; index++) {
+			Texture texture = Texture.cached(index);
+			if (texture != null && texture != keep && texture.isResident() && clock - texture.lastUsed > oldest) {
+				oldest = clock - texture.lastUsed;
+				materialVictim = texture;
+			}
+		}
+		if (materialVictim != null) {
+			materialVictim.release();
+		} else if (rasterVictim != -1) {
+			Rasterizer.evictTexture(rasterVictim);
+		} else {
+			return false;
+		}
+		RenderStats.textureEvictions++;
+		return true;
+	}
+}
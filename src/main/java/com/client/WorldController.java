@@ -1,5 +1,9 @@
 package com.client;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
 public final class WorldController {
 
     public static final int MAX_FAR_Z = 70;
@@ -20,6 +24,9 @@ public final class WorldController {
         anInt439 = i;
         groundArray = new Ground[k][j][i];
         anIntArrayArrayArray445 = new int[k][j + 1][i + 1];
+        occlusionScreenX = new int[k][j + 1][i + 1];
+        occlusionScreenY = new int[k][j + 1][i + 1];
+        occlusionDepth = new int[k][j + 1][i + 1];
         visibilityMap = new boolean[8][32][MAX_FAR_Z * 2 + 1][MAX_FAR_Z * 2 + 1];
         tileHeights = ai;
         initToNull();
@@ -43,20 +50,227 @@ public final class WorldController {
             }
 
         }
+        clearClusters();
+        for (int k1 = 0; k1 < obj5CacheCurrPos; k1++)
+            obj5Cache[k1] = null;
+
+        obj5CacheCurrPos = 0;
+        for (int l1 = 0; l1 < aClass28Array462.length; l1++)
+            aClass28Array462[l1] = null;
+
+    }
+
+    /**
+     * Drops the occluder clusters, which {@link ObjectManager#createRegionScene} adds for the whole scene.
+     */
+    public void clearClusters() {
         for (int l = 0; l < anInt472; l++) {
             for (int j1 = 0; j1 < anIntArray473[l]; j1++)
                 aClass47ArrayArray474[l][j1] = null;
 
             anIntArray473[l] = 0;
         }
+    }
 
-        for (int k1 = 0; k1 < obj5CacheCurrPos; k1++)
-            obj5Cache[k1] = null;
+    /**
+     * Moves the scene by dx and dy tiles, the change of the region base, and drops the tiles and objects that
+     * leave it. The objects kept get their new positions and keys. The occluder clusters are dropped for the
+     * next build to add again.
+     */
+    public void shiftChunks(int dx, int dy) {
+        clearObj5Cache();
+        clearClusters();
+        Set<StaticObject> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int z = 0; z < anInt437; z++) {
+            Ground[][] plane = groundArray[z];
+            Ground[][] old = new Ground[anInt438][];
+            for (int x = 0; x < anInt438; x++)
+                old[x] = plane[x].clone();
+            for (int x = 0; x < anInt438; x++) {
+                for (int y = 0; y < anInt439; y++) {
+                    int fromX = x + dx;
+                    int fromY = y + dy;
+                    Ground ground = null;
+                    if (fromX >= 0 && fromY >= 0 && fromX < anInt438 && fromY < anInt439)
+                        ground = old[fromX][fromY];
+                    if (ground != null)
+                        moveGround(ground, dx, dy, moved);
+                    plane[x][y] = ground;
+                }
+            }
+        }
+        for (StaticObject object : moved) {
+            if (object.anInt523 < 0 || object.anInt525 < 0 || object.anInt524 >= anInt438
+                    || object.anInt526 >= anInt439)
+                removeObject(object);
+        }
+    }
 
-        obj5CacheCurrPos = 0;
-        for (int l1 = 0; l1 < aClass28Array462.length; l1++)
-            aClass28Array462[l1] = null;
+    private static void moveGround(Ground ground, int dx, int dy, Set<StaticObject> moved) {
+        int worldDx = dx * 128;
+        int worldDy = dy * 128;
+        ground.anInt1308 -= dx;
+        ground.anInt1309 -= dy;
+        ShapedTile shapedTile = ground.aClass40_1312;
+        if (shapedTile != null) {
+            for (int i = 0; i < shapedTile.origVertexX.length; i++) {
+                shapedTile.origVertexX[i] -= worldDx;
+                shapedTile.origVertexZ[i] -= worldDy;
+            }
+        }
+        Object1 object1 = ground.obj1;
+        if (object1 != null) {
+            object1.anInt274 -= worldDx;
+            object1.anInt275 -= worldDy;
+            object1.uid = moveKey(object1.uid, dx, dy);
+        }
+        Object2 object2 = ground.obj2;
+        if (object2 != null) {
+            object2.anInt500 -= worldDx;
+            object2.anInt501 -= worldDy;
+            object2.uid = moveKey(object2.uid, dx, dy);
+        }
+        Object3 object3 = ground.obj3;
+        if (object3 != null) {
+            object3.anInt812 -= worldDx;
+            object3.anInt813 -= worldDy;
+            object3.uid = moveKey(object3.uid, dx, dy);
+        }
+        Object4 object4 = ground.obj4;
+        if (object4 != null) {
+            object4.anInt46 -= worldDx;
+            object4.anInt47 -= worldDy;
+            object4.uid = moveKey(object4.uid, dx, dy);
+        }
+        for (int i = 0; i < ground.anInt1317; i++) {
+            StaticObject object = ground.obj5Array[i];
+            if (!moved.add(object))
+                continue;
+            object.anInt519 -= worldDx;
+            object.anInt520 -= worldDy;
+            object.anInt523 -= dx;
+            object.anInt524 -= dx;
+            object.anInt525 -= dy;
+            object.anInt526 -= dy;
+            object.uid = moveKey(object.uid, dx, dy);
+        }
+        if (ground.aClass30_Sub3_1329 != null)
+            moveGround(ground.aClass30_Sub3_1329, dx, dy, moved);
+    }
+
+    /**
+     * @return the key with the scene tile it holds moved by dx and dy
+     */
+    private static long moveKey(long uid, int dx, int dy) {
+        int x = (int) uid - dx & 0x7f;
+        int y = (int) (uid >> 7) - dy & 0x7f;
+        return uid & ~0x3fffL | y << 7 | x;
+    }
+
+    /**
+     * Drops the tiles and objects of the given 8 by 8 tile chunks, and takes the objects reaching into them off
+     * the tiles they cover outside.
+     */
+    public void releaseChunks(boolean[][] chunks) {
+        clearObj5Cache();
+        for (int z = 0; z < anInt437; z++) {
+            for (int x = 0; x < anInt438; x++) {
+                for (int y = 0; y < anInt439; y++) {
+                    if (!chunks[x >> 3][y >> 3])
+                        continue;
+                    for (Ground ground = groundArray[z][x][y]; ground != null; ground = ground.aClass30_Sub3_1329) {
+                        for (int i = ground.anInt1317 - 1; i >= 0; i--) {
+                            StaticObject object = ground.obj5Array[i];
+                            if (!coversOnly(object, chunks))
+                                removeObject(object);
+                        }
+                    }
+                    groundArray[z][x][y] = null;
+                }
+            }
+        }
+    }
 
+    /**
+     * Adds to the chunks every chunk that shares an object with one of them, until the objects on the chunks
+     * lie on them alone.
+     */
+    public void joinChunks(boolean[][] chunks) {
+        Set<StaticObject> spanning = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int z = 0; z < anInt437; z++) {
+            for (int x = 0; x < anInt438; x++) {
+                for (int y = 0; y < anInt439; y++) {
+                    for (Ground ground = groundArray[z][x][y]; ground != null; ground = ground.aClass30_Sub3_1329) {
+                        for (int i = 0; i < ground.anInt1317; i++) {
+                            StaticObject object = ground.obj5Array[i];
+                            if ((object.uid >> 29 & 3) == 2 && (object.anInt523 >> 3 != object.anInt524 >> 3
+                                    || object.anInt525 >> 3 != object.anInt526 >> 3))
+                                spanning.add(object);
+                        }
+                    }
+                }
+            }
+        }
+        boolean joined;
+        do {
+            joined = false;
+            for (StaticObject object : spanning) {
+                if (coversOnly(object, chunks) || !coversAny(object, chunks))
+                    continue;
+                for (int x = object.anInt523 >> 3; x <= object.anInt524 >> 3; x++) {
+                    for (int y = object.anInt525 >> 3; y <= object.anInt526 >> 3; y++)
+                        chunks[x][y] = true;
+                }
+                joined = true;
+            }
+        } while (joined);
+    }
+
+    /**
+     * Takes an object off every tile it covers, on any plane, as {@link #method276} moves the tiles under a bridge
+     * down a plane without the objects on them.
+     */
+    private void removeObject(StaticObject object) {
+        for (int x = Math.max(object.anInt523, 0); x <= Math.min(object.anInt524, anInt438 - 1); x++) {
+            for (int y = Math.max(object.anInt525, 0); y <= Math.min(object.anInt526, anInt439 - 1); y++) {
+                for (int z = 0; z < anInt437; z++) {
+                    for (Ground ground = groundArray[z][x][y]; ground != null; ground = ground.aClass30_Sub3_1329) {
+                        for (int i = 0; i < ground.anInt1317; i++) {
+                            if (ground.obj5Array[i] != object)
+                                continue;
+                            ground.anInt1317--;
+                            for (int j = i; j < ground.anInt1317; j++) {
+                                ground.obj5Array[j] = ground.obj5Array[j + 1];
+                                ground.anIntArray1319[j] = ground.anIntArray1319[j + 1];
+                            }
+                            ground.obj5Array[ground.anInt1317] = null;
+                            ground.anInt1320 = 0;
+                            for (int j = 0; j < ground.anInt1317; j++)
+                                ground.anInt1320 |= ground.anIntArray1319[j];
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean coversOnly(StaticObject object, boolean[][] chunks) {
+        for (int x = object.anInt523 >> 3; x <= object.anInt524 >> 3; x++) {
+            for (int y = object.anInt525 >> 3; y <= object.anInt526 >> 3; y++)
+                if (!chunks[x][y])
+                    return false;
+        }
+        return true;
+    }
+
+    private static boolean coversAny(StaticObject object, boolean[][] chunks) {
+        for (int x = object.anInt523 >> 3; x <= object.anInt524 >> 3; x++) {
+            for (int y = object.anInt525 >> 3; y <= object.anInt526 >> 3; y++)
+                if (chunks[x][y])
+                    return true;
+        }
+        return false;
     }
 
     public void method275(int i) {
@@ -344,8 +558,8 @@ public final class WorldController {
     }
 
     private void method289(StaticObject class28) {
-        for (int j = class28.anInt523; j <= class28.anInt524; j++) {
-            for (int k = class28.anInt525; k <= class28.anInt526; k++) {
+        for (int j = Math.max(class28.anInt523, 0); j <= Math.min(class28.anInt524, anInt438 - 1); j++) {
+            for (int k = Math.max(class28.anInt525, 0); k <= Math.min(class28.anInt526, anInt439 - 1); k++) {
                 Ground class30_sub3 = groundArray[class28.anInt517][j][k];
                 if (class30_sub3 != null) {
                     for (int l = 0; l < class30_sub3.anInt1317; l++) {
@@ -523,6 +737,13 @@ public final class WorldController {
     }
 
     public void method305(int i, int k, int i1) {
+        method305(i, k, i1, null);
+    }
+
+    /**
+     * Lights the objects on the tiles of the given 8 by 8 tile chunks, or on every tile when chunks is null.
+     */
+    public void method305(int i, int k, int i1, boolean[][] chunks) {
         int j = 100;
         int l = 768;
         int j1 = (int)Math.sqrt(k * k + i * i + i1 * i1);
@@ -531,7 +752,7 @@ public final class WorldController {
             for (int i2 = 0; i2 < anInt438; i2++) {
                 for (int j2 = 0; j2 < anInt439; j2++) {
                     Ground class30_sub3 = groundArray[l1][i2][j2];
-                    if (class30_sub3 != null) {
+                    if (class30_sub3 != null && (chunks == null || chunks[i2 >> 3][j2 >> 3])) {
                         Object1 class10 = class30_sub3.obj1;
                         if (class10 != null
                                 && class10.aClass30_Sub2_Sub4_278 != null
@@ -986,6 +1207,8 @@ public final class WorldController {
             }
 
         }
+        if (Configuration.occlusionCulling)
+            buildOcclusionPyramid();
 
         for (int l1 = anInt442; l1 < anInt437; l1++) {
             Ground aclass30_sub3_1[][] = groundArray[l1];
@@ -1026,6 +1249,7 @@ public final class WorldController {
                         }
                         if (anInt446 == 0) {
                             aBoolean467 = false;
+                            OcclusionPyramid.end();
                             return;
                         }
                     }
@@ -1074,6 +1298,7 @@ public final class WorldController {
                         }
                         if (anInt446 == 0) {
                             aBoolean467 = false;
+                            OcclusionPyramid.end();
                             return;
                         }
                     }
@@ -1083,6 +1308,165 @@ public final class WorldController {
 
         }
         aBoolean467 = false;
+        OcclusionPyramid.end();
+    }
+
+    /**
+     * Projects the tile corners in view and fills the occlusion pyramid with the opaque flat shaded tiles
+     * and the occluder clusters picked by {@link #method319()}.
+     */
+    private void buildOcclusionPyramid() {
+        OcclusionPyramid.begin(DrawingArea.centerX, DrawingArea.bottomY);
+        int[] xs = occluderScreenX;
+        int[] ys = occluderScreenY;
+        for (int z = anInt442; z < anInt437; z++) {
+            int[][] screenX = occlusionScreenX[z];
+            int[][] screenY = occlusionScreenY[z];
+            int[][] depths = occlusionDepth[z];
+            for (int x = anInt449; x <= anInt450; x++) {
+                for (int y = anInt451; y <= anInt452; y++) {
+                    depths[x][y] = projectOccluderPoint(x << 7, tileHeights[z][x][y], y << 7, xs, ys, 0);
+                    screenX[x][y] = xs[0];
+                    screenY[x][y] = ys[0];
+                }
+            }
+            Ground[][] tiles = groundArray[z];
+            for (int x = anInt449; x < anInt450; x++) {
+                for (int y = anInt451; y < anInt452; y++) {
+                    Ground tile = tiles[x][y];
+                    // Bridge tiles keep the heights of the plane they were built on
+                    if (tile == null || !tile.aBoolean1322 || tile.anInt1310 != z)
+                        continue;
+                    Class43 paint = tile.aClass43_1311;
+                    // Textures may have holes, so only flat shaded paint counts
+                    if (paint == null || paint.anInt720 != -1 || paint.anInt718 == 0xbc614e)
+                        continue;
+                    int far = Math.max(Math.max(depths[x][y], depths[x + 1][y]),
+                            Math.max(depths[x + 1][y + 1], depths[x][y + 1]));
+                    if (Math.min(Math.min(depths[x][y], depths[x + 1][y]),
+                            Math.min(depths[x + 1][y + 1], depths[x][y + 1])) < 50)
+                        continue;
+                    xs[0] = screenX[x][y];
+                    ys[0] = screenY[x][y];
+                    xs[1] = screenX[x + 1][y];
+                    ys[1] = screenY[x + 1][y];
+                    xs[2] = screenX[x + 1][y + 1];
+                    ys[2] = screenY[x + 1][y + 1];
+                    xs[3] = screenX[x][y + 1];
+                    ys[3] = screenY[x][y + 1];
+                    // Either half facing away is not drawn by method315
+                    if (cross(xs[2], ys[2], xs[3], ys[3], xs[1], ys[1]) <= 0
+                            || cross(xs[0], ys[0], xs[1], ys[1], xs[3], ys[3]) <= 0)
+                        continue;
+                    long turn0 = cross(xs[3], ys[3], xs[0], ys[0], xs[1], ys[1]);
+                    long turn1 = cross(xs[0], ys[0], xs[1], ys[1], xs[2], ys[2]);
+                    long turn2 = cross(xs[1], ys[1], xs[2], ys[2], xs[3], ys[3]);
+                    long turn3 = cross(xs[2], ys[2], xs[3], ys[3], xs[0], ys[0]);
+                    if (turn0 > 0 && turn1 > 0 && turn2 > 0 && turn3 > 0
+                            || turn0 < 0 && turn1 < 0 && turn2 < 0 && turn3 < 0) {
+                        OcclusionPyramid.fillConvex(xs, ys, 4, far);
+                    } else {
+                        // Split along the same diagonal method315 draws
+                        int x2 = xs[2];
+                        int y2 = ys[2];
+                        xs[2] = xs[3];
+                        ys[2] = ys[3];
+                        OcclusionPyramid.fillConvex(xs, ys, 3, Math.max(Math.max(depths[x][y], depths[x + 1][y]),
+                                depths[x][y + 1]));
+                        xs[0] = x2;
+                        ys[0] = y2;
+                        OcclusionPyramid.fillConvex(xs, ys, 3, Math.max(Math.max(depths[x + 1][y + 1],
+                                depths[x + 1][y]), depths[x][y + 1]));
+                    }
+                }
+            }
+        }
+        for (int l = 0; l < Scene_currentOccludersCount; l++) {
+            Class47 occluder = aClass47Array476[l];
+            int far;
+            if (occluder.type == 1) {
+                far = projectOccluderRect(occluder.anInt792, occluder.anInt796, occluder.anInt794,
+                        occluder.anInt792, occluder.anInt797, occluder.anInt795, xs, ys);
+            } else if (occluder.type == 2) {
+                far = projectOccluderRect(occluder.anInt792, occluder.anInt796, occluder.anInt794,
+                        occluder.anInt793, occluder.anInt797, occluder.anInt794, xs, ys);
+            } else {
+                far = projectOccluderRect(occluder.anInt792, occluder.anInt796, occluder.anInt794,
+                        occluder.anInt793, occluder.anInt796, occluder.anInt795, xs, ys);
+            }
+            if (far >= 50)
+                OcclusionPyramid.fillConvex(xs, ys, 4, far);
+        }
+        OcclusionPyramid.build();
+    }
+
+    /**
+     * Projects the corners of an axis aligned rectangle running from (x1, y1, z1) to (x2, y2, z2), where
+     * one of the three axes is flat.
+     * @return the farthest corner depth, or -1 if a corner is too close to project
+     */
+    private static int projectOccluderRect(int x1, int y1, int z1, int x2, int y2, int z2, int[] xs, int[] ys) {
+        int d0 = projectOccluderPoint(x1, y1, z1, xs, ys, 0);
+        int d1, d2, d3;
+        if (x1 == x2) {
+            d1 = projectOccluderPoint(x1, y1, z2, xs, ys, 1);
+            d2 = projectOccluderPoint(x1, y2, z2, xs, ys, 2);
+            d3 = projectOccluderPoint(x1, y2, z1, xs, ys, 3);
+        } else if (z1 == z2) {
+            d1 = projectOccluderPoint(x2, y1, z1, xs, ys, 1);
+            d2 = projectOccluderPoint(x2, y2, z1, xs, ys, 2);
+            d3 = projectOccluderPoint(x1, y2, z1, xs, ys, 3);
+        } else {
+            d1 = projectOccluderPoint(x2, y1, z1, xs, ys, 1);
+            d2 = projectOccluderPoint(x2, y1, z2, xs, ys, 2);
+            d3 = projectOccluderPoint(x1, y1, z2, xs, ys, 3);
+        }
+        if (Math.min(Math.min(d0, d1), Math.min(d2, d3)) < 50)
+            return -1;
+        return Math.max(Math.max(d0, d1), Math.max(d2, d3));
+    }
+
+    /**
+     * Projects a world point the way method315 projects tile corners.
+     * @return the view depth; the screen position is only written when it is at least 50
+     */
+    private static int projectOccluderPoint(int x, int y, int z, int[] xs, int[] ys, int index) {
+        x -= anInt455;
+        y -= Scene_cameraY;
+        z -= anInt457;
+        int viewX = z * anInt460 + x * anInt461 >> 16;
+        z = z * anInt461 - x * anInt460 >> 16;
+        int viewY = y * anInt459 - z * anInt458 >> 16;
+        int depth = y * anInt458 + z * anInt459 >> 16;
+        if (depth >= 50) {
+            xs[index] = Rasterizer.textureInt1 + viewX * WorldController.focalLength / depth;
+            ys[index] = Rasterizer.textureInt2 + viewY * WorldController.focalLength / depth;
+        }
+        return depth;
+    }
+
+    private static long cross(int x0, int y0, int x1, int y1, int x2, int y2) {
+        return (long) (x0 - x1) * (y2 - y1) - (long) (y0 - y1) * (x2 - x1);
+    }
+
+    /**
+     * @return whether the occlusion pyramid hides every corner of the tile
+     */
+    private boolean isTileOccluded(int z, int x, int y) {
+        if (!OcclusionPyramid.isActive() || z < anInt442 || x < anInt449 || x >= anInt450 || y < anInt451
+                || y >= anInt452)
+            return false;
+        int[][] screenX = occlusionScreenX[z];
+        int[][] screenY = occlusionScreenY[z];
+        int[][] depths = occlusionDepth[z];
+        int near = Math.min(Math.min(depths[x][y], depths[x + 1][y]), Math.min(depths[x + 1][y + 1], depths[x][y + 1]));
+        if (near < 50)
+            return false;
+        int left = Math.min(Math.min(screenX[x][y], screenX[x + 1][y]), Math.min(screenX[x + 1][y + 1], screenX[x][y + 1]));
+        int right = Math.max(Math.max(screenX[x][y], screenX[x + 1][y]), Math.max(screenX[x + 1][y + 1], screenX[x][y + 1]));
+        int top = Math.min(Math.min(screenY[x][y], screenY[x + 1][y]), Math.min(screenY[x + 1][y + 1], screenY[x][y + 1]));
+        int bottom = Math.max(Math.max(screenY[x][y], screenY[x + 1][y]), Math.max(screenY[x + 1][y + 1], screenY[x][y + 1]));
+        return OcclusionPyramid.isHidden(left, top, right, bottom, near);
     }
 
     private void method314(Ground class30_sub3, boolean flag) {
@@ -2078,6 +2462,10 @@ public final class WorldController {
                 (j1 + 128) - 1)) {
             anIntArrayArrayArray445[i][j][k] = anInt448;
             return true;
+        } else if (isTileOccluded(i, j, k)) {
+            RenderStats.tilesOccluded++;
+            anIntArrayArrayArray445[i][j][k] = anInt448;
+            return true;
         } else {
             anIntArrayArrayArray445[i][j][k] = -anInt448;
             return false;
@@ -2293,6 +2681,11 @@ public final class WorldController {
     private int obj5CacheCurrPos;
     private final StaticObject[] obj5Cache;
     private final int[][][] anIntArrayArrayArray445;
+    private final int[][][] occlusionScreenX;
+    private final int[][][] occlusionScreenY;
+    private final int[][][] occlusionDepth;
+    private static final int[] occluderScreenX = new int[4];
+    private static final int[] occluderScreenY = new int[4];
     private static int anInt446;
     private static int anInt447;
     private static int anInt448;
@@ -17,10 +17,32 @@ public final class FloorUnderlayDefinition {
 			}
 			underlays[j].readValues(stream);
 		}
+		buildBlendTables();
 
 		FloorOverlayDefinition.unpackConfig(stream);
 	}
 
+	/**
+	 * Copies what the tile blend sums out of the definitions into arrays indexed by the underlay id stored
+	 * in the map, where 0 is no underlay and counts for nothing. The arrays end at the last defined id, so
+	 * a map naming an undefined underlay still fails with an ArrayIndexOutOfBoundsException.
+	 */
+	private static void buildBlendTables() {
+		int size = Math.min(underlays.length + 1, 256);
+		long[] sums = new long[size];
+		int[] counts = new int[size];
+		for (int id = 1; id < size; id++) {
+			FloorUnderlayDefinition underlay = underlays[id - 1];
+			sums[id] = (underlay.blendHue + BLEND_HUE_OFFSET) & 0xffffL
+					| (underlay.saturation & 0xffffL) << 16
+					| (underlay.luminance & 0xffffL) << 32
+					| (underlay.blendHueMultiplier & 0xffffL) << 48;
+			counts[id] = 1;
+		}
+		blendCounts = counts;
+		blendSums = sums;
+	}
+
 	private void readValues(Stream stream) {
 		while(true) {
 			int opcode = stream.readUnsignedByte();
@@ -129,6 +151,18 @@ public final class FloorUnderlayDefinition {
 	}
 
 	public static FloorUnderlayDefinition underlays[];
+	/**
+	 * Added to the blend hue, which is negative for some reds, so every field of {@link #blendSums} is positive.
+	 */
+	public static final int BLEND_HUE_OFFSET = 256;
+	/**
+	 * The blend hue plus {@link #BLEND_HUE_OFFSET}, saturation, luminance and blend hue multiplier of each underlay id,
+	 * 16 bits each from the lowest. Every field is under 512, so summed over the 100 tiles a blend averages they
+	 * stay under 65536 and the sums of whole entries never carry from one field into the next.
+	 */
+	public static long[] blendSums;
+	/** 1 for each defined underlay id, 0 for no underlay. */
+	public static int[] blendCounts;
 	public int anInt390;
 	public int hue;
 	public int saturation;
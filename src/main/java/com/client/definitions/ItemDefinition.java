@@ -29,10 +29,7 @@ public final class ItemDefinition {
 			i += stream.readUShort();
 		}
 
-		cache = new ItemDefinition[10];
-		for (int index = 0; index < 10; index++) {
-			cache[index] = new ItemDefinition();
-		}
+		cache = new ItemDefinition[streamIndices.length];
 
 		if (Configuration.dumpDataLists) {
 			TempWriter writer2 = new TempWriter("item_fields");
@@ -48,26 +45,32 @@ public final class ItemDefinition {
 		}
 	}
 
+	/**
+	 * Definitions are decoded once per id and kept for the session, so bank, search and tooltip code can call
+	 * this as often as they like. These are not immutable snapshots: the returned definition is the shared,
+	 * mutable instance every caller gets, and the notes, templates and custom overrides below are applied to
+	 * it while it is decoded. Nothing may modify it after that.
+	 */
 	public static ItemDefinition forID(int itemId) {
-		for (int j = 0; j < 10; j++) {
-			if (cache[j].id == itemId) {
-				return cache[j];
-			}
-		}
-
 		if (itemId == -1)
 			itemId = 0;
-		if (newCustomItems(itemId) != null) {
-			return newCustomItems(itemId);
+		if (itemId < cache.length && cache[itemId] != null)
+			return cache[itemId];
+
+		ItemDefinition customItem = newCustomItems(itemId);
+		if (customItem != null) {
+			if (itemId < cache.length)
+				cache[itemId] = customItem;
+			return customItem;
 		}
-		if (itemId > streamIndices.length)
+		if (itemId >= streamIndices.length) {
 			itemId = 0;
+			if (cache[itemId] != null)
+				return cache[itemId];
+		}
 
-		cacheIndex = (cacheIndex + 1) % 10;
-		ItemDefinition itemDef = cache[cacheIndex];
-
-		if (itemId >= streamIndices.length)
-			itemId = 0;
+		// Stored before decoding, the note and template merges below may look this item up again
+		ItemDefinition itemDef = cache[itemId] = new ItemDefinition();
 		stream.currentOffset = streamIndices[itemId];
 		itemDef.id = itemId;
 		itemDef.setDefaults();
@@ -2835,7 +2838,7 @@ public final class ItemDefinition {
 		if (highlightColor == 0) {
 			Sprite sprite = (Sprite) mruNodes1.insertFromCache(itemId);
 			if (sprite != null && sprite.maxHeight != itemAmount && sprite.maxHeight != -1) {
-				sprite.unlink();
+				mruNodes1.remove(sprite);
 				sprite = null;
 			}
 			if (sprite != null)
@@ -3067,14 +3070,13 @@ public final class ItemDefinition {
 	public String groundOptions[];
 	public int spriteTranslateX; // modelOffset1
 	public String name;
-	private static ItemDefinition[] cache;
+	private static ItemDefinition[] cache; // Decoded definitions indexed by item id
 	private int anInt173;
 	public int modelId;
 	private int anInt175;
 	public boolean stackable;
 	public String description;
 	public int certID;
-	private static int cacheIndex;
 	public int modelZoom;
 	private static Buffer stream;
 	private int anInt184;
@@ -15,13 +15,16 @@ public final class NpcDefinition {
 
 	public byte boundDim;
 
+	/**
+	 * Decodes the definition on first use and returns the same instance for the id after that. It is shared
+	 * and mutable, the custom overrides here are its only writes and must stay that way.
+	 */
 	public static NpcDefinition forID(int i) {
-		for (int j = 0; j < 20; j++)
-			if (cache[j].npcId == i)
-				return cache[j];
+		NpcDefinition entityDef = cache[i];
+		if (entityDef != null)
+			return entityDef;
 
-		anInt56 = (anInt56 + 1) % 20;
-		NpcDefinition entityDef = cache[anInt56] = new NpcDefinition();
+		entityDef = cache[i] = new NpcDefinition();
 		stream.currentOffset = streamIndices[i];
 		entityDef.npcId = i;
 		entityDef.readValues(stream);
@@ -1194,9 +1197,7 @@ public final class NpcDefinition {
 			i += stream.readUShort();
 		}
 
-		cache = new NpcDefinition[20];
-		for (int k = 0; k < 20; k++)
-			cache[k] = new NpcDefinition();
+		cache = new NpcDefinition[totalAmount];
 		for (int index = 0; index < totalAmount; index++) {
 			NpcDefinition ed = forID(index);
 			if (ed == null)
@@ -1574,7 +1575,6 @@ public final class NpcDefinition {
 	}
 
 	public int anInt55;
-	public static int anInt56;
 	public int anInt57;
 	public int anInt58;
 	public int anInt59;
@@ -1607,6 +1607,6 @@ public final class NpcDefinition {
 	public int anInt92;
 	public boolean aBoolean93;
 	public int[] models;
-	public static MRUNodes mruNodes = new MRUNodes(70);
+	public static MRUNodes mruNodes = MRUNodes.weighted(Configuration.modelCacheBudget * 3 / 10);
 	public int[] anIntArray76;
 }
\ No newline at end of file
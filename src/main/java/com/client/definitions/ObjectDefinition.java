@@ -5,6 +5,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.io.FileWriter;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 
 public final class ObjectDefinition {
@@ -16,6 +17,10 @@ public final class ObjectDefinition {
 			m.setTexture(26);
 	}
 
+	/**
+	 * Decodes the definition on first use and returns the same instance for the id after that. It is shared
+	 * and mutable, the overrides in the switch below are its only writes and must stay that way.
+	 */
 	public static ObjectDefinition forID(int i) {
 		if (i > streamIndices.length)
 			i = streamIndices.length - 2;//2
@@ -23,12 +28,11 @@ public final class ObjectDefinition {
 		if (i == 25913 || i == 25916 || i == 25917)
 			i = 15552;
 
-		for (int j = 0; j < 20; j++)
-			if (cache[j].type == i)
-				return cache[j];
+		ObjectDefinition objectDef = cache[i];
+		if (objectDef != null)
+			return objectDef;
 
-		cacheIndex = (cacheIndex + 1) % 20;
-		ObjectDefinition objectDef = cache[cacheIndex];
+		objectDef = cache[i] = new ObjectDefinition();
 		stream.currentOffset = streamIndices[i];
 		objectDef.type = i;
 		objectDef.setDefaults();
@@ -618,12 +622,30 @@ public final class ObjectDefinition {
 
 	public void applyTexture(Model model, int id) {
 		switch (id) {
-			case 26764:// Venenatis Webs
+			case VENENATIS_WEBS:
 				model.setTexture(26);
 				break;
 		}
 	}
 
+	/**
+	 * Numbers this definition by everything that goes into its lit models, so that definitions which would
+	 * build identical models share their entries in {@link #mruNodes2}.
+	 */
+	private int litModelSignature() {
+		if (litModelSignature == -1) {
+			String signature = Arrays.toString(anIntArray773) + Arrays.toString(anIntArray776) + aBoolean751
+					+ Arrays.toString(modifiedModelColors) + Arrays.toString(originalModelColors)
+					+ Arrays.toString(originalTexture) + Arrays.toString(modifiedTexture) + thickness + ',' + height
+					+ ',' + width + ',' + anInt738 + ',' + anInt745 + ',' + anInt783 + ',' + aByte737 + ','
+					+ aByte742 + ',' + aBoolean769 + ',' + supportItems + ',' + (type == VENENATIS_WEBS);
+			synchronized (litModelSignatures) {
+				litModelSignature = litModelSignatures.computeIfAbsent(signature, s -> litModelSignatures.size());
+			}
+		}
+		return litModelSignature;
+	}
+
 	private void setDefaults() {
 		anIntArray773 = null;
 		anIntArray776 = null;
@@ -692,9 +714,7 @@ public final class ObjectDefinition {
 			streamIndices[j] = i;
 			i += stream.readUShort();
 		}
-		cache = new ObjectDefinition[20];
-		for (int k = 0; k < 20; k++)
-			cache[k] = new ObjectDefinition();
+		cache = new ObjectDefinition[totalObjects];
 	}
 
 	public boolean method577(int i) {
@@ -774,7 +794,7 @@ public final class ObjectDefinition {
 		if (anIntArray776 == null) {
 			if (j != 10)
 				return null;
-			l1 = (type << 6) + l + ((long) (k + 1) << 32);
+			l1 = ((long) litModelSignature() << 8) + l + ((long) (k + 1) << 32);
 			Model model_1 = (Model) mruNodes2.insertFromCache(l1);
 			if (model_1 != null)
 				return model_1;
@@ -814,7 +834,7 @@ public final class ObjectDefinition {
 
 			if (i1 == -1)
 				return null;
-			l1 = (type << 8) + (i1 << 3) + l + ((long) (k + 1) << 32);
+			l1 = ((long) litModelSignature() << 8) + (i1 << 3) + l + ((long) (k + 1) << 32);
 			Model model_2 = (Model) mruNodes2.insertFromCache(l1);
 			if (model_2 != null)
 				return model_2;
@@ -1053,6 +1073,9 @@ public final class ObjectDefinition {
 
 	private short[] originalTexture;
 	private short[] modifiedTexture;
+	private int litModelSignature = -1;
+	private static final Map<String, Integer> litModelSignatures = new HashMap<>();
+	private static final int VENENATIS_WEBS = 26764;
 	public boolean aBoolean736;
 	@SuppressWarnings("unused")
 	private byte aByte742;
@@ -1085,7 +1108,6 @@ public final class ObjectDefinition {
 	public boolean aBoolean767;
 	public int anInt768;
 	private boolean aBoolean769;
-	private static int cacheIndex;
 	private int height;
 	public int[] anIntArray773;
 	public int varpId;
@@ -1094,12 +1116,12 @@ public final class ObjectDefinition {
 	public String description;
 	public boolean hasActions;
 	public boolean aBoolean779;
-	public static MRUNodes mruNodes2 = new MRUNodes(30);
+	public static MRUNodes mruNodes2 = MRUNodes.weighted(Configuration.modelCacheBudget * 2 / 10);
 	public int animation;
-	private static ObjectDefinition[] cache;
+	private static ObjectDefinition[] cache; // Decoded definitions indexed by object id
 	private int anInt783;
 	private int[] modifiedModelColors;
-	public static MRUNodes mruNodes1 = new MRUNodes(500);
+	public static MRUNodes mruNodes1 = MRUNodes.weighted(Configuration.modelCacheBudget * 5 / 10);
 	public String actions[];
 
 }
\ No newline at end of file
@@ -1,9 +1,11 @@
 package com.client.definitions.server;
 
-import java.util.HashMap;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.logging.Level;
 
 import com.client.model.EquipmentModelType;
 import com.client.model.SkillLevel;
@@ -19,24 +21,67 @@ import com.google.common.collect.Lists;
 public class ItemDef {
 
     private static final java.util.logging.Logger log = java.util.logging.Logger.getLogger(ItemDef.class.getName());
-    private static Map<Integer, ItemDef> definitions = null;
     private static final List<SkillLevel> EMPTY_REQUIREMENTS = Lists.newArrayList();
 
-    public static Map<Integer, ItemDef> getDefinitions() {
-        return definitions;
+    /**
+     * Definitions indexed by item id, null where an id has no definition until it is first looked up.
+     */
+    private static ItemDef[] definitions = null;
+    private static int count;
+
+    /**
+     * @return the number of loaded definitions.
+     */
+    public static int getCount() {
+        return count;
     }
 
     public static void load() throws Exception {
-        definitions = new HashMap<>();
-        List<ItemDef> list = JsonUtil.fromYaml(Signlink.getCacheDirectory() + "etc/item_definitions.yaml", new TypeReference<List<ItemDef>>() {
-        });
-        list.forEach(it -> definitions.put(it.getId(), it));
+        File yaml = new File(Signlink.getCacheDirectory() + "etc/item_definitions.yaml");
+        File snapshot = new File(Signlink.getCacheDirectory() + "etc/item_definitions.bin");
+        long hash = ItemDefSnapshot.hash(Files.readAllBytes(yaml.toPath()));
+        List<ItemDef> list = null;
+        try {
+            list = ItemDefSnapshot.read(snapshot, hash);
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.WARNING, "Couldn't read the item definition snapshot, parsing the yaml.", e);
+        }
+        if (list == null) {
+            list = JsonUtil.fromYaml(yaml.getPath(), new TypeReference<List<ItemDef>>() {
+            });
+            try {
+                ItemDefSnapshot.write(snapshot, hash, list);
+            } catch (IOException | RuntimeException e) {
+                log.log(Level.WARNING, "Couldn't write the item definition snapshot.", e);
+            }
+        }
+        int maxId = -1;
+        for (ItemDef def : list)
+            maxId = Math.max(maxId, def.getId());
+        ItemDef[] table = new ItemDef[maxId + 1];
+        for (ItemDef def : list)
+            if (def.getId() >= 0)
+                table[def.getId()] = def;
+        count = list.size();
+        definitions = table;
         log.info("Loaded " + list.size() + " item definitions.");
     }
 
+    /**
+     * @return the definition for this item. Ids without one get an empty definition named "unknown item &lt;id&gt;",
+     * built on the first lookup and reused after that.
+     */
     public static ItemDef forId(int itemId) {
-        Preconditions.checkState(definitions != null, "Item definitions weren\'t loaded.");
-        return definitions.getOrDefault(itemId, builder().id(itemId).build());
+        ItemDef[] table = definitions;
+        Preconditions.checkState(table != null, "Item definitions weren\'t loaded.");
+        if (itemId < 0 || itemId >= table.length) {
+            return builder().id(itemId).build();
+        }
+        ItemDef def = table[itemId];
+        if (def == null) {
+            def = table[itemId] = builder().id(itemId).build();
+        }
+        return def;
     }
 
     public static ItemDef.ItemDefBuilder builderOf(ItemDef def) {
@@ -102,6 +147,13 @@ public class ItemDef {
         return name;
     }
 
+    /**
+     * @return the name as loaded, null if the definition has none.
+     */
+    String getRawName() {
+        return name;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -137,6 +189,10 @@ public class ItemDef {
         return stackable || isNoted();
     }
 
+    boolean isRawStackable() {
+        return stackable;
+    }
+
     @JsonIgnore
     public boolean isTradable() {
         return !untradeable;
@@ -159,6 +215,10 @@ public class ItemDef {
         return requirements == null ? EMPTY_REQUIREMENTS : requirements;
     }
 
+    List<SkillLevel> getRawRequirements() {
+        return requirements;
+    }
+
     public EquipmentModelType getEquipmentModelType() {
         return equipmentModelType;
     }
@@ -0,0 +1,217 @@
+package com.client.definitions.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.client.model.EquipmentModelType;
+import com.client.model.Skill;
+import com.client.model.SkillLevel;
+
+/**
+ * A compiled, binary copy of item_definitions.yaml that loads without going through the YAML parser.
+ *
+ * The snapshot is keyed on a CRC of the YAML it was compiled from, so editing the YAML makes the next
+ * launch parse it again and rewrite the snapshot. Items are stored column by column (ids, shop values,
+ * note ids, flags, model types, string offsets, requirement ranges) followed by the requirement table and
+ * a string table, and the file is memory mapped to read them back.
+ */
+final class ItemDefSnapshot {
+
+    private static final int MAGIC = 0x49444546; // IDEF
+    private static final int VERSION = 1;
+
+    private static final int NOTED = 1;
+    private static final int STACKABLE = 1 << 1;
+    private static final int UNTRADEABLE = 1 << 2;
+    private static final int DELETED_ON_DEATH = 1 << 3;
+    private static final int CHECK_BEFORE_DROP = 1 << 4;
+    private static final int UNDROPPABLE = 1 << 5;
+
+    private ItemDefSnapshot() {
+    }
+
+    /**
+     * @return the hash a snapshot of this YAML has to carry to be used. It also covers the enums stored
+     * by ordinal, so reordering them invalidates old snapshots.
+     */
+    static long hash(byte[] yaml) {
+        CRC32 crc = new CRC32();
+        crc.update(yaml);
+        long schema = (Arrays.toString(EquipmentModelType.values()) + Arrays.toString(Skill.values())).hashCode();
+        return (crc.getValue() << 32 | yaml.length & 0xffffffffL) ^ schema * 31;
+    }
+
+    /**
+     * Reads the snapshot if it was compiled from YAML with this hash.
+     * @return the definitions, or null if there is no usable snapshot
+     */
+    static List<ItemDef> read(File file, long hash) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 20 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getLong() != hash) {
+                return null;
+            }
+            int count = buffer.getInt();
+            int[] ids = ints(buffer, count);
+            int[] shopValues = ints(buffer, count);
+            int[] noteIds = ints(buffer, count);
+            byte[] flags = bytes(buffer, count);
+            byte[] modelTypes = bytes(buffer, count);
+            int[] names = ints(buffer, count);
+            int[] descriptions = ints(buffer, count);
+            int[] requirementStarts = ints(buffer, count);
+            int[] requirementCounts = ints(buffer, count);
+
+            int requirementCount = buffer.getInt();
+            byte[] requirementSkills = bytes(buffer, requirementCount);
+            int[] requirementLevels = ints(buffer, requirementCount);
+
+            int stringsLength = buffer.getInt();
+            ByteBuffer strings = buffer.slice();
+            strings.limit(stringsLength);
+
+            EquipmentModelType[] modelTypeValues = EquipmentModelType.values();
+            Skill[] skillValues = Skill.values();
+            List<ItemDef> definitions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                List<SkillLevel> requirements = null;
+                if (requirementCounts[i] >= 0) {
+                    requirements = new ArrayList<>(requirementCounts[i]);
+                    for (int r = requirementStarts[i]; r < requirementStarts[i] + requirementCounts[i]; r++) {
+                        requirements.add(new SkillLevel(skillValues[requirementSkills[r]], requirementLevels[r]));
+                    }
+                }
+                int flag = flags[i];
+                definitions.add(new ItemDef(ids[i], string(strings, names[i]), string(strings, descriptions[i]),
+                        shopValues[i], noteIds[i], (flag & NOTED) != 0, (flag & STACKABLE) != 0,
+                        (flag & UNTRADEABLE) != 0, (flag & DELETED_ON_DEATH) != 0, (flag & CHECK_BEFORE_DROP) != 0,
+                        (flag & UNDROPPABLE) != 0, modelTypes[i] == 0 ? null : modelTypeValues[modelTypes[i] - 1],
+                        requirements));
+            }
+            return definitions;
+        }
+    }
+
+    /**
+     * Compiles the definitions into a snapshot, replacing the file in one move so a half written snapshot
+     * is never read.
+     */
+    static void write(File file, long hash, List<ItemDef> definitions) throws IOException {
+        int count = definitions.size();
+        ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+        DataOutputStream stringTable = new DataOutputStream(stringBytes);
+        Map<String, Integer> stringOffsets = new HashMap<>();
+        List<SkillLevel> requirements = new ArrayList<>();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(count * 40);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(hash);
+        out.writeInt(count);
+        for (ItemDef def : definitions)
+            out.writeInt(def.getId());
+        for (ItemDef def : definitions)
+            out.writeInt(def.getRawShopValue());
+        for (ItemDef def : definitions)
+            out.writeInt(def.getNoteId());
+        for (ItemDef def : definitions) {
+            out.writeByte((def.isNoted() ? NOTED : 0) | (def.isRawStackable() ? STACKABLE : 0)
+                    | (!def.isTradable() ? UNTRADEABLE : 0) | (def.isDeletedOnDeath() ? DELETED_ON_DEATH : 0)
+                    | (def.isCheckBeforeDrop() ? CHECK_BEFORE_DROP : 0) | (!def.isDroppable() ? UNDROPPABLE : 0));
+        }
+        for (ItemDef def : definitions)
+            out.writeByte(def.getEquipmentModelType() == null ? 0 : def.getEquipmentModelType().ordinal() + 1);
+        for (ItemDef def : definitions)
+            out.writeInt(intern(def.getRawName(), stringTable, stringOffsets));
+        for (ItemDef def : definitions)
+            out.writeInt(intern(def.getDescription(), stringTable, stringOffsets));
+        int[] requirementCounts = new int[count];
+        for (int i = 0; i < count; i++) {
+            List<SkillLevel> list = definitions.get(i).getRawRequirements();
+            out.writeInt(requirements.size());
+            requirementCounts[i] = list == null ? -1 : list.size();
+            if (list != null)
+                requirements.addAll(list);
+        }
+        for (int requirementCount : requirementCounts)
+            out.writeInt(requirementCount);
+
+        out.writeInt(requirements.size());
+        for (SkillLevel requirement : requirements)
+            out.writeByte(requirement.getSkill().ordinal());
+        for (SkillLevel requirement : requirements)
+            out.writeInt(requirement.getLevel());
+
+        stringTable.flush();
+        out.writeInt(stringBytes.size());
+        stringBytes.writeTo(out);
+        out.flush();
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp)) {
+            bytes.writeTo(stream);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int intern(String string, DataOutputStream table, Map<String, Integer> offsets) throws IOException {
+        if (string == null) {
+            return -1;
+        }
+        Integer offset = offsets.get(string);
+        if (offset == null) {
+            offset = table.size();
+            byte[] utf = string.getBytes(StandardCharsets.UTF_8);
+            table.writeInt(utf.length);
+            table.write(utf);
+            offsets.put(string, offset);
+        }
+        return offset;
+    }
+
+    private static String string(ByteBuffer strings, int offset) {
+        if (offset < 0) {
+            return null;
+        }
+        int length = strings.getInt(offset);
+        byte[] utf = new byte[length];
+        ByteBuffer view = strings.duplicate();
+        view.position(offset + 4);
+        view.get(utf);
+        return new String(utf, StandardCharsets.UTF_8);
+    }
+
+    private static int[] ints(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * 4);
+        return values;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer, int count) {
+        byte[] values = new byte[count];
+        buffer.get(values);
+        return values;
+    }
+}
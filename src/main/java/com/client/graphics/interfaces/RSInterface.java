@@ -358,8 +358,8 @@ public class RSInterface {
 		tab.tooltip = tooltip;
 		tab.atActionType = OPTION_OK;
 		tab.type = TYPE_CONFIG;
-		tab.sprite2 = Client.cacheSprite3[enabledSprite];
-		tab.sprite1 = Client.cacheSprite3[disabledSprite];
+		tab.sprite2 = Client.cacheSprite3.get(enabledSprite);
+		tab.sprite1 = Client.cacheSprite3.get(disabledSprite);
 		tab.width = tab.sprite2.myWidth;
 		tab.height = tab.sprite1.myHeight;
 		tab.active = false;
@@ -371,9 +371,9 @@ public class RSInterface {
 		tab.tooltip = tooltip;
 		tab.atActionType = OPTION_OK;
 		tab.type = TYPE_ADJUSTABLE_CONFIG;
-		tab.sprite2 = Client.cacheSprite3[sprite];
-		tab.enabledAltSprite = Client.cacheSprite3[enabledSpriteBehind];
-		tab.disabledAltSprite = Client.cacheSprite3[disabledSpriteBehind];
+		tab.sprite2 = Client.cacheSprite3.get(sprite);
+		tab.enabledAltSprite = Client.cacheSprite3.get(enabledSpriteBehind);
+		tab.disabledAltSprite = Client.cacheSprite3.get(disabledSpriteBehind);
 		tab.width = tab.enabledAltSprite.myWidth;
 		tab.height = tab.disabledAltSprite.myHeight;
 		tab.spriteOpacity = opacity;
@@ -384,8 +384,8 @@ public class RSInterface {
 		tab.tooltip = tooltip;
 		tab.atActionType = 1;
 		tab.type = TYPE_HOVER;
-		tab.sprite2 = Client.cacheSprite3[0];
-		tab.sprite1 = Client.cacheSprite3[0];
+		tab.sprite2 = Client.cacheSprite3.get(0);
+		tab.sprite1 = Client.cacheSprite3.get(0);
 		tab.width = tab.sprite2.myWidth;
 		tab.height = tab.sprite1.myHeight;
 		tab.active = false;
@@ -397,8 +397,8 @@ public class RSInterface {
 		tab.tooltip = tooltip;
 		tab.atActionType = 1;
 		tab.type = TYPE_HOVER;
-		tab.sprite2 = Client.cacheSprite3[sprite2];
-		tab.sprite1 = Client.cacheSprite3[sprite1];
+		tab.sprite2 = Client.cacheSprite3.get(sprite2);
+		tab.sprite1 = Client.cacheSprite3.get(sprite1);
 		tab.width = tab.sprite2.myWidth;
 		tab.height = tab.sprite1.myHeight;
 		tab.active = false;
@@ -412,8 +412,8 @@ public class RSInterface {
 		tab.tooltip = tooltip;
 		tab.atActionType = 1;
 		tab.type = TYPE_HOVER;
-		tab.sprite2 = Client.cacheSprite3[enabledSprite];
-		tab.sprite1 = Client.cacheSprite3[disabledSprite];
+		tab.sprite2 = Client.cacheSprite3.get(enabledSprite);
+		tab.sprite1 = Client.cacheSprite3.get(disabledSprite);
 		tab.width = tab.sprite2.myWidth;
 		tab.height = tab.sprite1.myHeight;
 		tab.msgX = tab.width / 2;
@@ -434,8 +434,8 @@ public class RSInterface {
 		tab.tooltip = tooltip;
 		tab.atActionType = 1;
 		tab.type = TYPE_HOVER;
-		tab.sprite2 = Client.cacheSprite3[enabledSprite];
-		tab.sprite1 = Client.cacheSprite3[disabledSprite];
+		tab.sprite2 = Client.cacheSprite3.get(enabledSprite);
+		tab.sprite1 = Client.cacheSprite3.get(disabledSprite);
 		tab.width = tab.sprite2.myWidth;
 		tab.height = tab.sprite1.myHeight;
 		tab.msgX = (tab.width / 2);
@@ -558,7 +558,7 @@ public class RSInterface {
 
 	public static Slider slider(int id, double min, double max, int icon, int background, int contentType) {
 		RSInterface widget = addInterface(id);
-		widget.slider = new Slider(Client.cacheSprite3[icon], Client.cacheSprite3[background], min, max);
+		widget.slider = new Slider(Client.cacheSprite3.get(icon), Client.cacheSprite3.get(background), min, max);
 		widget.type = TYPE_SLIDER;
 		widget.contentType = contentType;
 		return widget.slider;
@@ -708,8 +708,8 @@ public class RSInterface {
 		tab.contentType = 0;
 		tab.transparency = transparency;
 		tab.hoverType = 52;
-		tab.sprite2 = Client.cacheSprite2[spriteId];
-		tab.sprite1 = Client.cacheSprite2[spriteId];
+		tab.sprite2 = Client.cacheSprite2.get(spriteId);
+		tab.sprite1 = Client.cacheSprite2.get(spriteId);
 		tab.width = 512;
 		tab.height = 334;
 		tab.drawsTransparent = true;
@@ -759,8 +759,8 @@ public class RSInterface {
 		Tab.scripts[0][0] = 5;
 		Tab.scripts[0][1] = configFrame;
 		Tab.scripts[0][2] = 0;
-		Tab.sprite1 = Client.cacheSprite1[bID];// imageLoader(bID, bName);
-		Tab.sprite2 = Client.cacheSprite1[bID2];
+		Tab.sprite1 = Client.cacheSprite1.get(bID);// imageLoader(bID, bName);
+		Tab.sprite2 = Client.cacheSprite1.get(bID2);
 		Tab.tooltip = tT;
 	}
 
@@ -784,8 +784,8 @@ public class RSInterface {
 		Tab.scripts[0][0] = 5;
 		Tab.scripts[0][1] = configFrame;
 		Tab.scripts[0][2] = 0;
-		Tab.sprite2 = Client.cacheSprite1[bID];// imageLoader(bID, bName);
-		Tab.sprite1 = Client.cacheSprite1[bID2];
+		Tab.sprite2 = Client.cacheSprite1.get(bID);// imageLoader(bID, bName);
+		Tab.sprite1 = Client.cacheSprite1.get(bID2);
 		Tab.tooltip = "xd";
 	}
 
@@ -800,8 +800,8 @@ public class RSInterface {
 		tab.contentType = contentType;
 		tab.opacity = 0;
 		tab.hoverType = hoverOver;
-		tab.sprite2 = Client.cacheSprite2[spriteId];
-		tab.sprite1 = Client.cacheSprite2[spriteId];
+		tab.sprite2 = Client.cacheSprite2.get(spriteId);
+		tab.sprite1 = Client.cacheSprite2.get(spriteId);
 		tab.width = width;
 		tab.height = height;
 		tab.tooltip = text;
@@ -836,8 +836,8 @@ public class RSInterface {
 		tab.height = 334;
 		tab.opacity = 0;
 		tab.hoverType = 52;
-		tab.sprite2 = Client.cacheSprite2[spriteId];
-		tab.sprite1 = Client.cacheSprite2[spriteId];
+		tab.sprite2 = Client.cacheSprite2.get(spriteId);
+		tab.sprite1 = Client.cacheSprite2.get(spriteId);
 	}
 
 	public static void quickPrayers(TextDrawingArea[] TDA) {
@@ -1856,8 +1856,8 @@ public class RSInterface {
 		rsInterface.scripts[3][0] = 1;
 		rsInterface.scripts[3][1] = 6;
 		rsInterface.scripts[3][2] = 0;
-		rsInterface.sprite2 = Client.cacheSprite1[LUNAR_ON_SPRITES_START + sid];
-		rsInterface.sprite1 = Client.cacheSprite1[LUNAR_OFF_SPRITES_START + sid];
+		rsInterface.sprite2 = Client.cacheSprite1.get(LUNAR_ON_SPRITES_START + sid);
+		rsInterface.sprite1 = Client.cacheSprite1.get(LUNAR_OFF_SPRITES_START + sid);
 		RSInterface INT = addInterface(ID + 1);
 		INT.isMouseoverTriggered = true;
 		INT.mOverInterToTrigger = -1;
@@ -1992,8 +1992,8 @@ public class RSInterface {
 		rsInterface.scripts[3][0] = 1;
 		rsInterface.scripts[3][1] = 6;
 		rsInterface.scripts[3][2] = 0;
-		rsInterface.sprite1 = new Sprite("magic/spell " + sid); //Client.cacheSprite2[sid];
-		rsInterface.sprite2 = new Sprite("magic/spell " + (sid + 1)); //Client.cacheSprite2[sid];
+		rsInterface.sprite1 = new Sprite("magic/spell " + sid); //Client.cacheSprite2.get(sid);
+		rsInterface.sprite2 = new Sprite("magic/spell " + (sid + 1)); //Client.cacheSprite2.get(sid);
 		RSInterface INT = addInterface(ID + 1);
 		INT.isMouseoverTriggered = true;
 		INT.mOverInterToTrigger = -1;
@@ -2053,8 +2053,8 @@ public class RSInterface {
 		rsInterface.scripts[2][0] = 1;
 		rsInterface.scripts[2][1] = 6;
 		rsInterface.scripts[2][2] = 0;
-		rsInterface.sprite1 = new Sprite("magic/spell " + sid); //Client.cacheSprite2[sid];
-		rsInterface.sprite2 = new Sprite("magic/spell " + (sid + 1)); //Client.cacheSprite2[sid];
+		rsInterface.sprite1 = new Sprite("magic/spell " + sid); //Client.cacheSprite2.get(sid);
+		rsInterface.sprite2 = new Sprite("magic/spell " + (sid + 1)); //Client.cacheSprite2.get(sid);
 		RSInterface INT = addInterface(ID + 1);
 		INT.isMouseoverTriggered = true;
 		INT.mOverInterToTrigger = -1;
@@ -2111,8 +2111,8 @@ public class RSInterface {
 		rsInterface.scripts[2][0] = 1;
 		rsInterface.scripts[2][1] = 6;
 		rsInterface.scripts[2][2] = 0;
-		rsInterface.sprite2 = Client.cacheSprite1[LUNAR_ON_SPRITES_START + sid];
-		rsInterface.sprite1 = Client.cacheSprite1[LUNAR_OFF_SPRITES_START + sid];
+		rsInterface.sprite2 = Client.cacheSprite1.get(LUNAR_ON_SPRITES_START + sid);
+		rsInterface.sprite1 = Client.cacheSprite1.get(LUNAR_OFF_SPRITES_START + sid);
 		RSInterface INT = addInterface(ID + 1);
 		INT.isMouseoverTriggered = true;
 		INT.mOverInterToTrigger = -1;
@@ -2177,8 +2177,8 @@ public class RSInterface {
 		rsInterface.scripts[3][0] = 1;
 		rsInterface.scripts[3][1] = 6;
 		rsInterface.scripts[3][2] = 0;
-		rsInterface.sprite2 = Client.cacheSprite1[LUNAR_ON_SPRITES_START + sid];
-		rsInterface.sprite1 = Client.cacheSprite1[LUNAR_OFF_SPRITES_START + sid];
+		rsInterface.sprite2 = Client.cacheSprite1.get(LUNAR_ON_SPRITES_START + sid);
+		rsInterface.sprite1 = Client.cacheSprite1.get(LUNAR_OFF_SPRITES_START + sid);
 		RSInterface INT = addInterface(ID + 1);
 		INT.isMouseoverTriggered = true;
 		INT.mOverInterToTrigger = -1;
@@ -2245,8 +2245,8 @@ public class RSInterface {
 		rsInterface.scripts[3][0] = 1;
 		rsInterface.scripts[3][1] = 6;
 		rsInterface.scripts[3][2] = 0;
-		rsInterface.sprite1 = Client.cacheSprite2[sid];
-		rsInterface.sprite2 = Client.cacheSprite2[sid];
+		rsInterface.sprite1 = Client.cacheSprite2.get(sid);
+		rsInterface.sprite2 = Client.cacheSprite2.get(sid);
 		RSInterface INT = addInterface(ID + 1);
 		INT.isMouseoverTriggered = true;
 		INT.mOverInterToTrigger = -1;
@@ -2313,8 +2313,8 @@ public class RSInterface {
 		rsInterface.scripts[3][0] = 1;
 		rsInterface.scripts[3][1] = 6;
 		rsInterface.scripts[3][2] = 0;
-		rsInterface.sprite1 = Client.cacheSprite2[sid];
-		rsInterface.sprite2 = Client.cacheSprite2[sid];
+		rsInterface.sprite1 = Client.cacheSprite2.get(sid);
+		rsInterface.sprite2 = Client.cacheSprite2.get(sid);
 		RSInterface INT = addInterface(ID + 1);
 		INT.isMouseoverTriggered = true;
 		INT.mOverInterToTrigger = -1;
@@ -2347,8 +2347,8 @@ public class RSInterface {
 		rsi.type = 5;
 		rsi.atActionType = 0;
 		rsi.contentType = 0;
-		rsi.sprite1 = Client.cacheSprite3[spriteId];
-		rsi.sprite2 = Client.cacheSprite3[spriteId];
+		rsi.sprite1 = Client.cacheSprite3.get(spriteId);
+		rsi.sprite2 = Client.cacheSprite3.get(spriteId);
 		rsi.width = rsi.sprite1.myWidth;
 		rsi.height = rsi.sprite2.myHeight - 2;
 	}
@@ -2361,12 +2361,12 @@ public class RSInterface {
 		tab.tooltip = tooltip;
 		tab.atActionType = OPTION_OK;
 		tab.type = TYPE_CONFIG_HOVER;
-		tab.sprite2 = Client.cacheSprite3[sprite2];
-		tab.sprite1 = Client.cacheSprite3[sprite1];
+		tab.sprite2 = Client.cacheSprite3.get(sprite2);
+		tab.sprite1 = Client.cacheSprite3.get(sprite1);
 		tab.width = tab.sprite2.myWidth;
 		tab.height = tab.sprite1.myHeight;
-		tab.enabledAltSprite = Client.cacheSprite3[enabledAltSprite];
-		tab.disabledAltSprite = Client.cacheSprite3[disabledAltSprite];
+		tab.enabledAltSprite = Client.cacheSprite3.get(enabledAltSprite);
+		tab.disabledAltSprite = Client.cacheSprite3.get(disabledAltSprite);
 		tab.buttonsToDisable = buttonsToDisable;
 		tab.active = active;
 		tab.toggled = active;
@@ -2446,8 +2446,8 @@ public class RSInterface {
 		rsInterface.scripts[3][0] = 1;
 		rsInterface.scripts[3][1] = 6;
 		rsInterface.scripts[3][2] = 0;
-		rsInterface.sprite2 = Client.cacheSprite1[LUNAR_ON_SPRITES_START + sid];
-		rsInterface.sprite1 = Client.cacheSprite1[LUNAR_OFF_SPRITES_START + sid];
+		rsInterface.sprite2 = Client.cacheSprite1.get(LUNAR_ON_SPRITES_START + sid);
+		rsInterface.sprite1 = Client.cacheSprite1.get(LUNAR_OFF_SPRITES_START + sid);
 		RSInterface INT = addInterface(ID + 1);
 		INT.isMouseoverTriggered = true;
 		INT.mOverInterToTrigger = -1;
@@ -2514,8 +2514,8 @@ public class RSInterface {
 		rsInterface.scripts[3][0] = 1;
 		rsInterface.scripts[3][1] = 6;
 		rsInterface.scripts[3][2] = 0;
-		rsInterface.sprite2 = Client.cacheSprite1[LUNAR_ON_SPRITES_START + sid];
-		rsInterface.sprite1 = Client.cacheSprite1[LUNAR_OFF_SPRITES_START + sid];
+		rsInterface.sprite2 = Client.cacheSprite1.get(LUNAR_ON_SPRITES_START + sid);
+		rsInterface.sprite1 = Client.cacheSprite1.get(LUNAR_OFF_SPRITES_START + sid);
 		RSInterface INT = addInterface(ID + 1);
 		INT.isMouseoverTriggered = true;
 		INT.mOverInterToTrigger = -1;
@@ -2729,8 +2729,8 @@ public class RSInterface {
 		rsInterface.scripts[3][0] = 1;
 		rsInterface.scripts[3][1] = 6;
 		rsInterface.scripts[3][2] = 0;
-		rsInterface.sprite1 = Client.cacheSprite2[sid];
-		rsInterface.sprite2 = Client.cacheSprite2[sid];
+		rsInterface.sprite1 = Client.cacheSprite2.get(sid);
+		rsInterface.sprite2 = Client.cacheSprite2.get(sid);
 		RSInterface INT = addInterface(ID + 1);
 		INT.isMouseoverTriggered = true;
 		INT.mOverInterToTrigger = -1;
@@ -2959,8 +2959,8 @@ public class RSInterface {
 		Tab.scripts[0][0] = 5;
 		Tab.scripts[0][1] = configFrame;
 		Tab.scripts[0][2] = 0;
-		Tab.sprite1 = Client.cacheSprite1[bID];
-		Tab.sprite2 = Client.cacheSprite1[bID2];
+		Tab.sprite1 = Client.cacheSprite1.get(bID);
+		Tab.sprite2 = Client.cacheSprite1.get(bID2);
 		Tab.tooltip = tT;
 	}
 
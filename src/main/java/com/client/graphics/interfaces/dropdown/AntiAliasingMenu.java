@@ -3,10 +3,11 @@ package com.client.graphics.interfaces.dropdown;
 import com.client.Client;
 import com.client.graphics.interfaces.MenuItem;
 import com.client.graphics.interfaces.RSInterface;
+import com.client.utilities.settings.AntiAliasingFactor;
 
 public class AntiAliasingMenu implements MenuItem {
     @Override
     public void select(int optionSelected, RSInterface rsInterface) {
-        Client.getUserSettings().setAntiAliasing(optionSelected == 0);
+        Client.getUserSettings().setAntiAliasingFactor(AntiAliasingFactor.values()[optionSelected]);
     }
 }
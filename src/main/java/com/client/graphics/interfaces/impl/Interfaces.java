@@ -478,8 +478,8 @@ public final class Interfaces extends RSInterface {
 		RSInterface tab = addInterface(id);
 		tab.atActionType = 0;
 		tab.type = 0;
-		tab.sprite2 = Client.cacheSprite3[sprite2];
-		tab.sprite1 = Client.cacheSprite3[sprite1];
+		tab.sprite2 = Client.cacheSprite3.get(sprite2);
+		tab.sprite1 = Client.cacheSprite3.get(sprite1);
 		tab.width = tab.sprite1.myWidth;
 		tab.height = tab.sprite2.myHeight;
 		// tab.toggled = false;
@@ -2409,8 +2409,8 @@ interfaceId+=5000;
 	}
 
 	public static int stoneOffset(int spriteId, boolean xOffset) {
-		Sprite stone = Client.cacheSprite3[79];
-		Sprite icon = Client.cacheSprite3[spriteId];
+		Sprite stone = Client.cacheSprite3.get(79);
+		Sprite icon = Client.cacheSprite3.get(spriteId);
 
 		if (xOffset) {
 			return (stone.myWidth / 2) - icon.myWidth / 2;
@@ -2952,8 +2952,8 @@ interfaceId+=5000;
 		tab.contentType = contentType;
 		tab.opacity = 0;
 		tab.hoverType = hoverOver;
-		tab.sprite1 = Client.cacheSprite1[spriteId];
-		tab.sprite2 = Client.cacheSprite1[spriteId];
+		tab.sprite1 = Client.cacheSprite1.get(spriteId);
+		tab.sprite2 = Client.cacheSprite1.get(spriteId);
 		tab.width = width;
 		tab.height = height;
 		tab.tooltip = text;
@@ -2984,8 +2984,8 @@ interfaceId+=5000;
 		rsi.type = 5;
 		rsi.atActionType = 0;
 		rsi.contentType = 0;
-		rsi.sprite1 = Client.cacheSprite3[spriteId];
-		rsi.sprite2 = Client.cacheSprite3[spriteId];
+		rsi.sprite1 = Client.cacheSprite3.get(spriteId);
+		rsi.sprite2 = Client.cacheSprite3.get(spriteId);
 		rsi.width = rsi.sprite1.myWidth;
 		rsi.height = rsi.sprite2.myHeight - 2;
 	}
@@ -2999,8 +2999,8 @@ interfaceId+=5000;
 		tab.contentType = 0;
 		tab.opacity = (byte) 0;
 		tab.hoverType = 52;
-		tab.sprite1 = Client.cacheSprite1[sid];// imageLoader(sid, spriteName);
-		tab.sprite2 = Client.cacheSprite1[sid];// imageLoader(sid, spriteName);
+		tab.sprite1 = Client.cacheSprite1.get(sid);// imageLoader(sid, spriteName);
+		tab.sprite2 = Client.cacheSprite1.get(sid);// imageLoader(sid, spriteName);
 		tab.width = tab.sprite1.myWidth;
 		tab.height = tab.sprite1.myHeight;
 		tab.tooltip = tooltip;
@@ -3017,8 +3017,8 @@ interfaceId+=5000;
 		tab.height = 334;
 		tab.opacity = 0;
 		tab.hoverType = 52;
-		tab.sprite1 = Client.cacheSprite1[spriteId];
-		tab.sprite2 = Client.cacheSprite1[spriteId];
+		tab.sprite1 = Client.cacheSprite1.get(spriteId);
+		tab.sprite2 = Client.cacheSprite1.get(spriteId);
 	}
 
 	public static void addHoverImage_sprite_loader3(int i, int spriteId) {
@@ -3032,8 +3032,8 @@ interfaceId+=5000;
 		tab.height = 334;
 		tab.opacity = 0;
 		tab.hoverType = 52;
-		tab.sprite1 = Client.cacheSprite3[spriteId];
-		tab.sprite2 = Client.cacheSprite3[spriteId];
+		tab.sprite1 = Client.cacheSprite3.get(spriteId);
+		tab.sprite2 = Client.cacheSprite3.get(spriteId);
 	}
 
 	public static void addHoveredButton_sprite_loader3(int i, int spriteId, int w, int h, int IMAGEID) {// hoverable
@@ -3065,8 +3065,8 @@ interfaceId+=5000;
 		tab.contentType = contentType;
 		tab.opacity = 0;
 		tab.hoverType = hoverOver;
-		tab.sprite1 = Client.cacheSprite3[spriteId];
-		tab.sprite2 = Client.cacheSprite3[spriteId];
+		tab.sprite1 = Client.cacheSprite3.get(spriteId);
+		tab.sprite2 = Client.cacheSprite3.get(spriteId);
 		tab.width = width;
 		tab.height = height;
 		tab.tooltip = text;
@@ -4814,8 +4814,8 @@ interfaceId+=5000;
 		tab.contentType = 0;
 		tab.spriteOpacity = (byte) 0;
 		tab.hoverType = 52;
-		tab.sprite1 = Client.cacheSprite4[sid];
-		tab.sprite2 = Client.cacheSprite4[sid];
+		tab.sprite1 = Client.cacheSprite4.get(sid);
+		tab.sprite2 = Client.cacheSprite4.get(sid);
 		tab.width = tab.sprite1.myWidth;
 		tab.height = tab.sprite1.myHeight;
 		tab.tooltip = tooltip;
@@ -4828,8 +4828,8 @@ interfaceId+=5000;
 		rsi.type = 5;
 		rsi.atActionType = 0;
 		rsi.contentType = 0;
-		rsi.sprite1 = Client.cacheSprite4[spriteId];
-		rsi.sprite2 = Client.cacheSprite4[spriteId];
+		rsi.sprite1 = Client.cacheSprite4.get(spriteId);
+		rsi.sprite2 = Client.cacheSprite4.get(spriteId);
 		rsi.width = rsi.sprite1.myWidth;
 		rsi.height = rsi.sprite2.myHeight - 2;
 	}
@@ -147,8 +147,8 @@ public class SettingsTabWidget extends RSInterface {
 		tab.tooltip = tooltip;
 		tab.atActionType = OPTION_OK;
 		tab.type = TYPE_CONFIG;
-		tab.sprite2 = Client.cacheSprite3[enabledSprite];
-		tab.sprite1 = Client.cacheSprite3[disabledSprite];
+		tab.sprite2 = Client.cacheSprite3.get(enabledSprite);
+		tab.sprite1 = Client.cacheSprite3.get(disabledSprite);
 		tab.width = tab.sprite2.myWidth;
 		tab.height = tab.sprite1.myHeight;
 		tab.active = false;
@@ -159,8 +159,8 @@ public class SettingsTabWidget extends RSInterface {
 		tab.tooltip = tooltip;
 		tab.atActionType = OPTION_OK;
 		tab.type = TYPE_CONFIG;
-		tab.sprite2 = Client.cacheSprite4[enabledSprite];
-		tab.sprite1 = Client.cacheSprite4[disabledSprite];
+		tab.sprite2 = Client.cacheSprite4.get(enabledSprite);
+		tab.sprite1 = Client.cacheSprite4.get(disabledSprite);
 		tab.width = tab.sprite2.myWidth;
 		tab.height = tab.sprite1.myHeight;
 		tab.active = false;
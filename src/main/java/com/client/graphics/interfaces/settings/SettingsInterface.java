@@ -16,7 +16,7 @@ public class SettingsInterface extends RSInterface {
             "0%", "10%", "20%", "30%", "40%", "50%", "60%");
     public static final Setting OLD_GAMEFRAME = new Setting("Gameframe", 1, new OldGameframeMenu(), "2006", "OSRS");
     public static final Setting GAME_TIMERS = new Setting("Game Timers", 0, new GameTimersMenu(), "On", "Off");
-    public static final Setting ANTI_ALIASING = new Setting("Anti-aliasing", 1, new AntiAliasingMenu(), "On", "Off");
+    public static final Setting ANTI_ALIASING = new Setting("Anti-aliasing", 0, new AntiAliasingMenu(), "Off", "1.5x", "2x");
     public static final Setting GROUND_ITEM_NAMES = new Setting("Ground Item Names", 1, new GroundItemOverlayMenu(), "On", "Off");
     public static final Setting FOG = new Setting("Fog", 0, new FogMenu(), "On", "Off");
     public static final Setting SMOOTH_SHADING = new Setting("Smooth Shading", 0, new SmoothShadingMenu(), "On", "Off");
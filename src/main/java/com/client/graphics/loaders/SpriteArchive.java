@@ -0,0 +1,167 @@
+package com.client.graphics.loaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.GZIPInputStream;
+
+import com.client.Configuration;
+import com.client.DataUtils;
+import com.client.Sprite;
+import com.client.sign.Signlink;
+import com.client.utilities.FileOperations;
+
+/**
+ * One of the media sprite archives (media_archive1 to media_archive4).
+ *
+ * The archive is read and indexed in one pass, which is safe to do off the main thread. Sprites are only
+ * decoded into pixels the first time they're requested through {@link #get(int)}; the encoded image is
+ * dropped once decoded, while names and draw offsets stay resident.
+ */
+public final class SpriteArchive {
+
+	/**
+	 * Reads and indexes media_archive{@code number}.
+	 * @param number the archive number
+	 * @return the archive, empty if it couldn't be read
+	 */
+	public static SpriteArchive load(int number) {
+		String path = Signlink.getCacheDirectory() + "media_archives/media_archive" + number;
+		try {
+			byte[] index = FileOperations.readFile(path + ".idx");
+			byte[] data = FileOperations.readFile(path + ".dat");
+			try (DataInputStream indexFile = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(index)));
+				 DataInputStream dataFile = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(data)))) {
+				int totalSprites = indexFile.readInt();
+				SpriteArchive archive = new SpriteArchive(totalSprites);
+				for (int i = 0; i < totalSprites; i++) {
+					indexFile.readInt();
+					archive.readValues(indexFile, dataFile);
+				}
+				return archive;
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			return new SpriteArchive(0);
+		}
+	}
+
+	private SpriteArchive(int size) {
+		sprites = new AtomicReferenceArray<>(size);
+		spriteData = new byte[size][];
+		names = new String[size];
+		drawOffsetX = new int[size];
+		drawOffsetY = new int[size];
+	}
+
+	/**
+	 * Reads the information for one sprite from the index and data files.
+	 * @param index holds the sprite indices
+	 * @param data holds the sprite data per index
+	 * @throws IOException
+	 */
+	private void readValues(DataInputStream index, DataInputStream data) throws IOException {
+		int id = -1;
+		String name = "name";
+		int offsetX = 0;
+		int offsetY = 0;
+		byte[] bytes = null;
+		do {
+			int opCode = data.readByte();
+			if (opCode == 0) {
+				break;
+			}
+			if (opCode == 1) {
+				id = data.readShort();
+			} else if (opCode == 2) {
+				name = data.readUTF();
+			} else if (opCode == 3) {
+				offsetX = data.readShort();
+			} else if (opCode == 4) {
+				offsetY = data.readShort();
+			} else if (opCode == 5) {
+				int indexLength = index.readInt();
+				bytes = new byte[indexLength];
+				data.readFully(bytes);
+			}
+		} while (true);
+		if (id < 0 || id >= sprites.length()) {
+			return;
+		}
+		names[id] = name;
+		drawOffsetX[id] = offsetX;
+		drawOffsetY[id] = offsetY;
+		spriteData[id] = bytes;
+		if (Configuration.DUMP_SPRITES && bytes != null) {
+			File directory = new File(Signlink.getCacheDirectory() + "Sprites/dump/");
+			if (!directory.exists()) {
+				directory.mkdir();
+			}
+			DataUtils.writeFile(new File(directory.getAbsolutePath() + System.getProperty("file.separator") + id + ".png"), bytes);
+		}
+	}
+
+	/**
+	 * Gets a sprite, decoding it on first use.
+	 * @param id the sprite index
+	 * @return the sprite, or null if the archive has no sprite at this index
+	 */
+	public Sprite get(int id) {
+		Sprite sprite = sprites.get(id);
+		if (sprite == null) {
+			sprite = decode(id);
+		}
+		return sprite;
+	}
+
+	private synchronized Sprite decode(int id) {
+		Sprite sprite = sprites.get(id);
+		if (sprite != null || spriteData[id] == null) {
+			return sprite;
+		}
+		sprite = new Sprite(spriteData[id]);
+		sprite.anInt1442 = drawOffsetX[id];
+		sprite.anInt1443 = drawOffsetY[id];
+		spriteData[id] = null;
+		sprites.set(id, sprite);
+		decoded++;
+		return sprite;
+	}
+
+	/**
+	 * Gets the name of a specified sprite index.
+	 * @param id
+	 * @return
+	 */
+	public String getName(int id) {
+		return names[id] != null ? names[id] : "null";
+	}
+
+	public int getOffsetX(int id) {
+		return drawOffsetX[id];
+	}
+
+	public int getOffsetY(int id) {
+		return drawOffsetY[id];
+	}
+
+	public int size() {
+		return sprites.length();
+	}
+
+	/**
+	 * @return the number of sprites decoded so far
+	 */
+	public synchronized int getDecodedCount() {
+		return decoded;
+	}
+
+	private final AtomicReferenceArray<Sprite> sprites;
+	private final byte[][] spriteData;
+	private final String[] names;
+	private final int[] drawOffsetX;
+	private final int[] drawOffsetY;
+	private int decoded;
+}
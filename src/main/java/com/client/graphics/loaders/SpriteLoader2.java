@@ -1,147 +0,0 @@
-package com.client.graphics.loaders;
-
-import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
-import java.io.File;
-import java.io.IOException;
-import java.util.zip.GZIPInputStream;
-
-import com.client.utilities.FileOperations;
-import com.client.Configuration;
-import com.client.DataUtils;
-import com.client.Sprite;
-import com.client.Stream;
-import com.client.sign.Signlink;
-
-public class SpriteLoader2 {
-
-	/**
-	 * Loads the sprite data and index files from the overlays location.
-	 * This can be edited to use an archive such as config or media to load from the overlays.
-	 * @param archive
-	 */
-	public static void loadSprites() {
-		try {
-			Stream index = new Stream(FileOperations.readFile(Signlink.getCacheDirectory() + "media_archives/media_archive2.idx"));
-			Stream data = new Stream(FileOperations.readFile(Signlink.getCacheDirectory() + "media_archives/media_archive2.dat"));
-			DataInputStream indexFile = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(index.buffer)));
-			DataInputStream dataFile = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(data.buffer)));
-			int totalSprites = indexFile.readInt();
-			if (cache == null) {
-				cache = new SpriteLoader2[totalSprites];
-				sprites = new Sprite[totalSprites];
-			}
-			for (int i = 0; i < totalSprites; i++) {
-				int id = indexFile.readInt();
-				if (cache[id] == null) {
-					cache[id] = new SpriteLoader2();
-				}
-				cache[id].readValues(indexFile, dataFile);
-				createSprite(cache[id]);
-			}
-			indexFile.close();
-			dataFile.close();
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-	}
-
-	/**
-	 * Reads the information from the index and data files.
-	 * @param index holds the sprite indices
-	 * @param data holds the sprite data per index
-	 * @throws IOException
-	 */
-	public void readValues(DataInputStream index, DataInputStream data) throws IOException {
-		do {
-			int opCode = data.readByte();
-			if (opCode == 0) {
-				break;
-			}
-			if (opCode == 1) {
-				id = data.readShort();
-			} else if (opCode == 2) {
-				name = data.readUTF();
-			} else if (opCode == 3) {
-				drawOffsetX = data.readShort();
-			} else if (opCode == 4) {
-				drawOffsetY = data.readShort();
-			} else if (opCode == 5) {
-				int indexLength = index.readInt();
-				byte[] dataread = new byte[indexLength];
-				data.readFully(dataread);
-				spriteData = dataread;
-			}
-		} while (true);
-	}
-
-	/**
-	 * Creates a sprite out of the spriteData.
-	 * @param sprite
-	 */
-	public static void createSprite(SpriteLoader2 sprite) {
-		if (Configuration.DUMP_SPRITES) {
-			File directory = new File(Signlink.getCacheDirectory() + "Sprites/dump/");
-			if (!directory.exists()) {
-				directory.mkdir();
-			}
-			DataUtils.writeFile(
-					new File(directory.getAbsolutePath() + System.getProperty("file.separator") + sprite.id + ".png"),
-					sprite.spriteData);
-		}
-		sprites[sprite.id] = new Sprite(sprite.spriteData);
-		sprites[sprite.id].anInt1442 = sprite.drawOffsetX;
-		sprites[sprite.id].anInt1443 = sprite.drawOffsetY;
-	}
-
-	/**
-	 * Gets the name of a specified sprite index.
-	 * @param index
-	 * @return
-	 */
-	public static String getName(int index) {
-		if (cache[index].name != null) {
-			return cache[index].name;
-		} else {
-			return "null";
-		}
-	}
-
-	/**
-	 * Gets the drawOffsetX of a specified sprite index.
-	 * @param index
-	 * @return
-	 */
-	public static int getOffsetX(int index) {
-		return cache[index].drawOffsetX;
-	}
-
-	/**
-	 * Gets the drawOffsetY of a specified sprite index.
-	 * @param index
-	 * @return
-	 */
-	public static int getOffsetY(int index) {
-		return cache[index].drawOffsetY;
-	}
-
-	/**
-	 * Sets the default values.
-	 */
-	public SpriteLoader2() {
-		name = "name";
-		id = -1;
-		drawOffsetX = 0;
-		drawOffsetY = 0;
-		spriteData = null;
-	}
-
-	public static SpriteLoader2[] cache;
-	public static Sprite[] sprites = null;
-	public static int totalSprites;
-	public String name;
-	public int id;
-	public int drawOffsetX;
-	public int drawOffsetY;
-	public byte[] spriteData;
-}
\ No newline at end of file
@@ -1,11 +1,13 @@
 package com.client.ui;
 
+import java.io.IOException;
 import java.text.DateFormat;
 import java.util.Date;
 
 import com.client.Client;
 import com.client.Configuration;
 import com.client.DrawingArea;
+import com.client.RenderStats;
 
 public class DevConsole {
 
@@ -60,7 +62,7 @@ public class DevConsole {
             for(int line = 0; line < 500; line++)
                 console_print[line] = null;
 
-        handleCommands();
+        handleCommands(command);
 //        client().data.createFrame(103);
 //        client().data.writeWordBigEndian(command.length() + 1);
 //        client().data.writeString(command);
@@ -137,7 +139,25 @@ public class DevConsole {
     public int scroller_pos;
     public int scroller_offset;
 
-    public void handleCommands() {
-
+    public void handleCommands(String command) {
+        if(command.equalsIgnoreCase("renderstats"))
+        {
+            RenderStats.overlay = !RenderStats.overlay;
+            print_message("Render stats " + (RenderStats.overlay ? "shown" : "hidden") + ".", 1);
+        }
+        else if(command.equalsIgnoreCase("renderstats export"))
+        {
+            try
+            {
+                if(RenderStats.isExporting())
+                    print_message("Render stats written to " + RenderStats.stopExport().getPath(), 1);
+                else
+                    print_message("Render stats exporting to " + RenderStats.startExport().getPath(), 1);
+            }
+            catch(IOException e)
+            {
+                print_message("Could not write render stats: " + e.getMessage(), 1);
+            }
+        }
     }
 }
@@ -53,7 +53,7 @@ final class SettingsPanel extends JPanel {
 
         // --- Graphics ---
         addHeader("Graphics");
-        addSettingToggle(SettingsInterface.ANTI_ALIASING, settings.isAntiAliasing());
+        addSettingDropdown(SettingsInterface.ANTI_ALIASING, settings.getAntiAliasingFactor().ordinal());
         addSettingToggle(SettingsInterface.FOG, settings.isFog());
         addSettingToggle(SettingsInterface.SMOOTH_SHADING, settings.isSmoothShading());
         addSettingToggle(SettingsInterface.TILE_BLENDING, settings.isTileBlending());
@@ -0,0 +1,27 @@
+package com.client.utilities.settings;
+
+/**
+ * How much larger than the viewport the scene is rendered before being scaled back down.
+ */
+public enum AntiAliasingFactor {
+	NONE(2),
+	ONE_AND_A_HALF(3),
+	DOUBLE(4);
+
+	private final int halves;
+
+	AntiAliasingFactor(int halves) {
+		this.halves = halves;
+	}
+
+	/**
+	 * @return a viewport size or coordinate at the supersampled resolution, rounded up
+	 */
+	public int scale(int size) {
+		return (size * halves + 1) >> 1;
+	}
+
+	public boolean isEnabled() {
+		return this != NONE;
+	}
+}
@@ -26,6 +26,7 @@ public class Settings implements Serializable {
 		settings.oldGameframe = false;
 		settings.gameTimers = true;
 		settings.antiAliasing = false;
+		settings.antiAliasingFactor = AntiAliasingFactor.NONE;
 		settings.groundItemOverlay = true;
 		settings.fog = false;
 		settings.smoothShading = false;
@@ -46,6 +47,7 @@ public class Settings implements Serializable {
 	private int rs3InterfaceTransparency;
 	private boolean gameTimers;
 	private boolean antiAliasing;
+	private AntiAliasingFactor antiAliasingFactor;
 	private boolean groundItemOverlay;
 	private boolean fog;
 	private boolean smoothShading;
@@ -126,6 +128,20 @@ public class Settings implements Serializable {
 
 	public void setAntiAliasing(boolean antiAliasing) {
 		this.antiAliasing = antiAliasing;
+		this.antiAliasingFactor = antiAliasing ? AntiAliasingFactor.DOUBLE : AntiAliasingFactor.NONE;
+	}
+
+	public AntiAliasingFactor getAntiAliasingFactor() {
+		if (antiAliasingFactor == null) {
+			// Saved before the factor could be chosen
+			return antiAliasing ? AntiAliasingFactor.DOUBLE : AntiAliasingFactor.NONE;
+		}
+		return antiAliasingFactor;
+	}
+
+	public void setAntiAliasingFactor(AntiAliasingFactor antiAliasingFactor) {
+		this.antiAliasingFactor = antiAliasingFactor;
+		this.antiAliasing = antiAliasingFactor.isEnabled();
 	}
 
 	public boolean isFog() {
@@ -0,0 +1,658 @@
+package com.client;
+
+import com.client.Rasterizer.Target;
+
+/**
+ * The textured scanline functions as they were before {@link Rasterizer#drawTexturedSpan} and
+ * {@link Rasterizer#drawMaterializedSpan} replaced them, kept unchanged as the reference the new spans are tested
+ * and benchmarked against.
+ */
+final class LegacyScanlines {
+
+    private static final int[] DIVISORS = new int[512];
+
+    static {
+        for (int i = 1; i < 512; i++) {
+            DIVISORS[i] = 32768 / i;
+        }
+    }
+
+    private LegacyScanlines() {
+    }
+
+    static void drawTexturedLine(Target t, int[] var0, int[] var1, int var2, int var3, int var4, int var5, int var6, int var7, int var8, int var9, int var10, int var11, int var12, int var13, int var14) {
+        if(var4 < t.topOffset) {
+            return;
+        }
+
+        if(t.restrictEdges) {
+            if(var6 > t.clipRight) {
+                var6 = t.clipRight;
+            }
+
+            if(var5 < 0) {
+                var5 = 0;
+            }
+        }
+
+        if(var5 < var6) {
+            var4 += var5;
+            var7 += var8 * var5;
+            int var17 = var6 - var5;
+            t.pixelCount += var17;
+            int var15;
+            int var16;
+            int var18;
+            int var19;
+            int var20;
+            int var21;
+            int var22;
+            int var23;
+            if(false) {
+                var15 = var5 - t.centerX;
+                var9 += (var12 >> 3) * var15;
+                var10 += (var13 >> 3) * var15;
+                var11 += (var14 >> 3) * var15;
+                var19 = var11 >> 12;
+                if(var19 != 0) {
+                    var20 = var9 / var19;
+                    var18 = var10 / var19;
+                    if(var20 < 0) {
+                        var20 = 0;
+                    } else if(var20 > 4032) {
+                        var20 = 4032;
+                    }
+                } else {
+                    var20 = 0;
+                    var18 = 0;
+                }
+
+                var9 += var12;
+                var10 += var13;
+                var11 += var14;
+                var19 = var11 >> 12;
+                if(var19 != 0) {
+                    var22 = var9 / var19;
+                    var16 = var10 / var19;
+                    if(var22 < 0) {
+                        var22 = 0;
+                    } else if(var22 > 4032) {
+                        var22 = 4032;
+                    }
+                } else {
+                    var22 = 0;
+                    var16 = 0;
+                }
+
+                var2 = (var20 << 20) + var18;
+                var23 = (var22 - var20 >> 3 << 20) + (var16 - var18 >> 3);
+                var17 >>= 3;
+                var8 <<= 3;
+                var21 = var7 >> 8;
+                if(t.opaqueTexture) {
+                    if(var17 > 0) {
+                        do {
+                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var20 = var22;
+                            var18 = var16;
+                            var9 += var12;
+                            var10 += var13;
+                            var11 += var14;
+                            var19 = var11 >> 12;
+                            if(var19 != 0) {
+                                var22 = var9 / var19;
+                                var16 = var10 / var19;
+                                if(var22 < 0) {
+                                    var22 = 0;
+                                } else if(var22 > 4032) {
+                                    var22 = 4032;
+                                }
+                            } else {
+                                var22 = 0;
+                                var16 = 0;
+                            }
+
+                            var2 = (var20 << 20) + var18;
+                            var23 = (var22 - var20 >> 3 << 20) + (var16 - var18 >> 3);
+                            var7 += var8;
+                            var21 = var7 >> 8;
+                            --var17;
+                        } while(var17 > 0);
+                    }
+
+                    var17 = var6 - var5 & 7;
+                    if(var17 > 0) {
+                        do {
+                            var3 = var1[(var2 & 4032) + (var2 >>> 26)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            --var17;
+                        } while(var17 > 0);
+
+                    }
+                } else {
+                    if(var17 > 0) {
+                        do {
+                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var20 = var22;
+                            var18 = var16;
+                            var9 += var12;
+                            var10 += var13;
+                            var11 += var14;
+                            var19 = var11 >> 12;
+                            if(var19 != 0) {
+                                var22 = var9 / var19;
+                                var16 = var10 / var19;
+                                if(var22 < 0) {
+                                    var22 = 0;
+                                } else if(var22 > 4032) {
+                                    var22 = 4032;
+                                }
+                            } else {
+                                var22 = 0;
+                                var16 = 0;
+                            }
+
+                            var2 = (var20 << 20) + var18;
+                            var23 = (var22 - var20 >> 3 << 20) + (var16 - var18 >> 3);
+                            var7 += var8;
+                            var21 = var7 >> 8;
+                            --var17;
+                        } while(var17 > 0);
+                    }
+
+                    var17 = var6 - var5 & 7;
+                    if(var17 > 0) {
+                        do {
+                            if((var3 = var1[(var2 & 4032) + (var2 >>> 26)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            --var17;
+                        } while(var17 > 0);
+
+                    }
+                }
+            } else {
+                var15 = var5 - t.centerX;
+                var9 += (var12 >> 3) * var15;
+                var10 += (var13 >> 3) * var15;
+                var11 += (var14 >> 3) * var15;
+                var19 = var11 >> 14;
+                if(var19 != 0) {
+                    var20 = var9 / var19;
+                    var18 = var10 / var19;
+                    if(var20 < 0) {
+                        var20 = 0;
+                    } else if(var20 > 16256) {
+                        var20 = 16256;
+                    }
+                } else {
+                    var20 = 0;
+                    var18 = 0;
+                }
+
+                var9 += var12;
+                var10 += var13;
+                var11 += var14;
+                var19 = var11 >> 14;
+                if(var19 != 0) {
+                    var22 = var9 / var19;
+                    var16 = var10 / var19;
+                    if(var22 < 0) {
+                        var22 = 0;
+                    } else if(var22 > 16256) {
+                        var22 = 16256;
+                    }
+                } else {
+                    var22 = 0;
+                    var16 = 0;
+                }
+
+                var2 = (var20 << 18) + var18;
+                var23 = (var22 - var20 >> 3 << 18) + (var16 - var18 >> 3);
+                var17 >>= 3;
+                var8 <<= 3;
+                var21 = var7 >> 8;
+                if(t.opaqueTexture) {
+                    if(var17 > 0) {
+                        do {
+                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var20 = var22;
+                            var18 = var16;
+                            var9 += var12;
+                            var10 += var13;
+                            var11 += var14;
+                            var19 = var11 >> 14;
+                            if(var19 != 0) {
+                                var22 = var9 / var19;
+                                var16 = var10 / var19;
+                                if(var22 < 0) {
+                                    var22 = 0;
+                                } else if(var22 > 16256) {
+                                    var22 = 16256;
+                                }
+                            } else {
+                                var22 = 0;
+                                var16 = 0;
+                            }
+
+                            var2 = (var20 << 18) + var18;
+                            var23 = (var22 - var20 >> 3 << 18) + (var16 - var18 >> 3);
+                            var7 += var8;
+                            var21 = var7 >> 8;
+                            --var17;
+                        } while(var17 > 0);
+                    }
+
+                    var17 = var6 - var5 & 7;
+                    if(var17 > 0) {
+                        do {
+                            var3 = var1[(var2 & 16256) + (var2 >>> 25)];
+                            var0[var4++] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            var2 += var23;
+                            --var17;
+                        } while(var17 > 0);
+
+                    }
+                } else {
+                    if(var17 > 0) {
+                        do {
+                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var20 = var22;
+                            var18 = var16;
+                            var9 += var12;
+                            var10 += var13;
+                            var11 += var14;
+                            var19 = var11 >> 14;
+                            if(var19 != 0) {
+                                var22 = var9 / var19;
+                                var16 = var10 / var19;
+                                if(var22 < 0) {
+                                    var22 = 0;
+                                } else if(var22 > 16256) {
+                                    var22 = 16256;
+                                }
+                            } else {
+                                var22 = 0;
+                                var16 = 0;
+                            }
+
+                            var2 = (var20 << 18) + var18;
+                            var23 = (var22 - var20 >> 3 << 18) + (var16 - var18 >> 3);
+                            var7 += var8;
+                            var21 = var7 >> 8;
+                            --var17;
+                        } while(var17 > 0);
+                    }
+
+                    var17 = var6 - var5 & 7;
+                    if(var17 > 0) {
+                        do {
+                            if((var3 = var1[(var2 & 16256) + (var2 >>> 25)]) != 0) {
+                                var0[var4] = ((var3 & 16711935) * var21 & -16711936) + ((var3 & '\uff00') * var21 & 16711680) >> 8;
+                            }
+
+                            ++var4;
+                            var2 += var23;
+                            --var17;
+                        } while(var17 > 0);
+
+                    }
+                }
+            }
+        }
+    }
+
+    static void drawMaterializedScanline(Target t, int[] dest, int[] texels, int offset, int x1, int x2, int hsl1,
+                                         int hsl2, int t1, int t2, int t3, int t4, int t5, int t6, float z1, float z2) {
+        if (offset < t.topOffset) {
+            return;
+        }
+        if (x2 <= x1) {
+            return;
+        }
+        int texPos = 0;
+        int rgb = 0;
+        if (t.restrictEdges) {
+            if (x2 > t.clipRight) {
+                x2 = t.clipRight;
+            }
+            if (x1 < 0) {
+                x1 = 0;
+            }
+        }
+        if (x1 < x2) {
+            t.pixelCount += x2 - x1;
+            offset += x1;
+            z1 += z2 * (float) x1;
+            int n = x2 - x1 >> 2;
+            int dhsl = 0;
+            if (n > 0) {
+                dhsl = (hsl2 - hsl1) * DIVISORS[n] >> 15;
+            }
+            int dist = x1 - t.centerX;
+            t1 += (t4 >> 3) * dist;
+            t2 += (t5 >> 3) * dist;
+            t3 += (t6 >> 3) * dist;
+            int i_57_ = t3 >> 14;
+            int i_58_;
+            int i_59_;
+            if (i_57_ != 0) {
+                i_58_ = t1 / i_57_;
+                i_59_ = t2 / i_57_;
+            } else {
+                i_58_ = 0;
+                i_59_ = 0;
+            }
+            t1 += t4;
+            t2 += t5;
+            t3 += t6;
+            i_57_ = t3 >> 14;
+            int i_60_;
+            int i_61_;
+            if (i_57_ != 0) {
+                i_60_ = t1 / i_57_;
+                i_61_ = t2 / i_57_;
+            } else {
+                i_60_ = 0;
+                i_61_ = 0;
+            }
+            texPos = (i_58_ << 18) + i_59_;
+            int dtexPos = (i_60_ - i_58_ >> 3 << 18) + (i_61_ - i_59_ >> 3);
+            n >>= 1;
+            int light;
+            if (n > 0) {
+                do {
+                    hsl1 += dhsl;
+                    rgb = texels[texelPos(t, (texPos & 0x3f80) + (texPos >>> 25))];
+                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
+                            / 384;
+                    if (light > 127) {
+                        light = 127;
+                    }
+                    texPos += dtexPos;
+                    dest[offset] = Rasterizer.hslToRgb[(hsl1 >> 8 & 0xff80) | light];
+                    if (Rasterizer.saveDepth) {
+                        t.depth[offset] = z1;
+                    }
+                    z1 += z2;
+                    offset++;
+                    rgb = texels[texelPos(t, (texPos & 0x3f80) + (texPos >>> 25))];
+                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
+                            / 384;
+                    if (light > 127) {
+                        light = 127;
+                    }
+                    texPos += dtexPos;
+                    dest[offset] = Rasterizer.hslToRgb[(hsl1 >> 8 & 0xff80) | light];
+                    if (Rasterizer.saveDepth) {
+                        t.depth[offset] = z1;
+                    }
+                    z1 += z2;
+                    offset++;
+                    rgb = texels[texelPos(t, (texPos & 0x3f80) + (texPos >>> 25))];
+                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
+                            / 384;
+                    if (light > 127) {
+                        light = 127;
+                    }
+                    texPos += dtexPos;
+                    dest[offset] = Rasterizer.hslToRgb[(hsl1 >> 8 & 0xff80) | light];
+                    if (Rasterizer.saveDepth) {
+                        t.depth[offset] = z1;
+                    }
+                    z1 += z2;
+                    offset++;
+                    rgb = texels[texelPos(t, (texPos & 0x3f80) + (texPos >>> 25))];
+                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
+                            / 384;
+                    if (light > 127) {
+                        light = 127;
+                    }
+                    texPos += dtexPos;
+                    dest[offset] = Rasterizer.hslToRgb[(hsl1 >> 8 & 0xff80) | light];
+                    if (Rasterizer.saveDepth) {
+                        t.depth[offset] = z1;
+                    }
+                    z1 += z2;
+                    offset++;
+                    hsl1 += dhsl;
+                    rgb = texels[texelPos(t, (texPos & 0x3f80) + (texPos >>> 25))];
+                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
+                            / 384;
+                    if (light > 127) {
+                        light = 127;
+                    }
+                    texPos += dtexPos;
+                    dest[offset] = Rasterizer.hslToRgb[(hsl1 >> 8 & 0xff80) | light];
+                    if (Rasterizer.saveDepth) {
+                        t.depth[offset] = z1;
+                    }
+                    z1 += z2;
+                    offset++;
+                    rgb = texels[texelPos(t, (texPos & 0x3f80) + (texPos >>> 25))];
+                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
+                            / 384;
+                    if (light > 127) {
+                        light = 127;
+                    }
+                    texPos += dtexPos;
+                    dest[offset] = Rasterizer.hslToRgb[(hsl1 >> 8 & 0xff80) | light];
+                    if (Rasterizer.saveDepth) {
+                        t.depth[offset] = z1;
+                    }
+                    z1 += z2;
+                    offset++;
+                    rgb = texels[texelPos(t, (texPos & 0x3f80) + (texPos >>> 25))];
+                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
+                            / 384;
+                    if (light > 127) {
+                        light = 127;
+                    }
+                    texPos += dtexPos;
+                    dest[offset] = Rasterizer.hslToRgb[(hsl1 >> 8 & 0xff80) | light];
+                    if (Rasterizer.saveDepth) {
+                        t.depth[offset] = z1;
+                    }
+                    z1 += z2;
+                    offset++;
+                    rgb = texels[texelPos(t, (texPos & 0x3f80) + (texPos >>> 25))];
+                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
+                            / 384;
+                    if (light > 127) {
+                        light = 127;
+                    }
+                    texPos += dtexPos;
+                    dest[offset] = Rasterizer.hslToRgb[(hsl1 >> 8 & 0xff80) | light];
+                    if (Rasterizer.saveDepth) {
+                        t.depth[offset] = z1;
+                    }
+                    z1 += z2;
+                    offset++;
+                    i_58_ = i_60_;
+                    i_59_ = i_61_;
+                    t1 += t4;
+                    t2 += t5;
+                    t3 += t6;
+                    i_57_ = t3 >> 14;
+                    if (i_57_ != 0) {
+                        i_60_ = t1 / i_57_;
+                        i_61_ = t2 / i_57_;
+                    } else {
+                        i_60_ = 0;
+                        i_61_ = 0;
+                    }
+                    texPos = (i_58_ << 18) + i_59_;
+                    dtexPos = (i_60_ - i_58_ >> 3 << 18) + (i_61_ - i_59_ >> 3);
+                } while (--n > 0);
+            }
+            n = x2 - x1 & 7;
+            if (n > 0) {
+                do {
+                    if ((n & 3) == 0) {
+                        hsl1 += dhsl;
+                    }
+                    rgb = texels[texelPos(t, (texPos & 0x3f80) + (texPos >>> 25))];
+                    light = ((hsl1 >> 8 & 0x7f) << 1) * (((rgb >> 16 & 0xff) + (rgb >> 8 & 0xff) + (rgb & 0xff)) / 3)
+                            / 384;
+                    if (light > 127) {
+                        light = 127;
+                    }
+                    texPos += dtexPos;
+                    dest[offset] = Rasterizer.hslToRgb[(hsl1 >> 8 & 0xff80) | light];
+                    if (Rasterizer.saveDepth) {
+                        t.depth[offset] = z1;
+                    }
+                    z1 += z2;
+                    offset++;
+                } while (--n > 0);
+            }
+        }
+        texels = dest = null;
+    }
+
+    private static int texelPos(Target t, int defaultIndex) {
+        int x = (defaultIndex & 127) >> t.mipMapLevel;
+        int y = (defaultIndex >> 7) >> t.mipMapLevel;
+        return x + (y << (7 - t.mipMapLevel));
+    }
+}
@@ -0,0 +1,103 @@
+package com.client;
+
+import com.client.definitions.FloorOverlayDefinition;
+import com.client.definitions.FloorUnderlayDefinition;
+
+/**
+ * The tile blend as it was before {@link ObjectManager#sumUnderlays} replaced it, summing each field of each definition
+ * separately. Kept unchanged as the reference the new blend is tested and benchmarked against.
+ */
+final class LegacyTileBlend {
+
+	private final int regionSizeX;
+	private final int regionSizeY;
+	private final int[] hues;
+	private final int[] saturations;
+	private final int[] luminances;
+	private final int[] chromas;
+	private final int[] anIntArray128;
+
+	LegacyTileBlend(int regionSizeX, int regionSizeY) {
+		this.regionSizeX = regionSizeX;
+		this.regionSizeY = regionSizeY;
+		hues = new int[regionSizeY];
+		saturations = new int[regionSizeY];
+		luminances = new int[regionSizeY];
+		chromas = new int[regionSizeY];
+		anIntArray128 = new int[regionSizeY];
+	}
+
+	/**
+	 * Averages the underlay colours over the 10 by 10 tiles from 4 before to 5 after each tile of a plane.
+	 */
+	int[][] blendUnderlays(byte[][] underlays) {
+		int[][] paletteIndices = new int[regionSizeX][regionSizeY];
+		for (int z = 0; z < regionSizeY; z++) {
+			hues[z] = 0;
+			saturations[z] = 0;
+			luminances[z] = 0;
+			chromas[z] = 0;
+			anIntArray128[z] = 0;
+		}
+		for (int x = -5; x < regionSizeX; x++) {
+			for (int z = 0; z < regionSizeY; z++) {
+				int xForwardOffset = x + 5;
+				if (xForwardOffset < regionSizeX) {
+					int underlayId = underlays[xForwardOffset][z] & 0xff;
+					if (underlayId > 0) {
+						FloorUnderlayDefinition flo = FloorUnderlayDefinition.underlays[underlayId - 1];
+						hues[z] += flo.blendHue;
+						saturations[z] += flo.saturation;
+						luminances[z] += flo.luminance;
+						chromas[z] += flo.blendHueMultiplier;
+						anIntArray128[z]++;
+					}
+				}
+				int xBackwardOffset = x - 5;
+				if (xBackwardOffset >= 0) {
+					int underlayId = underlays[xBackwardOffset][z] & 0xff;
+					if (underlayId > 0) {
+						FloorUnderlayDefinition flo_1 = FloorUnderlayDefinition.underlays[underlayId - 1];
+						hues[z] -= flo_1.blendHue;
+						saturations[z] -= flo_1.saturation;
+						luminances[z] -= flo_1.luminance;
+						chromas[z] -= flo_1.blendHueMultiplier;
+						anIntArray128[z]--;
+					}
+				}
+			}
+			if (x >= 0) {
+				int hueSum = 0;
+				int saturationSum = 0;
+				int lightnessSum = 0;
+				int dividerSum = 0;
+				int sizeSum = 0;
+				for (int z = -5; z < regionSizeY; z++) {
+					int zForwardOffset = z + 5;
+					if (zForwardOffset < regionSizeY) {
+						hueSum += hues[zForwardOffset];
+						saturationSum += saturations[zForwardOffset];
+						lightnessSum += luminances[zForwardOffset];
+						dividerSum += chromas[zForwardOffset];
+						sizeSum += anIntArray128[zForwardOffset];
+					}
+					int zBackwardOffset = z - 5;
+					if (zBackwardOffset >= 0) {
+						hueSum -= hues[zBackwardOffset];
+						saturationSum -= saturations[zBackwardOffset];
+						lightnessSum -= luminances[zBackwardOffset];
+						dividerSum -= chromas[zBackwardOffset];
+						sizeSum -= anIntArray128[zBackwardOffset];
+					}
+					if (z >= 0 && dividerSum > 0 && sizeSum > 0) {
+						int hue = (hueSum * 256) / dividerSum;
+						int sat = saturationSum / sizeSum;
+						int light = lightnessSum / sizeSum;
+						paletteIndices[x][z] = FloorOverlayDefinition.hsl24to16(hue, sat, light);
+					}
+				}
+			}
+		}
+		return paletteIndices;
+	}
+}
@@ -0,0 +1,175 @@
+package com.client;
+
+/**
+ * The search {@code Client.doWalkTo} ran before {@link PathFinder} took it over, kept unchanged as the reference
+ * the path finder is tested against. Like the client it searches with {@code bigX} and {@code bigY} as the queue and
+ * then writes the route over them.
+ */
+final class LegacyWalk {
+
+	final int[] bigX = new int[4000];
+	final int[] bigY = new int[4000];
+	private final int[][] anIntArrayArray901 = new int[104][104];
+	private final int[][] anIntArrayArray825 = new int[104][104];
+	/** 1 when the last route ends at the closest tile rather than at the target. */
+	int anInt1264;
+
+	/**
+	 * Takes the arguments {@link PathFinder#findRoute} does, in the same order.
+	 * @return how many turning points were written to {@link #bigX} and {@link #bigY}, or -1 if there is no route
+	 */
+	int findRoute(CollisionMap map, int localX, int localY, int k2, int i2, int i1, int j, int k, int k1, int l1,
+			boolean flag) {
+		byte byte0 = 104;
+		byte byte1 = 104;
+		for (int l2 = 0; l2 < byte0; l2++) {
+			for (int i3 = 0; i3 < byte1; i3++) {
+				anIntArrayArray901[l2][i3] = 0;
+				anIntArrayArray825[l2][i3] = 0x5f5e0ff;
+			}
+		}
+		int j3 = localX;
+		int k3 = localY;
+		anIntArrayArray901[localX][localY] = 99;
+		anIntArrayArray825[localX][localY] = 0;
+		int l3 = 0;
+		int i4 = 0;
+		bigX[l3] = localX;
+		bigY[l3++] = localY;
+		boolean flag1 = false;
+		int j4 = bigX.length;
+		int ai[][] = map.anIntArrayArray294;
+		while (i4 != l3) {
+			j3 = bigX[i4];
+			k3 = bigY[i4];
+			i4 = (i4 + 1) % j4;
+			if (j3 == k2 && k3 == i2) {
+				flag1 = true;
+				break;
+			}
+			if (i1 != 0) {
+				if ((i1 < 5 || i1 == 10) && map.method219(k2, j3, k3, j, i1 - 1, i2)) {
+					flag1 = true;
+					break;
+				}
+				if (i1 < 10 && map.method220(k2, i2, k3, i1 - 1, j, j3)) {
+					flag1 = true;
+					break;
+				}
+			}
+			if (k1 != 0 && k != 0 && map.method221(i2, k2, j3, k, l1, k1, k3)) {
+				flag1 = true;
+				break;
+			}
+			int l4 = anIntArrayArray825[j3][k3] + 1;
+			if (j3 > 0 && anIntArrayArray901[j3 - 1][k3] == 0 && (ai[j3 - 1][k3] & 0x1280108) == 0) {
+				bigX[l3] = j3 - 1;
+				bigY[l3] = k3;
+				l3 = (l3 + 1) % j4;
+				anIntArrayArray901[j3 - 1][k3] = 2;
+				anIntArrayArray825[j3 - 1][k3] = l4;
+			}
+			if (j3 < byte0 - 1 && anIntArrayArray901[j3 + 1][k3] == 0 && (ai[j3 + 1][k3] & 0x1280180) == 0) {
+				bigX[l3] = j3 + 1;
+				bigY[l3] = k3;
+				l3 = (l3 + 1) % j4;
+				anIntArrayArray901[j3 + 1][k3] = 8;
+				anIntArrayArray825[j3 + 1][k3] = l4;
+			}
+			if (k3 > 0 && anIntArrayArray901[j3][k3 - 1] == 0 && (ai[j3][k3 - 1] & 0x1280102) == 0) {
+				bigX[l3] = j3;
+				bigY[l3] = k3 - 1;
+				l3 = (l3 + 1) % j4;
+				anIntArrayArray901[j3][k3 - 1] = 1;
+				anIntArrayArray825[j3][k3 - 1] = l4;
+			}
+			if (k3 < byte1 - 1 && anIntArrayArray901[j3][k3 + 1] == 0 && (ai[j3][k3 + 1] & 0x1280120) == 0) {
+				bigX[l3] = j3;
+				bigY[l3] = k3 + 1;
+				l3 = (l3 + 1) % j4;
+				anIntArrayArray901[j3][k3 + 1] = 4;
+				anIntArrayArray825[j3][k3 + 1] = l4;
+			}
+			if (j3 > 0 && k3 > 0 && anIntArrayArray901[j3 - 1][k3 - 1] == 0 && (ai[j3 - 1][k3 - 1] & 0x128010e) == 0
+					&& (ai[j3 - 1][k3] & 0x1280108) == 0 && (ai[j3][k3 - 1] & 0x1280102) == 0) {
+				bigX[l3] = j3 - 1;
+				bigY[l3] = k3 - 1;
+				l3 = (l3 + 1) % j4;
+				anIntArrayArray901[j3 - 1][k3 - 1] = 3;
+				anIntArrayArray825[j3 - 1][k3 - 1] = l4;
+			}
+			if (j3 < byte0 - 1 && k3 > 0 && anIntArrayArray901[j3 + 1][k3 - 1] == 0
+					&& (ai[j3 + 1][k3 - 1] & 0x1280183) == 0 && (ai[j3 + 1][k3] & 0x1280180) == 0
+					&& (ai[j3][k3 - 1] & 0x1280102) == 0) {
+				bigX[l3] = j3 + 1;
+				bigY[l3] = k3 - 1;
+				l3 = (l3 + 1) % j4;
+				anIntArrayArray901[j3 + 1][k3 - 1] = 9;
+				anIntArrayArray825[j3 + 1][k3 - 1] = l4;
+			}
+			if (j3 > 0 && k3 < byte1 - 1 && anIntArrayArray901[j3 - 1][k3 + 1] == 0
+					&& (ai[j3 - 1][k3 + 1] & 0x1280138) == 0 && (ai[j3 - 1][k3] & 0x1280108) == 0
+					&& (ai[j3][k3 + 1] & 0x1280120) == 0) {
+				bigX[l3] = j3 - 1;
+				bigY[l3] = k3 + 1;
+				l3 = (l3 + 1) % j4;
+				anIntArrayArray901[j3 - 1][k3 + 1] = 6;
+				anIntArrayArray825[j3 - 1][k3 + 1] = l4;
+			}
+			if (j3 < byte0 - 1 && k3 < byte1 - 1 && anIntArrayArray901[j3 + 1][k3 + 1] == 0
+					&& (ai[j3 + 1][k3 + 1] & 0x12801e0) == 0 && (ai[j3 + 1][k3] & 0x1280180) == 0
+					&& (ai[j3][k3 + 1] & 0x1280120) == 0) {
+				bigX[l3] = j3 + 1;
+				bigY[l3] = k3 + 1;
+				l3 = (l3 + 1) % j4;
+				anIntArrayArray901[j3 + 1][k3 + 1] = 12;
+				anIntArrayArray825[j3 + 1][k3 + 1] = l4;
+			}
+		}
+		anInt1264 = 0;
+		if (!flag1) {
+			if (flag) {
+				int i5 = 100;
+				for (int k5 = 1; k5 < 2; k5++) {
+					for (int i6 = k2 - k5; i6 <= k2 + k5; i6++) {
+						for (int l6 = i2 - k5; l6 <= i2 + k5; l6++)
+							if (i6 >= 0 && l6 >= 0 && i6 < 104 && l6 < 104 && anIntArrayArray825[i6][l6] < i5) {
+								i5 = anIntArrayArray825[i6][l6];
+								j3 = i6;
+								k3 = l6;
+								anInt1264 = 1;
+								flag1 = true;
+							}
+
+					}
+
+					if (flag1)
+						break;
+				}
+
+			}
+			if (!flag1)
+				return -1;
+		}
+		i4 = 0;
+		bigX[i4] = j3;
+		bigY[i4++] = k3;
+		int l5;
+		for (int j5 = l5 = anIntArrayArray901[j3][k3]; j3 != localX || k3 != localY; j5 = anIntArrayArray901[j3][k3]) {
+			if (j5 != l5) {
+				l5 = j5;
+				bigX[i4] = j3;
+				bigY[i4++] = k3;
+			}
+			if ((j5 & 2) != 0)
+				j3++;
+			else if ((j5 & 8) != 0)
+				j3--;
+			if ((j5 & 1) != 0)
+				k3++;
+			else if ((j5 & 4) != 0)
+				k3--;
+		}
+		return i4;
+	}
+}
@@ -0,0 +1,213 @@
+package com.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import com.client.definitions.FloorUnderlayDefinition;
+
+/**
+ * Terrain map squares and the floor config they are blended with, for the tile blend tests and benchmarks.
+ *
+ * When {@code -Dcache.dir} names a cache, the floor config and the terrain squares listed in its map index are read
+ * from it. Otherwise the terrain squares come from the custom maps, {@link Configuration#CUSTOM_MAP_DIRECTORY} or
+ * {@code -Dcustom.maps.dir}, and since the repository holds no floor config the underlay colours are made up from a
+ * seed, one for each underlay id the squares use. When neither has any squares, {@link #isEmpty()} and callers skip.
+ *
+ * The floor config is static, so it is loaded once for the whole run.
+ */
+final class MapSquares {
+
+	/** Squares read from a cache at most, the whole map index takes a long time to blend. */
+	private static final int CACHE_SQUARES = 64;
+	/** Where the four squares of a scene start, a region centred on a square boundary as the client loads them. */
+	private static final int[] SQUARE_OFFSETS = { -24, 40 };
+
+	private static MapSquares loaded;
+
+	/** Where the squares were read from. */
+	final String source;
+	private final List<byte[]> terrain;
+
+	private MapSquares(String source, List<byte[]> terrain) {
+		this.source = source;
+		this.terrain = terrain;
+	}
+
+	static synchronized MapSquares load() {
+		if (loaded == null) {
+			try {
+				String cacheDir = System.getProperty("cache.dir");
+				if (cacheDir != null && new File(cacheDir, "main_file_cache.idx4").exists())
+					loaded = fromCache(new File(cacheDir));
+				else
+					loaded = fromCustomMaps(
+							Paths.get(System.getProperty("custom.maps.dir", Configuration.CUSTOM_MAP_DIRECTORY)));
+			} catch (IOException e) {
+				throw new IllegalStateException("Map squares could not be read", e);
+			}
+		}
+		return loaded;
+	}
+
+	boolean isEmpty() {
+		return terrain.isEmpty();
+	}
+
+	/**
+	 * @return how many scenes of four squares there are, each square is in one scene at most
+	 */
+	int scenes() {
+		return terrain.size() / 4;
+	}
+
+	/**
+	 * Decodes the terrain of a scene: four squares, split across the middle of the scene the way a region's squares are.
+	 */
+	ObjectManager scene(int scene) {
+		ObjectManager objectManager = new ObjectManager(new byte[4][104][104], new int[4][105][105]);
+		for (int i = 0; i < 4; i++) {
+			int x = SQUARE_OFFSETS[i & 1];
+			int y = SQUARE_OFFSETS[i >> 1];
+			objectManager.method180(terrain.get(scene * 4 + i), y, x, 0, 0, null);
+		}
+		return objectManager;
+	}
+
+	private static MapSquares fromCache(File dir) throws IOException {
+		List<byte[]> terrain = new ArrayList<>();
+		try (RandomAccessFile data = new RandomAccessFile(new File(dir, "main_file_cache.dat"), "r");
+				RandomAccessFile archiveIndex = new RandomAccessFile(new File(dir, "main_file_cache.idx0"), "r");
+				RandomAccessFile mapIndex = new RandomAccessFile(new File(dir, "main_file_cache.idx4"), "r")) {
+			Decompressor archives = new Decompressor(data, archiveIndex, 1);
+			Decompressor maps = new Decompressor(data, mapIndex, 5);
+			com.client.Stream flo = new com.client.Stream(
+					new StreamLoader(archives.read(2), "config").getArchiveData("flo.dat"));
+			int[] colours = new int[flo.readUShort()];
+			for (int i = 0; i < colours.length; i++) {
+				for (int opcode; (opcode = flo.readUnsignedByte()) != 0;)
+					if (opcode == 1)
+						colours[i] = flo.read3Bytes();
+			}
+			defineUnderlays(colours);
+			com.client.Stream index = new com.client.Stream(
+					new StreamLoader(archives.read(5), "versionlist").getArchiveData("map_index"));
+			int regions = index.readUShort();
+			for (int i = 0; i < regions && terrain.size() < CACHE_SQUARES; i++) {
+				index.readUShort();
+				int terrainFile = index.readUShort();
+				index.readUShort();
+				byte[] square = maps.read(terrainFile);
+				if (square != null)
+					terrain.add(gunzip(square));
+			}
+		}
+		return new MapSquares(dir.getPath(), terrain);
+	}
+
+	private static MapSquares fromCustomMaps(Path dir) throws IOException {
+		if (!Files.isDirectory(dir))
+			return withMadeUpUnderlays(dir.toString(), Collections.emptyList());
+		List<Path> files;
+		try (Stream<Path> walk = Files.walk(dir)) {
+			files = walk.filter(path -> path.toString().endsWith(".gz")).sorted().collect(Collectors.toList());
+		}
+		List<byte[]> terrain = new ArrayList<>();
+		for (Path file : files) {
+			byte[] square = gunzip(Files.readAllBytes(file));
+			// The object files of each area sit beside its terrain
+			if (highestUnderlay(square) >= 0)
+				terrain.add(square);
+		}
+		return withMadeUpUnderlays(dir.toString(), terrain);
+	}
+
+	private static MapSquares withMadeUpUnderlays(String source, List<byte[]> terrain) {
+		int count = 64;
+		for (byte[] square : terrain)
+			count = Math.max(count, highestUnderlay(square));
+		Random random = new Random(count);
+		int[] colours = new int[count];
+		for (int i = 0; i < count; i++)
+			colours[i] = random.nextInt(0x1000000);
+		defineUnderlays(colours);
+		return new MapSquares(source, terrain);
+	}
+
+	/**
+	 * Defines an underlay for each colour, converted by the definitions themselves and copied into the blend tables as
+	 * {@link FloorUnderlayDefinition#unpackConfig} does. The config is not read through unpackConfig because reading a
+	 * colour looks at {@link Client#snowVisible}, and Client needs a display to load.
+	 */
+	private static void defineUnderlays(int[] colours) {
+		try {
+			Constructor<FloorUnderlayDefinition> constructor = FloorUnderlayDefinition.class.getDeclaredConstructor();
+			Method readColour = FloorUnderlayDefinition.class.getDeclaredMethod("method262", int.class);
+			Method buildBlendTables = FloorUnderlayDefinition.class.getDeclaredMethod("buildBlendTables");
+			constructor.setAccessible(true);
+			readColour.setAccessible(true);
+			buildBlendTables.setAccessible(true);
+			FloorUnderlayDefinition[] underlays = new FloorUnderlayDefinition[colours.length];
+			for (int i = 0; i < colours.length; i++) {
+				underlays[i] = constructor.newInstance();
+				readColour.invoke(underlays[i], colours[i]);
+			}
+			FloorUnderlayDefinition.underlays = underlays;
+			buildBlendTables.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Underlays could not be defined", e);
+		}
+	}
+
+	/**
+	 * Walks the tiles of a square the way {@link ObjectManager#method180} reads them.
+	 * @return the highest underlay id used, 0 if none, or -1 if the data is not a terrain square
+	 */
+	private static int highestUnderlay(byte[] square) {
+		int highest = 0;
+		int offset = 0;
+		for (int tile = 0; tile < 4 * 64 * 64; tile++) {
+			while (true) {
+				if (offset >= square.length)
+					return -1;
+				int opcode = square[offset++] & 0xff;
+				if (opcode == 0)
+					break;
+				if (opcode == 1) {
+					offset++;
+					break;
+				}
+				if (opcode <= 49)
+					offset++;
+				else if (opcode > 81)
+					highest = Math.max(highest, opcode - 81);
+			}
+		}
+		return offset == square.length ? highest : -1;
+	}
+
+	private static byte[] gunzip(byte[] data) throws IOException {
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+			byte[] buffer = new byte[4096];
+			for (int read; (read = in.read(buffer)) != -1;)
+				out.write(buffer, 0, read);
+			return out.toByteArray();
+		}
+	}
+}
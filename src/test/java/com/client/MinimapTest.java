@@ -0,0 +1,373 @@
+package com.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.client.definitions.ObjectDefinition;
+
+/**
+ * Checks that {@link Minimap#update} redraws the tiles around changed objects to the same pixels and icons as
+ * drawing the whole plane again with {@link Minimap#draw}, on a region of made up ground, walls, objects and
+ * map scenes of every reach.
+ */
+class MinimapTest {
+
+	/** Width, height, x offset and y offset of each map scene. The last reaches further than the cap. */
+	private static final int[][] SCENES = { { 4, 4, 0, 0 }, { 11, 9, 0, 0 }, { 20, 16, 3, 2 }, { 30, 30, 0, 0 },
+			{ 3, 40, 1, 0 }, { 7, 5, 9, 6 }, { 90, 20, 0, 0 } };
+	private static final int HUGE_SCENE = SCENES.length - 1;
+	private static final int OBJECTS = 40;
+	/** The object after the others, whose scene is the huge one. */
+	private static final int HUGE_OBJECT = OBJECTS;
+
+	private Background[] mapScenes;
+	private final Sprite[] mapFunctions = { new Sprite(1, 1), new Sprite(1, 1), new Sprite(1, 1) };
+	private WorldController worldController;
+	private byte[][][] byteGroundArray;
+	private Sprite image;
+
+	@BeforeEach
+	void defineObjects() throws IOException {
+		Random random = new Random(317);
+		mapScenes = new Background[SCENES.length];
+		StreamLoader graphics = archive(mapScenes());
+		for (int i = 0; i < SCENES.length; i++)
+			mapScenes[i] = new Background(graphics, "mapscene", i);
+		decodeObjects(archive(locs(random)));
+	}
+
+	@Test
+	void updatesMatchDrawingThePlaneAgain() {
+		Random random = new Random(318);
+		for (int round = 0; round < 10; round++) {
+			Minimap minimap = region(random);
+			minimap.draw(0);
+			for (int i = 0; i < 40; i++) {
+				int changes = random.nextInt(4) == 0 ? 2 + random.nextInt(3) : 1;
+				for (int change = 0; change < changes; change++)
+					change(minimap, random, 1 + random.nextInt(102), 1 + random.nextInt(102));
+				assertTrue(minimap.update(0));
+				assertSameAsDrawn(minimap, "round " + round + " update " + i);
+			}
+		}
+	}
+
+	@Test
+	void updatesNextToTheBorderMatchDrawingThePlaneAgain() {
+		Random random = new Random(319);
+		for (int round = 0; round < 10; round++) {
+			Minimap minimap = region(random);
+			minimap.draw(0);
+			for (int i = 0; i < 40; i++) {
+				int x = random.nextBoolean() ? 1 + random.nextInt(4) : 98 + random.nextInt(5);
+				int y = random.nextBoolean() ? 1 + random.nextInt(4) : 98 + random.nextInt(5);
+				change(minimap, random, x, y);
+				minimap.update(0);
+				assertSameAsDrawn(minimap, "round " + round + " update " + i);
+			}
+		}
+	}
+
+	@Test
+	void scenesReachingPastTheCapMatchDrawingThePlaneAgain() {
+		Random random = new Random(320);
+		assertTrue(Minimap.sceneReach(ObjectDefinition.forID(HUGE_OBJECT),
+				mapScenes[HUGE_SCENE]) > Minimap.MAX_SCENE_REACH);
+		Minimap minimap = region(random);
+		minimap.draw(0);
+		for (int i = 0; i < 10; i++) {
+			int x = 1 + random.nextInt(102);
+			int y = 1 + random.nextInt(102);
+			add(random, 0, x, y, HUGE_OBJECT);
+			minimap.tileChanged(0, x, y, 0);
+			minimap.update(0);
+			assertSameAsDrawn(minimap, "put down " + i);
+			remove(0, x, y);
+			minimap.tileChanged(0, x, y, 0);
+			minimap.update(0);
+			assertSameAsDrawn(minimap, "taken away " + i);
+			change(minimap, random, 1 + random.nextInt(102), 1 + random.nextInt(102));
+			minimap.update(0);
+			assertSameAsDrawn(minimap, "after " + i);
+		}
+	}
+
+	@Test
+	void sceneReachCoversEveryPixelDrawn() {
+		image = new Sprite(512, 512);
+		for (int id = 0; id <= HUGE_OBJECT; id++) {
+			ObjectDefinition definition = ObjectDefinition.forID(id);
+			if (definition.mapSceneId < 0)
+				continue;
+			Background scene = mapScenes[definition.mapSceneId];
+			worldController = new WorldController(new int[4][105][105]);
+			byteGroundArray = new byte[4][104][104];
+			worldController.method280(0, 0, 52, new Renderable() {
+			}, (byte) 22, key(id, 22, 0, 52, 52), 52);
+			Arrays.fill(image.myPixels, 0);
+			new Minimap(worldController, byteGroundArray, image, mapScenes, mapFunctions, fixedColours()).draw(0);
+			int reach = Minimap.sceneReach(definition, scene);
+			for (int pixel = 0; pixel < image.myPixels.length; pixel++) {
+				if (image.myPixels[pixel] == 0)
+					continue;
+				int tileX = Math.floorDiv(pixel % 512 - 48, 4);
+				int tileY = 103 - Math.floorDiv(pixel / 512 - 48, 4);
+				assertTrue(Math.abs(tileX - 52) <= reach && Math.abs(tileY - 52) <= reach,
+						"object " + id + " drew on tile " + tileX + ", " + tileY + " beyond its reach of " + reach);
+			}
+		}
+	}
+
+	private void assertSameAsDrawn(Minimap minimap, String message) {
+		Sprite drawnImage = new Sprite(512, 512);
+		Minimap drawn = new Minimap(worldController, byteGroundArray, drawnImage, mapScenes, mapFunctions,
+				fixedColours());
+		drawn.draw(0);
+		assertArrayEquals(drawnImage.myPixels, image.myPixels, message);
+		assertEquals(drawn.iconCount, minimap.iconCount, message);
+		for (int i = 0; i < drawn.iconCount; i++) {
+			assertSame(drawn.icons[i], minimap.icons[i], message);
+			assertEquals(drawn.iconX[i], minimap.iconX[i], message);
+			assertEquals(drawn.iconY[i], minimap.iconY[i], message);
+		}
+	}
+
+	/**
+	 * Builds a region with ground on every tile, a few tiles hidden or bridged from the plane above, and objects
+	 * with and without map scenes on both planes.
+	 */
+	private Minimap region(Random random) {
+		worldController = new WorldController(new int[4][105][105]);
+		byteGroundArray = new byte[4][104][104];
+		for (int x = 0; x < 104; x++) {
+			for (int y = 0; y < 104; y++) {
+				for (int z = 0; z < 2; z++) {
+					int colour = random.nextInt(8) == 0 ? 0 : random.nextInt(0x1000000);
+					worldController.addTile(z, x, y, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, colour, 0);
+				}
+				if (random.nextInt(30) == 0)
+					byteGroundArray[0][x][y] = 0x10;
+				if (random.nextInt(20) == 0)
+					byteGroundArray[1][x][y] = 8;
+			}
+		}
+		for (int i = 0; i < 1500; i++)
+			add(random, random.nextInt(2), 1 + random.nextInt(102), 1 + random.nextInt(102), random.nextInt(OBJECTS));
+		image = new Sprite(512, 512);
+		return new Minimap(worldController, byteGroundArray, image, mapScenes, mapFunctions, fixedColours());
+	}
+
+	/**
+	 * Takes away the objects on a tile of either plane or adds one, as spawned objects do, and tells the minimap.
+	 */
+	private void change(Minimap minimap, Random random, int x, int y) {
+		int z = random.nextInt(3) == 0 ? 1 : 0;
+		if (random.nextBoolean())
+			remove(z, x, y);
+		else
+			add(random, z, x, y, random.nextInt(OBJECTS));
+		minimap.tileChanged(z, x, y, 0);
+	}
+
+	private void remove(int z, int x, int y) {
+		worldController.method291(x, z, y, (byte) -119);
+		worldController.method293(z, x, y);
+		worldController.method294(z, y, x);
+	}
+
+	/**
+	 * Adds a wall, an object or a ground decoration.
+	 */
+	private void add(Random random, int z, int x, int y, int id) {
+		int orientation = random.nextInt(4);
+		Renderable renderable = new Renderable() {
+		};
+		switch (random.nextInt(3)) {
+		case 0:
+			int type = random.nextInt(4);
+			worldController.method282(orientation, renderable, key(id, type, orientation, x, y), y,
+					(byte) ((orientation << 6) + type), x, null, 0, 0, z);
+			break;
+		case 1:
+			type = random.nextBoolean() ? 10 : 9;
+			ObjectDefinition definition = ObjectDefinition.forID(id);
+			worldController.method284(key(id, type, orientation, x, y), (byte) ((orientation << 6) + type), 0,
+					definition.yLength, renderable, definition.xLength, z, 0, y, x);
+			break;
+		default:
+			worldController.method280(z, 0, y, renderable, (byte) ((orientation << 6) + 22),
+					key(id, 22, orientation, x, y), x);
+			break;
+		}
+	}
+
+	/**
+	 * A key as {@link ObjectManager} makes them, every other object without actions.
+	 */
+	private static long key(int id, int type, int orientation, int x, int y) {
+		long key = (long) (orientation << 20 | type << 14 | (y << 7 | x) + 0x40000000);
+		if (id % 2 == 0)
+			key |= ~0x7fffffffffffffffL;
+		return key | (long) id << 32;
+	}
+
+	/**
+	 * The wall and door colours are picked again each time a plane is drawn, they are fixed here so a whole plane
+	 * drawn again can be compared with one updated.
+	 */
+	private static Random fixedColours() {
+		return new Random() {
+			@Override
+			public double nextDouble() {
+				return 0.5;
+			}
+		};
+	}
+
+	/**
+	 * Object definitions with footprints of one to three tiles, scenes, no scenes and map functions, and then
+	 * {@link #HUGE_OBJECT}.
+	 */
+	private static Map<String, byte[]> locs(Random random) throws IOException {
+		ByteArrayOutputStream index = new ByteArrayOutputStream();
+		DataOutputStream idx = new DataOutputStream(index);
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		DataOutputStream dat = new DataOutputStream(data);
+		int count = OBJECTS + 1;
+		idx.writeShort(count);
+		dat.writeShort(0);
+		for (int id = 0; id < count; id++) {
+			int start = dat.size();
+			dat.writeByte(14);
+			dat.writeByte(1 + random.nextInt(3));
+			dat.writeByte(15);
+			dat.writeByte(1 + random.nextInt(3));
+			int scene = id >= OBJECTS ? HUGE_SCENE : random.nextInt(HUGE_SCENE + 3) - 3;
+			if (scene >= 0) {
+				dat.writeByte(68);
+				dat.writeShort(scene);
+			}
+			if (random.nextInt(4) == 0) {
+				dat.writeByte(82);
+				dat.writeShort(random.nextInt(3));
+			}
+			dat.writeByte(0);
+			idx.writeShort(dat.size() - start);
+		}
+		Map<String, byte[]> files = new LinkedHashMap<>();
+		files.put("loc.dat", data.toByteArray());
+		files.put("loc.idx", index.toByteArray());
+		return files;
+	}
+
+	/**
+	 * Decodes every definition as {@link ObjectDefinition#forID} does and caches it. They are not decoded through
+	 * forID because decoding one looks at {@link Client#debugModels}, and Client needs a display to load.
+	 */
+	static void decodeObjects(StreamLoader archive) {
+		ObjectDefinition.unpackConfig(archive);
+		Buffer data = new Buffer(archive.getArchiveData("loc.dat"));
+		try {
+			Constructor<ObjectDefinition> constructor = ObjectDefinition.class.getDeclaredConstructor();
+			Method setDefaults = ObjectDefinition.class.getDeclaredMethod("setDefaults");
+			Field cache = ObjectDefinition.class.getDeclaredField("cache");
+			constructor.setAccessible(true);
+			setDefaults.setAccessible(true);
+			cache.setAccessible(true);
+			ObjectDefinition[] definitions = (ObjectDefinition[]) cache.get(null);
+			for (int id = 0; id < definitions.length; id++) {
+				ObjectDefinition definition = constructor.newInstance();
+				data.currentOffset = ObjectDefinition.streamIndices[id];
+				definition.type = id;
+				setDefaults.invoke(definition);
+				definition.readValues(data);
+				definitions[id] = definition;
+			}
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Objects could not be defined", e);
+		}
+	}
+
+	/**
+	 * The map scene sprites, in the layout {@link Background} reads, of random colours with holes.
+	 */
+	private static Map<String, byte[]> mapScenes() throws IOException {
+		Random random = new Random(SCENES.length);
+		ByteArrayOutputStream index = new ByteArrayOutputStream();
+		DataOutputStream idx = new DataOutputStream(index);
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		DataOutputStream dat = new DataOutputStream(data);
+		idx.writeShort(128);
+		idx.writeShort(128);
+		idx.writeByte(8);
+		for (int i = 1; i < 8; i++) {
+			int colour = 1 + random.nextInt(0xffffff);
+			idx.writeByte(colour >> 16);
+			idx.writeShort(colour);
+		}
+		dat.writeShort(0);
+		for (int[] scene : SCENES) {
+			idx.writeByte(scene[2]);
+			idx.writeByte(scene[3]);
+			idx.writeShort(scene[0]);
+			idx.writeShort(scene[1]);
+			idx.writeByte(0);
+			for (int pixel = 0; pixel < scene[0] * scene[1]; pixel++)
+				dat.writeByte(random.nextInt(8));
+		}
+		Map<String, byte[]> files = new LinkedHashMap<>();
+		files.put("mapscene.dat", data.toByteArray());
+		files.put("index.dat", index.toByteArray());
+		return files;
+	}
+
+	/**
+	 * An archive of files stored as they are, in the layout {@link StreamLoader} reads.
+	 */
+	static StreamLoader archive(Map<String, byte[]> files) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream archive = new DataOutputStream(out);
+		int length = 8 + files.size() * 10;
+		for (byte[] file : files.values())
+			length += file.length;
+		// The same size twice marks an archive that is not compressed as a whole
+		write3Bytes(archive, length - 6);
+		write3Bytes(archive, length - 6);
+		archive.writeShort(files.size());
+		for (Map.Entry<String, byte[]> file : files.entrySet()) {
+			int hash = 0;
+			for (char c : file.getKey().toUpperCase().toCharArray())
+				hash = hash * 61 + c - 32;
+			archive.writeInt(hash);
+			write3Bytes(archive, file.getValue().length);
+			write3Bytes(archive, file.getValue().length);
+		}
+		for (byte[] file : files.values())
+			archive.write(file);
+		StreamLoader loader = new StreamLoader(out.toByteArray(), "test");
+		// Files the loader has unpacked are stored as they are, the rest are compressed one by one
+		loader.aBoolean732 = true;
+		return loader;
+	}
+
+	private static void write3Bytes(DataOutputStream out, int value) throws IOException {
+		out.writeByte(value >> 16);
+		out.writeShort(value);
+	}
+}
@@ -0,0 +1,133 @@
+package com.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a pooled merge builds the same model {@code new Model(models)} does, including when its slot last
+ * held a model with other optional arrays.
+ */
+class ModelPoolTest {
+
+    private static final int FRAMES = 500;
+    private static final int MERGES_PER_FRAME = 3;
+
+    @Test
+    void pooledMergesMatchNewMerges() {
+        Random random = new Random(18);
+        for (int frame = 0; frame < FRAMES; frame++) {
+            ModelPool.reset();
+            for (int i = 0; i < MERGES_PER_FRAME; i++) {
+                Model[] models = { randomModel(random), randomModel(random) };
+                Model expected = new Model(models);
+                Model actual = ModelPool.merge(models);
+                assertMergedAlike(expected, actual);
+            }
+            assertEquals(MERGES_PER_FRAME, ModelPool.used());
+        }
+    }
+
+    private static Model randomModel(Random random) {
+        Model model = new Model(true);
+        int vertices = 3 + random.nextInt(40);
+        int triangles = 1 + random.nextInt(60);
+        int textures = random.nextInt(4);
+        model.verticesCount = vertices;
+        model.trianglesCount = triangles;
+        model.texturesCount = textures;
+        model.verticesX = ints(random, vertices, -250, 250);
+        model.verticesY = ints(random, vertices, -500, 100);
+        model.verticesZ = ints(random, vertices, -250, 250);
+        model.trianglesX = ints(random, triangles, 0, vertices);
+        model.trianglesY = ints(random, triangles, 0, vertices);
+        model.trianglesZ = ints(random, triangles, 0, vertices);
+        model.colorsX = ints(random, triangles, 0, 65536);
+        model.colorsY = ints(random, triangles, 0, 65536);
+        model.colorsZ = ints(random, triangles, 0, 65536);
+        model.texturesX = shorts(random, textures, vertices);
+        model.texturesY = shorts(random, textures, vertices);
+        model.texturesZ = shorts(random, textures, vertices);
+        model.colors = shorts(random, triangles, Short.MAX_VALUE);
+        if (random.nextBoolean()) {
+            model.types = ints(random, triangles, 0, 4);
+            model.textures = new byte[triangles];
+            for (int i = 0; i < triangles; i++)
+                model.textures[i] = (byte) (textures == 0 ? -1 : random.nextInt(textures));
+        }
+        if (random.nextBoolean())
+            model.alphas = ints(random, triangles, 0, 256);
+        if (random.nextBoolean())
+            model.materials = shorts(random, triangles, 50);
+        if (random.nextBoolean())
+            model.face_render_priorities = new byte[triangles];
+        else
+            model.face_priority = random.nextInt(10);
+        if (random.nextInt(4) == 0)
+            model.verticesParticle = ints(random, vertices, 0, 3);
+        return model;
+    }
+
+    private static void assertMergedAlike(Model expected, Model actual) {
+        int vertices = expected.verticesCount;
+        int triangles = expected.trianglesCount;
+        int textures = expected.texturesCount;
+        assertEquals(vertices, actual.verticesCount);
+        assertEquals(triangles, actual.trianglesCount);
+        assertEquals(textures, actual.texturesCount);
+        assertArrayEquals(expected.verticesX, Arrays.copyOf(actual.verticesX, vertices));
+        assertArrayEquals(expected.verticesY, Arrays.copyOf(actual.verticesY, vertices));
+        assertArrayEquals(expected.verticesZ, Arrays.copyOf(actual.verticesZ, vertices));
+        assertArrayEquals(expected.trianglesX, Arrays.copyOf(actual.trianglesX, triangles));
+        assertArrayEquals(expected.trianglesY, Arrays.copyOf(actual.trianglesY, triangles));
+        assertArrayEquals(expected.trianglesZ, Arrays.copyOf(actual.trianglesZ, triangles));
+        assertArrayEquals(expected.colorsX, Arrays.copyOf(actual.colorsX, triangles));
+        assertArrayEquals(expected.colorsY, Arrays.copyOf(actual.colorsY, triangles));
+        assertArrayEquals(expected.colorsZ, Arrays.copyOf(actual.colorsZ, triangles));
+        assertArrayEquals(expected.colors, Arrays.copyOf(actual.colors, triangles));
+        assertArrayEquals(expected.texturesX, Arrays.copyOf(actual.texturesX, textures));
+        assertArrayEquals(expected.texturesY, Arrays.copyOf(actual.texturesY, textures));
+        assertArrayEquals(expected.texturesZ, Arrays.copyOf(actual.texturesZ, textures));
+        assertArrayEquals(expected.types, actual.types == null ? null : Arrays.copyOf(actual.types, triangles));
+        assertArrayEquals(expected.alphas, actual.alphas == null ? null : Arrays.copyOf(actual.alphas, triangles));
+        assertArrayEquals(expected.materials, actual.materials == null ? null : Arrays.copyOf(actual.materials, triangles));
+        assertArrayEquals(expected.textures, actual.textures == null ? null : Arrays.copyOf(actual.textures, triangles));
+        assertArrayEquals(expected.face_render_priorities,
+                actual.face_render_priorities == null ? null : Arrays.copyOf(actual.face_render_priorities, triangles));
+        assertArrayEquals(expected.verticesParticle, actual.verticesParticle);
+        if (expected.verticesParticleLayers != null) {
+            assertEquals(vertices, actual.verticesParticleLayers.length);
+            for (int i = 0; i < vertices; i++)
+                assertArrayEquals(expected.verticesParticleLayers[i], actual.verticesParticleLayers[i]);
+        } else {
+            assertNull(actual.verticesParticleLayers);
+        }
+        assertEquals(expected.face_priority, actual.face_priority);
+        assertEquals(expected.modelHeight, actual.modelHeight);
+        assertEquals(expected.maximumYVertex, actual.maximumYVertex);
+        assertEquals(expected.XYZMag, actual.XYZMag);
+        assertEquals(expected.diagonal3DAboveOrigin, actual.diagonal3DAboveOrigin);
+        assertNull(actual.aClass33Array1425);
+        assertNull(actual.vertexGroups);
+        assertNull(actual.faceGroups);
+    }
+
+    private static int[] ints(Random random, int length, int from, int to) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++)
+            values[i] = from + random.nextInt(to - from);
+        return values;
+    }
+
+    private static short[] shorts(Random random, int length, int bound) {
+        short[] values = new short[length];
+        for (int i = 0; i < length; i++)
+            values[i] = (short) random.nextInt(bound);
+        return values;
+    }
+}
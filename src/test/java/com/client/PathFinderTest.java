@@ -0,0 +1,218 @@
+package com.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link PathFinder} finds the routes the search it replaced in {@code Client.doWalkTo} found, kept as
+ * {@link LegacyWalk}: the same length, the same turning points and the same closest tile flag, on collision maps built
+ * with {@link CollisionMap}'s own wall, object and floor methods.
+ */
+class PathFinderTest {
+
+	private static final int TILE = 0;
+	private static final int WALL = 1;
+	private static final int OBJECT = 2;
+
+	private final LegacyWalk legacy = new LegacyWalk();
+	private final PathFinder pathFinder = new PathFinder();
+	private final int[] routeX = new int[4000];
+	private final int[] routeY = new int[4000];
+
+	@Test
+	void tileClicksMatchTheOldSearch() {
+		assertClicksMatch(317, TILE);
+	}
+
+	@Test
+	void wallTargetsMatchTheOldSearch() {
+		assertClicksMatch(318, WALL);
+	}
+
+	@Test
+	void objectTargetsMatchTheOldSearch() {
+		assertClicksMatch(319, OBJECT);
+	}
+
+	@Test
+	void closestTilesMatchTheOldSearch() {
+		Random random = new Random(320);
+		int closest = 0;
+		for (int round = 0; round < 200; round++) {
+			CollisionMap map = loadedMap();
+			int targetX = 10 + random.nextInt(84);
+			int targetY = 10 + random.nextInt(84);
+			// Block the target, as clicking a tree or a rock does, so the search has to settle for a tile beside it
+			map.method212(random.nextBoolean(), 1 + random.nextInt(2), 1 + random.nextInt(2), targetX, targetY,
+					random.nextInt(4));
+			scatter(map, random, 40);
+			int[] click = click(random, random.nextInt(3), targetX, targetY);
+			click[9] = 1;
+			assertSameRoute(map, click, "round " + round);
+			if (pathFinder.closestTile())
+				closest++;
+		}
+		assertTrue(closest > 50, "only " + closest + " closest tile routes");
+	}
+
+	@Test
+	void repeatedClicksMatchTheOldSearch() {
+		Random random = new Random(321);
+		for (int round = 0; round < 20; round++) {
+			CollisionMap map = loadedMap();
+			scatter(map, random, 300);
+			for (int i = 0; i < 50; i++) {
+				int[] click = click(random, random.nextInt(3), 1 + random.nextInt(102), 1 + random.nextInt(102));
+				for (int repeat = 0; repeat < 3; repeat++)
+					assertSameRoute(map, click, "round " + round + " click " + i + " repeat " + repeat);
+			}
+		}
+	}
+
+	@Test
+	void editsBetweenRepeatedClicksAreSeen() {
+		Random random = new Random(322);
+		for (int round = 0; round < 20; round++) {
+			CollisionMap map = loadedMap();
+			List<int[]> edits = scatter(map, random, 300);
+			for (int i = 0; i < 50; i++) {
+				int[] click = click(random, random.nextInt(3), 1 + random.nextInt(102), 1 + random.nextInt(102));
+				assertSameRoute(map, click, "round " + round + " click " + i);
+				if (random.nextBoolean())
+					undo(map, edits.remove(random.nextInt(edits.size())));
+				else
+					edits.add(edit(map, random));
+				assertSameRoute(map, click, "round " + round + " click " + i + " after an edit");
+			}
+		}
+	}
+
+	@Test
+	void blockingTheLastRouteChangesIt() {
+		CollisionMap map = loadedMap();
+		int[] click = { 10, 10, 30, 10, 0, 0, 0, 0, 0, 0 };
+		int[] open = Arrays.copyOf(routeY, assertSameRoute(map, click, "open map"));
+		map.method213(10, 20);
+		int[] blocked = Arrays.copyOf(routeY, assertSameRoute(map, click, "blocked"));
+		assertFalse(Arrays.equals(open, blocked), "the route went through the blocked tile");
+		map.method218(10, 20);
+		assertArrayEquals(open, Arrays.copyOf(routeY, assertSameRoute(map, click, "unblocked")));
+	}
+
+	private void assertClicksMatch(long seed, int kind) {
+		Random random = new Random(seed);
+		int found = 0;
+		int clicks = 0;
+		for (int round = 0; round < 20; round++) {
+			CollisionMap map = loadedMap();
+			scatter(map, random, 300);
+			for (int i = 0; i < 100; i++, clicks++) {
+				int[] click = click(random, kind, 1 + random.nextInt(102), 1 + random.nextInt(102));
+				if (assertSameRoute(map, click, "round " + round + " click " + i) > 0 && !pathFinder.closestTile())
+					found++;
+			}
+		}
+		assertTrue(found > clicks / 4, "only " + found + " of " + clicks + " clicks reached their target");
+	}
+
+	/**
+	 * @return the length of the route
+	 */
+	private int assertSameRoute(CollisionMap map, int[] click, String message) {
+		int expected = legacy.findRoute(map, click[0], click[1], click[2], click[3], click[4], click[5], click[6],
+				click[7], click[8], click[9] == 1);
+		int length = pathFinder.findRoute(map, click[0], click[1], click[2], click[3], click[4], click[5], click[6],
+				click[7], click[8], click[9] == 1, routeX, routeY);
+		message += " " + Arrays.toString(click);
+		assertEquals(expected, length, message);
+		if (length > 0) {
+			assertArrayEquals(Arrays.copyOf(legacy.bigX, length), Arrays.copyOf(routeX, length), message);
+			assertArrayEquals(Arrays.copyOf(legacy.bigY, length), Arrays.copyOf(routeY, length), message);
+		}
+		assertEquals(legacy.anInt1264 == 1, pathFinder.closestTile(), message);
+		return length;
+	}
+
+	/**
+	 * A click as {@code doWalkTo} is given it: start x and y, target x and y, type plus one, orientation, size x,
+	 * size y, surroundings and whether to settle for the closest tile.
+	 */
+	private static int[] click(Random random, int kind, int targetX, int targetY) {
+		int[] click = new int[10];
+		click[0] = Math.max(1, Math.min(102, targetX + random.nextInt(61) - 30));
+		click[1] = Math.max(1, Math.min(102, targetY + random.nextInt(61) - 30));
+		click[2] = targetX;
+		click[3] = targetY;
+		if (kind == WALL) {
+			click[4] = 1 + random.nextInt(10);
+			click[5] = random.nextInt(4);
+		} else if (kind == OBJECT) {
+			click[6] = 1 + random.nextInt(3);
+			click[7] = 1 + random.nextInt(3);
+			click[8] = random.nextInt(16);
+		}
+		click[9] = random.nextInt(4) == 0 ? 1 : 0;
+		return click;
+	}
+
+	/**
+	 * @return a collision map whose tiles all have terrain, as the client's are once a region is loaded
+	 */
+	private static CollisionMap loadedMap() {
+		CollisionMap map = new CollisionMap();
+		ObjectManager.markTerrainLoaded(map, 0, 0, 104);
+		return map;
+	}
+
+	private static List<int[]> scatter(CollisionMap map, Random random, int count) {
+		List<int[]> edits = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+			edits.add(edit(map, random));
+		return edits;
+	}
+
+	/**
+	 * Adds a wall, object or blocked floor tile at random.
+	 * @return what was added, to take it away again with {@link #undo}
+	 */
+	private static int[] edit(CollisionMap map, Random random) {
+		int x = 1 + random.nextInt(102);
+		int y = 1 + random.nextInt(102);
+		int orientation = random.nextInt(4);
+		boolean blocksProjectiles = random.nextBoolean();
+		int kind = random.nextInt(3);
+		if (kind == 0) {
+			int group = random.nextInt(4);
+			map.method211(y, orientation, x, group, blocksProjectiles);
+			return new int[] { kind, x, y, orientation, blocksProjectiles ? 1 : 0, group };
+		}
+		if (kind == 1) {
+			int sizeX = 1 + random.nextInt(3);
+			int sizeY = 1 + random.nextInt(3);
+			map.method212(blocksProjectiles, sizeX, sizeY, x, y, orientation);
+			return new int[] { kind, x, y, orientation, blocksProjectiles ? 1 : 0, sizeX, sizeY };
+		}
+		map.method213(y, x);
+		return new int[] { kind, x, y };
+	}
+
+	private static void undo(CollisionMap map, int[] edit) {
+		int x = edit[1];
+		int y = edit[2];
+		if (edit[0] == 0)
+			map.method215(edit[3], edit[5], edit[4] == 1, x, y);
+		else if (edit[0] == 1)
+			map.method216(edit[3], edit[5], x, y, edit[6], edit[4] == 1);
+		else
+			map.method218(y, x);
+	}
+}
@@ -0,0 +1,359 @@
+package com.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a scene slid by whole chunks and built again where {@link SceneWindow} says matches the scene a full
+ * build of the same region makes: the tiles, objects, collision, heights and flags, shading, occluder flags and
+ * clusters. The region walks over made up map squares of random terrain, flags, bridges and objects of one to
+ * three tiles of every type.
+ */
+class SceneWindowTest {
+
+	private static final int OBJECTS = 30;
+	private static final int UNDERLAYS = 40;
+	/** The map squares the region walks over, from x 40 and y 50 on. */
+	private static final int SQUARES = 4;
+	private static final int[] TYPES = { 0, 1, 2, 3, 4, 5, 9, 10, 11, 12, 13, 17, 18, 22 };
+
+	private final Map<Integer, byte[]> terrain = new HashMap<>();
+	private final Map<Integer, byte[]> objects = new HashMap<>();
+
+	@BeforeEach
+	void defineRegion() throws IOException {
+		Random random = new Random(21);
+		MapSquares.load();
+		MinimapTest.decodeObjects(MinimapTest.archive(locs(random)));
+		ObjectManager.lowMem = false;
+		WorldController.lowMem = false;
+		for (int x = 40; x < 40 + SQUARES; x++) {
+			for (int y = 50; y < 50 + SQUARES; y++) {
+				terrain.put(x << 8 | y, terrain(random));
+				objects.put(x << 8 | y, objects(random));
+			}
+		}
+	}
+
+	@Test
+	void slidScenesMatchFullBuilds() {
+		Random random = new Random(22);
+		Scene scene = new Scene();
+		int regionX = 330;
+		int regionY = 410;
+		scene.build(regionX, regionY);
+		for (int move = 0; move < 30; move++) {
+			int chunksX = random.nextInt(5) == 0 ? 0 : random.nextInt(7) - 3;
+			int chunksY = random.nextInt(5) == 0 ? 0 : random.nextInt(7) - 3;
+			if (move % 10 == 9)
+				chunksX = regionX < 336 ? 13 : -13;
+			chunksX = Math.max(326, Math.min(345, regionX + chunksX)) - regionX;
+			chunksY = Math.max(406, Math.min(425, regionY + chunksY)) - regionY;
+			regionX += chunksX;
+			regionY += chunksY;
+			boolean slid = scene.window.slide(chunksX * 8, chunksY * 8, scene.worldController, scene.collisionMaps,
+					scene.flags, scene.heights);
+			if (!slid)
+				scene.window.invalidate();
+			boolean[][] chunks = scene.build(regionX, regionY);
+			if (Math.abs(chunksX) <= 3 && Math.abs(chunksY) <= 3)
+				assertNotNull(chunks, "move " + move + " built the whole scene");
+			List<Class47[]> clusters = clusters();
+			Scene expected = new Scene();
+			expected.build(regionX, regionY);
+			assertSameScene(expected, scene, "move " + move + " by " + chunksX + ", " + chunksY);
+			assertSameTree(clusters(), clusters, "move " + move + " clusters");
+		}
+	}
+
+	@Test
+	void movesOfPartChunksAreNotSlid() {
+		Scene scene = new Scene();
+		scene.build(330, 410);
+		assertTrue(!scene.window.slide(4, 0, scene.worldController, scene.collisionMaps, scene.flags,
+				scene.heights));
+		assertTrue(!scene.window.slide(0, 13 * 8, scene.worldController, scene.collisionMaps, scene.flags,
+				scene.heights));
+		assertTrue(scene.window.slide(-8, 16, scene.worldController, scene.collisionMaps, scene.flags,
+				scene.heights));
+	}
+
+	/**
+	 * A scene with its own heights, flags, collision maps and window, built as {@link Client#method22} builds them.
+	 */
+	private final class Scene {
+		final int[][][] heights = new int[4][105][105];
+		final byte[][][] flags = new byte[4][104][104];
+		final WorldController worldController = new WorldController(heights);
+		final CollisionMap[] collisionMaps = new CollisionMap[4];
+		final SceneWindow window = new SceneWindow();
+
+		Scene() {
+			for (int i = 0; i < 4; i++)
+				collisionMaps[i] = new CollisionMap();
+		}
+
+		boolean[][] build(int regionX, int regionY) {
+			int baseX = (regionX - 6) * 8;
+			int baseY = (regionY - 6) * 8;
+			List<Integer> coordinates = new ArrayList<>();
+			for (int x = (regionX - 6) / 8; x <= (regionX + 6) / 8; x++) {
+				for (int y = (regionY - 6) / 8; y <= (regionY + 6) / 8; y++)
+					coordinates.add(x << 8 | y);
+			}
+			int[] mapCoordinates = new int[coordinates.size()];
+			byte[][] terrainData = new byte[coordinates.size()][];
+			for (int i = 0; i < mapCoordinates.length; i++) {
+				mapCoordinates[i] = coordinates.get(i);
+				terrainData[i] = terrain.get(mapCoordinates[i]);
+			}
+			RegionDecoder decoder = RegionDecoder.start(terrainData, mapCoordinates, baseX, baseY, regionX, regionY,
+					null, heights, !window.hasKeptChunks());
+			boolean[][] chunks = window.prepare(worldController, collisionMaps);
+			ObjectManager objectManager = decoder.finish(collisionMaps, flags, heights);
+			objectManager.useSceneWindow(window, chunks);
+			for (int coordinate : mapCoordinates)
+				objectManager.method190((coordinate >> 8) * 64 - baseX, collisionMaps, (coordinate & 0xff) * 64 - baseY,
+						worldController, objects.get(coordinate));
+			objectManager.createRegionScene(collisionMaps, worldController, true);
+			worldController.method275(0);
+			window.finished();
+			return chunks;
+		}
+	}
+
+	private static void assertSameScene(Scene expected, Scene actual, String message) {
+		Ground[][][] expectedGrounds = grounds(expected.worldController);
+		Ground[][][] actualGrounds = grounds(actual.worldController);
+		for (int z = 0; z < 4; z++) {
+			for (int x = 0; x < 104; x++) {
+				assertArrayEquals(expected.heights[z][x], actual.heights[z][x], message + " heights " + z + ", " + x);
+				assertArrayEquals(expected.flags[z][x], actual.flags[z][x], message + " flags " + z + ", " + x);
+				assertArrayEquals(expected.collisionMaps[z].anIntArrayArray294[x],
+						actual.collisionMaps[z].anIntArrayArray294[x], message + " collision " + z + ", " + x);
+				for (int y = 0; y < 104; y++)
+					assertSameTree(expectedGrounds[z][x][y], actualGrounds[z][x][y],
+							message + " tile " + z + ", " + x + ", " + y);
+			}
+			for (int x = 0; x < 105; x++) {
+				assertArrayEquals(expected.window.shading[z][x], actual.window.shading[z][x],
+						message + " shading " + z + ", " + x);
+				assertArrayEquals(expected.window.occlusion[z][x], actual.window.occlusion[z][x],
+						message + " occluders " + z + ", " + x);
+			}
+		}
+	}
+
+	/**
+	 * Compares the fields of two objects and of the objects they hold, leaving out the linked list fields.
+	 */
+	private static void assertSameTree(Object expected, Object actual, String message) {
+		if (expected == null || actual == null) {
+			assertTrue(expected == actual, message + ": " + expected + " but was " + actual);
+			return;
+		}
+		Class<?> type = expected.getClass();
+		assertEquals(type, actual.getClass(), message);
+		if (type.isArray()) {
+			assertEquals(Array.getLength(expected), Array.getLength(actual), message + " length");
+			for (int i = 0; i < Array.getLength(expected); i++) {
+				if (type.getComponentType().isPrimitive())
+					assertEquals(Array.get(expected, i), Array.get(actual, i), message + "[" + i + "]");
+				else
+					assertSameTree(Array.get(expected, i), Array.get(actual, i), message + "[" + i + "]");
+			}
+			return;
+		}
+		if (expected instanceof Collection) {
+			assertSameTree(((Collection<?>) expected).toArray(), ((Collection<?>) actual).toArray(), message);
+			return;
+		}
+		if (expected instanceof Number || expected instanceof Boolean || expected instanceof String) {
+			assertEquals(expected, actual, message);
+			return;
+		}
+		for (; type != NodeSub.class && type != Node.class && type != Object.class; type = type.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()))
+					continue;
+				field.setAccessible(true);
+				try {
+					assertSameTree(field.get(expected), field.get(actual), message + "." + field.getName());
+				} catch (IllegalAccessException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+	}
+
+	private static Ground[][][] grounds(WorldController worldController) {
+		try {
+			Field grounds = WorldController.class.getDeclaredField("groundArray");
+			grounds.setAccessible(true);
+			return (Ground[][][]) grounds.get(worldController);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return the clusters of each plane, which are static
+	 */
+	private static List<Class47[]> clusters() {
+		try {
+			Field counts = WorldController.class.getDeclaredField("anIntArray473");
+			Field clusters = WorldController.class.getDeclaredField("aClass47ArrayArray474");
+			counts.setAccessible(true);
+			clusters.setAccessible(true);
+			List<Class47[]> planes = new ArrayList<>();
+			for (int plane = 0; plane < 4; plane++) {
+				Class47[] plane47 = new Class47[((int[]) counts.get(null))[plane]];
+				System.arraycopy(((Class47[][]) clusters.get(null))[plane], 0, plane47, 0, plane47.length);
+				planes.add(plane47);
+			}
+			return planes;
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * A terrain square: ground of made up underlays and heights on the lowest plane, a few tiles of upper planes,
+	 * blocked, bridged and hidden tiles.
+	 */
+	private static byte[] terrain(Random random) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int z = 0; z < 4; z++) {
+			for (int x = 0; x < 64; x++) {
+				for (int y = 0; y < 64; y++) {
+					if (random.nextInt(15) == 0)
+						out.write(49 + 1);
+					if (z == 1 && random.nextInt(20) == 0)
+						out.write(49 + 2);
+					if (random.nextInt(40) == 0)
+						out.write(49 + (random.nextBoolean() ? 8 : 0x10));
+					if (z == 0 ? random.nextInt(10) != 0 : random.nextInt(6) == 0)
+						out.write(81 + 1 + random.nextInt(UNDERLAYS));
+					if (random.nextBoolean()) {
+						out.write(0);
+					} else {
+						out.write(1);
+						out.write(random.nextInt(60));
+					}
+				}
+			}
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * An object square, as {@link ObjectManager#method190} reads them: objects of every type on each plane.
+	 */
+	private static byte[] objects(Random random) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(out);
+		int previousId = -1;
+		Set<Integer> walls = new HashSet<>();
+		for (int id = 0; id < OBJECTS; id++) {
+			int count = random.nextInt(60);
+			if (count == 0)
+				continue;
+			writeSmart(data, id - previousId);
+			previousId = id;
+			int[] positions = new int[count];
+			for (int i = 0; i < count; i++)
+				positions[i] = (random.nextInt(4) == 0 ? 1 + random.nextInt(3) : 0) << 12 | random.nextInt(64) << 6
+						| random.nextInt(64);
+			Arrays.sort(positions);
+			int previousPosition = 0;
+			for (int position : positions) {
+				writeSmart(data, position - previousPosition + 1);
+				previousPosition = position;
+				int type = TYPES[random.nextInt(TYPES.length)];
+				// A tile holds one wall, so a map places no more
+				if (type <= 3 && !walls.add(position))
+					type = 10;
+				data.writeByte(type << 2 | random.nextInt(4));
+			}
+			writeSmart(data, 0);
+		}
+		writeSmart(data, 0);
+		return out.toByteArray();
+	}
+
+	private static void writeSmart(DataOutputStream out, int value) throws IOException {
+		if (value < 128)
+			out.writeByte(value);
+		else
+			out.writeShort(value + 32768);
+	}
+
+	/**
+	 * Object definitions of one to three tiles each way, animated through their children so they need no models,
+	 * some not solid, not blocking projectiles, occluding, without shading or with actions.
+	 */
+	private static Map<String, byte[]> locs(Random random) throws IOException {
+		ByteArrayOutputStream index = new ByteArrayOutputStream();
+		DataOutputStream idx = new DataOutputStream(index);
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		DataOutputStream dat = new DataOutputStream(data);
+		idx.writeShort(OBJECTS);
+		dat.writeShort(0);
+		for (int id = 0; id < OBJECTS; id++) {
+			int start = dat.size();
+			dat.writeByte(14);
+			dat.writeByte(1 + random.nextInt(3));
+			dat.writeByte(15);
+			dat.writeByte(1 + random.nextInt(3));
+			if (random.nextInt(5) == 0)
+				dat.writeByte(17);
+			if (random.nextInt(5) == 0)
+				dat.writeByte(18);
+			if (random.nextInt(3) == 0)
+				dat.writeByte(23);
+			if (random.nextInt(4) == 0)
+				dat.writeByte(64);
+			if (random.nextInt(4) == 0) {
+				dat.writeByte(28);
+				dat.writeByte(random.nextInt(16));
+			}
+			if (random.nextBoolean()) {
+				dat.writeByte(19);
+				dat.writeByte(1);
+			}
+			dat.writeByte(77);
+			dat.writeShort(0xffff);
+			dat.writeShort(0xffff);
+			dat.writeByte(0);
+			dat.writeShort(id);
+			dat.writeByte(0);
+			idx.writeShort(dat.size() - start);
+		}
+		Map<String, byte[]> files = new LinkedHashMap<>();
+		files.put("loc.dat", data.toByteArray());
+		files.put("loc.idx", index.toByteArray());
+		return files;
+	}
+}
@@ -0,0 +1,74 @@
+package com.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.client.Rasterizer.Target;
+
+/**
+ * Checks that the span functions draw exactly what the scanline functions they replaced drew: the same pixels, the
+ * same depths and the same pixel counts.
+ */
+class TexturedSpanTest {
+
+    private static final int TRIANGLES = 4000;
+
+    @Test
+    void texturedSpansMatchTheOldScanlines() {
+        TexturedSpans spans = new TexturedSpans(317, TRIANGLES);
+        for (boolean restrictEdges : new boolean[] { true, false }) {
+            Target expected = TexturedSpans.target(restrictEdges, 0);
+            Target actual = TexturedSpans.target(restrictEdges, 0);
+            spans.drawLegacyTextured(expected);
+            spans.drawTextured(actual);
+            assertDrawnAlike(expected, actual);
+        }
+    }
+
+    @Test
+    void materializedSpansMatchTheOldScanlines() {
+        TexturedSpans.fillPalette();
+        TexturedSpans spans = new TexturedSpans(377, TRIANGLES);
+        boolean saveDepth = Rasterizer.saveDepth;
+        try {
+            for (boolean depth : new boolean[] { true, false }) {
+                Rasterizer.saveDepth = depth;
+                for (boolean restrictEdges : new boolean[] { true, false }) {
+                    Target expected = TexturedSpans.target(restrictEdges, 0);
+                    Target actual = TexturedSpans.target(restrictEdges, 0);
+                    spans.drawLegacyMaterialized(expected);
+                    spans.drawMaterialized(actual);
+                    assertDrawnAlike(expected, actual);
+                }
+            }
+        } finally {
+            Rasterizer.saveDepth = saveDepth;
+        }
+    }
+
+    @Test
+    void rowsAboveTheTopOffsetAreSkipped() {
+        TexturedSpans.fillPalette();
+        TexturedSpans spans = new TexturedSpans(474, TRIANGLES / 4);
+        int topOffset = TexturedSpans.HEIGHT / 2 * TexturedSpans.WIDTH;
+        Target expected = TexturedSpans.target(true, topOffset);
+        Target actual = TexturedSpans.target(true, topOffset);
+        spans.drawLegacyTextured(expected);
+        spans.drawTextured(actual);
+        assertDrawnAlike(expected, actual);
+
+        expected = TexturedSpans.target(true, topOffset);
+        actual = TexturedSpans.target(true, topOffset);
+        spans.drawLegacyMaterialized(expected);
+        spans.drawMaterialized(actual);
+        assertDrawnAlike(expected, actual);
+    }
+
+    private static void assertDrawnAlike(Target expected, Target actual) {
+        assertArrayEquals(expected.pixels, actual.pixels);
+        assertArrayEquals(expected.depth, actual.depth);
+        assertEquals(expected.pixelCount, actual.pixelCount);
+    }
+}
@@ -0,0 +1,197 @@
+package com.client;
+
+import java.util.Random;
+
+import com.client.Rasterizer.Target;
+
+/**
+ * A fixed set of textured triangle rows, generated from a seed, that can be drawn through the current span functions
+ * and through {@link LegacyScanlines}. Each triangle is a run of rows stepped the way the triangle functions step them,
+ * with its texture, steps, mipmap level and transparency set once, so the spans see what they see in a frame.
+ */
+final class TexturedSpans {
+
+    static final int WIDTH = 512;
+    static final int HEIGHT = 334;
+    /** Rows drawn per triangle. */
+    static final int ROWS = 16;
+
+    private final int[] texels = new int[128 * 128];
+    private final int triangles;
+
+    private final boolean[] opaque;
+    private final int[] mipMapLevels;
+    private final int[] shadeSteps;
+    private final int[] uSteps;
+    private final int[] vSteps;
+    private final int[] wSteps;
+    private final float[] depthSteps;
+
+    private final int[] offsets;
+    private final int[] lefts;
+    private final int[] rights;
+    private final int[] shades;
+    private final int[] hsls;
+    private final int[] hslEnds;
+    private final int[] us;
+    private final int[] vs;
+    private final int[] ws;
+    private final float[] depths;
+
+    TexturedSpans(long seed, int triangles) {
+        this.triangles = triangles;
+        Random random = new Random(seed);
+        for (int i = 0; i < texels.length; i++) {
+            // About one texel in eight is transparent
+            texels[i] = random.nextInt(8) == 0 ? 0 : random.nextInt(0x1000000);
+        }
+        opaque = new boolean[triangles];
+        mipMapLevels = new int[triangles];
+        shadeSteps = new int[triangles];
+        uSteps = new int[triangles];
+        vSteps = new int[triangles];
+        wSteps = new int[triangles];
+        depthSteps = new float[triangles];
+        int rows = triangles * ROWS;
+        offsets = new int[rows];
+        lefts = new int[rows];
+        rights = new int[rows];
+        shades = new int[rows];
+        hsls = new int[rows];
+        hslEnds = new int[rows];
+        us = new int[rows];
+        vs = new int[rows];
+        ws = new int[rows];
+        depths = new float[rows];
+        for (int triangle = 0; triangle < triangles; triangle++) {
+            int distance = 200 + random.nextInt(2800);
+            opaque[triangle] = random.nextBoolean();
+            mipMapLevels[triangle] = random.nextInt(4);
+            shadeSteps[triangle] = random.nextInt(64) - 32;
+            uSteps[triangle] = (random.nextInt(2049) - 1024) * distance;
+            vSteps[triangle] = (random.nextInt(2049) - 1024) * distance;
+            wSteps[triangle] = random.nextInt((distance << 14) / 32) - (distance << 14) / 64;
+            depthSteps[triangle] = random.nextFloat() * 2 - 1;
+            int y = random.nextInt(HEIGHT - ROWS);
+            int left = random.nextInt(WIDTH + 80) - 40;
+            int right = left + random.nextInt(200) - 10;
+            int u = (random.nextInt(17500) - 500) * distance;
+            int v = random.nextInt(16384) * distance;
+            int w = distance << 14;
+            int rowU = (random.nextInt(257) - 128) * distance;
+            int rowV = (random.nextInt(257) - 128) * distance;
+            int rowW = random.nextInt(1 << 14) - (1 << 13);
+            for (int row = 0; row < ROWS; row++) {
+                int index = triangle * ROWS + row;
+                offsets[index] = (y + row) * WIDTH;
+                lefts[index] = left;
+                rights[index] = right;
+                shades[index] = random.nextInt(0xff00);
+                hsls[index] = random.nextInt(0x10000) << 8;
+                hslEnds[index] = random.nextInt(0x10000) << 8;
+                us[index] = u;
+                vs[index] = v;
+                ws[index] = w;
+                depths[index] = 50 + random.nextFloat() * 3000;
+                left += random.nextInt(9) - 4;
+                right += random.nextInt(9) - 4;
+                u += rowU;
+                v += rowV;
+                w += rowW;
+            }
+        }
+    }
+
+    /**
+     * Fills {@link Rasterizer#hslToRgb} with fixed colours, so materialized spans draw something other than black
+     * without loading the palette.
+     */
+    static void fillPalette() {
+        Random random = new Random(0x10000);
+        for (int i = 0; i < Rasterizer.hslToRgb.length; i++) {
+            Rasterizer.hslToRgb[i] = random.nextInt(0x1000000);
+        }
+    }
+
+    /**
+     * @param restrictEdges whether spans are clipped to the target, which they are when a triangle crosses its edge
+     * @param topOffset the first pixel drawn, rows starting above it are skipped
+     */
+    static Target target(boolean restrictEdges, int topOffset) {
+        Target t = new Target();
+        t.width = WIDTH;
+        t.height = HEIGHT;
+        t.pixels = new int[WIDTH * HEIGHT];
+        t.depth = new float[WIDTH * HEIGHT];
+        t.bottomY = HEIGHT;
+        t.clipRight = WIDTH - 1;
+        t.lineOffsets = new int[HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            t.lineOffsets[y] = y * WIDTH;
+        }
+        t.topOffset = topOffset;
+        t.centerX = WIDTH / 2;
+        t.centerY = HEIGHT / 2;
+        t.restrictEdges = restrictEdges;
+        return t;
+    }
+
+    void drawTextured(Target t) {
+        for (int triangle = 0; triangle < triangles; triangle++) {
+            t.opaqueTexture = opaque[triangle];
+            t.spanTexels = texels;
+            t.spanShadeStep = shadeSteps[triangle];
+            t.spanUStep = uSteps[triangle];
+            t.spanVStep = vSteps[triangle];
+            t.spanWStep = wSteps[triangle];
+            for (int row = triangle * ROWS; row < (triangle + 1) * ROWS; row++) {
+                int right = t.restrictEdges ? rights[row] : Math.min(rights[row], WIDTH);
+                int left = t.restrictEdges ? lefts[row] : Math.max(lefts[row], 0);
+                Rasterizer.drawTexturedSpan(t, offsets[row], left, right, shades[row], us[row], vs[row], ws[row]);
+            }
+        }
+    }
+
+    void drawLegacyTextured(Target t) {
+        for (int triangle = 0; triangle < triangles; triangle++) {
+            t.opaqueTexture = opaque[triangle];
+            for (int row = triangle * ROWS; row < (triangle + 1) * ROWS; row++) {
+                int right = t.restrictEdges ? rights[row] : Math.min(rights[row], WIDTH);
+                int left = t.restrictEdges ? lefts[row] : Math.max(lefts[row], 0);
+                LegacyScanlines.drawTexturedLine(t, t.pixels, texels, 0, 0, offsets[row], left, right, shades[row],
+                        shadeSteps[triangle], us[row], vs[row], ws[row], uSteps[triangle], vSteps[triangle],
+                        wSteps[triangle]);
+            }
+        }
+    }
+
+    void drawMaterialized(Target t) {
+        for (int triangle = 0; triangle < triangles; triangle++) {
+            t.mipMapLevel = mipMapLevels[triangle];
+            t.spanTexels = texels;
+            t.spanUStep = uSteps[triangle];
+            t.spanVStep = vSteps[triangle];
+            t.spanWStep = wSteps[triangle];
+            t.spanDepthStep = depthSteps[triangle];
+            for (int row = triangle * ROWS; row < (triangle + 1) * ROWS; row++) {
+                int right = t.restrictEdges ? rights[row] : Math.min(rights[row], WIDTH);
+                int left = t.restrictEdges ? lefts[row] : Math.max(lefts[row], 0);
+                Rasterizer.drawMaterializedSpan(t, offsets[row], left, right, hsls[row], hslEnds[row], us[row],
+                        vs[row], ws[row], depths[row]);
+            }
+        }
+    }
+
+    void drawLegacyMaterialized(Target t) {
+        for (int triangle = 0; triangle < triangles; triangle++) {
+            t.mipMapLevel = mipMapLevels[triangle];
+            for (int row = triangle * ROWS; row < (triangle + 1) * ROWS; row++) {
+                int right = t.restrictEdges ? rights[row] : Math.min(rights[row], WIDTH);
+                int left = t.restrictEdges ? lefts[row] : Math.max(lefts[row], 0);
+                LegacyScanlines.drawMaterializedScanline(t, t.pixels, texels, offsets[row], left, right, hsls[row],
+                        hslEnds[row], us[row], vs[row], ws[row], uSteps[triangle], vSteps[triangle], wSteps[triangle],
+                        depths[row], depthSteps[triangle]);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.client.definitions.FloorUnderlayDefinition;
+
+/**
+ * Checks that {@link ObjectManager#sumUnderlays} blends every tile to the colour the blend it replaced gave it.
+ */
+class TileBlendTest {
+
+	private MapSquares squares;
+
+	@BeforeEach
+	void loadFloors() {
+		squares = MapSquares.load();
+	}
+
+	@Test
+	void mapSquaresBlendAsBefore() {
+		assumeTrue(!squares.isEmpty(), "No map squares in " + squares.source);
+		LegacyTileBlend legacy = new LegacyTileBlend(104, 104);
+		for (int scene = 0; scene < squares.scenes(); scene++) {
+			ObjectManager objectManager = squares.scene(scene);
+			for (int plane = 0; plane < 4; plane++)
+				assertArrayEquals(legacy.blendUnderlays(objectManager.underlays[plane]),
+						objectManager.sumUnderlays(plane), "scene " + scene + " plane " + plane);
+		}
+	}
+
+	@Test
+	void randomPlanesBlendAsBefore() {
+		Random random = new Random(317);
+		int defined = Math.min(FloorUnderlayDefinition.underlays.length, 255);
+		LegacyTileBlend legacy = new LegacyTileBlend(104, 104);
+		ObjectManager objectManager = new ObjectManager(new byte[4][104][104], new int[4][105][105]);
+		for (int round = 0; round < 50; round++) {
+			byte[][] plane = objectManager.underlays[round & 3];
+			// Runs of one underlay with holes and edges of no underlay, as maps have
+			int underlay = 0;
+			for (int x = 0; x < 104; x++) {
+				for (int z = 0; z < 104; z++) {
+					if (random.nextInt(12) == 0)
+						underlay = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(defined);
+					plane[x][z] = (byte) underlay;
+				}
+			}
+			assertArrayEquals(legacy.blendUnderlays(plane), objectManager.sumUnderlays(round & 3),
+					"round " + round);
+		}
+	}
+
+	@Test
+	void fullWindowsOfEachUnderlayBlendAsBefore() {
+		LegacyTileBlend legacy = new LegacyTileBlend(104, 104);
+		ObjectManager objectManager = new ObjectManager(new byte[4][104][104], new int[4][105][105]);
+		byte[][] plane = objectManager.underlays[0];
+		for (int id = 1; id <= Math.min(FloorUnderlayDefinition.underlays.length, 255); id++) {
+			for (byte[] column : plane)
+				Arrays.fill(column, (byte) id);
+			assertArrayEquals(legacy.blendUnderlays(plane), objectManager.sumUnderlays(0), "underlay " + id);
+		}
+	}
+
+	@Test
+	void undefinedUnderlaysStillFail() {
+		int undefined = FloorUnderlayDefinition.underlays.length + 1;
+		assumeTrue(undefined < 256, "Every underlay id is defined");
+		ObjectManager objectManager = new ObjectManager(new byte[4][104][104], new int[4][105][105]);
+		objectManager.underlays[0][52][52] = (byte) undefined;
+		assertThrows(ArrayIndexOutOfBoundsException.class, () -> objectManager.sumUnderlays(0));
+	}
+}